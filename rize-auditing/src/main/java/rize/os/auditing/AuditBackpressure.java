@@ -0,0 +1,29 @@
+package rize.os.auditing;
+
+/**
+ * Defines what the {@link AuditLog} does with an event while its queue is full, i.e. while the events are recorded
+ * faster than they can be written to the database. If an {@link AuditEventSpill} is configured, the events are
+ * appended to it before the queue is full, so the strategy only applies once the spill is full, too.
+ *
+ * @see AuditingConfiguration#getBackpressure()
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public enum AuditBackpressure
+{
+    /**
+     * The recording thread waits until there is space in the queue, but at most for the configured block timeout.
+     * If the queue is still full after that, the event is dropped.
+     */
+    BLOCK,
+
+    /**
+     * The event is dropped immediately. The recording thread never waits.
+     */
+    DROP,
+
+    /**
+     * The event is appended to the {@link AuditEventSpill} once the queue is filled beyond the spill threshold, and
+     * dropped if the spill is full, too. Requires a spill. The recording thread never waits for the database.
+     */
+    SPILL
+}
@@ -0,0 +1,69 @@
+package rize.os.auditing;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * The position of the last event of an {@link AuditPage} in the order of the audit queries, i.e. its time and its ID.
+ * <p>
+ * The cursor is passed to clients as an opaque, URL-safe string of its time in microseconds and its ID.
+ *
+ * @param occurredAt The time of the last event.
+ * @param id         The ID of the last event.
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+record AuditCursor(Instant occurredAt, UUID id)
+{
+    private static final int LENGTH = Long.BYTES * 3;
+
+    /**
+     * @return The cursor of the given event.
+     */
+    static AuditCursor of(AuditEvent event)
+    {
+        return new AuditCursor(event.occurredAt(), event.id());
+    }
+
+    /**
+     * @return The cursor as an opaque string.
+     */
+    String encode()
+    {
+        var buffer = ByteBuffer.allocate(LENGTH)
+                .putLong(ChronoUnit.MICROS.between(Instant.EPOCH, occurredAt))
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits());
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * Decodes a cursor from its opaque string.
+     *
+     * @param cursor The string returned by {@link #encode()}.
+     * @return The cursor.
+     * @throws IllegalArgumentException If the string is not a valid cursor.
+     */
+    static AuditCursor decode(String cursor)
+    {
+        byte[] bytes;
+        try
+        {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new IllegalArgumentException("Invalid audit cursor: " + cursor, e);
+        }
+
+        if (bytes.length != LENGTH)
+            throw new IllegalArgumentException("Invalid audit cursor: " + cursor);
+
+        var buffer = ByteBuffer.wrap(bytes);
+        var occurredAt = Instant.EPOCH.plus(buffer.getLong(), ChronoUnit.MICROS);
+        return new AuditCursor(occurredAt, new UUID(buffer.getLong(), buffer.getLong()));
+    }
+}
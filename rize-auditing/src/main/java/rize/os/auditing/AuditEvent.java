@@ -0,0 +1,65 @@
+package rize.os.auditing;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.time.Instant;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * An event of the audit log, e.g. a user that changed a resource of a tenant.
+ * <p>
+ * Each event has a unique ID, which is assigned when the event is created and never changes, so an event that is
+ * written more than once, e.g. when it is replayed after a failure, is only stored once.
+ *
+ * @param id           The unique ID of the event.
+ * @param occurredAt   The time the event occurred at.
+ * @param tenantId     The ID of the tenant the event belongs to.
+ * @param actorId      The ID of the user or system that caused the event.
+ * @param action       The action that has been performed, e.g. {@code user.created}.
+ * @param resourceType The type of the resource the action has been performed on, e.g. {@code user}.
+ * @param resourceId   The ID of the resource the action has been performed on, if any.
+ * @param details      Additional details of the event, e.g. as JSON, if any.
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public record AuditEvent(@NonNull UUID id,
+                         @NonNull Instant occurredAt,
+                         @NonNull String tenantId,
+                         @NonNull String actorId,
+                         @NonNull String action,
+                         @NonNull String resourceType,
+                         @Nullable String resourceId,
+                         @Nullable String details)
+{
+    public AuditEvent
+    {
+        Objects.requireNonNull(id, "The ID of an audit event must not be null");
+        Objects.requireNonNull(occurredAt, "The time of an audit event must not be null");
+        Objects.requireNonNull(tenantId, "The tenant of an audit event must not be null");
+        Objects.requireNonNull(actorId, "The actor of an audit event must not be null");
+        Objects.requireNonNull(action, "The action of an audit event must not be null");
+        Objects.requireNonNull(resourceType, "The resource type of an audit event must not be null");
+    }
+
+    /**
+     * Creates a new event with a random ID that occurred now.
+     *
+     * @param tenantId     The ID of the tenant the event belongs to.
+     * @param actorId      The ID of the user or system that caused the event.
+     * @param action       The action that has been performed.
+     * @param resourceType The type of the resource the action has been performed on.
+     * @param resourceId   The ID of the resource the action has been performed on, if any.
+     * @param details      Additional details of the event, if any.
+     * @return The event.
+     */
+    public static AuditEvent of(@NonNull String tenantId,
+                                @NonNull String actorId,
+                                @NonNull String action,
+                                @NonNull String resourceType,
+                                @Nullable String resourceId,
+                                @Nullable String details)
+    {
+        return new AuditEvent(UUID.randomUUID(), Instant.now(), tenantId, actorId, action, resourceType, resourceId, details);
+    }
+}
@@ -0,0 +1,199 @@
+package rize.os.auditing;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Encodes {@link AuditEvent}s in the binary format of the PostgreSQL {@code COPY} command.
+ * <p>
+ * The fields are encoded straight from the events into a reusable buffer: UUIDs as their 16 bytes, timestamps as
+ * microseconds since 2000-01-01 and strings as UTF-8, without creating an intermediate string or byte array per row.
+ * Whenever the buffer is full, it is handed to the {@link Sink}, e.g. the {@code CopyIn} of the PostgreSQL driver.
+ * <p>
+ * An encoder is not thread-safe, as the buffer is reused for each batch.
+ *
+ * @see PostgresCopyAuditEventWriter
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+final class AuditEventCopyEncoder
+{
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+    private static final long POSTGRES_EPOCH_SECONDS = 946_684_800L;
+    private static final short FIELD_COUNT = 8;
+    private static final int MAX_FIXED_FIELD_SIZE = 20;
+
+    /**
+     * Receives the encoded bytes.
+     */
+    @FunctionalInterface
+    interface Sink
+    {
+        void write(byte[] bytes, int length) throws SQLException;
+    }
+
+    private final byte[] buffer;
+    private int position;
+
+    AuditEventCopyEncoder(int bufferSize)
+    {
+        this.buffer = new byte[Math.max(bufferSize, 64)];
+    }
+
+    /**
+     * Encodes the given events as a complete {@code COPY} stream, including the header and the trailer.
+     *
+     * @param events The events to encode.
+     * @param sink   The sink the encoded bytes are written to.
+     * @throws SQLException If the sink fails.
+     */
+    void encode(List<AuditEvent> events, Sink sink) throws SQLException
+    {
+        position = 0;
+        System.arraycopy(SIGNATURE, 0, buffer, 0, SIGNATURE.length);
+        position = SIGNATURE.length;
+        writeInt(0);
+        writeInt(0);
+
+        for (var event : events)
+        {
+            ensureCapacity(2 + 2 * MAX_FIXED_FIELD_SIZE, sink);
+            writeShort(FIELD_COUNT);
+            writeUuid(event.id());
+            writeTimestamp(event.occurredAt());
+            writeString(event.tenantId(), sink);
+            writeString(event.actorId(), sink);
+            writeString(event.action(), sink);
+            writeString(event.resourceType(), sink);
+            writeString(event.resourceId(), sink);
+            writeString(event.details(), sink);
+        }
+
+        ensureCapacity(2, sink);
+        writeShort((short) -1);
+        flush(sink);
+    }
+
+    private void writeUuid(UUID uuid)
+    {
+        writeInt(16);
+        writeLong(uuid.getMostSignificantBits());
+        writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private void writeTimestamp(Instant instant)
+    {
+        writeInt(8);
+        writeLong((instant.getEpochSecond() - POSTGRES_EPOCH_SECONDS) * 1_000_000L + instant.getNano() / 1_000);
+    }
+
+    private void writeString(String value, Sink sink) throws SQLException
+    {
+        ensureCapacity(4, sink);
+        if (value == null)
+        {
+            writeInt(-1);
+            return;
+        }
+
+        writeInt(utf8Length(value));
+        int length = value.length();
+        for (int i = 0; i < length; i++)
+        {
+            ensureCapacity(4, sink);
+            char c = value.charAt(i);
+            if (c < 0x80)
+                buffer[position++] = (byte) c;
+            else if (c < 0x800)
+            {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+            else if (Character.isSurrogate(c))
+            {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1)))
+                {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+                }
+                else
+                    buffer[position++] = '?';
+            }
+            else
+            {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * Computes the length of the given string in UTF-8 the same way it is encoded, i.e. with a single byte for each
+     * unpaired surrogate.
+     */
+    static int utf8Length(String value)
+    {
+        int length = value.length();
+        int bytes = 0;
+        for (int i = 0; i < length; i++)
+        {
+            char c = value.charAt(i);
+            if (c < 0x80)
+                bytes++;
+            else if (c < 0x800)
+                bytes += 2;
+            else if (Character.isSurrogate(c))
+            {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1)))
+                {
+                    bytes += 4;
+                    i++;
+                }
+                else
+                    bytes++;
+            }
+            else
+                bytes += 3;
+        }
+
+        return bytes;
+    }
+
+    private void writeShort(short value)
+    {
+        buffer[position++] = (byte) (value >> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeInt(int value)
+    {
+        buffer[position++] = (byte) (value >> 24);
+        buffer[position++] = (byte) (value >> 16);
+        buffer[position++] = (byte) (value >> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeLong(long value)
+    {
+        writeInt((int) (value >> 32));
+        writeInt((int) value);
+    }
+
+    private void ensureCapacity(int bytes, Sink sink) throws SQLException
+    {
+        if (buffer.length - position < bytes)
+            flush(sink);
+    }
+
+    private void flush(Sink sink) throws SQLException
+    {
+        if (position > 0)
+            sink.write(buffer, position);
+        position = 0;
+    }
+}
@@ -0,0 +1,142 @@
+package rize.os.auditing;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free queue of {@link AuditEvent}s with many producers and a single consumer.
+ * <p>
+ * The events are stored in a ring buffer. Each slot carries a sequence number that tells producers whether the slot
+ * is free and the consumer whether it has been published, so a producer only competes for the tail with a single
+ * compare-and-set and never waits for another producer or the consumer. If the queue is full, {@link #offer} fails
+ * immediately and the caller decides what to do with the event.
+ * <p>
+ * Only a single thread may call {@link #poll()} and {@link #drainTo}.
+ *
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+final class AuditEventQueue
+{
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<AuditEvent> events;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * Creates a new queue.
+     *
+     * @param capacity The minimum capacity of the queue, rounded up to the next power of two.
+     */
+    AuditEventQueue(int capacity)
+    {
+        this.capacity = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.events = new AtomicReferenceArray<>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++)
+            sequences.set(i, i);
+    }
+
+    /**
+     * Adds the given event to the queue, unless it is full.
+     *
+     * @param event The event.
+     * @return {@code true} if the event has been added, {@code false} if the queue is full.
+     */
+    boolean offer(AuditEvent event)
+    {
+        long position = tail.get();
+        while (true)
+        {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0)
+            {
+                if (tail.compareAndSet(position, position + 1))
+                {
+                    events.set(index, event);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+
+                position = tail.get();
+            }
+            else if (difference < 0)
+                return false;
+            else
+                position = tail.get();
+        }
+    }
+
+    /**
+     * Removes the oldest event from the queue.
+     *
+     * @return The event or {@code null} if the queue is empty.
+     */
+    AuditEvent poll()
+    {
+        long position = head.get();
+        int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1)
+            return null;
+
+        var event = events.get(index);
+        events.lazySet(index, null);
+        sequences.lazySet(index, position + capacity);
+        head.lazySet(position + 1);
+
+        return event;
+    }
+
+    /**
+     * Moves up to the given number of events from the queue to the given list.
+     *
+     * @param batch     The list the events are added to.
+     * @param maxEvents The maximum number of events to move.
+     * @return The number of events that have been moved.
+     */
+    int drainTo(List<AuditEvent> batch, int maxEvents)
+    {
+        int count = 0;
+        while (count < maxEvents)
+        {
+            var event = poll();
+            if (event == null)
+                break;
+
+            batch.add(event);
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * @return The number of events in the queue. Only an estimate while events are added or removed.
+     */
+    int size()
+    {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    /**
+     * @return {@code true} if the queue holds no events, {@code false} otherwise.
+     */
+    boolean isEmpty()
+    {
+        return size() == 0;
+    }
+
+    /**
+     * @return The capacity of the queue.
+     */
+    int capacity()
+    {
+        return capacity;
+    }
+}
@@ -0,0 +1,46 @@
+package rize.os.auditing;
+
+import org.springframework.lang.NonNull;
+
+import java.util.List;
+
+/**
+ * Holds the {@link AuditEvent}s the {@link AuditLog} could not write or queue, i.e. while the database is unavailable
+ * or the queue is filled beyond the spill threshold, until they are written to the database.
+ * <p>
+ * The events are read in the order they have been appended. A read does not remove the events: they are only removed
+ * once they have been written and {@linkplain #acknowledge() acknowledged}, so events that have been read but not
+ * written, e.g. because the database is unavailable, are read again by the next read. {@link #append} may be called
+ * by any thread, all other methods are only called by the writer thread of the audit log.
+ *
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public interface AuditEventSpill
+{
+    /**
+     * Appends the given event to the spill.
+     *
+     * @param event The event.
+     * @return {@code true} if the event has been appended, {@code false} if the spill is full or not writable.
+     */
+    boolean append(@NonNull AuditEvent event);
+
+    /**
+     * Reads the oldest events that have not been acknowledged yet.
+     *
+     * @param batch     The list the events are added to.
+     * @param maxEvents The maximum number of events to read.
+     * @return The number of events that have been read.
+     */
+    int read(@NonNull List<AuditEvent> batch, int maxEvents);
+
+    /**
+     * Removes the events returned by the last {@link #read}, after they have been written.
+     */
+    void acknowledge();
+
+    /**
+     * @return {@code true} if all appended events have been acknowledged, {@code false} otherwise.
+     */
+    boolean isEmpty();
+}
@@ -0,0 +1,35 @@
+package rize.os.auditing;
+
+import org.springframework.lang.NonNull;
+
+import java.util.List;
+
+/**
+ * Writes batches of {@link AuditEvent}s to the audit table. Called by the {@link AuditLog} from its writer thread only.
+ *
+ * @see JdbcAuditEventWriter
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public interface AuditEventWriter
+{
+    /**
+     * Writes the given events within a single transaction.
+     *
+     * @param events The events to write, never empty.
+     * @throws RuntimeException If the events could not be written. None of the events has been written then, and the
+     *                          batch is written again later.
+     */
+    void write(@NonNull List<AuditEvent> events);
+
+    /**
+     * Writes the given events, some of which may have been written before, e.g. events that are replayed from the
+     * {@link AuditEventSpill} after a crash. Events whose ID has already been written are skipped.
+     *
+     * @param events The events to write, never empty.
+     * @throws RuntimeException If the events could not be written. The batch is written again later.
+     */
+    default void replay(@NonNull List<AuditEvent> events)
+    {
+        write(events);
+    }
+}
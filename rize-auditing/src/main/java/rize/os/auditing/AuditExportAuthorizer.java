@@ -0,0 +1,35 @@
+package rize.os.auditing;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.lang.NonNull;
+
+/**
+ * Decides whether the caller of the {@link AuditExportController} may export the events of a query, usually by
+ * checking that the authenticated user belongs to the tenant of the query and may read its audit log.
+ * <p>
+ * The application must provide an authorizer as a bean: without one, every export is rejected.
+ * <p>
+ * Usage with Spring Security:
+ * <pre>{@code
+ * @Bean
+ * AuditExportAuthorizer auditExportAuthorizer()
+ * {
+ *     return (query, request) -> request.getUserPrincipal() instanceof AuthenticatedUserToken token
+ *             && token.getPrincipal().hasOrganisationRole(query.tenantId(), "auditor");
+ * }
+ * }</pre>
+ *
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+@FunctionalInterface
+public interface AuditExportAuthorizer
+{
+    /**
+     * Checks whether the caller of the given request may export the events of the given query.
+     *
+     * @param query   The query, which names the tenant whose events are exported.
+     * @param request The request of the caller.
+     * @return {@code true} if the export is allowed, {@code false} if it is rejected with {@code 403 Forbidden}.
+     */
+    boolean isAuthorized(@NonNull AuditQuery query, @NonNull HttpServletRequest request);
+}
@@ -0,0 +1,66 @@
+package rize.os.auditing;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.lang.Nullable;
+
+import java.util.Objects;
+
+/**
+ * This class is used to configure the {@link AuditExportService} and the {@link AuditExportController}.
+ * <p>
+ * The properties of this class can be set in the application.yml or application.properties file.
+ * The prefix for the properties is {@code rize.auditing.export}.
+ *
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+@ConfigurationProperties(prefix = "rize.auditing.export")
+public class AuditExportConfiguration
+{
+    private final boolean endpointEnabled;
+    private final String path;
+    private final int fetchSize;
+
+    /**
+     * Creates a new instance of the {@link AuditExportConfiguration}.
+     *
+     * @param endpointEnabled Whether the {@link AuditExportController} is registered in servlet applications. Defaults
+     *                        to {@code false}, as the endpoint must be secured by the application.
+     * @param path            The path of the export endpoint. Defaults to {@code /audit/events/export}.
+     * @param fetchSize       The number of rows that are fetched from the database at a time. Defaults to 1000.
+     */
+    public AuditExportConfiguration(@Nullable Boolean endpointEnabled,
+                                    @Nullable String path,
+                                    @Nullable Integer fetchSize)
+    {
+        this.endpointEnabled = Objects.requireNonNullElse(endpointEnabled, false);
+        this.path = Objects.requireNonNullElse(path, "/audit/events/export");
+        this.fetchSize = Objects.requireNonNullElse(fetchSize, 1000);
+
+        if (this.fetchSize < 1)
+            throw new IllegalArgumentException("The fetch size must be positive: " + this.fetchSize);
+    }
+
+    /**
+     * @return Whether the {@link AuditExportController} is registered in servlet applications.
+     */
+    public boolean isEndpointEnabled()
+    {
+        return endpointEnabled;
+    }
+
+    /**
+     * @return The path of the export endpoint.
+     */
+    public String getPath()
+    {
+        return path;
+    }
+
+    /**
+     * @return The number of rows that are fetched from the database at a time.
+     */
+    public int getFetchSize()
+    {
+        return fetchSize;
+    }
+}
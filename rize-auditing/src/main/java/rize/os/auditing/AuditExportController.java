@@ -0,0 +1,130 @@
+package rize.os.auditing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.web.servlet.function.RequestPredicates;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports the {@link AuditEvent}s of a tenant with the {@link AuditExportService} as a gzip-compressed NDJSON or CSV
+ * response body, e.g.
+ * {@code GET /audit/events/export?tenantId=acme&from=2026-01-01T00:00:00Z&to=2027-01-01T00:00:00Z&format=csv}.
+ * <p>
+ * The events are written to the response while they are read from the database, so the response has no content
+ * length and an export of any size needs the same memory. If the client disconnects, the query is cancelled. The
+ * endpoint is a functional route, see {@link #routerFunction(String)}, which is only registered with
+ * {@code rize.auditing.export.endpoint-enabled=true}, so component scans of the application do not pick it up. Every
+ * export is checked with the {@link AuditExportAuthorizer} of the application before the query runs and rejected with
+ * {@code 403 Forbidden} if it is denied or no authorizer has been provided.
+ * <p>
+ * The request takes the following parameters:
+ * <ul>
+ *     <li>{@code tenantId}: the ID of the tenant, required.</li>
+ *     <li>{@code from}: the inclusive start of the time range, required.</li>
+ *     <li>{@code to}: the exclusive end of the time range, required.</li>
+ *     <li>{@code actorId}, {@code action}, {@code resourceType}: restrict the events to the given value, optional.</li>
+ *     <li>{@code format}: either {@code ndjson} or {@code csv}. Defaults to {@code ndjson}.</li>
+ * </ul>
+ *
+ * @see AuditExportConfiguration
+ * @see AuditExportAuthorizer
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public class AuditExportController
+{
+    private static final Logger log = LoggerFactory.getLogger(AuditExportController.class);
+
+    private final AuditExportService exportService;
+    @Nullable
+    private final AuditExportAuthorizer authorizer;
+
+    /**
+     * Creates a new export controller.
+     *
+     * @param exportService The service the events are exported with.
+     * @param authorizer    The authorizer every export is checked with. If {@code null}, every export is rejected.
+     */
+    public AuditExportController(@NonNull AuditExportService exportService, @Nullable AuditExportAuthorizer authorizer)
+    {
+        this.exportService = exportService;
+        this.authorizer = authorizer;
+
+        if (authorizer == null)
+            log.warn("No AuditExportAuthorizer has been provided, all audit exports will be rejected");
+    }
+
+    /**
+     * Creates the route of the export endpoint.
+     *
+     * @param path The path of the endpoint.
+     * @return The route, which maps {@code GET} requests of the given path to {@link #export(ServerRequest)}.
+     */
+    public RouterFunction<ServerResponse> routerFunction(@NonNull String path)
+    {
+        return RouterFunctions.route(RequestPredicates.GET(path), this::export);
+    }
+
+    /**
+     * Writes the events that match the parameters of the given request to the response.
+     *
+     * @param request The request.
+     * @return The response, which writes the events, or a {@code 400 Bad Request} or {@code 403 Forbidden} response.
+     */
+    public ServerResponse export(@NonNull ServerRequest request)
+    {
+        AuditQuery query;
+        AuditExportFormat exportFormat;
+        try
+        {
+            query = AuditQuery.of(requiredParam(request, "tenantId"), instantParam(request, "from"), instantParam(request, "to"))
+                    .withActorId(request.param("actorId").orElse(null))
+                    .withAction(request.param("action").orElse(null))
+                    .withResourceType(request.param("resourceType").orElse(null));
+            exportFormat = AuditExportFormat.valueOf(request.param("format").orElse("ndjson").toUpperCase(Locale.ROOT));
+        }
+        catch (IllegalArgumentException | DateTimeParseException e)
+        {
+            return ServerResponse.badRequest().build();
+        }
+
+        if (authorizer == null || !authorizer.isAuthorized(query, request.servletRequest()))
+            return ServerResponse.status(HttpStatus.FORBIDDEN).build();
+
+        return ServerResponse.ok()
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"audit-events." + exportFormat.getFileExtension() + "\"")
+                .build((servletRequest, response) ->
+                {
+                    response.setContentType(exportFormat.getContentType());
+                    response.setCharacterEncoding("UTF-8");
+
+                    var outputStream = new GZIPOutputStream(response.getOutputStream(), 8192);
+                    exportService.export(query, exportFormat, outputStream);
+                    outputStream.finish();
+                    outputStream.flush();
+                    return null;
+                });
+    }
+
+    private static String requiredParam(ServerRequest request, String name)
+    {
+        return request.param(name).orElseThrow(() -> new IllegalArgumentException("Missing parameter '" + name + "'"));
+    }
+
+    private static Instant instantParam(ServerRequest request, String name)
+    {
+        return Instant.parse(requiredParam(request, name));
+    }
+}
@@ -0,0 +1,177 @@
+package rize.os.auditing;
+
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * The formats the {@link AuditExportService} exports {@link AuditEvent}s in.
+ *
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public enum AuditExportFormat
+{
+    /**
+     * Newline-delimited JSON: one JSON object per event and line, with the fields of {@link AuditEvent}.
+     */
+    NDJSON("application/x-ndjson", "ndjson")
+    {
+        @Override
+        void writeHeader(Writer writer)
+        {
+        }
+
+        @Override
+        void write(Writer writer, AuditEvent event) throws IOException
+        {
+            writer.write("{\"id\":\"");
+            writer.write(event.id().toString());
+            writer.write("\",\"occurredAt\":\"");
+            writer.write(event.occurredAt().toString());
+            writer.write('"');
+            writeField(writer, "tenantId", event.tenantId());
+            writeField(writer, "actorId", event.actorId());
+            writeField(writer, "action", event.action());
+            writeField(writer, "resourceType", event.resourceType());
+            writeField(writer, "resourceId", event.resourceId());
+            writeField(writer, "details", event.details());
+            writer.write("}\n");
+        }
+
+        private void writeField(Writer writer, String name, @Nullable String value) throws IOException
+        {
+            writer.write(",\"");
+            writer.write(name);
+            writer.write("\":");
+            if (value == null)
+            {
+                writer.write("null");
+                return;
+            }
+
+            writer.write('"');
+            for (int i = 0; i < value.length(); i++)
+            {
+                char c = value.charAt(i);
+                switch (c)
+                {
+                    case '"' -> writer.write("\\\"");
+                    case '\\' -> writer.write("\\\\");
+                    case '\n' -> writer.write("\\n");
+                    case '\r' -> writer.write("\\r");
+                    case '\t' -> writer.write("\\t");
+                    default ->
+                    {
+                        if (c < 0x20)
+                            writer.write(String.format("\\u%04x", (int) c));
+                        else
+                            writer.write(c);
+                    }
+                }
+            }
+            writer.write('"');
+        }
+    },
+
+    /**
+     * Comma-separated values according to RFC 4180: a header line followed by one line per event. Missing values are
+     * empty. Values that a spreadsheet would evaluate as a formula, i.e. that start with {@code =}, {@code +},
+     * {@code -}, {@code @}, a tab or a carriage return, are prefixed with {@code '} and quoted, so that exported
+     * values written by users cannot inject formulas.
+     */
+    CSV("text/csv", "csv")
+    {
+        @Override
+        void writeHeader(Writer writer) throws IOException
+        {
+            writer.write("id,occurred_at,tenant_id,actor_id,action,resource_type,resource_id,details\r\n");
+        }
+
+        @Override
+        void write(Writer writer, AuditEvent event) throws IOException
+        {
+            writer.write(event.id().toString());
+            writer.write(',');
+            writer.write(event.occurredAt().toString());
+            writeField(writer, event.tenantId());
+            writeField(writer, event.actorId());
+            writeField(writer, event.action());
+            writeField(writer, event.resourceType());
+            writeField(writer, event.resourceId());
+            writeField(writer, event.details());
+            writer.write("\r\n");
+        }
+
+        private void writeField(Writer writer, @Nullable String value) throws IOException
+        {
+            writer.write(',');
+            if (value == null)
+                return;
+
+            boolean formula = isFormula(value);
+            boolean quoted = formula;
+            for (int i = 0; i < value.length() && !quoted; i++)
+            {
+                char c = value.charAt(i);
+                quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+
+            if (!quoted)
+            {
+                writer.write(value);
+                return;
+            }
+
+            writer.write('"');
+            if (formula)
+                writer.write('\'');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        private boolean isFormula(String value)
+        {
+            if (value.isEmpty())
+                return false;
+
+            char c = value.charAt(0);
+            return c == '=' || c == '+' || c == '-' || c == '@' || c == '\t' || c == '\r';
+        }
+    };
+
+    private final String contentType;
+    private final String fileExtension;
+
+    AuditExportFormat(String contentType, String fileExtension)
+    {
+        this.contentType = contentType;
+        this.fileExtension = fileExtension;
+    }
+
+    /**
+     * @return The media type of the format.
+     */
+    public String getContentType()
+    {
+        return contentType;
+    }
+
+    /**
+     * @return The extension of files in the format, without the leading dot.
+     */
+    public String getFileExtension()
+    {
+        return fileExtension;
+    }
+
+    /**
+     * Writes what precedes the first event.
+     */
+    abstract void writeHeader(Writer writer) throws IOException;
+
+    /**
+     * Writes the given event.
+     */
+    abstract void write(Writer writer, AuditEvent event) throws IOException;
+}
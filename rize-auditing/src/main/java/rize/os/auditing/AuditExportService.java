@@ -0,0 +1,135 @@
+package rize.os.auditing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.NonNull;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+/**
+ * Exports the {@link AuditEvent}s of a tenant as a stream, newest first, e.g. for compliance exports of millions of
+ * events.
+ * <p>
+ * Unlike the {@link AuditQueryService}, the export never holds more than the configured fetch size of events in
+ * memory: the events are read through a forward-only cursor and written to the output stream one by one. In
+ * PostgreSQL, the cursor only fetches the configured number of rows at a time if auto-commit is disabled, so the
+ * export runs in a read-only transaction of its own unless a transaction is already active. If writing to the output
+ * stream fails, e.g. because the client has disconnected, the query is cancelled.
+ *
+ * @see AuditExportFormat
+ * @see AuditExportController
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public class AuditExportService
+{
+    private static final Logger log = LoggerFactory.getLogger(AuditExportService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String select;
+    private final int fetchSize;
+
+    /**
+     * Creates a new export service.
+     *
+     * @param configuration       The configuration of the audit log, which names the audit table.
+     * @param exportConfiguration The configuration of the export.
+     * @param jdbcTemplate        The template the audit table is queried with.
+     */
+    public AuditExportService(@NonNull AuditingConfiguration configuration,
+                              @NonNull AuditExportConfiguration exportConfiguration,
+                              @NonNull JdbcTemplate jdbcTemplate)
+    {
+        this.jdbcTemplate = jdbcTemplate;
+        this.select = AuditQueryService.select(configuration);
+        this.fetchSize = exportConfiguration.getFetchSize();
+    }
+
+    /**
+     * Writes all events that match the given query to the given output stream. The limit of the query is ignored, and
+     * its cursor, if any, continues an export after the given event. The output stream is flushed but not closed.
+     *
+     * @param query        The query.
+     * @param format       The format the events are written in.
+     * @param outputStream The output stream the events are written to.
+     * @return The number of events that have been written.
+     * @throws IOException              If the events could not be written to the output stream. The query has been
+     *                                  cancelled then.
+     * @throws IllegalArgumentException If the cursor of the query is invalid.
+     */
+    public long export(@NonNull AuditQuery query, @NonNull AuditExportFormat format, @NonNull OutputStream outputStream) throws IOException
+    {
+        var sql = new StringBuilder(select);
+        var parameters = new ArrayList<Object>(8);
+        AuditQueryService.appendConditions(sql, parameters, query);
+
+        var writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 8192);
+        try
+        {
+            Long count = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> export(connection, sql.toString(), parameters, format, writer));
+            log.debug("Exported {} audit events of tenant '{}'", count, query.tenantId());
+            return count != null ? count : 0;
+        }
+        catch (UncheckedIOException e)
+        {
+            throw e.getCause();
+        }
+    }
+
+    private long export(Connection connection, String sql, ArrayList<Object> parameters, AuditExportFormat format, Writer writer) throws SQLException
+    {
+        boolean autoCommit = connection.getAutoCommit();
+        if (autoCommit)
+        {
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+        }
+
+        try (var statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY))
+        {
+            statement.setFetchSize(fetchSize);
+            new ArgumentPreparedStatementSetter(parameters.toArray()).setValues(statement);
+
+            long count = 0;
+            try (var resultSet = statement.executeQuery())
+            {
+                format.writeHeader(writer);
+                while (resultSet.next())
+                {
+                    format.write(writer, AuditQueryService.ROW_MAPPER.mapRow(resultSet, (int) count));
+                    count++;
+                }
+                writer.flush();
+            }
+            catch (IOException e)
+            {
+                log.debug("Cancelling the audit export after {} events: {}", count, e.getMessage());
+                statement.cancel();
+                throw new UncheckedIOException(e);
+            }
+
+            return count;
+        }
+        finally
+        {
+            if (autoCommit)
+            {
+                connection.rollback();
+                connection.setReadOnly(false);
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,545 @@
+package rize.os.auditing;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records {@link AuditEvent}s and writes them to the database in the background.
+ * <p>
+ * Recording an event never costs a round trip to the database: the event is added to a bounded, lock-free
+ * {@link AuditEventQueue} and the recording thread returns. A single writer thread drains the queue into batches of up
+ * to the configured batch size and writes each batch with the {@link AuditEventWriter}. If fewer events are queued,
+ * the writer waits up to the configured linger time for the batch to fill up, so a steady trickle of events is written
+ * in a few larger batches instead of many small ones.
+ * <p>
+ * If an {@link AuditEventSpill} is configured, e.g. the {@link MappedAuditEventSpill}, the audit log switches to
+ * spilling when a batch could not be written or the queue is filled beyond the configured spill threshold: the batch
+ * is appended to the spill, and so are all events recorded afterward. Meanwhile, the writer replays the spill in the
+ * order the events have been appended, retrying with an exponential backoff until the database is available again,
+ * and switches back to the queue once the spill is empty. The replay is idempotent, see
+ * {@link AuditEventWriter#replay}, so events that are replayed twice, e.g. after a restart, are only stored once.
+ * Events that are recorded concurrently with the switch may be written in a different order than they have been
+ * recorded, which does not matter as each event carries the time it occurred at.
+ * <p>
+ * Without a spill, a batch that could not be written is written again with an exponential backoff, and the events are
+ * kept in memory in the meantime. Only transient failures are retried or spilled, e.g. a lost connection or a lock
+ * timeout. A batch that fails with any other error, e.g. because a field exceeds its column, is split into halves that
+ * are written separately, until the events that cannot be written at all are isolated. These events are dropped.
+ * If events are recorded faster than they can be written, the queue fills up and the configured
+ * {@link AuditBackpressure} applies: the recording thread waits for space in the queue, or the event is dropped.
+ * Dropped events are counted and logged.
+ * <p>
+ * The audit log must be {@linkplain #start() started} to start the writer thread. When it is {@linkplain #close()
+ * closed}, no further events are accepted and the queued events are written within the configured shutdown timeout.
+ *
+ * @see AuditingConfiguration
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public class AuditLog implements MeterBinder, AutoCloseable
+{
+    private static final Logger log = LoggerFactory.getLogger(AuditLog.class);
+
+    private static final int WRITING = 0;
+    private static final int LINGERING = 1;
+    private static final int IDLE = 2;
+    private static final long MAX_BLOCK_PAUSE = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long MAX_IDLE_PAUSE = TimeUnit.SECONDS.toNanos(1);
+    private static final long OVERFLOW_WARNING_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
+    private final AuditingConfiguration configuration;
+    private final AuditEventWriter writer;
+    private final AuditEventSpill spill;
+    private final AuditEventQueue queue;
+    private final Thread writerThread;
+    private final int batchSize;
+    private final long lingerTime;
+    private final int spillThreshold;
+
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+
+    private volatile int writerState = WRITING;
+    private volatile int missingEvents;
+    private volatile boolean spilling;
+    private volatile boolean closed;
+    private volatile long shutdownDeadline;
+    private volatile long lastOverflowWarning = System.nanoTime() - OVERFLOW_WARNING_INTERVAL;
+    private volatile Timer batchTimer;
+
+    /**
+     * Creates a new audit log without a spill.
+     *
+     * @param configuration The configuration of the audit log.
+     * @param writer        The writer the batches are written with.
+     */
+    public AuditLog(@NonNull AuditingConfiguration configuration, @NonNull AuditEventWriter writer)
+    {
+        this(configuration, writer, null);
+    }
+
+    /**
+     * Creates a new audit log.
+     *
+     * @param configuration The configuration of the audit log.
+     * @param writer        The writer the batches are written with.
+     * @param spill         The spill for events that cannot be written or do not fit into the queue. Required with
+     *                      {@link AuditBackpressure#SPILL}.
+     */
+    public AuditLog(@NonNull AuditingConfiguration configuration, @NonNull AuditEventWriter writer, @Nullable AuditEventSpill spill)
+    {
+        if (configuration.getBackpressure() == AuditBackpressure.SPILL && spill == null)
+            throw new IllegalStateException("The backpressure strategy SPILL requires an AuditEventSpill");
+
+        this.configuration = configuration;
+        this.writer = writer;
+        this.spill = spill;
+        this.queue = new AuditEventQueue(configuration.getQueueCapacity());
+        this.batchSize = configuration.getBatchSize();
+        this.lingerTime = configuration.getLingerTime().toNanos();
+        this.spillThreshold = Math.max(1, (int) (queue.capacity() * configuration.getSpillThreshold()));
+        this.writerThread = new Thread(this::run, "rize-audit-writer");
+        this.writerThread.setDaemon(true);
+    }
+
+    /**
+     * Starts the writer thread.
+     */
+    public void start()
+    {
+        writerThread.start();
+    }
+
+    /**
+     * Records the given event. The event is written to the database in the background.
+     *
+     * @param event The event to record.
+     * @return {@code true} if the event has been queued or spilled, {@code false} if it has been dropped because the
+     *         queue and the spill are full or the audit log has been closed.
+     */
+    public boolean record(@NonNull AuditEvent event)
+    {
+        if (closed)
+        {
+            log.debug("Dropping audit event '{}' as the audit log has been closed", event.id());
+            dropped.increment();
+            return false;
+        }
+
+        if (spill != null && (spilling || queue.size() >= spillThreshold) && spill(event))
+            return true;
+
+        if (enqueue(event))
+            return true;
+
+        return switch (configuration.getBackpressure())
+        {
+            case BLOCK -> block(event);
+            case DROP, SPILL -> drop();
+        };
+    }
+
+    private boolean enqueue(AuditEvent event)
+    {
+        if (!queue.offer(event))
+            return false;
+
+        queued.increment();
+        int state = writerState;
+        if (state == IDLE || (state == LINGERING && queue.size() >= missingEvents))
+            LockSupport.unpark(writerThread);
+
+        return true;
+    }
+
+    private boolean block(AuditEvent event)
+    {
+        long deadline = System.nanoTime() + configuration.getBlockTimeout().toNanos();
+        long pause = 1_000;
+        while (!closed)
+        {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0)
+                break;
+
+            LockSupport.parkNanos(this, Math.min(pause, remaining));
+            pause = Math.min(pause * 2, MAX_BLOCK_PAUSE);
+            if (enqueue(event))
+                return true;
+        }
+
+        return drop();
+    }
+
+    private boolean drop()
+    {
+        dropped.increment();
+        warnOverflow();
+        return false;
+    }
+
+    private boolean spill(AuditEvent event)
+    {
+        if (!spill.append(event))
+            return false;
+
+        spilled.increment();
+        if (!spilling)
+        {
+            spilling = true;
+            log.warn("The audit queue is filled beyond the spill threshold, spilling audit events");
+        }
+        if (writerState == IDLE)
+            LockSupport.unpark(writerThread);
+
+        return true;
+    }
+
+    private void warnOverflow()
+    {
+        long now = System.nanoTime();
+        long last = lastOverflowWarning;
+        if (now - last >= OVERFLOW_WARNING_INTERVAL)
+        {
+            lastOverflowWarning = now;
+            log.warn("The audit queue is full, dropping audit events ({} dropped so far)", dropped.sum());
+        }
+    }
+
+    private void run()
+    {
+        var batch = new ArrayList<AuditEvent>(batchSize);
+        while (true)
+        {
+            if (queue.drainTo(batch, batchSize) > 0)
+            {
+                if (!spilling)
+                    linger(batch);
+                if (!write(batch, false))
+                    discard(batch);
+            }
+            else if (spill != null && !spill.isEmpty())
+            {
+                if (closed && System.nanoTime() - shutdownDeadline >= 0)
+                {
+                    log.warn("The audit log has been closed before all spilled audit events have been written");
+                    break;
+                }
+
+                spill.read(batch, batchSize);
+                if (write(batch, true))
+                    spill.acknowledge();
+                else
+                    break;
+            }
+            else if (spilling)
+            {
+                spilling = false;
+                log.info("All spilled audit events have been written, queueing audit events again");
+            }
+            else if (closed)
+                break;
+            else
+                awaitEvents();
+
+            batch.clear();
+        }
+    }
+
+    private void linger(List<AuditEvent> batch)
+    {
+        long deadline = System.nanoTime() + lingerTime;
+        while (batch.size() < batchSize && !closed)
+        {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0)
+                return;
+
+            missingEvents = batchSize - batch.size();
+            writerState = LINGERING;
+            if (queue.size() < missingEvents)
+                LockSupport.parkNanos(this, remaining);
+            writerState = WRITING;
+
+            queue.drainTo(batch, batchSize - batch.size());
+        }
+    }
+
+    private void awaitEvents()
+    {
+        writerState = IDLE;
+        if (queue.isEmpty() && !closed)
+            LockSupport.parkNanos(this, MAX_IDLE_PAUSE);
+        writerState = WRITING;
+    }
+
+    /**
+     * Writes the given batch and retries it after transient failures until it has been written or the shutdown timeout
+     * has elapsed. A batch from the queue that could not be written is appended to the spill instead, if there is one.
+     * A batch that failed with a permanent error is {@linkplain #writeSplit split}.
+     *
+     * @param replay Whether the batch has been read from the spill.
+     * @return {@code true} if the batch has been written, spilled or dropped, {@code false} if the audit log has been closed
+     *         and the batch could not be written within the shutdown timeout.
+     */
+    private boolean write(List<AuditEvent> batch, boolean replay)
+    {
+        int failures = 0;
+        while (true)
+        {
+            long startTime = System.nanoTime();
+            try
+            {
+                if (replay)
+                    writer.replay(batch);
+                else
+                    writer.write(batch);
+                written.add(batch.size());
+                recordBatch(startTime);
+                return true;
+            }
+            catch (RuntimeException e)
+            {
+                failures++;
+                failedBatches.increment();
+                if (!isTransient(e))
+                    return writeSplit(batch, replay, e);
+                if (!replay && spill != null && spillBatch(batch, e))
+                    return true;
+                if (closed && System.nanoTime() - shutdownDeadline >= 0)
+                {
+                    log.error("Failed to write {} audit events before the shutdown timeout: {}", batch.size(), e.getMessage());
+                    return false;
+                }
+
+                long delay = Math.min(configuration.getRetryInitialDelay().toNanos() << Math.min(failures - 1, 30), configuration.getRetryMaxDelay().toNanos());
+                log.warn("Failed to write {} audit events, retrying in {} ms: {}", batch.size(), TimeUnit.NANOSECONDS.toMillis(delay), e.getMessage());
+                pause(delay);
+            }
+        }
+    }
+
+    /**
+     * Writes the halves of a batch that failed with a permanent error separately, and drops the event if the batch
+     * consists of a single event. The events that have been written or dropped are removed from the batch.
+     *
+     * @return {@code true} if all events have been written or dropped, {@code false} if the audit log has been closed
+     *         and the remaining events could not be written within the shutdown timeout.
+     */
+    private boolean writeSplit(List<AuditEvent> batch, boolean replay, RuntimeException cause)
+    {
+        if (batch.size() == 1)
+        {
+            dropped.increment();
+            log.error("Dropping audit event '{}' as it cannot be written: {}", batch.get(0).id(), cause.getMessage());
+            batch.clear();
+            return true;
+        }
+
+        var first = new ArrayList<>(batch.subList(0, batch.size() / 2));
+        var second = new ArrayList<>(batch.subList(batch.size() / 2, batch.size()));
+        log.warn("Failed to write {} audit events, writing them in halves: {}", batch.size(), cause.getMessage());
+
+        batch.clear();
+        if (!write(first, replay))
+            batch.addAll(first);
+        if (!write(second, replay))
+            batch.addAll(second);
+        return batch.isEmpty();
+    }
+
+    /**
+     * @return {@code true} if the given exception or one of its causes indicates that writing the batch again may
+     *         succeed, e.g. after a lost connection, a lock timeout or a deadlock.
+     */
+    private static boolean isTransient(Throwable exception)
+    {
+        for (var cause = exception; cause != null; cause = cause.getCause())
+        {
+            if (cause instanceof TransientDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof RecoverableDataAccessException
+                    || cause instanceof SQLTransientException
+                    || cause instanceof SQLRecoverableException)
+                return true;
+            if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null && sqlException.getSQLState().startsWith("08"))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Appends the given batch to the spill and switches to spilling. The events that have been appended are removed
+     * from the batch.
+     *
+     * @return {@code true} if all events have been appended, {@code false} if the spill is full.
+     */
+    private boolean spillBatch(List<AuditEvent> batch, RuntimeException cause)
+    {
+        if (!spilling)
+        {
+            spilling = true;
+            log.warn("Failed to write {} audit events, spilling audit events until the database is available again: {}", batch.size(), cause.getMessage());
+        }
+
+        int appended = 0;
+        while (appended < batch.size() && spill.append(batch.get(appended)))
+            appended++;
+
+        spilled.add(appended);
+        batch.subList(0, appended).clear();
+        return batch.isEmpty();
+    }
+
+    private void pause(long delay)
+    {
+        boolean wasClosed = closed;
+        long deadline = System.nanoTime() + delay;
+        while (closed == wasClosed)
+        {
+            long remaining = deadline - System.nanoTime();
+            if (closed)
+                remaining = Math.min(remaining, shutdownDeadline - System.nanoTime());
+            if (remaining <= 0)
+                return;
+
+            LockSupport.parkNanos(this, remaining);
+        }
+    }
+
+    private void discard(List<AuditEvent> batch)
+    {
+        int lost = 0;
+        for (var event : batch)
+        {
+            if (spill != null && spill.append(event))
+                spilled.increment();
+            else
+                lost++;
+        }
+
+        if (lost > 0)
+        {
+            dropped.add(lost);
+            log.error("{} audit events have been lost", lost);
+        }
+    }
+
+    private void recordBatch(long startTime)
+    {
+        var timer = batchTimer;
+        if (timer != null)
+            timer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return {@code true} if recorded events are appended to the spill instead of the queue, {@code false} otherwise.
+     */
+    public boolean isSpilling()
+    {
+        return spilling;
+    }
+
+    /**
+     * @return The number of events that are queued and not written yet.
+     */
+    public int getQueueSize()
+    {
+        return queue.size();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry)
+    {
+        Gauge.builder("rize.auditing.queue.size", queue, AuditEventQueue::size)
+                .description("The number of audit events that are queued and not written yet")
+                .register(registry);
+        Gauge.builder("rize.auditing.queue.capacity", queue, AuditEventQueue::capacity)
+                .description("The capacity of the audit queue")
+                .register(registry);
+        Gauge.builder("rize.auditing.spilling", this, auditLog -> auditLog.spilling ? 1 : 0)
+                .description("Whether audit events are appended to the spill instead of the queue")
+                .register(registry);
+
+        registerEventCounter(registry, "queued", queued);
+        registerEventCounter(registry, "written", written);
+        registerEventCounter(registry, "dropped", dropped);
+        registerEventCounter(registry, "spilled", spilled);
+
+        FunctionCounter.builder("rize.auditing.batches.failed", failedBatches, LongAdder::sum)
+                .description("The number of batches of audit events that could not be written")
+                .register(registry);
+
+        batchTimer = Timer.builder("rize.auditing.batch.write")
+                .description("The time it takes to write a batch of audit events")
+                .register(registry);
+    }
+
+    private static void registerEventCounter(MeterRegistry registry, String outcome, LongAdder counter)
+    {
+        FunctionCounter.builder("rize.auditing.events", counter, LongAdder::sum)
+                .description("The number of audit events by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    /**
+     * Stops accepting events and writes the queued events within the configured shutdown timeout.
+     */
+    @Override
+    public void close()
+    {
+        if (closed)
+            return;
+
+        shutdownDeadline = System.nanoTime() + configuration.getShutdownTimeout().toNanos();
+        closed = true;
+        LockSupport.unpark(writerThread);
+
+        try
+        {
+            writerThread.join(configuration.getShutdownTimeout().toMillis() + 1_000);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        if (writerThread.isAlive())
+        {
+            log.error("The audit writer did not finish within the shutdown timeout, {} audit events have not been written", queue.size());
+            return;
+        }
+
+        // Events that were recorded while the writer thread finished are written by the closing thread.
+        var batch = new ArrayList<AuditEvent>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0)
+        {
+            if (!write(batch, false))
+                discard(batch);
+            batch.clear();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package rize.os.auditing;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * A page of {@link AuditEvent}s returned by the {@link AuditQueryService}, newest first.
+ *
+ * @param events     The events of the page.
+ * @param nextCursor The cursor of the next page, to be passed to {@link AuditQuery#withCursor(String)}, or
+ *                   {@code null} if this is the last page.
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public record AuditPage(@NonNull List<AuditEvent> events, @Nullable String nextCursor)
+{
+    /**
+     * @return {@code true} if there is a page after this one, {@code false} otherwise.
+     */
+    public boolean hasNext()
+    {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,112 @@
+package rize.os.auditing;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * The time range each partition of the audit table covers. The partitions start at midnight UTC.
+ *
+ * @see AuditPartitionManager
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public enum AuditPartitionInterval
+{
+    /**
+     * A partition per day, named {@code <table>_pYYYYMMDD}.
+     */
+    DAILY(DateTimeFormatter.BASIC_ISO_DATE)
+    {
+        @Override
+        LocalDate start(LocalDate date)
+        {
+            return date;
+        }
+
+        @Override
+        LocalDate next(LocalDate start)
+        {
+            return start.plusDays(1);
+        }
+    },
+
+    /**
+     * A partition per month, named {@code <table>_pYYYYMM}.
+     */
+    MONTHLY(DateTimeFormatter.ofPattern("yyyyMM"))
+    {
+        @Override
+        LocalDate start(LocalDate date)
+        {
+            return date.withDayOfMonth(1);
+        }
+
+        @Override
+        LocalDate next(LocalDate start)
+        {
+            return start.plusMonths(1);
+        }
+    };
+
+    private final DateTimeFormatter suffixFormat;
+
+    AuditPartitionInterval(DateTimeFormatter suffixFormat)
+    {
+        this.suffixFormat = suffixFormat;
+    }
+
+    /**
+     * @return The first day of the partition that contains the given day.
+     */
+    abstract LocalDate start(LocalDate date);
+
+    /**
+     * @return The first day of the partition after the one starting at the given day.
+     */
+    abstract LocalDate next(LocalDate start);
+
+    /**
+     * @return The suffix of the name of the partition starting at the given day, without the {@code _p}.
+     */
+    String suffix(LocalDate start)
+    {
+        return suffixFormat.format(start);
+    }
+
+    /**
+     * Finds the interval of a partition by the suffix of its name, so partitions that have been created with another
+     * interval are still recognized.
+     *
+     * @param suffix The suffix of the name of the partition, without the {@code _p}.
+     * @return The interval or {@code null} if the suffix does not match any interval.
+     */
+    static AuditPartitionInterval ofSuffix(String suffix)
+    {
+        return switch (suffix.length())
+        {
+            case 8 -> DAILY;
+            case 6 -> MONTHLY;
+            default -> null;
+        };
+    }
+
+    /**
+     * Parses the first day of a partition from the suffix of its name.
+     *
+     * @param suffix The suffix of the name of the partition, without the {@code _p}.
+     * @return The first day or {@code null} if the suffix is not a valid suffix of this interval.
+     */
+    LocalDate parse(String suffix)
+    {
+        try
+        {
+            return this == MONTHLY
+                    ? LocalDate.parse(suffix + "01", DateTimeFormatter.BASIC_ISO_DATE)
+                    : LocalDate.parse(suffix, suffixFormat);
+        }
+        catch (DateTimeParseException e)
+        {
+            return null;
+        }
+    }
+}
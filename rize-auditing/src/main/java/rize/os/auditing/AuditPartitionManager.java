@@ -0,0 +1,246 @@
+package rize.os.auditing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.lang.NonNull;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates and expires the partitions of the audit table, which is range-partitioned by {@code occurred_at} in
+ * PostgreSQL, see the changelog {@code db/changelog/rize-auditing/db.changelog-auditing.yaml}.
+ * <p>
+ * The audit table only ever grows, so without partitions every query, index and vacuum of it gets slower over time.
+ * With a partition per day or month, a query that restricts {@code occurred_at} only scans the partitions of that time
+ * range, and expired events are removed by detaching or dropping whole partitions instead of deleting rows. Queries
+ * on the audit table must therefore always restrict {@code occurred_at}, so PostgreSQL can prune the other partitions.
+ * <p>
+ * In the configured check interval, the manager creates the partition of the current period and the configured number
+ * of partitions ahead, so events are never written to a missing partition. The partitions are named
+ * {@code <table>_pYYYYMM} or {@code <table>_pYYYYMMDD} and start at midnight UTC. If a retention is configured, the
+ * partitions whose events are all older than the retention are detached or dropped. Partitions that do not follow this
+ * naming scheme are left alone. A default partition {@code <table>_default} takes the events that fall into no other
+ * partition, e.g. events with a clock far off, so they are stored instead of failing the whole batch. It should stay
+ * empty: a partition cannot be created while the default partition holds events of its range, which is logged.
+ * <p>
+ * If several nodes share the database, only one of them manages the partitions at a time: each check runs under a
+ * PostgreSQL advisory lock of the audit table, and a node that does not get the lock skips the check.
+ * <p>
+ * On databases other than PostgreSQL, the manager does nothing. The manager must be {@linkplain #start() started} to
+ * manage the partitions and {@linkplain #close() closed} to stop the background thread.
+ *
+ * @see AuditPartitioningConfiguration
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public class AuditPartitionManager implements AutoCloseable
+{
+    private static final Logger log = LoggerFactory.getLogger(AuditPartitionManager.class);
+
+    private static final long LOCK_NAMESPACE = 0x72697A65L << 32;
+
+    private final AuditPartitioningConfiguration configuration;
+    private final JdbcTemplate jdbcTemplate;
+    private final ScheduledExecutorService scheduler;
+    private final String table;
+    private final String schemaPrefix;
+    private final String partitionPrefix;
+    private final long lockKey;
+
+    /**
+     * Creates a new partition manager.
+     *
+     * @param auditingConfiguration The configuration of the audit log, which names the audit table.
+     * @param configuration         The configuration of the partitions.
+     * @param jdbcTemplate          The template the partitions are managed with.
+     */
+    public AuditPartitionManager(@NonNull AuditingConfiguration auditingConfiguration,
+                                 @NonNull AuditPartitioningConfiguration configuration,
+                                 @NonNull JdbcTemplate jdbcTemplate)
+    {
+        this.configuration = configuration;
+        this.jdbcTemplate = jdbcTemplate;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable ->
+        {
+            var thread = new Thread(runnable, "rize-audit-partitions");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.table = auditingConfiguration.getTableName();
+        int dot = table.lastIndexOf('.');
+        this.schemaPrefix = dot >= 0 ? table.substring(0, dot + 1) : "";
+        this.partitionPrefix = table.substring(dot + 1) + "_p";
+        this.lockKey = LOCK_NAMESPACE | (table.hashCode() & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Creates the missing partitions and starts checking the partitions in the background, if the database is
+     * PostgreSQL. The partitions are created before this method returns, so the audit table accepts events right away.
+     */
+    public void start()
+    {
+        String database;
+        try
+        {
+            database = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        }
+        catch (DataAccessException e)
+        {
+            log.warn("Failed to determine the audit database, the audit partitions are not managed: {}", e.getMessage());
+            return;
+        }
+
+        if (!"PostgreSQL".equals(database))
+        {
+            log.info("The audit database is {} and not PostgreSQL, the audit partitions are not managed", database);
+            return;
+        }
+
+        maintainQuietly();
+        long interval = configuration.getCheckInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::maintainQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void maintainQuietly()
+    {
+        try
+        {
+            maintain(Instant.now());
+        }
+        catch (RuntimeException e)
+        {
+            log.warn("Failed to manage the audit partitions: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Manages the partitions on a single connection of the template, which holds the advisory lock.
+     *
+     * @param now The current time.
+     */
+    void maintain(Instant now)
+    {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection ->
+        {
+            maintain(new JdbcTemplate(new SingleConnectionDataSource(connection, true)), now);
+            return null;
+        });
+    }
+
+    /**
+     * Creates the default partition and the partitions from the current one up to the configured number ahead and
+     * expires the partitions that are older than the retention, if the advisory lock of the audit table is available.
+     *
+     * @param session The template of the connection the lock is held on.
+     * @param now     The current time.
+     */
+    void maintain(JdbcTemplate session, Instant now)
+    {
+        if (!Boolean.TRUE.equals(session.queryForObject("SELECT pg_try_advisory_lock(?)", Boolean.class, lockKey)))
+        {
+            log.debug("The audit partitions are managed by another node");
+            return;
+        }
+
+        try
+        {
+            createPartitions(session, now);
+            expirePartitions(session, now);
+        }
+        finally
+        {
+            session.queryForObject("SELECT pg_advisory_unlock(?)", Boolean.class, lockKey);
+        }
+    }
+
+    private void createPartitions(JdbcTemplate session, Instant now)
+    {
+        var defaultPartition = schemaPrefix + partitionPrefix.substring(0, partitionPrefix.length() - 1) + "default";
+        session.execute("CREATE TABLE IF NOT EXISTS " + defaultPartition + " PARTITION OF " + table + " DEFAULT");
+
+        var interval = configuration.getInterval();
+        var today = LocalDate.ofInstant(now, ZoneOffset.UTC);
+        var start = interval.start(today);
+        for (int i = 0; i <= configuration.getPartitionsAhead(); i++)
+        {
+            var end = interval.next(start);
+            createPartition(session, interval.suffix(start), start, end);
+            start = end;
+        }
+    }
+
+    private void expirePartitions(JdbcTemplate session, Instant now)
+    {
+        var retention = configuration.getRetention();
+        if (retention == null)
+            return;
+
+        var expiry = now.minus(retention);
+        var partitions = session.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = CAST(? AS regclass)",
+                String.class, table);
+        for (var partition : partitions)
+        {
+            if (!partition.startsWith(partitionPrefix))
+                continue;
+
+            var suffix = partition.substring(partitionPrefix.length());
+            var partitionInterval = AuditPartitionInterval.ofSuffix(suffix);
+            var partitionStart = partitionInterval != null ? partitionInterval.parse(suffix) : null;
+            if (partitionStart == null)
+                continue;
+
+            var partitionEnd = partitionInterval.next(partitionStart).atStartOfDay(ZoneOffset.UTC).toInstant();
+            if (!partitionEnd.isAfter(expiry))
+                expirePartition(session, schemaPrefix + partition);
+        }
+    }
+
+    private void createPartition(JdbcTemplate session, String suffix, LocalDate start, LocalDate end)
+    {
+        var partition = schemaPrefix + partitionPrefix + suffix;
+        try
+        {
+            session.execute("CREATE TABLE IF NOT EXISTS " + partition + " PARTITION OF " + table
+                    + " FOR VALUES FROM ('" + start + " 00:00:00+00') TO ('" + end + " 00:00:00+00')");
+        }
+        catch (DataAccessException e)
+        {
+            // E.g. if a partition of another interval already covers the range or the default partition holds events of it
+            log.warn("Failed to create the audit partition '{}': {}", partition, e.getMessage());
+        }
+    }
+
+    private void expirePartition(JdbcTemplate session, String partition)
+    {
+        if (configuration.getExpiryAction() == AuditPartitioningConfiguration.ExpiryAction.DROP)
+        {
+            log.info("Dropping the expired audit partition '{}'", partition);
+            session.execute("DROP TABLE " + partition);
+        }
+        else
+        {
+            log.info("Detaching the expired audit partition '{}'", partition);
+            // Not CONCURRENTLY, which PostgreSQL does not allow while the audit table has a default partition
+            session.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition);
+        }
+    }
+
+    /**
+     * Stops checking the partitions.
+     */
+    @Override
+    public void close()
+    {
+        scheduler.shutdownNow();
+    }
+}
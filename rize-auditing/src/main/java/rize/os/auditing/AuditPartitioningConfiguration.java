@@ -0,0 +1,119 @@
+package rize.os.auditing;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * This class is used to configure the {@link AuditPartitionManager}.
+ * <p>
+ * The properties of this class can be set in the application.yml or application.properties file.
+ * The prefix for the properties is {@code rize.auditing.partitioning}.
+ *
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+@ConfigurationProperties(prefix = "rize.auditing.partitioning")
+public class AuditPartitioningConfiguration
+{
+    /**
+     * What happens to a partition once all of its events are older than the retention.
+     */
+    public enum ExpiryAction
+    {
+        /**
+         * The partition is detached from the audit table and kept as a table of its own, e.g. to be archived.
+         */
+        DETACH,
+
+        /**
+         * The partition is dropped together with its events.
+         */
+        DROP
+    }
+
+    private final boolean enabled;
+    private final AuditPartitionInterval interval;
+    private final int partitionsAhead;
+    private final Duration retention;
+    private final ExpiryAction expiryAction;
+    private final Duration checkInterval;
+
+    /**
+     * Creates a new instance of the {@link AuditPartitioningConfiguration}.
+     *
+     * @param enabled         Whether the partitions of the audit table are managed. Defaults to {@code true}.
+     * @param interval        The time range each partition covers. Defaults to {@link AuditPartitionInterval#MONTHLY}.
+     * @param partitionsAhead The number of partitions that are created ahead of the current one. Defaults to 2.
+     * @param retention       The time after which the events expire. A partition expires once its newest possible
+     *                        event is older. If {@code null}, the partitions never expire.
+     * @param expiryAction    What happens to an expired partition. Defaults to {@link ExpiryAction#DETACH}.
+     * @param checkInterval   The interval in which the partitions are checked. Defaults to one hour.
+     */
+    public AuditPartitioningConfiguration(@Nullable Boolean enabled,
+                                          @Nullable AuditPartitionInterval interval,
+                                          @Nullable Integer partitionsAhead,
+                                          @Nullable Duration retention,
+                                          @Nullable ExpiryAction expiryAction,
+                                          @Nullable Duration checkInterval)
+    {
+        this.enabled = Objects.requireNonNullElse(enabled, true);
+        this.interval = Objects.requireNonNullElse(interval, AuditPartitionInterval.MONTHLY);
+        this.partitionsAhead = Objects.requireNonNullElse(partitionsAhead, 2);
+        this.retention = retention;
+        this.expiryAction = Objects.requireNonNullElse(expiryAction, ExpiryAction.DETACH);
+        this.checkInterval = Objects.requireNonNullElse(checkInterval, Duration.ofHours(1));
+
+        if (this.partitionsAhead < 1)
+            throw new IllegalArgumentException("At least one partition must be created ahead: " + this.partitionsAhead);
+    }
+
+    /**
+     * @return Whether the partitions of the audit table are managed.
+     */
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * @return The time range each partition covers.
+     */
+    public AuditPartitionInterval getInterval()
+    {
+        return interval;
+    }
+
+    /**
+     * @return The number of partitions that are created ahead of the current one.
+     */
+    public int getPartitionsAhead()
+    {
+        return partitionsAhead;
+    }
+
+    /**
+     * @return The time after which the events expire or {@code null} if they never expire.
+     */
+    public Duration getRetention()
+    {
+        return retention;
+    }
+
+    /**
+     * @return What happens to an expired partition.
+     */
+    public ExpiryAction getExpiryAction()
+    {
+        return expiryAction;
+    }
+
+    /**
+     * @return The interval in which the partitions are checked.
+     */
+    public Duration getCheckInterval()
+    {
+        return checkInterval;
+    }
+}
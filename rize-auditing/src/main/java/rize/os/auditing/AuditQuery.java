@@ -0,0 +1,108 @@
+package rize.os.auditing;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * A query for the {@link AuditEvent}s of a tenant within a time range, see {@link AuditQueryService}.
+ * <p>
+ * The time range is mandatory, so the query only scans the partitions of the audit table that cover it. The optional
+ * filters are added with the {@code with...} methods, which return a new query:
+ * <pre>{@code
+ * var query = AuditQuery.of(tenantId, from, to).withActorId(userId).withLimit(100);
+ * var page = auditQueryService.find(query);
+ * var nextPage = auditQueryService.find(query.withCursor(page.nextCursor()));
+ * }</pre>
+ *
+ * @param tenantId     The ID of the tenant whose events are queried.
+ * @param from         The start of the time range, inclusive.
+ * @param to           The end of the time range, exclusive.
+ * @param actorId      If not {@code null}, only the events of this actor are returned.
+ * @param action       If not {@code null}, only the events with this action are returned.
+ * @param resourceType If not {@code null}, only the events of resources of this type are returned.
+ * @param limit        The maximum number of events of a page.
+ * @param cursor       The cursor of the page to return, as returned by {@link AuditPage#nextCursor()}, or
+ *                     {@code null} for the first page.
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public record AuditQuery(@NonNull String tenantId,
+                         @NonNull Instant from,
+                         @NonNull Instant to,
+                         @Nullable String actorId,
+                         @Nullable String action,
+                         @Nullable String resourceType,
+                         int limit,
+                         @Nullable String cursor)
+{
+    /**
+     * The default number of events of a page.
+     */
+    public static final int DEFAULT_LIMIT = 50;
+
+    public AuditQuery
+    {
+        Objects.requireNonNull(tenantId, "The tenant of an audit query must not be null");
+        Objects.requireNonNull(from, "The start of the time range of an audit query must not be null");
+        Objects.requireNonNull(to, "The end of the time range of an audit query must not be null");
+        if (!from.isBefore(to))
+            throw new IllegalArgumentException("The start of the time range must be before its end: " + from + " - " + to);
+        if (limit < 1)
+            throw new IllegalArgumentException("The limit of an audit query must be positive: " + limit);
+    }
+
+    /**
+     * Creates a query for the first page of the events of the given tenant within the given time range.
+     *
+     * @param tenantId The ID of the tenant.
+     * @param from     The start of the time range, inclusive.
+     * @param to       The end of the time range, exclusive.
+     * @return The query.
+     */
+    public static AuditQuery of(@NonNull String tenantId, @NonNull Instant from, @NonNull Instant to)
+    {
+        return new AuditQuery(tenantId, from, to, null, null, null, DEFAULT_LIMIT, null);
+    }
+
+    /**
+     * @return A copy of this query that only returns the events of the given actor.
+     */
+    public AuditQuery withActorId(@Nullable String actorId)
+    {
+        return new AuditQuery(tenantId, from, to, actorId, action, resourceType, limit, cursor);
+    }
+
+    /**
+     * @return A copy of this query that only returns the events with the given action.
+     */
+    public AuditQuery withAction(@Nullable String action)
+    {
+        return new AuditQuery(tenantId, from, to, actorId, action, resourceType, limit, cursor);
+    }
+
+    /**
+     * @return A copy of this query that only returns the events of resources of the given type.
+     */
+    public AuditQuery withResourceType(@Nullable String resourceType)
+    {
+        return new AuditQuery(tenantId, from, to, actorId, action, resourceType, limit, cursor);
+    }
+
+    /**
+     * @return A copy of this query with the given maximum number of events per page.
+     */
+    public AuditQuery withLimit(int limit)
+    {
+        return new AuditQuery(tenantId, from, to, actorId, action, resourceType, limit, cursor);
+    }
+
+    /**
+     * @return A copy of this query that returns the page of the given cursor.
+     */
+    public AuditQuery withCursor(@Nullable String cursor)
+    {
+        return new AuditQuery(tenantId, from, to, actorId, action, resourceType, limit, cursor);
+    }
+}
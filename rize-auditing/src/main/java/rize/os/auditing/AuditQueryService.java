@@ -0,0 +1,128 @@
+package rize.os.auditing;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.lang.NonNull;
+
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Queries the {@link AuditEvent}s of a tenant page by page, newest first.
+ * <p>
+ * The pages are read with keyset pagination: the events are ordered by {@code (occurred_at, id)} and each page starts
+ * right after the last event of the previous page, which is passed as an opaque cursor, instead of skipping the events
+ * of all previous pages with {@code OFFSET}. With the indexes on {@code (tenant_id, occurred_at, id)},
+ * {@code (tenant_id, actor_id, occurred_at, id)}, {@code (tenant_id, resource_type, occurred_at, id)} and
+ * {@code (tenant_id, action, occurred_at, id)} of the audit changelog, PostgreSQL seeks directly to the start of a page
+ * and reads only the events of the page, so a deep page costs the same as the first one.
+ * <p>
+ * Every query is bound to a time range, so only the partitions of the audit table that cover it are scanned, see
+ * {@link AuditPartitionManager}.
+ *
+ * @see AuditQuery
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public class AuditQueryService
+{
+    /**
+     * The maximum number of events of a page. Larger limits are reduced to it.
+     */
+    public static final int MAX_LIMIT = 1_000;
+
+    static final RowMapper<AuditEvent> ROW_MAPPER = (resultSet, rowNumber) -> new AuditEvent(
+            resultSet.getObject("id", UUID.class),
+            resultSet.getObject("occurred_at", OffsetDateTime.class).toInstant(),
+            resultSet.getString("tenant_id"),
+            resultSet.getString("actor_id"),
+            resultSet.getString("action"),
+            resultSet.getString("resource_type"),
+            resultSet.getString("resource_id"),
+            resultSet.getString("details"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String select;
+
+    /**
+     * Creates a new query service.
+     *
+     * @param configuration The configuration of the audit log, which names the audit table.
+     * @param jdbcTemplate  The template the audit table is queried with.
+     */
+    public AuditQueryService(@NonNull AuditingConfiguration configuration, @NonNull JdbcTemplate jdbcTemplate)
+    {
+        this.jdbcTemplate = jdbcTemplate;
+        this.select = select(configuration);
+    }
+
+    /**
+     * Returns a page of the events that match the given query.
+     *
+     * @param query The query.
+     * @return The page.
+     * @throws IllegalArgumentException If the cursor of the query is invalid.
+     */
+    public AuditPage find(@NonNull AuditQuery query)
+    {
+        int limit = Math.min(query.limit(), MAX_LIMIT);
+        var sql = new StringBuilder(select);
+        var parameters = new ArrayList<Object>(8);
+        appendConditions(sql, parameters, query);
+
+        sql.append(" LIMIT ?");
+        parameters.add(limit + 1);
+
+        List<AuditEvent> events = jdbcTemplate.query(sql.toString(), ROW_MAPPER, parameters.toArray());
+        if (events.size() <= limit)
+            return new AuditPage(events, null);
+
+        events = events.subList(0, limit);
+        return new AuditPage(List.copyOf(events), AuditCursor.of(events.get(limit - 1)).encode());
+    }
+
+    static String select(AuditingConfiguration configuration)
+    {
+        return "SELECT id, occurred_at, tenant_id, actor_id, action, resource_type, resource_id, details FROM " + configuration.getTableName();
+    }
+
+    /**
+     * Appends the conditions and the order of the given query, without its limit, to the given SQL.
+     *
+     * @throws IllegalArgumentException If the cursor of the query is invalid.
+     */
+    static void appendConditions(StringBuilder sql, List<Object> parameters, AuditQuery query)
+    {
+        sql.append(" WHERE tenant_id = ? AND occurred_at >= ? AND occurred_at < ?");
+        parameters.add(query.tenantId());
+        parameters.add(Timestamp.from(query.from()));
+        parameters.add(Timestamp.from(query.to()));
+
+        if (query.actorId() != null)
+        {
+            sql.append(" AND actor_id = ?");
+            parameters.add(query.actorId());
+        }
+        if (query.action() != null)
+        {
+            sql.append(" AND action = ?");
+            parameters.add(query.action());
+        }
+        if (query.resourceType() != null)
+        {
+            sql.append(" AND resource_type = ?");
+            parameters.add(query.resourceType());
+        }
+        if (query.cursor() != null)
+        {
+            var cursor = AuditCursor.decode(query.cursor());
+            sql.append(" AND (occurred_at, id) < (?, ?)");
+            parameters.add(Timestamp.from(cursor.occurredAt()));
+            parameters.add(cursor.id());
+        }
+
+        sql.append(" ORDER BY occurred_at DESC, id DESC");
+    }
+}
@@ -0,0 +1,72 @@
+package rize.os.auditing;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.lang.Nullable;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * This class is used to configure the {@link MappedAuditEventSpill}.
+ * <p>
+ * The properties of this class can be set in the application.yml or application.properties file.
+ * The prefix for the properties is {@code rize.auditing.spill}.
+ *
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+@ConfigurationProperties(prefix = "rize.auditing.spill")
+public class AuditSpillConfiguration
+{
+    private final Path directory;
+    private final DataSize segmentSize;
+    private final int maxSegments;
+
+    /**
+     * Creates a new instance of the {@link AuditSpillConfiguration}.
+     *
+     * @param directory   The local directory the segments of the spill are stored in. If {@code null}, no spill is
+     *                    configured.
+     * @param segmentSize The size of each segment file. Defaults to 16 MB.
+     * @param maxSegments The maximum number of segment files. Once all of them are full, the spill rejects further
+     *                    events. Defaults to 64.
+     */
+    public AuditSpillConfiguration(@Nullable Path directory,
+                                   @Nullable DataSize segmentSize,
+                                   @Nullable Integer maxSegments)
+    {
+        this.directory = directory;
+        this.segmentSize = Objects.requireNonNullElse(segmentSize, DataSize.ofMegabytes(16));
+        this.maxSegments = Objects.requireNonNullElse(maxSegments, 64);
+
+        if (this.segmentSize.toBytes() < 1024 || this.segmentSize.toBytes() > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("The segment size must be between 1 KB and 2 GB: " + this.segmentSize);
+        if (this.maxSegments < 2)
+            throw new IllegalArgumentException("At least two segments are required: " + this.maxSegments);
+    }
+
+    /**
+     * @return The local directory the segments of the spill are stored in, or {@code null} if no spill is configured.
+     */
+    @Nullable
+    public Path getDirectory()
+    {
+        return directory;
+    }
+
+    /**
+     * @return The size of each segment file.
+     */
+    public DataSize getSegmentSize()
+    {
+        return segmentSize;
+    }
+
+    /**
+     * @return The maximum number of segment files.
+     */
+    public int getMaxSegments()
+    {
+        return maxSegments;
+    }
+}
@@ -0,0 +1,153 @@
+package rize.os.auditing;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.io.IOException;
+
+/**
+ * Auto-configuration of the {@link AuditLog}.
+ * <p>
+ * If a {@link JdbcTemplate} is configured, the audit log writes the events with a {@link JdbcAuditEventWriter} to the
+ * table configured with {@code rize.auditing.table-name}. If the PostgreSQL driver is present, the events are written
+ * with a {@link PostgresCopyAuditEventWriter} instead, which falls back to the {@link JdbcAuditEventWriter} on other
+ * databases. This can be disabled with {@code rize.auditing.copy-enabled=false}.
+ * <p>
+ * The audit table is created by the changelog {@code classpath:db/changelog/rize-auditing/db.changelog-auditing.yaml},
+ * which has to be included in the changelog of the application. Its partitions are managed by the
+ * {@link AuditPartitionManager}, which can be disabled with {@code rize.auditing.partitioning.enabled=false}. The events
+ * are queried with the {@link AuditQueryService} and exported with the {@link AuditExportService}. In servlet
+ * applications, the {@link AuditExportController} is registered with {@code rize.auditing.export.endpoint-enabled=true}
+ * and checks every export with the {@link AuditExportAuthorizer} bean of the application.
+ * <p>
+ * If {@code rize.auditing.spill.directory} is set, events that cannot be written while the database is unavailable
+ * are spilled to a {@link MappedAuditEventSpill} in that directory. With {@link AuditBackpressure#SPILL}, a spill must
+ * be configured or an {@link AuditEventSpill} bean provided. The audit log can be disabled with
+ * {@code rize.auditing.enabled=false}.
+ *
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+@AutoConfiguration(after = {JdbcTemplateAutoConfiguration.class, DataSourceTransactionManagerAutoConfiguration.class})
+@ConditionalOnBean(JdbcTemplate.class)
+@ConditionalOnProperty(prefix = "rize.auditing", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties({AuditingConfiguration.class, AuditPartitioningConfiguration.class, AuditSpillConfiguration.class, AuditExportConfiguration.class})
+public class AuditingAutoConfiguration
+{
+    @Bean
+    @ConditionalOnMissingBean
+    AuditEventWriter auditEventWriter(AuditingConfiguration configuration,
+                                      JdbcTemplate jdbcTemplate,
+                                      ObjectProvider<PlatformTransactionManager> transactionManager)
+    {
+        return jdbcAuditEventWriter(configuration, jdbcTemplate, transactionManager);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "rize.auditing.spill", name = "directory")
+    AuditEventSpill auditEventSpill(AuditSpillConfiguration configuration) throws IOException
+    {
+        return new MappedAuditEventSpill(configuration);
+    }
+
+    @Bean(initMethod = "start")
+    @ConditionalOnMissingBean
+    @DependsOnDatabaseInitialization
+    AuditLog auditLog(AuditingConfiguration configuration, AuditEventWriter auditEventWriter, @Nullable AuditEventSpill spill)
+    {
+        return new AuditLog(configuration, auditEventWriter, spill);
+    }
+
+    @Bean(initMethod = "start")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "rize.auditing.partitioning", name = "enabled", havingValue = "true", matchIfMissing = true)
+    @DependsOnDatabaseInitialization
+    AuditPartitionManager auditPartitionManager(AuditingConfiguration configuration,
+                                                AuditPartitioningConfiguration partitioningConfiguration,
+                                                JdbcTemplate jdbcTemplate)
+    {
+        return new AuditPartitionManager(configuration, partitioningConfiguration, jdbcTemplate);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    AuditQueryService auditQueryService(AuditingConfiguration configuration, JdbcTemplate jdbcTemplate)
+    {
+        return new AuditQueryService(configuration, jdbcTemplate);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    AuditExportService auditExportService(AuditingConfiguration configuration,
+                                          AuditExportConfiguration exportConfiguration,
+                                          JdbcTemplate jdbcTemplate)
+    {
+        return new AuditExportService(configuration, exportConfiguration, jdbcTemplate);
+    }
+
+    private static JdbcAuditEventWriter jdbcAuditEventWriter(AuditingConfiguration configuration,
+                                                             JdbcTemplate jdbcTemplate,
+                                                             ObjectProvider<PlatformTransactionManager> transactionManager)
+    {
+        var manager = transactionManager.getIfUnique();
+        TransactionOperations transactionOperations = manager != null ? new TransactionTemplate(manager) : TransactionOperations.withoutTransaction();
+
+        return new JdbcAuditEventWriter(configuration, jdbcTemplate, transactionOperations);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "org.postgresql.PGConnection")
+    @ConditionalOnProperty(prefix = "rize.auditing", name = "copy-enabled", havingValue = "true", matchIfMissing = true)
+    static class PostgresCopyConfiguration
+    {
+        @Bean
+        @ConditionalOnMissingBean
+        AuditEventWriter auditEventWriter(AuditingConfiguration configuration,
+                                          JdbcTemplate jdbcTemplate,
+                                          ObjectProvider<PlatformTransactionManager> transactionManager)
+        {
+            return new PostgresCopyAuditEventWriter(configuration, jdbcTemplate, jdbcAuditEventWriter(configuration, jdbcTemplate, transactionManager));
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnClass(name = "org.springframework.web.servlet.DispatcherServlet")
+    @ConditionalOnProperty(prefix = "rize.auditing.export", name = "endpoint-enabled", havingValue = "true")
+    static class AuditExportEndpointConfiguration
+    {
+        @Bean
+        @ConditionalOnMissingBean
+        AuditExportController auditExportController(AuditExportService auditExportService,
+                                                    ObjectProvider<AuditExportAuthorizer> authorizer)
+        {
+            return new AuditExportController(auditExportService, authorizer.getIfUnique());
+        }
+
+        @Bean
+        @ConditionalOnMissingBean(name = "auditExportRouterFunction")
+        RouterFunction<ServerResponse> auditExportRouterFunction(AuditExportController auditExportController,
+                                                                 AuditExportConfiguration exportConfiguration)
+        {
+            return auditExportController.routerFunction(exportConfiguration.getPath());
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package rize.os.auditing;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * This class is used to configure the {@link AuditLog}.
+ * <p>
+ * The properties of this class can be set in the application.yml or application.properties file.
+ * The prefix for the properties is {@code rize.auditing}.
+ *
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+@ConfigurationProperties(prefix = "rize.auditing")
+public class AuditingConfiguration
+{
+    private final boolean enabled;
+    private final String tableName;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final Duration lingerTime;
+    private final AuditBackpressure backpressure;
+    private final Duration blockTimeout;
+    private final Duration retryInitialDelay;
+    private final Duration retryMaxDelay;
+    private final Duration shutdownTimeout;
+    private final boolean copyEnabled;
+    private final double spillThreshold;
+
+    /**
+     * Creates a new instance of the {@link AuditingConfiguration}.
+     *
+     * @param enabled           Whether the audit log is configured. Defaults to {@code true}.
+     * @param tableName         The name of the table the events are written to. Defaults to {@code audit_event}.
+     * @param queueCapacity     The number of events the queue holds before the backpressure strategy applies. Rounded
+     *                          up to the next power of two. Defaults to 8192.
+     * @param batchSize         The maximum number of events that are written with a single batch. Defaults to 500.
+     * @param lingerTime        The time the writer waits for a batch to fill up before it writes a smaller one.
+     *                          Defaults to 50 milliseconds.
+     * @param backpressure      What happens to an event while the queue is full. Defaults to
+     *                          {@link AuditBackpressure#BLOCK}.
+     * @param blockTimeout      The maximum time a thread waits for space in the queue with
+     *                          {@link AuditBackpressure#BLOCK}. Defaults to one second.
+     * @param retryInitialDelay The delay before a failed batch is written again. Doubled with each consecutive failure.
+     *                          Defaults to one second.
+     * @param retryMaxDelay     The maximum delay before a failed batch is written again. Defaults to 30 seconds.
+     * @param shutdownTimeout   The maximum time the queued events are written for when the audit log is closed.
+     *                          Defaults to ten seconds.
+     * @param copyEnabled       Whether the batches are written with {@code COPY} if the database is PostgreSQL.
+     *                          Defaults to {@code true}.
+     * @param spillThreshold    The fill level of the queue, as a fraction of its capacity, from which events are
+     *                          appended to the {@link AuditEventSpill} instead, if one is configured. Defaults to 0.75.
+     */
+    public AuditingConfiguration(@Nullable Boolean enabled,
+                                 @Nullable String tableName,
+                                 @Nullable Integer queueCapacity,
+                                 @Nullable Integer batchSize,
+                                 @Nullable Duration lingerTime,
+                                 @Nullable AuditBackpressure backpressure,
+                                 @Nullable Duration blockTimeout,
+                                 @Nullable Duration retryInitialDelay,
+                                 @Nullable Duration retryMaxDelay,
+                                 @Nullable Duration shutdownTimeout,
+                                 @Nullable Boolean copyEnabled,
+                                 @Nullable Double spillThreshold)
+    {
+        this.enabled = Objects.requireNonNullElse(enabled, true);
+        this.tableName = Objects.requireNonNullElse(tableName, "audit_event");
+        this.queueCapacity = Objects.requireNonNullElse(queueCapacity, 8192);
+        this.batchSize = Objects.requireNonNullElse(batchSize, 500);
+        this.lingerTime = Objects.requireNonNullElse(lingerTime, Duration.ofMillis(50));
+        this.backpressure = Objects.requireNonNullElse(backpressure, AuditBackpressure.BLOCK);
+        this.blockTimeout = Objects.requireNonNullElse(blockTimeout, Duration.ofSeconds(1));
+        this.retryInitialDelay = Objects.requireNonNullElse(retryInitialDelay, Duration.ofSeconds(1));
+        this.retryMaxDelay = Objects.requireNonNullElse(retryMaxDelay, Duration.ofSeconds(30));
+        this.shutdownTimeout = Objects.requireNonNullElse(shutdownTimeout, Duration.ofSeconds(10));
+        this.copyEnabled = Objects.requireNonNullElse(copyEnabled, true);
+        this.spillThreshold = Objects.requireNonNullElse(spillThreshold, 0.75);
+
+        if (!this.tableName.matches("[A-Za-z_][A-Za-z0-9_.]*"))
+            throw new IllegalArgumentException("Invalid audit table name: " + this.tableName);
+        if (this.queueCapacity < 1 || this.queueCapacity > 1 << 30)
+            throw new IllegalArgumentException("The queue capacity must be between 1 and 2^30: " + this.queueCapacity);
+        if (this.batchSize < 1)
+            throw new IllegalArgumentException("The batch size must be positive: " + this.batchSize);
+        if (!(this.spillThreshold > 0 && this.spillThreshold <= 1))
+            throw new IllegalArgumentException("The spill threshold must be greater than 0 and at most 1: " + this.spillThreshold);
+    }
+
+    /**
+     * @return Whether the audit log is configured.
+     */
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * @return The name of the table the events are written to.
+     */
+    public String getTableName()
+    {
+        return tableName;
+    }
+
+    /**
+     * @return The number of events the queue holds before the backpressure strategy applies.
+     */
+    public int getQueueCapacity()
+    {
+        return queueCapacity;
+    }
+
+    /**
+     * @return The maximum number of events that are written with a single batch.
+     */
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+
+    /**
+     * @return The time the writer waits for a batch to fill up before it writes a smaller one.
+     */
+    public Duration getLingerTime()
+    {
+        return lingerTime;
+    }
+
+    /**
+     * @return What happens to an event while the queue is full.
+     */
+    public AuditBackpressure getBackpressure()
+    {
+        return backpressure;
+    }
+
+    /**
+     * @return The maximum time a thread waits for space in the queue with {@link AuditBackpressure#BLOCK}.
+     */
+    public Duration getBlockTimeout()
+    {
+        return blockTimeout;
+    }
+
+    /**
+     * @return The delay before a failed batch is written again.
+     */
+    public Duration getRetryInitialDelay()
+    {
+        return retryInitialDelay;
+    }
+
+    /**
+     * @return The maximum delay before a failed batch is written again.
+     */
+    public Duration getRetryMaxDelay()
+    {
+        return retryMaxDelay;
+    }
+
+    /**
+     * @return The maximum time the queued events are written for when the audit log is closed.
+     */
+    public Duration getShutdownTimeout()
+    {
+        return shutdownTimeout;
+    }
+
+    /**
+     * @return Whether the batches are written with {@code COPY} if the database is PostgreSQL.
+     */
+    public boolean isCopyEnabled()
+    {
+        return copyEnabled;
+    }
+
+    /**
+     * @return The fill level of the queue, as a fraction of its capacity, from which events are appended to the
+     *         {@link AuditEventSpill} instead.
+     */
+    public double getSpillThreshold()
+    {
+        return spillThreshold;
+    }
+}
@@ -0,0 +1,147 @@
+package rize.os.auditing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * An {@link AuditEventWriter} that writes the events with a JDBC batch insert, so a whole batch costs a single round
+ * trip to the database.
+ * <p>
+ * The events are expected in a table with the following columns, see {@link AuditingConfiguration#getTableName()}:
+ * <pre>{@code
+ * id            uuid          the ID of the event
+ * occurred_at   timestamptz   the time the event occurred at
+ * tenant_id     varchar(255)
+ * actor_id      varchar(255)
+ * action        varchar(255)
+ * resource_type varchar(255)
+ * resource_id   varchar(255)  nullable
+ * details       text          nullable
+ * }</pre>
+ *
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public class JdbcAuditEventWriter implements AuditEventWriter
+{
+    private static final Logger log = LoggerFactory.getLogger(JdbcAuditEventWriter.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionOperations transactionOperations;
+    private final String insert;
+    private final String insertIgnoringDuplicates;
+    private volatile Boolean postgres;
+
+    /**
+     * Creates a new writer.
+     *
+     * @param configuration         The configuration of the audit log.
+     * @param jdbcTemplate          The template the events are written with.
+     * @param transactionOperations The transaction each batch is written in.
+     */
+    public JdbcAuditEventWriter(@NonNull AuditingConfiguration configuration,
+                                @NonNull JdbcTemplate jdbcTemplate,
+                                @NonNull TransactionOperations transactionOperations)
+    {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionOperations = transactionOperations;
+        this.insert = "INSERT INTO " + configuration.getTableName()
+                + " (id, occurred_at, tenant_id, actor_id, action, resource_type, resource_id, details) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        this.insertIgnoringDuplicates = insert + " ON CONFLICT DO NOTHING";
+    }
+
+    @Override
+    public void write(@NonNull List<AuditEvent> events)
+    {
+        write(insert, events);
+    }
+
+    private void write(String sql, List<AuditEvent> events)
+    {
+        transactionOperations.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter()
+        {
+            @Override
+            public void setValues(PreparedStatement statement, int index) throws SQLException
+            {
+                setParameters(statement, events.get(index));
+            }
+
+            @Override
+            public int getBatchSize()
+            {
+                return events.size();
+            }
+        }));
+    }
+
+    /**
+     * Writes the given events with a batch insert and skips the events that have already been written. In PostgreSQL,
+     * the duplicates are skipped by {@code ON CONFLICT DO NOTHING}. In other databases, the events are written one by
+     * one instead if one of them has already been written.
+     */
+    @Override
+    public void replay(@NonNull List<AuditEvent> events)
+    {
+        if (isPostgres())
+        {
+            write(insertIgnoringDuplicates, events);
+            return;
+        }
+
+        try
+        {
+            write(events);
+        }
+        catch (DuplicateKeyException e)
+        {
+            int skipped = 0;
+            for (var event : events)
+            {
+                try
+                {
+                    jdbcTemplate.update(insert, statement -> setParameters(statement, event));
+                }
+                catch (DuplicateKeyException duplicate)
+                {
+                    skipped++;
+                }
+            }
+
+            log.info("Skipped {} of {} replayed audit events that have already been written", skipped, events.size());
+        }
+    }
+
+    private boolean isPostgres()
+    {
+        var isPostgres = postgres;
+        if (isPostgres == null)
+        {
+            isPostgres = "PostgreSQL".equals(jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+            postgres = isPostgres;
+        }
+
+        return isPostgres;
+    }
+
+    private static void setParameters(PreparedStatement statement, AuditEvent event) throws SQLException
+    {
+        statement.setObject(1, event.id());
+        statement.setTimestamp(2, Timestamp.from(event.occurredAt()));
+        statement.setString(3, event.tenantId());
+        statement.setString(4, event.actorId());
+        statement.setString(5, event.action());
+        statement.setString(6, event.resourceType());
+        statement.setString(7, event.resourceId());
+        statement.setString(8, event.details());
+    }
+}
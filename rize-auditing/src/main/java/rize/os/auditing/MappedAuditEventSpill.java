@@ -0,0 +1,401 @@
+package rize.os.auditing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32C;
+
+/**
+ * An {@link AuditEventSpill} that appends the events to a write-ahead log of memory-mapped segment files in a local
+ * directory, so spilled events survive a restart of the application.
+ * <p>
+ * The log is a sequence of segment files of the configured size, named {@code audit-<sequence>.spill}. Events are
+ * appended to the newest segment as length-prefixed records with a CRC32C checksum. If a segment is full, a new one is
+ * started, up to the configured maximum number of segments. A segment is deleted once all of its events have been
+ * acknowledged. Appending to a mapped file is a copy into the page cache, so the spill is fast enough to take the
+ * events of a busy application while the database is unavailable.
+ * <p>
+ * Each segment header holds the offset up to which its events have been acknowledged. Once all events have been
+ * acknowledged, the segment that is appended to is reset and reused. When the spill is opened, the unacknowledged
+ * events of the existing segments are read again. A record that was only partially written when the application
+ * stopped fails its checksum and ends the segment. The acknowledged offset is updated in the mapped file without
+ * flushing it, so after a crash a few events may be read again that have already been written, which is why the
+ * events are written with {@link AuditEventWriter#replay}. The segments are flushed to disk when a segment is full,
+ * outside the lock of the spill, and when the spill is closed, so events that are not flushed yet survive a crash of
+ * the application but not a crash of the operating system.
+ *
+ * @see AuditSpillConfiguration
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public class MappedAuditEventSpill implements AuditEventSpill, AutoCloseable
+{
+    private static final Logger log = LoggerFactory.getLogger(MappedAuditEventSpill.class);
+
+    private static final int MAGIC = 0x52415350;
+    private static final int VERSION = 1;
+    private static final int SEGMENT_HEADER_SIZE = 12;
+    private static final int ACKNOWLEDGED_OFFSET = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int FIXED_PAYLOAD_SIZE = 16 + 8 + 4 + 6 * 4;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("audit-(\\d{20})\\.spill");
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private final CRC32C checksum = new CRC32C();
+
+    private long nextSequence;
+    private int readOffset = SEGMENT_HEADER_SIZE;
+    private int pendingOffset = SEGMENT_HEADER_SIZE;
+    private int pendingEvents;
+    private long unacknowledgedEvents;
+    private boolean closed;
+
+    /**
+     * Opens the spill in the configured directory and reads the existing segments.
+     *
+     * @param configuration The configuration of the spill.
+     * @throws IOException If the directory or the segments could not be opened.
+     */
+    public MappedAuditEventSpill(@NonNull AuditSpillConfiguration configuration) throws IOException
+    {
+        if (configuration.getDirectory() == null)
+            throw new IllegalArgumentException("The directory of the audit spill is not configured");
+
+        this.directory = configuration.getDirectory();
+        this.segmentSize = (int) configuration.getSegmentSize().toBytes();
+        this.maxSegments = configuration.getMaxSegments();
+
+        Files.createDirectories(directory);
+        recover();
+        if (segments.isEmpty())
+            segments.add(createSegment());
+    }
+
+    private void recover() throws IOException
+    {
+        var paths = new ArrayList<Path>();
+        try (var files = Files.list(directory))
+        {
+            files.filter(path -> SEGMENT_NAME.matcher(path.getFileName().toString()).matches()).sorted().forEach(paths::add);
+        }
+
+        for (var path : paths)
+        {
+            var matcher = SEGMENT_NAME.matcher(path.getFileName().toString());
+            matcher.matches();
+            long sequence = Long.parseLong(matcher.group(1));
+            nextSequence = Math.max(nextSequence, sequence + 1);
+
+            MappedByteBuffer buffer;
+            try (var channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE))
+            {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            }
+
+            if (buffer.capacity() < SEGMENT_HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+            {
+                log.warn("Ignoring the audit spill segment '{}' as it is not a valid segment", path);
+                continue;
+            }
+
+            int acknowledged = buffer.getInt(ACKNOWLEDGED_OFFSET);
+            if (acknowledged < SEGMENT_HEADER_SIZE || acknowledged > buffer.capacity())
+                acknowledged = SEGMENT_HEADER_SIZE;
+
+            var segment = new Segment(path, buffer);
+            segment.limit = scan(segment, acknowledged);
+            if (segments.isEmpty())
+                readOffset = pendingOffset = acknowledged;
+            segments.add(segment);
+        }
+
+        if (unacknowledgedEvents > 0)
+            log.info("Recovered {} spilled audit events from {} segments in '{}'", unacknowledgedEvents, segments.size(), directory);
+    }
+
+    private int scan(Segment segment, int offset)
+    {
+        var buffer = segment.buffer;
+        while (offset + RECORD_HEADER_SIZE <= buffer.capacity())
+        {
+            int length = buffer.getInt(offset);
+            if (length == 0)
+                break;
+
+            if (length < FIXED_PAYLOAD_SIZE || length > buffer.capacity() - offset - RECORD_HEADER_SIZE
+                    || checksum(buffer, offset + RECORD_HEADER_SIZE, length) != buffer.getInt(offset + 4))
+            {
+                log.warn("The audit spill segment '{}' ends with an incomplete record at offset {}, which is ignored", segment.path, offset);
+                break;
+            }
+
+            unacknowledgedEvents++;
+            offset += RECORD_HEADER_SIZE + length;
+        }
+
+        return offset;
+    }
+
+    @Override
+    public boolean append(@NonNull AuditEvent event)
+    {
+        var strings = new byte[][] {
+                bytes(event.tenantId()), bytes(event.actorId()), bytes(event.action()),
+                bytes(event.resourceType()), bytes(event.resourceId()), bytes(event.details())
+        };
+
+        int length = FIXED_PAYLOAD_SIZE;
+        for (var string : strings)
+            length += string != null ? string.length : 0;
+
+        if (RECORD_HEADER_SIZE + length > segmentSize - SEGMENT_HEADER_SIZE)
+        {
+            log.warn("The audit event '{}' is too large for the audit spill", event.id());
+            return false;
+        }
+
+        Segment full = null;
+        synchronized (this)
+        {
+            if (closed)
+                return false;
+
+            var segment = segments.getLast();
+            if (length > segment.buffer.capacity() - segment.limit - RECORD_HEADER_SIZE)
+            {
+                if (segments.size() >= maxSegments)
+                    return false;
+
+                try
+                {
+                    full = segment;
+                    segment = createSegment();
+                    segments.add(segment);
+                }
+                catch (IOException e)
+                {
+                    log.warn("Failed to create a new audit spill segment: {}", e.getMessage());
+                    return false;
+                }
+            }
+
+            write(segment, event, strings, length);
+        }
+
+        // Flushing a full segment may take a while, so appending to the next one does not wait for it
+        if (full != null)
+            full.buffer.force();
+
+        return true;
+    }
+
+    private void write(Segment segment, AuditEvent event, byte[][] strings, int length)
+    {
+        var buffer = segment.buffer;
+        int offset = segment.limit + RECORD_HEADER_SIZE;
+        buffer.putLong(offset, event.id().getMostSignificantBits());
+        buffer.putLong(offset + 8, event.id().getLeastSignificantBits());
+        buffer.putLong(offset + 16, event.occurredAt().getEpochSecond());
+        buffer.putInt(offset + 24, event.occurredAt().getNano());
+        offset += 28;
+        for (var string : strings)
+        {
+            if (string == null)
+            {
+                buffer.putInt(offset, -1);
+                offset += 4;
+            }
+            else
+            {
+                buffer.putInt(offset, string.length);
+                buffer.put(offset + 4, string);
+                offset += 4 + string.length;
+            }
+        }
+
+        // The length is written last, so a record is only valid once it has been written completely. The record is
+        // followed by an empty length, so the records that remain from before a reset of the segment are never read.
+        if (offset + 4 <= buffer.capacity())
+            buffer.putInt(offset, 0);
+        buffer.putInt(segment.limit + 4, checksum(buffer, segment.limit + RECORD_HEADER_SIZE, length));
+        buffer.putInt(segment.limit, length);
+        segment.limit = offset;
+        unacknowledgedEvents++;
+    }
+
+    @Override
+    public synchronized int read(@NonNull List<AuditEvent> batch, int maxEvents)
+    {
+        pendingEvents = 0;
+        deleteReadSegments();
+
+        var segment = segments.peekFirst();
+        if (segment == null)
+            return 0;
+
+        int offset = readOffset;
+        while (pendingEvents < maxEvents && offset < segment.limit)
+        {
+            int length = segment.buffer.getInt(offset);
+            batch.add(decode(segment.buffer, offset + RECORD_HEADER_SIZE));
+            offset += RECORD_HEADER_SIZE + length;
+            pendingEvents++;
+        }
+
+        pendingOffset = offset;
+        return pendingEvents;
+    }
+
+    @Override
+    public synchronized void acknowledge()
+    {
+        readOffset = pendingOffset;
+        unacknowledgedEvents -= pendingEvents;
+        pendingEvents = 0;
+        deleteReadSegments();
+
+        var segment = segments.peekFirst();
+        if (segment == null)
+            return;
+
+        if (unacknowledgedEvents == 0 && segments.size() == 1)
+        {
+            // Reuses the segment that is appended to, instead of filling it up with acknowledged events
+            segment.buffer.putInt(SEGMENT_HEADER_SIZE, 0);
+            segment.limit = SEGMENT_HEADER_SIZE;
+            readOffset = pendingOffset = SEGMENT_HEADER_SIZE;
+        }
+        segment.buffer.putInt(ACKNOWLEDGED_OFFSET, readOffset);
+    }
+
+    @Override
+    public synchronized boolean isEmpty()
+    {
+        return unacknowledgedEvents == 0;
+    }
+
+    /**
+     * @return The number of events that have been appended and not acknowledged yet.
+     */
+    public synchronized long size()
+    {
+        return unacknowledgedEvents;
+    }
+
+    /**
+     * Deletes the oldest segments as long as all of their events have been read and acknowledged, except for the
+     * segment that is appended to.
+     */
+    private void deleteReadSegments()
+    {
+        while (segments.size() > 1 && readOffset >= segments.getFirst().limit)
+        {
+            var segment = segments.removeFirst();
+            readOffset = SEGMENT_HEADER_SIZE;
+            pendingOffset = SEGMENT_HEADER_SIZE;
+            try
+            {
+                Files.deleteIfExists(segment.path);
+            }
+            catch (IOException e)
+            {
+                log.warn("Failed to delete the audit spill segment '{}': {}", segment.path, e.getMessage());
+            }
+        }
+    }
+
+    private Segment createSegment() throws IOException
+    {
+        var path = directory.resolve(String.format("audit-%020d.spill", nextSequence++));
+        MappedByteBuffer buffer;
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(ACKNOWLEDGED_OFFSET, SEGMENT_HEADER_SIZE);
+        return new Segment(path, buffer);
+    }
+
+    private AuditEvent decode(MappedByteBuffer buffer, int offset)
+    {
+        var id = new UUID(buffer.getLong(offset), buffer.getLong(offset + 8));
+        var occurredAt = Instant.ofEpochSecond(buffer.getLong(offset + 16), buffer.getInt(offset + 24));
+        offset += 28;
+
+        var strings = new String[6];
+        for (int i = 0; i < strings.length; i++)
+        {
+            int length = buffer.getInt(offset);
+            offset += 4;
+            if (length >= 0)
+            {
+                var bytes = new byte[length];
+                buffer.get(offset, bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+                offset += length;
+            }
+        }
+
+        return new AuditEvent(id, occurredAt, strings[0], strings[1], strings[2], strings[3], strings[4], strings[5]);
+    }
+
+    private int checksum(MappedByteBuffer buffer, int offset, int length)
+    {
+        checksum.reset();
+        checksum.update(buffer.slice(offset, length));
+        return (int) checksum.getValue();
+    }
+
+    @Nullable
+    private static byte[] bytes(@Nullable String string)
+    {
+        return string != null ? string.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * Flushes the segments to disk. Events that are appended afterward are rejected.
+     */
+    @Override
+    public synchronized void close()
+    {
+        if (closed)
+            return;
+
+        closed = true;
+        for (var segment : segments)
+            segment.buffer.force();
+    }
+
+    private static final class Segment
+    {
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private int limit = SEGMENT_HEADER_SIZE;
+
+        private Segment(Path path, MappedByteBuffer buffer)
+        {
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package rize.os.auditing;
+
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.NonNull;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * An {@link AuditEventWriter} that streams each batch to PostgreSQL with {@code COPY ... FROM STDIN} in the binary
+ * format, which ingests rows considerably faster than a batch of {@code INSERT} statements.
+ * <p>
+ * The rows are encoded straight from the events by the {@link AuditEventCopyEncoder} and sent through the
+ * {@code CopyManager} of the PostgreSQL driver. A batch is written by a single {@code COPY} command, so either all or
+ * none of its events are written.
+ * <p>
+ * Whether the database is PostgreSQL is checked with the first batch. If the connections of the data source are not
+ * PostgreSQL connections, this and all further batches are written with the fallback writer instead.
+ *
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public class PostgresCopyAuditEventWriter implements AuditEventWriter
+{
+    private static final Logger log = LoggerFactory.getLogger(PostgresCopyAuditEventWriter.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditEventWriter fallback;
+    private final AuditEventCopyEncoder encoder = new AuditEventCopyEncoder(BUFFER_SIZE);
+    private final String copy;
+
+    private volatile Boolean supported;
+
+    /**
+     * Creates a new writer.
+     *
+     * @param configuration The configuration of the audit log.
+     * @param jdbcTemplate  The template the connections are obtained with.
+     * @param fallback      The writer that is used if the database is not PostgreSQL.
+     */
+    public PostgresCopyAuditEventWriter(@NonNull AuditingConfiguration configuration,
+                                        @NonNull JdbcTemplate jdbcTemplate,
+                                        @NonNull AuditEventWriter fallback)
+    {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fallback = fallback;
+        this.copy = "COPY " + configuration.getTableName()
+                + " (id, occurred_at, tenant_id, actor_id, action, resource_type, resource_id, details) FROM STDIN (FORMAT binary)";
+    }
+
+    @Override
+    public void write(@NonNull List<AuditEvent> events)
+    {
+        if (Boolean.FALSE.equals(supported))
+        {
+            fallback.write(events);
+            return;
+        }
+
+        boolean copied = Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> copy(connection, events)));
+        if (!copied)
+            fallback.write(events);
+    }
+
+    /**
+     * Writes the given events with the fallback writer, as {@code COPY} cannot skip events that have already been
+     * written.
+     */
+    @Override
+    public void replay(@NonNull List<AuditEvent> events)
+    {
+        fallback.replay(events);
+    }
+
+    private boolean copy(Connection connection, List<AuditEvent> events) throws SQLException
+    {
+        if (supported == null)
+        {
+            supported = connection.isWrapperFor(PGConnection.class);
+            if (!supported)
+                log.info("The audit database is not PostgreSQL, writing audit events with batch inserts instead of COPY");
+        }
+        if (!supported)
+            return false;
+
+        var copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copy);
+        try
+        {
+            encoder.encode(events, (bytes, length) -> copyIn.writeToCopy(bytes, 0, length));
+            copyIn.endCopy();
+        }
+        finally
+        {
+            if (copyIn.isActive())
+                copyIn.cancelCopy();
+        }
+
+        return true;
+    }
+
+    /**
+     * @return {@code true} if the batches are written with {@code COPY}, {@code false} if they are written with the
+     *         fallback writer, or {@code null} if no batch has been written yet.
+     */
+    Boolean isCopySupported()
+    {
+        return supported;
+    }
+}
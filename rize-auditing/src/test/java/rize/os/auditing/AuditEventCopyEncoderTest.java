@@ -0,0 +1,95 @@
+package rize.os.auditing;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditEventCopyEncoderTest
+{
+    @Test
+    @DisplayName("[AuditEventCopyEncoder] should encode the events in the binary COPY format")
+    void shouldEncodeBinaryCopyFormat() throws Exception
+    {
+        var event = new AuditEvent(UUID.randomUUID(), Instant.parse("2000-01-01T00:00:01.000002Z"), "tenant", "user", "user.created",
+                "user", null, "{\"name\":\"Jürgen\"}");
+
+        var input = new DataInputStream(new ByteArrayInputStream(encode(List.of(event), 64)));
+        var signature = new byte[11];
+        input.readFully(signature);
+
+        assertThat(signature).isEqualTo(new byte[]{'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0});
+        assertThat(input.readInt()).isZero();
+        assertThat(input.readInt()).isZero();
+        assertThat(readRow(input)).containsExactly(event.id().toString(), "1000002", "tenant", "user", "user.created", "user", null,
+                "{\"name\":\"Jürgen\"}");
+        assertThat(input.readShort()).isEqualTo((short) -1);
+        assertThat(input.available()).isZero();
+    }
+
+    @Test
+    @DisplayName("[AuditEventCopyEncoder] should encode strings as UTF-8 across buffer boundaries")
+    void shouldEncodeUtf8AcrossBuffers() throws Exception
+    {
+        var details = "ä€😀 unpaired \uD800 " + "x".repeat(500);
+        var events = new ArrayList<AuditEvent>();
+        for (int i = 0; i < 20; i++)
+            events.add(AuditEvent.of("tenant", "user", "user.updated", "user", "user-" + i, details));
+
+        var input = new DataInputStream(new ByteArrayInputStream(encode(events, 64)));
+        input.skipNBytes(19);
+        for (int i = 0; i < 20; i++)
+        {
+            var row = readRow(input);
+            assertThat(row.get(6)).isEqualTo("user-" + i);
+            assertThat(row.get(7)).isEqualTo(new String(details.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+        }
+
+        assertThat(AuditEventCopyEncoder.utf8Length(details)).isEqualTo(details.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    private static byte[] encode(List<AuditEvent> events, int bufferSize) throws SQLException
+    {
+        var output = new ByteArrayOutputStream();
+        new AuditEventCopyEncoder(bufferSize).encode(events, (bytes, length) -> output.write(bytes, 0, length));
+        return output.toByteArray();
+    }
+
+    private static List<String> readRow(DataInputStream input) throws IOException
+    {
+        assertThat(input.readShort()).isEqualTo((short) 8);
+        var row = new ArrayList<String>();
+
+        assertThat(input.readInt()).isEqualTo(16);
+        row.add(new UUID(input.readLong(), input.readLong()).toString());
+        assertThat(input.readInt()).isEqualTo(8);
+        row.add(String.valueOf(input.readLong()));
+
+        for (int i = 0; i < 6; i++)
+        {
+            int length = input.readInt();
+            if (length < 0)
+            {
+                row.add(null);
+                continue;
+            }
+
+            var bytes = new byte[length];
+            input.readFully(bytes);
+            row.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+
+        return row;
+    }
+}
@@ -0,0 +1,105 @@
+package rize.os.auditing;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditEventQueueTest
+{
+    @Test
+    @DisplayName("[AuditEventQueue] should round the capacity up to the next power of two")
+    void shouldRoundCapacity()
+    {
+        assertThat(new AuditEventQueue(1).capacity()).isEqualTo(2);
+        assertThat(new AuditEventQueue(5).capacity()).isEqualTo(8);
+        assertThat(new AuditEventQueue(8192).capacity()).isEqualTo(8192);
+    }
+
+    @Test
+    @DisplayName("[AuditEventQueue] should return the events in order and reject events while full")
+    void shouldRejectEventsWhileFull()
+    {
+        var queue = new AuditEventQueue(4);
+        var events = new ArrayList<AuditEvent>();
+        for (int i = 0; i < 4; i++)
+        {
+            events.add(event(i));
+            assertThat(queue.offer(events.get(i))).isTrue();
+        }
+
+        assertThat(queue.offer(event(4))).isFalse();
+        assertThat(queue.size()).isEqualTo(4);
+
+        assertThat(queue.poll()).isSameAs(events.get(0));
+        assertThat(queue.offer(event(5))).isTrue();
+
+        var batch = new ArrayList<AuditEvent>();
+        assertThat(queue.drainTo(batch, 10)).isEqualTo(4);
+        assertThat(batch).startsWith(events.get(1), events.get(2), events.get(3));
+        assertThat(queue.isEmpty()).isTrue();
+        assertThat(queue.poll()).isNull();
+    }
+
+    @Test
+    @DisplayName("[AuditEventQueue] should not lose events of concurrent producers")
+    void shouldNotLoseEvents() throws InterruptedException
+    {
+        var queue = new AuditEventQueue(1024);
+        int producers = 4;
+        int eventsPerProducer = 10_000;
+        var start = new CountDownLatch(1);
+        var threads = new ArrayList<Thread>();
+        for (int p = 0; p < producers; p++)
+        {
+            int producer = p;
+            var thread = new Thread(() ->
+            {
+                try
+                {
+                    start.await();
+                }
+                catch (InterruptedException e)
+                {
+                    return;
+                }
+
+                for (int i = 0; i < eventsPerProducer; i++)
+                {
+                    var event = event(producer * eventsPerProducer + i);
+                    while (!queue.offer(event))
+                        Thread.onSpinWait();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        start.countDown();
+        var resources = new HashSet<String>();
+        var batch = new ArrayList<AuditEvent>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (resources.size() < producers * eventsPerProducer && System.nanoTime() < deadline)
+        {
+            queue.drainTo(batch, 100);
+            batch.forEach(event -> resources.add(event.resourceId()));
+            batch.clear();
+        }
+
+        for (var thread : threads)
+            thread.join();
+
+        assertThat(resources).hasSize(producers * eventsPerProducer);
+        assertThat(queue.isEmpty()).isTrue();
+    }
+
+    private static AuditEvent event(int number)
+    {
+        return AuditEvent.of("tenant", "user", "resource.updated", "resource", String.valueOf(number), null);
+    }
+}
@@ -0,0 +1,107 @@
+package rize.os.auditing;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class AuditExportControllerTest
+{
+    private final AuditExportService exportService = mock(AuditExportService.class);
+    private final AuditExportAuthorizer authorizer = mock(AuditExportAuthorizer.class);
+    private final MockMvc mockMvc = MockMvcBuilders.routerFunctions(
+            new AuditExportController(exportService, authorizer).routerFunction("/audit/events/export")).build();
+
+    @Test
+    @DisplayName("[AuditExportController] should write the exported events as a gzip-compressed response body")
+    void shouldExportCompressed() throws Exception
+    {
+        var query = AuditQuery.of("tenant-1", Instant.parse("2026-01-01T00:00:00Z"), Instant.parse("2027-01-01T00:00:00Z")).withActorId("user-1");
+        when(exportService.export(eq(query), eq(AuditExportFormat.CSV), any())).thenAnswer(invocation ->
+        {
+            invocation.getArgument(2, OutputStream.class).write("id,occurred_at\r\n".getBytes(StandardCharsets.UTF_8));
+            return 0L;
+        });
+        when(authorizer.isAuthorized(eq(query), any())).thenReturn(true);
+
+        var response = mockMvc.perform(get("/audit/events/export")
+                        .param("tenantId", "tenant-1")
+                        .param("from", "2026-01-01T00:00:00Z")
+                        .param("to", "2027-01-01T00:00:00Z")
+                        .param("actorId", "user-1")
+                        .param("format", "csv"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"audit-events.csv\""))
+                .andReturn().getResponse();
+
+        try (var body = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray())))
+        {
+            assertThat(new String(body.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("id,occurred_at\r\n");
+        }
+    }
+
+    @Test
+    @DisplayName("[AuditExportController] should reject an unknown format or an invalid time range")
+    void shouldRejectInvalidRequests() throws Exception
+    {
+        mockMvc.perform(get("/audit/events/export")
+                        .param("tenantId", "tenant-1")
+                        .param("from", "2026-01-01T00:00:00Z")
+                        .param("to", "2027-01-01T00:00:00Z")
+                        .param("format", "xml"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/audit/events/export")
+                        .param("tenantId", "tenant-1")
+                        .param("from", "2027-01-01T00:00:00Z")
+                        .param("to", "2026-01-01T00:00:00Z"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/audit/events/export")
+                        .param("tenantId", "tenant-1")
+                        .param("from", "yesterday")
+                        .param("to", "2026-01-01T00:00:00Z"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/audit/events/export")
+                        .param("from", "2026-01-01T00:00:00Z")
+                        .param("to", "2027-01-01T00:00:00Z"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(exportService);
+    }
+
+    @Test
+    @DisplayName("[AuditExportController] should reject exports that are not authorized or without an authorizer")
+    void shouldRejectUnauthorizedExports() throws Exception
+    {
+        var request = get("/audit/events/export")
+                .param("tenantId", "tenant-2")
+                .param("from", "2026-01-01T00:00:00Z")
+                .param("to", "2027-01-01T00:00:00Z");
+
+        mockMvc.perform(request).andExpect(status().isForbidden());
+        MockMvcBuilders.routerFunctions(new AuditExportController(exportService, null).routerFunction("/audit/events/export")).build()
+                .perform(request)
+                .andExpect(status().isForbidden());
+
+        verify(authorizer).isAuthorized(eq(AuditQuery.of("tenant-2", Instant.parse("2026-01-01T00:00:00Z"), Instant.parse("2027-01-01T00:00:00Z"))), any());
+        verifyNoInteractions(exportService);
+    }
+}
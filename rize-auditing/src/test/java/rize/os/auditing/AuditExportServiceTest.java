@@ -0,0 +1,144 @@
+package rize.os.auditing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AuditExportServiceTest
+{
+    private static final Instant START = Instant.parse("2026-10-01T00:00:00Z");
+
+    private EmbeddedDatabase database;
+    private SingleConnectionDataSource dataSource;
+    private AuditExportService exportService;
+    private final List<AuditEvent> events = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception
+    {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        dataSource = new SingleConnectionDataSource(database.getConnection(), true);
+        var jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("""
+                CREATE TABLE audit_event (id UUID NOT NULL, occurred_at TIMESTAMP WITH TIME ZONE NOT NULL,
+                tenant_id VARCHAR(255) NOT NULL, actor_id VARCHAR(255) NOT NULL, action VARCHAR(255) NOT NULL,
+                resource_type VARCHAR(255) NOT NULL, resource_id VARCHAR(255), details CLOB, PRIMARY KEY (id, occurred_at))""");
+
+        var configuration = new AuditingConfiguration(null, null, null, null, null, null, null, null, null, null, null, null);
+        exportService = new AuditExportService(configuration, new AuditExportConfiguration(null, null, 10), jdbcTemplate);
+
+        for (int i = 0; i < 100; i++)
+            events.add(new AuditEvent(UUID.randomUUID(), START.plusSeconds(i), "tenant-1", "user-" + (i % 2), "user.updated", "user", "user-" + i, null));
+        events.add(new AuditEvent(UUID.randomUUID(), START.plusSeconds(100), "tenant-1", "user-0", "user.created", "user", null,
+                "{\"name\":\"Jane \\\"JD\\\" Doe\",\n\"role\":\"admin, owner\"}"));
+        events.add(new AuditEvent(UUID.randomUUID(), START, "tenant-2", "user-0", "user.updated", "user", null, null));
+
+        new JdbcAuditEventWriter(configuration, jdbcTemplate, TransactionOperations.withoutTransaction()).write(events);
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        dataSource.destroy();
+        database.shutdown();
+    }
+
+    @Test
+    @DisplayName("[AuditExportService] should export all matching events as NDJSON, newest first")
+    void shouldExportNdjson() throws IOException
+    {
+        var outputStream = new ByteArrayOutputStream();
+
+        long count = exportService.export(AuditQuery.of("tenant-1", START, START.plusSeconds(3600)), AuditExportFormat.NDJSON, outputStream);
+
+        var lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(count).isEqualTo(101);
+        assertThat(lines).hasSize(101);
+        assertThat(lines[0]).isEqualTo("{\"id\":\"" + events.get(100).id() + "\",\"occurredAt\":\"2026-10-01T00:01:40Z\",\"tenantId\":\"tenant-1\","
+                + "\"actorId\":\"user-0\",\"action\":\"user.created\",\"resourceType\":\"user\",\"resourceId\":null,"
+                + "\"details\":\"{\\\"name\\\":\\\"Jane \\\\\\\"JD\\\\\\\" Doe\\\",\\n\\\"role\\\":\\\"admin, owner\\\"}\"}");
+        assertThat(lines[100]).contains("\"resourceId\":\"user-0\"");
+    }
+
+    @Test
+    @DisplayName("[AuditExportService] should export the matching events as CSV with a header")
+    void shouldExportCsv() throws IOException
+    {
+        var outputStream = new ByteArrayOutputStream();
+        var query = AuditQuery.of("tenant-1", START, START.plusSeconds(3600)).withActorId("user-0").withAction("user.created");
+
+        long count = exportService.export(query, AuditExportFormat.CSV, outputStream);
+
+        assertThat(count).isOne();
+        assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "id,occurred_at,tenant_id,actor_id,action,resource_type,resource_id,details\r\n"
+                        + events.get(100).id() + ",2026-10-01T00:01:40Z,tenant-1,user-0,user.created,user,,"
+                        + "\"{\"\"name\"\":\"\"Jane \\\"\"JD\\\"\" Doe\"\",\n\"\"role\"\":\"\"admin, owner\"\"}\"\r\n");
+    }
+
+    @Test
+    @DisplayName("[AuditExportService] should escape values that would be evaluated as formulas in CSV")
+    void shouldEscapeFormulasInCsv() throws IOException
+    {
+        var event = new AuditEvent(UUID.randomUUID(), START.plusSeconds(200), "tenant-3", "@user", "-action", "=HYPERLINK(\"x\")", "+1", null);
+        new JdbcAuditEventWriter(new AuditingConfiguration(null, null, null, null, null, null, null, null, null, null, null, null),
+                new JdbcTemplate(dataSource), TransactionOperations.withoutTransaction()).write(List.of(event));
+        var outputStream = new ByteArrayOutputStream();
+
+        exportService.export(AuditQuery.of("tenant-3", START, START.plusSeconds(3600)), AuditExportFormat.CSV, outputStream);
+
+        assertThat(outputStream.toString(StandardCharsets.UTF_8)).endsWith(
+                event.id() + ",2026-10-01T00:03:20Z,tenant-3,\"'@user\",\"'-action\",\"'=HYPERLINK(\"\"x\"\")\",\"'+1\",\r\n");
+    }
+
+    @Test
+    @DisplayName("[AuditExportService] should cancel the export if the output stream fails")
+    void shouldCancelExport() throws Exception
+    {
+        var outputStream = new OutputStream()
+        {
+            private int written;
+
+            @Override
+            public void write(int b) throws IOException
+            {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException
+            {
+                written += length;
+                if (written > 1024)
+                    throw new IOException("Connection reset by peer");
+            }
+        };
+
+        assertThatThrownBy(() -> exportService.export(AuditQuery.of("tenant-1", START, START.plusSeconds(3600)), AuditExportFormat.NDJSON, outputStream))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Connection reset by peer");
+
+        var connection = dataSource.getConnection();
+        assertThat(connection.getAutoCommit()).isTrue();
+        assertThat(connection.isReadOnly()).isFalse();
+    }
+}
@@ -0,0 +1,316 @@
+package rize.os.auditing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AuditLogTest
+{
+    private final List<List<AuditEvent>> batches = new CopyOnWriteArrayList<>();
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile CountDownLatch writeLatch = new CountDownLatch(0);
+
+    private final AuditEventWriter writer = events ->
+    {
+        try
+        {
+            writeLatch.await(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        if (failures.getAndUpdate(count -> Math.max(0, count - 1)) > 0)
+            throw new DataAccessResourceFailureException("Database unavailable");
+
+        batches.add(List.copyOf(events));
+    };
+
+    private AuditLog auditLog;
+
+    @AfterEach
+    void tearDown()
+    {
+        if (auditLog != null)
+            auditLog.close();
+    }
+
+    @Test
+    @DisplayName("[AuditLog] should write the recorded events in batches of the configured size")
+    void shouldWriteBatches()
+    {
+        auditLog = start(configuration(1024, 10, Duration.ofSeconds(5), AuditBackpressure.BLOCK));
+
+        for (int i = 0; i < 25; i++)
+            assertThat(auditLog.record(event(i))).isTrue();
+
+        awaitWritten(20);
+        assertThat(batches).allSatisfy(batch -> assertThat(batch).hasSize(10));
+
+        auditLog.close();
+        assertThat(written()).hasSize(25);
+        assertThat(batches.get(2)).hasSize(5);
+    }
+
+    @Test
+    @DisplayName("[AuditLog] should write a smaller batch after the linger time")
+    void shouldWriteAfterLingerTime()
+    {
+        auditLog = start(configuration(1024, 100, Duration.ofMillis(20), AuditBackpressure.BLOCK));
+
+        auditLog.record(event(1));
+        auditLog.record(event(2));
+
+        awaitWritten(2);
+        assertThat(batches).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("[AuditLog] should drop events while the queue is full with DROP")
+    void shouldDropEvents()
+    {
+        writeLatch = new CountDownLatch(1);
+        var registry = new SimpleMeterRegistry();
+        auditLog = start(configuration(4, 1, Duration.ZERO, AuditBackpressure.DROP));
+        auditLog.bindTo(registry);
+
+        int accepted = 0;
+        for (int i = 0; i < 20; i++)
+            if (auditLog.record(event(i)))
+                accepted++;
+
+        assertThat(accepted).isLessThan(20);
+        writeLatch.countDown();
+        auditLog.close();
+
+        assertThat(written()).hasSize(accepted);
+        assertThat(registry.get("rize.auditing.events").tag("outcome", "dropped").functionCounter().count()).isEqualTo(20 - accepted);
+    }
+
+    @Test
+    @DisplayName("[AuditLog] should wait for space in the queue with BLOCK")
+    void shouldBlockWhileQueueIsFull() throws InterruptedException
+    {
+        writeLatch = new CountDownLatch(1);
+        auditLog = start(configuration(2, 1, Duration.ZERO, AuditBackpressure.BLOCK));
+
+        var producer = new Thread(() ->
+        {
+            for (int i = 0; i < 10; i++)
+                auditLog.record(event(i));
+        });
+        producer.start();
+        producer.join(200);
+        assertThat(producer.isAlive()).isTrue();
+
+        writeLatch.countDown();
+        producer.join(5_000);
+        auditLog.close();
+
+        assertThat(written()).hasSize(10);
+    }
+
+    @Test
+    @DisplayName("[AuditLog] should spill events while the queue is full and write them afterwards with SPILL")
+    void shouldSpillEvents()
+    {
+        writeLatch = new CountDownLatch(1);
+        var spill = new ListSpill();
+        auditLog = new AuditLog(configuration(2, 1, Duration.ZERO, AuditBackpressure.SPILL), writer, spill);
+        auditLog.start();
+
+        for (int i = 0; i < 10; i++)
+            assertThat(auditLog.record(event(i))).isTrue();
+
+        assertThat(spill.isEmpty()).isFalse();
+        writeLatch.countDown();
+        awaitWritten(10);
+
+        assertThat(written()).extracting(AuditEvent::resourceId).containsExactlyInAnyOrder("0", "1", "2", "3", "4", "5", "6", "7", "8", "9");
+        assertThat(spill.isEmpty()).isTrue();
+    }
+
+    @Test
+    @DisplayName("[AuditLog] should spill events while the database is unavailable and replay them once it is available again")
+    void shouldSpillWhileDatabaseIsUnavailable()
+    {
+        failures.set(Integer.MAX_VALUE);
+        var spill = new ListSpill();
+        auditLog = new AuditLog(configuration(1024, 10, Duration.ZERO, AuditBackpressure.BLOCK), writer, spill);
+        auditLog.start();
+
+        auditLog.record(event(0));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!auditLog.isSpilling() && System.nanoTime() < deadline)
+            Thread.onSpinWait();
+        assertThat(auditLog.isSpilling()).isTrue();
+
+        for (int i = 1; i < 10; i++)
+            assertThat(auditLog.record(event(i))).isTrue();
+        assertThat(auditLog.getQueueSize()).isZero();
+        assertThat(spill.isEmpty()).isFalse();
+
+        failures.set(0);
+        awaitWritten(10);
+        assertThat(written()).extracting(AuditEvent::resourceId).containsExactly("0", "1", "2", "3", "4", "5", "6", "7", "8", "9");
+        assertThat(spill.isEmpty()).isTrue();
+
+        deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (auditLog.isSpilling() && System.nanoTime() < deadline)
+            Thread.onSpinWait();
+        assertThat(auditLog.isSpilling()).isFalse();
+    }
+
+    @Test
+    @DisplayName("[AuditLog] should require a spill with SPILL")
+    void shouldRequireSpill()
+    {
+        assertThatThrownBy(() -> new AuditLog(configuration(2, 1, Duration.ZERO, AuditBackpressure.SPILL), writer))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("[AuditLog] should retry a failed batch until it has been written")
+    void shouldRetryFailedBatches()
+    {
+        failures.set(2);
+        auditLog = start(configuration(16, 10, Duration.ZERO, AuditBackpressure.BLOCK));
+
+        auditLog.record(event(1));
+
+        awaitWritten(1);
+        assertThat(failures).hasValue(0);
+        assertThat(written()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("[AuditLog] should write all queued events when it is closed")
+    void shouldFlushOnClose()
+    {
+        auditLog = start(configuration(1024, 1000, Duration.ofSeconds(30), AuditBackpressure.BLOCK));
+
+        for (int i = 0; i < 100; i++)
+            auditLog.record(event(i));
+        auditLog.close();
+
+        assertThat(written()).hasSize(100);
+        assertThat(auditLog.record(event(100))).isFalse();
+    }
+
+    @Test
+    @DisplayName("[AuditLog] should write the other events of a batch and drop an event that cannot be written")
+    void shouldDropEventsThatCannotBeWritten()
+    {
+        var database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        try
+        {
+            var jdbcTemplate = new JdbcTemplate(database);
+            jdbcTemplate.execute("""
+                    CREATE TABLE audit_event (id UUID PRIMARY KEY, occurred_at TIMESTAMP WITH TIME ZONE NOT NULL,
+                    tenant_id VARCHAR(255) NOT NULL, actor_id VARCHAR(255) NOT NULL, action VARCHAR(255) NOT NULL,
+                    resource_type VARCHAR(255) NOT NULL, resource_id VARCHAR(255), details CLOB)""");
+            var configuration = configuration(1024, 10, Duration.ofSeconds(1), AuditBackpressure.BLOCK);
+            var registry = new SimpleMeterRegistry();
+            auditLog = new AuditLog(configuration, new JdbcAuditEventWriter(configuration, jdbcTemplate,
+                    new TransactionTemplate(new DataSourceTransactionManager(database))));
+            auditLog.bindTo(registry);
+            auditLog.start();
+
+            for (int i = 0; i < 10; i++)
+                auditLog.record(i == 6 ? AuditEvent.of("tenant", "user", "resource.updated", "resource", "x".repeat(300), null) : event(i));
+            auditLog.close();
+
+            assertThat(jdbcTemplate.queryForList("SELECT resource_id FROM audit_event", String.class))
+                    .containsExactlyInAnyOrder("0", "1", "2", "3", "4", "5", "7", "8", "9");
+            assertThat(registry.get("rize.auditing.events").tag("outcome", "dropped").functionCounter().count()).isOne();
+        }
+        finally
+        {
+            database.shutdown();
+        }
+    }
+
+    private AuditLog start(AuditingConfiguration configuration)
+    {
+        var log = new AuditLog(configuration, writer);
+        log.start();
+        return log;
+    }
+
+    private List<AuditEvent> written()
+    {
+        var events = new ArrayList<AuditEvent>();
+        batches.forEach(events::addAll);
+        return events;
+    }
+
+    private void awaitWritten(int count)
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (written().size() < count && System.nanoTime() < deadline)
+            Thread.onSpinWait();
+    }
+
+    private static AuditingConfiguration configuration(int queueCapacity, int batchSize, Duration lingerTime, AuditBackpressure backpressure)
+    {
+        return new AuditingConfiguration(null, null, queueCapacity, batchSize, lingerTime, backpressure, Duration.ofSeconds(5),
+                Duration.ofMillis(10), Duration.ofMillis(50), Duration.ofSeconds(5), null, null);
+    }
+
+    private static AuditEvent event(int number)
+    {
+        return AuditEvent.of("tenant", "user", "resource.updated", "resource", String.valueOf(number), null);
+    }
+
+    private static class ListSpill implements AuditEventSpill
+    {
+        private final List<AuditEvent> events = new CopyOnWriteArrayList<>();
+        private int lastRead;
+
+        @Override
+        public boolean append(AuditEvent event)
+        {
+            return events.add(event);
+        }
+
+        @Override
+        public int read(List<AuditEvent> batch, int maxEvents)
+        {
+            lastRead = Math.min(maxEvents, events.size());
+            batch.addAll(events.subList(0, lastRead));
+            return lastRead;
+        }
+
+        @Override
+        public void acknowledge()
+        {
+            events.subList(0, lastRead).clear();
+            lastRead = 0;
+        }
+
+        @Override
+        public boolean isEmpty()
+        {
+            return events.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package rize.os.auditing;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuditPartitionManagerTest
+{
+    private static final Instant NOW = Instant.parse("2026-10-18T12:00:00Z");
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    @BeforeEach
+    void setUp()
+    {
+        when(jdbcTemplate.queryForObject(eq("SELECT pg_try_advisory_lock(?)"), eq(Boolean.class), anyLong())).thenReturn(true);
+    }
+
+    @Test
+    @DisplayName("[AuditPartitionManager] should create the current and the next monthly partitions")
+    void shouldCreateMonthlyPartitions()
+    {
+        manager(null, AuditPartitionInterval.MONTHLY, null, null).maintain(jdbcTemplate, NOW);
+
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS audit_event_default PARTITION OF audit_event DEFAULT");
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS audit_event_p202610 PARTITION OF audit_event FOR VALUES FROM ('2026-10-01 00:00:00+00') TO ('2026-11-01 00:00:00+00')");
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS audit_event_p202611 PARTITION OF audit_event FOR VALUES FROM ('2026-11-01 00:00:00+00') TO ('2026-12-01 00:00:00+00')");
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS audit_event_p202612 PARTITION OF audit_event FOR VALUES FROM ('2026-12-01 00:00:00+00') TO ('2027-01-01 00:00:00+00')");
+        verify(jdbcTemplate, never()).queryForList(anyString(), eq(String.class), anyString());
+    }
+
+    @Test
+    @DisplayName("[AuditPartitionManager] should create daily partitions in the schema of the audit table")
+    void shouldCreateDailyPartitions()
+    {
+        manager("audit.audit_event", AuditPartitionInterval.DAILY, null, null).maintain(jdbcTemplate, NOW);
+
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS audit.audit_event_default PARTITION OF audit.audit_event DEFAULT");
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS audit.audit_event_p20261018 PARTITION OF audit.audit_event FOR VALUES FROM ('2026-10-18 00:00:00+00') TO ('2026-10-19 00:00:00+00')");
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS audit.audit_event_p20261020 PARTITION OF audit.audit_event FOR VALUES FROM ('2026-10-20 00:00:00+00') TO ('2026-10-21 00:00:00+00')");
+    }
+
+    @Test
+    @DisplayName("[AuditPartitionManager] should detach the partitions whose events are all older than the retention")
+    void shouldDetachExpiredPartitions()
+    {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("audit_event")))
+                .thenReturn(List.of("audit_event_p202607", "audit_event_p202608", "audit_event_p20260818", "audit_event_p202609", "audit_event_archive"));
+
+        manager(null, AuditPartitionInterval.MONTHLY, Duration.ofDays(60), AuditPartitioningConfiguration.ExpiryAction.DETACH).maintain(jdbcTemplate, NOW);
+
+        verify(jdbcTemplate).execute("ALTER TABLE audit_event DETACH PARTITION audit_event_p202607");
+        verify(jdbcTemplate).execute("ALTER TABLE audit_event DETACH PARTITION audit_event_p20260818");
+        verify(jdbcTemplate, never()).execute("ALTER TABLE audit_event DETACH PARTITION audit_event_p202608");
+        verify(jdbcTemplate, never()).execute("ALTER TABLE audit_event DETACH PARTITION audit_event_p202609");
+        verify(jdbcTemplate, never()).execute("ALTER TABLE audit_event DETACH PARTITION audit_event_archive");
+    }
+
+    @Test
+    @DisplayName("[AuditPartitionManager] should drop expired partitions if configured")
+    void shouldDropExpiredPartitions()
+    {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("audit_event"))).thenReturn(List.of("audit_event_p202607"));
+
+        manager(null, AuditPartitionInterval.MONTHLY, Duration.ofDays(60), AuditPartitioningConfiguration.ExpiryAction.DROP).maintain(jdbcTemplate, NOW);
+
+        verify(jdbcTemplate).execute("DROP TABLE audit_event_p202607");
+    }
+
+    @Test
+    @DisplayName("[AuditPartitionManager] should skip the check while another node holds the advisory lock")
+    void shouldSkipWithoutLock()
+    {
+        when(jdbcTemplate.queryForObject(eq("SELECT pg_try_advisory_lock(?)"), eq(Boolean.class), anyLong())).thenReturn(false);
+
+        manager(null, AuditPartitionInterval.MONTHLY, Duration.ofDays(60), null).maintain(jdbcTemplate, NOW);
+
+        verify(jdbcTemplate, never()).execute(anyString());
+        verify(jdbcTemplate, never()).queryForObject(eq("SELECT pg_advisory_unlock(?)"), eq(Boolean.class), anyLong());
+    }
+
+    @Test
+    @DisplayName("[AuditPartitionManager] should release the advisory lock after the check")
+    void shouldReleaseLock()
+    {
+        manager(null, AuditPartitionInterval.MONTHLY, null, null).maintain(jdbcTemplate, NOW);
+
+        verify(jdbcTemplate).queryForObject(eq("SELECT pg_advisory_unlock(?)"), eq(Boolean.class), anyLong());
+    }
+
+    @Test
+    @DisplayName("[AuditPartitionInterval] should compute and parse the partitions of each interval")
+    void shouldComputePartitions()
+    {
+        var date = LocalDate.of(2026, 12, 31);
+
+        assertThat(AuditPartitionInterval.MONTHLY.start(date)).isEqualTo(LocalDate.of(2026, 12, 1));
+        assertThat(AuditPartitionInterval.MONTHLY.next(date.withDayOfMonth(1))).isEqualTo(LocalDate.of(2027, 1, 1));
+        assertThat(AuditPartitionInterval.MONTHLY.suffix(date.withDayOfMonth(1))).isEqualTo("202612");
+        assertThat(AuditPartitionInterval.DAILY.suffix(date)).isEqualTo("20261231");
+        assertThat(AuditPartitionInterval.ofSuffix("202612").parse("202612")).isEqualTo(LocalDate.of(2026, 12, 1));
+        assertThat(AuditPartitionInterval.ofSuffix("20261231").parse("20261231")).isEqualTo(date);
+        assertThat(AuditPartitionInterval.DAILY.parse("2026123x")).isNull();
+        assertThat(AuditPartitionInterval.ofSuffix("archive")).isNull();
+    }
+
+    private AuditPartitionManager manager(String table, AuditPartitionInterval interval, Duration retention, AuditPartitioningConfiguration.ExpiryAction action)
+    {
+        var auditingConfiguration = new AuditingConfiguration(null, table, null, null, null, null, null, null, null, null, null, null);
+        var configuration = new AuditPartitioningConfiguration(true, interval, 2, retention, action, null);
+        return new AuditPartitionManager(auditingConfiguration, configuration, jdbcTemplate);
+    }
+}
@@ -0,0 +1,136 @@
+package rize.os.auditing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AuditQueryServiceTest
+{
+    private static final Instant START = Instant.parse("2026-10-01T00:00:00Z");
+
+    private EmbeddedDatabase database;
+    private AuditQueryService queryService;
+    private final List<AuditEvent> events = new ArrayList<>();
+
+    @BeforeEach
+    void setUp()
+    {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        var jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("""
+                CREATE TABLE audit_event (id UUID NOT NULL, occurred_at TIMESTAMP WITH TIME ZONE NOT NULL,
+                tenant_id VARCHAR(255) NOT NULL, actor_id VARCHAR(255) NOT NULL, action VARCHAR(255) NOT NULL,
+                resource_type VARCHAR(255) NOT NULL, resource_id VARCHAR(255), details CLOB, PRIMARY KEY (id, occurred_at))""");
+
+        var configuration = new AuditingConfiguration(null, null, null, null, null, null, null, null, null, null, null, null);
+        queryService = new AuditQueryService(configuration, jdbcTemplate);
+
+        // 100 events of tenant-1, two of which share each second, and a few events of another tenant
+        for (int i = 0; i < 100; i++)
+        {
+            var occurredAt = START.plus(i / 2, ChronoUnit.SECONDS);
+            events.add(new AuditEvent(UUID.randomUUID(), occurredAt, "tenant-1", "user-" + (i % 3), i % 2 == 0 ? "user.updated" : "user.deleted",
+                    i % 5 == 0 ? "group" : "user", "resource-" + i, null));
+        }
+        for (int i = 0; i < 5; i++)
+            events.add(new AuditEvent(UUID.randomUUID(), START.plusSeconds(i), "tenant-2", "user-0", "user.updated", "user", null, null));
+
+        new JdbcAuditEventWriter(configuration, jdbcTemplate, TransactionOperations.withoutTransaction()).write(events);
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        database.shutdown();
+    }
+
+    @Test
+    @DisplayName("[AuditQueryService] should return all events of a tenant page by page, newest first")
+    void shouldPaginateWithCursor()
+    {
+        var query = AuditQuery.of("tenant-1", START, START.plus(1, ChronoUnit.DAYS)).withLimit(7);
+
+        var returned = new ArrayList<AuditEvent>();
+        AuditPage page;
+        int pages = 0;
+        do
+        {
+            page = queryService.find(query);
+            returned.addAll(page.events());
+            query = query.withCursor(page.nextCursor());
+            pages++;
+        }
+        while (page.hasNext());
+
+        assertThat(pages).isEqualTo(15);
+        assertThat(returned).extracting(AuditEvent::id).doesNotHaveDuplicates().hasSize(100);
+        assertThat(returned).isSortedAccordingTo(Comparator.comparing(AuditEvent::occurredAt).reversed());
+    }
+
+    @Test
+    @DisplayName("[AuditQueryService] should filter the events by actor, action and resource type")
+    void shouldFilterEvents()
+    {
+        var query = AuditQuery.of("tenant-1", START, START.plus(1, ChronoUnit.DAYS))
+                .withActorId("user-1")
+                .withAction("user.updated")
+                .withResourceType("user")
+                .withLimit(100);
+
+        var expected = events.stream()
+                .filter(event -> event.tenantId().equals("tenant-1") && event.actorId().equals("user-1"))
+                .filter(event -> event.action().equals("user.updated") && event.resourceType().equals("user"))
+                .map(AuditEvent::id)
+                .toList();
+
+        var page = queryService.find(query);
+        assertThat(page.events()).extracting(AuditEvent::id).containsExactlyInAnyOrderElementsOf(expected);
+        assertThat(page.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("[AuditQueryService] should only return the events within the time range")
+    void shouldRestrictTimeRange()
+    {
+        var page = queryService.find(AuditQuery.of("tenant-1", START.plusSeconds(10), START.plusSeconds(20)).withLimit(100));
+
+        assertThat(page.events()).hasSize(20);
+        assertThat(page.events()).allSatisfy(event -> assertThat(event.occurredAt()).isBetween(START.plusSeconds(10), START.plusSeconds(19)));
+    }
+
+    @Test
+    @DisplayName("[AuditQueryService] should reject invalid cursors and time ranges")
+    void shouldRejectInvalidQueries()
+    {
+        var query = AuditQuery.of("tenant-1", START, START.plusSeconds(60));
+
+        assertThatThrownBy(() -> queryService.find(query.withCursor("not a cursor"))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> AuditQuery.of("tenant-1", START, START)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("[AuditCursor] should encode the time and the ID of an event")
+    void shouldEncodeCursor()
+    {
+        var cursor = new AuditCursor(Instant.parse("2026-10-18T12:00:00.123456Z"), UUID.randomUUID());
+
+        assertThat(AuditCursor.decode(cursor.encode())).isEqualTo(cursor);
+        assertThat(cursor.encode()).matches("[A-Za-z0-9_-]{32}");
+    }
+}
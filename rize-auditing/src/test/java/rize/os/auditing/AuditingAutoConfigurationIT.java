@@ -0,0 +1,177 @@
+package rize.os.auditing;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseAutoConfiguration;
+import org.springframework.boot.test.context.FilteredClassLoader;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.servlet.function.RouterFunction;
+import rize.os.commons.annotations.EnableRizeOS;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditingAutoConfigurationIT
+{
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withPropertyValues("spring.datasource.generate-unique-name=true")
+            .withConfiguration(AutoConfigurations.of(
+                    AuditingAutoConfiguration.class,
+                    DataSourceAutoConfiguration.class,
+                    DataSourceTransactionManagerAutoConfiguration.class,
+                    JdbcTemplateAutoConfiguration.class));
+
+    @Test
+    @DisplayName("[AuditingAutoConfiguration] should configure the audit log with a COPY writer if the PostgreSQL driver is present")
+    void shouldConfigureAuditLog()
+    {
+        contextRunner.run(context ->
+        {
+            assertThat(context).hasSingleBean(AuditLog.class);
+            assertThat(context).getBean(AuditEventWriter.class).isInstanceOf(PostgresCopyAuditEventWriter.class);
+        });
+    }
+
+    @Test
+    @DisplayName("[AuditingAutoConfiguration] should configure a JDBC writer if COPY is disabled")
+    void shouldConfigureJdbcWriter()
+    {
+        contextRunner
+                .withPropertyValues("rize.auditing.copy-enabled=false")
+                .run(context -> assertThat(context).getBean(AuditEventWriter.class).isInstanceOf(JdbcAuditEventWriter.class));
+    }
+
+    @Test
+    @DisplayName("[AuditingAutoConfiguration] should configure a JDBC writer without the PostgreSQL driver")
+    void shouldConfigureJdbcWriterWithoutDriver()
+    {
+        contextRunner
+                .withClassLoader(new FilteredClassLoader("org.postgresql"))
+                .run(context -> assertThat(context).getBean(AuditEventWriter.class).isInstanceOf(JdbcAuditEventWriter.class));
+    }
+
+    @Test
+    @DisplayName("[AuditingAutoConfiguration] should write the recorded events to the table of the changelog")
+    void shouldWriteToChangelogTable()
+    {
+        contextRunner
+                .withConfiguration(AutoConfigurations.of(LiquibaseAutoConfiguration.class))
+                .withPropertyValues("spring.liquibase.change-log=classpath:db/changelog/rize-auditing/db.changelog-auditing.yaml")
+                .run(context ->
+                {
+                    assertThat(context).hasSingleBean(AuditPartitionManager.class);
+
+                    var auditLog = context.getBean(AuditLog.class);
+                    var event = AuditEvent.of("tenant", "user", "user.created", "user", "user-1", null);
+                    assertThat(auditLog.record(event)).isTrue();
+                    auditLog.close();
+
+                    var jdbcTemplate = context.getBean(JdbcTemplate.class);
+                    assertThat(jdbcTemplate.queryForObject("SELECT action FROM audit_event WHERE id = ?", String.class, event.id())).isEqualTo("user.created");
+                });
+    }
+
+    @Test
+    @DisplayName("[AuditingAutoConfiguration] should back off if the audit log is disabled")
+    void shouldBackOffIfDisabled()
+    {
+        contextRunner
+                .withPropertyValues("rize.auditing.enabled=false")
+                .run(context -> assertThat(context).doesNotHaveBean(AuditLog.class));
+    }
+
+    @Test
+    @DisplayName("[AuditingAutoConfiguration] should fail with SPILL if no spill is configured")
+    void shouldRequireSpill()
+    {
+        contextRunner
+                .withPropertyValues("rize.auditing.backpressure=spill")
+                .run(context -> assertThat(context).hasFailed());
+    }
+
+    @Test
+    @DisplayName("[AuditingAutoConfiguration] should configure a memory-mapped spill if a spill directory is set")
+    void shouldConfigureSpill(@TempDir Path directory)
+    {
+        contextRunner
+                .withPropertyValues("rize.auditing.spill.directory=" + directory, "rize.auditing.spill.segment-size=64KB")
+                .run(context ->
+                {
+                    assertThat(context).getBean(AuditEventSpill.class).isInstanceOf(MappedAuditEventSpill.class);
+                    assertThat(directory).isNotEmptyDirectory();
+                });
+    }
+
+    @Test
+    @DisplayName("[AuditingAutoConfiguration] should register the export endpoint in servlet applications only if it is enabled")
+    void shouldConfigureExportEndpoint()
+    {
+        var webContextRunner = new WebApplicationContextRunner()
+                .withPropertyValues("spring.datasource.generate-unique-name=true")
+                .withConfiguration(AutoConfigurations.of(
+                        AuditingAutoConfiguration.class,
+                        DataSourceAutoConfiguration.class,
+                        JdbcTemplateAutoConfiguration.class));
+
+        webContextRunner.run(context ->
+        {
+            assertThat(context).hasSingleBean(AuditExportService.class);
+            assertThat(context).doesNotHaveBean(AuditExportController.class);
+        });
+        webContextRunner
+                .withPropertyValues("rize.auditing.export.endpoint-enabled=true")
+                .run(context -> assertThat(context).hasSingleBean(AuditExportController.class));
+        contextRunner
+                .withPropertyValues("rize.auditing.export.endpoint-enabled=true")
+                .run(context -> assertThat(context).doesNotHaveBean(AuditExportController.class));
+    }
+
+    @Test
+    @DisplayName("[AuditingAutoConfiguration] should not register the export endpoint through the component scan of @EnableRizeOS")
+    void shouldNotRegisterExportEndpointThroughComponentScan()
+    {
+        var webContextRunner = new WebApplicationContextRunner()
+                .withPropertyValues("spring.datasource.generate-unique-name=true")
+                .withUserConfiguration(RizeOSApplication.class)
+                .withConfiguration(AutoConfigurations.of(
+                        AuditingAutoConfiguration.class,
+                        DataSourceAutoConfiguration.class,
+                        JdbcTemplateAutoConfiguration.class));
+
+        webContextRunner.run(context ->
+        {
+            assertThat(context).hasNotFailed();
+            assertThat(context).doesNotHaveBean(AuditExportController.class);
+            assertThat(context).doesNotHaveBean(RouterFunction.class);
+        });
+        webContextRunner
+                .withPropertyValues("rize.auditing.enabled=false")
+                .run(context ->
+                {
+                    assertThat(context).hasNotFailed();
+                    assertThat(context).doesNotHaveBean(AuditExportController.class);
+                });
+        webContextRunner
+                .withPropertyValues("rize.auditing.export.endpoint-enabled=true")
+                .run(context ->
+                {
+                    assertThat(context).hasSingleBean(AuditExportController.class);
+                    assertThat(context).hasSingleBean(RouterFunction.class);
+                });
+    }
+
+    @EnableRizeOS
+    @Configuration(proxyBeanMethods = false)
+    static class RizeOSApplication
+    {
+    }
+}
@@ -0,0 +1,113 @@
+package rize.os.auditing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JdbcAuditEventWriterTest
+{
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private JdbcAuditEventWriter writer;
+
+    @BeforeEach
+    void setUp()
+    {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("""
+                CREATE TABLE audit_event (id UUID PRIMARY KEY, occurred_at TIMESTAMP WITH TIME ZONE NOT NULL,
+                tenant_id VARCHAR(255) NOT NULL, actor_id VARCHAR(255) NOT NULL, action VARCHAR(255) NOT NULL,
+                resource_type VARCHAR(255) NOT NULL, resource_id VARCHAR(255), details CLOB)""");
+
+        var configuration = new AuditingConfiguration(null, null, null, null, null, null, null, null, null, null, null, null);
+        writer = new JdbcAuditEventWriter(configuration, jdbcTemplate, new TransactionTemplate(new DataSourceTransactionManager(database)));
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        database.shutdown();
+    }
+
+    @Test
+    @DisplayName("[JdbcAuditEventWriter] should insert all events of a batch")
+    void shouldInsertBatch()
+    {
+        var first = AuditEvent.of("tenant", "user", "user.created", "user", "user-1", "{\"name\":\"Jane\"}");
+        var second = AuditEvent.of("tenant", "user", "user.deleted", "user", null, null);
+
+        writer.write(List.of(first, second));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM audit_event", Integer.class)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT details FROM audit_event WHERE id = ?", String.class, first.id())).isEqualTo("{\"name\":\"Jane\"}");
+        assertThat(jdbcTemplate.queryForObject("SELECT action FROM audit_event WHERE id = ?", String.class, second.id())).isEqualTo("user.deleted");
+    }
+
+    @Test
+    @DisplayName("[JdbcAuditEventWriter] should write none of the events of a failed batch")
+    void shouldRollBackFailedBatch()
+    {
+        var event = AuditEvent.of("tenant", "user", "user.created", "user", "user-1", null);
+        var duplicate = new AuditEvent(event.id(), event.occurredAt(), "tenant", "user", "user.updated", "user", "user-1", null);
+
+        assertThatThrownBy(() -> writer.write(List.of(AuditEvent.of("tenant", "user", "user.created", "user", "user-2", null), event, duplicate)))
+                .isInstanceOf(RuntimeException.class);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM audit_event", Integer.class)).isZero();
+    }
+
+    @Test
+    @DisplayName("[JdbcAuditEventWriter] should skip events that have already been written when replaying a batch")
+    void shouldSkipWrittenEventsOnReplay()
+    {
+        var first = AuditEvent.of("tenant", "user", "user.created", "user", "user-1", null);
+        var second = AuditEvent.of("tenant", "user", "user.updated", "user", "user-1", null);
+        writer.write(List.of(first));
+
+        writer.replay(List.of(first, second));
+        writer.replay(List.of(first, second));
+
+        assertThat(jdbcTemplate.queryForList("SELECT action FROM audit_event", String.class)).containsExactlyInAnyOrder("user.created", "user.updated");
+    }
+
+    @Test
+    @DisplayName("[JdbcAuditEventWriter] should skip events that have already been written with ON CONFLICT DO NOTHING in PostgreSQL")
+    void shouldIgnoreConflictsOnReplayInPostgres()
+    {
+        var postgresTemplate = mock(JdbcTemplate.class);
+        when(postgresTemplate.execute(ArgumentMatchers.<ConnectionCallback<String>>any())).thenReturn("PostgreSQL");
+        var configuration = new AuditingConfiguration(null, null, null, null, null, null, null, null, null, null, null, null);
+        var postgresWriter = new JdbcAuditEventWriter(configuration, postgresTemplate, TransactionOperations.withoutTransaction());
+
+        postgresWriter.replay(List.of(AuditEvent.of("tenant", "user", "user.created", "user", "user-1", null)));
+
+        verify(postgresTemplate).batchUpdate(eq("INSERT INTO audit_event (id, occurred_at, tenant_id, actor_id, action, resource_type, resource_id, details) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING"), any(BatchPreparedStatementSetter.class));
+        verify(postgresTemplate, never()).update(anyString(), any(PreparedStatementSetter.class));
+    }
+}
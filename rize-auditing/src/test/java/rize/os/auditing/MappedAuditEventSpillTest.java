@@ -0,0 +1,215 @@
+package rize.os.auditing;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MappedAuditEventSpillTest
+{
+    @TempDir
+    private Path directory;
+
+    @Test
+    @DisplayName("[MappedAuditEventSpill] should read the appended events in order until they are acknowledged")
+    void shouldReadEventsInOrder() throws IOException
+    {
+        try (var spill = new MappedAuditEventSpill(configuration(64, 4)))
+        {
+            var event = new AuditEvent(UUID.randomUUID(), Instant.parse("2026-10-18T12:00:00.123456789Z"),
+                    "tenant", "user", "user.created", "user", null, "{\"name\":\"Jörg\"}");
+            var second = event(1);
+            assertThat(spill.append(event)).isTrue();
+            assertThat(spill.append(second)).isTrue();
+            assertThat(spill.append(event(2))).isTrue();
+
+            var batch = new ArrayList<AuditEvent>();
+            assertThat(spill.read(batch, 2)).isEqualTo(2);
+            assertThat(batch).containsExactly(event, second);
+
+            batch.clear();
+            spill.read(batch, 2);
+            assertThat(batch).first().isEqualTo(event);
+
+            spill.acknowledge();
+            batch.clear();
+            assertThat(spill.read(batch, 2)).isEqualTo(1);
+            assertThat(batch).extracting(AuditEvent::resourceId).containsExactly("2");
+
+            spill.acknowledge();
+            assertThat(spill.isEmpty()).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("[MappedAuditEventSpill] should rotate full segments and delete them once they have been acknowledged")
+    void shouldRotateSegments() throws IOException
+    {
+        try (var spill = new MappedAuditEventSpill(configuration(1, 3)))
+        {
+            int appended = 0;
+            while (spill.append(event(appended)))
+                appended++;
+
+            assertThat(appended).isGreaterThan(20);
+            assertThat(segments()).hasSize(3);
+
+            var read = new ArrayList<AuditEvent>();
+            var batch = new ArrayList<AuditEvent>();
+            while (spill.read(batch, 7) > 0)
+            {
+                spill.acknowledge();
+                read.addAll(batch);
+                batch.clear();
+            }
+
+            assertThat(read).hasSize(appended);
+            assertThat(read).extracting(AuditEvent::resourceId).startsWith("0", "1", "2").endsWith(String.valueOf(appended - 1));
+            assertThat(spill.isEmpty()).isTrue();
+            assertThat(segments()).hasSize(1);
+            assertThat(spill.append(event(appended))).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("[MappedAuditEventSpill] should recover the unacknowledged events after a restart")
+    void shouldRecoverEvents() throws IOException
+    {
+        var events = new ArrayList<AuditEvent>();
+        try (var spill = new MappedAuditEventSpill(configuration(1, 8)))
+        {
+            for (int i = 0; i < 30; i++)
+            {
+                events.add(event(i));
+                spill.append(events.get(i));
+            }
+        }
+
+        try (var spill = new MappedAuditEventSpill(configuration(1, 8)))
+        {
+            assertThat(spill.size()).isEqualTo(30);
+            assertThat(readAll(spill)).containsExactlyElementsOf(events);
+
+            spill.append(event(30));
+            assertThat(spill.size()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("[MappedAuditEventSpill] should not read acknowledged events again after a restart")
+    void shouldPersistAcknowledgedOffset() throws IOException
+    {
+        try (var spill = new MappedAuditEventSpill(configuration(64, 4)))
+        {
+            for (int i = 0; i < 5; i++)
+                spill.append(event(i));
+
+            spill.read(new ArrayList<>(), 2);
+            spill.acknowledge();
+        }
+
+        try (var spill = new MappedAuditEventSpill(configuration(64, 4)))
+        {
+            assertThat(spill.size()).isEqualTo(3);
+            assertThat(readAll(spill)).extracting(AuditEvent::resourceId).containsExactly("2", "3", "4");
+        }
+
+        try (var spill = new MappedAuditEventSpill(configuration(64, 4)))
+        {
+            assertThat(spill.isEmpty()).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("[MappedAuditEventSpill] should reuse the segment once all of its events have been acknowledged")
+    void shouldResetAcknowledgedSegment() throws IOException
+    {
+        try (var spill = new MappedAuditEventSpill(configuration(1, 2)))
+        {
+            for (int round = 0; round < 10; round++)
+            {
+                for (int i = 0; i < 5; i++)
+                    assertThat(spill.append(event(round * 10 + i))).isTrue();
+                assertThat(readAll(spill)).hasSize(5);
+            }
+
+            spill.append(AuditEvent.of("tenant", "user", "resource.updated", "resource", "100", null));
+            assertThat(segments()).hasSize(1);
+        }
+
+        try (var spill = new MappedAuditEventSpill(configuration(1, 2)))
+        {
+            assertThat(readAll(spill)).extracting(AuditEvent::resourceId).containsExactly("100");
+        }
+    }
+
+    @Test
+    @DisplayName("[MappedAuditEventSpill] should ignore an incomplete record after a crash")
+    void shouldIgnoreIncompleteRecord() throws IOException
+    {
+        try (var spill = new MappedAuditEventSpill(configuration(64, 4)))
+        {
+            spill.append(event(0));
+            spill.append(event(1));
+        }
+
+        // Corrupts the last byte of the second record, as if it had been written partially
+        try (var file = new RandomAccessFile(segments().get(0).toFile(), "rw"))
+        {
+            long offset = 12;
+            file.seek(offset);
+            offset += 8 + file.readInt();
+            file.seek(offset);
+            offset += 8 + file.readInt() - 1;
+            file.seek(offset);
+            int last = file.readByte();
+            file.seek(offset);
+            file.writeByte(~last);
+        }
+
+        try (var spill = new MappedAuditEventSpill(configuration(64, 4)))
+        {
+            assertThat(readAll(spill)).extracting(AuditEvent::resourceId).containsExactly("0");
+
+            spill.append(event(2));
+            assertThat(readAll(spill)).extracting(AuditEvent::resourceId).containsExactly("2");
+        }
+    }
+
+    private List<Path> segments() throws IOException
+    {
+        try (var files = Files.list(directory))
+        {
+            return files.sorted().toList();
+        }
+    }
+
+    private static List<AuditEvent> readAll(MappedAuditEventSpill spill)
+    {
+        var events = new ArrayList<AuditEvent>();
+        while (spill.read(events, 100) > 0)
+            spill.acknowledge();
+        return events;
+    }
+
+    private AuditSpillConfiguration configuration(int segmentSizeKilobytes, int maxSegments)
+    {
+        return new AuditSpillConfiguration(directory, DataSize.ofKilobytes(segmentSizeKilobytes), maxSegments);
+    }
+
+    private static AuditEvent event(int number)
+    {
+        return AuditEvent.of("tenant", "user", "resource.updated", "resource", String.valueOf(number), "x".repeat(20));
+    }
+}
@@ -0,0 +1,49 @@
+package rize.os.auditing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PostgresCopyAuditEventWriterTest
+{
+    private EmbeddedDatabase database;
+
+    @BeforeEach
+    void setUp()
+    {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        database.shutdown();
+    }
+
+    @Test
+    @DisplayName("[PostgresCopyAuditEventWriter] should fall back to the fallback writer on other databases")
+    void shouldFallBackOnOtherDatabases()
+    {
+        var fallbackBatches = new ArrayList<List<AuditEvent>>();
+        var configuration = new AuditingConfiguration(null, null, null, null, null, null, null, null, null, null, null, null);
+        var writer = new PostgresCopyAuditEventWriter(configuration, new JdbcTemplate(database), fallbackBatches::add);
+
+        var first = List.of(AuditEvent.of("tenant", "user", "user.created", "user", "user-1", null));
+        var second = List.of(AuditEvent.of("tenant", "user", "user.deleted", "user", "user-1", null));
+        writer.write(first);
+        writer.write(second);
+
+        assertThat(writer.isCopySupported()).isFalse();
+        assertThat(fallbackBatches).containsExactly(first, second);
+    }
+}
@@ -0,0 +1,140 @@
+package rize.os.benchmarks.auditing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import liquibase.integration.spring.SpringLiquibase;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import rize.os.auditing.AuditEvent;
+import rize.os.auditing.AuditEventWriter;
+import rize.os.auditing.AuditPartitionManager;
+import rize.os.auditing.AuditPartitioningConfiguration;
+import rize.os.auditing.AuditingConfiguration;
+import rize.os.auditing.JdbcAuditEventWriter;
+import rize.os.auditing.PostgresCopyAuditEventWriter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ingestion rate of the two {@link AuditEventWriter}s of the audit log against a PostgreSQL database in a
+ * Testcontainers container: JDBC batch inserts ({@code BATCH}) and {@code COPY ... FROM STDIN} in the binary format
+ * ({@code COPY}).
+ * <p>
+ * Each invocation writes one batch of audit events the way the writer thread of the audit log does, so the throughput
+ * is reported in rows per second. The audit table is created with the changelog of the audit module, so it is
+ * range-partitioned and has the same indexes as in production, and its partitions for the current time are created
+ * with the {@link AuditPartitionManager}. The table is truncated after each iteration, so every iteration starts with
+ * empty partitions and indexes.
+ * <p>
+ * Requires a running Docker daemon:
+ * <pre>{@code
+ * java -jar rize-benchmarks/target/benchmarks.jar AuditEventWriterBenchmark -p batchSize=100,1000
+ * }</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AuditEventWriterBenchmark
+{
+    private static final String POSTGRES_IMAGE = "postgres:17.5";
+    private static final String CHANGELOG = "classpath:db/changelog/rize-auditing/db.changelog-auditing.yaml";
+
+    public enum WriterType
+    {
+        BATCH,
+        COPY
+    }
+
+    @Param
+    private WriterType writer;
+
+    @Param("1000")
+    private int batchSize;
+
+    private PostgreSQLContainer<?> postgres;
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private AuditPartitionManager partitionManager;
+    private AuditEventWriter auditEventWriter;
+    private List<AuditEvent> batch;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        postgres = new PostgreSQLContainer<>(POSTGRES_IMAGE);
+        postgres.start();
+
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(postgres.getJdbcUrl());
+        dataSource.setUsername(postgres.getUsername());
+        dataSource.setPassword(postgres.getPassword());
+
+        var liquibase = new SpringLiquibase();
+        liquibase.setDataSource(dataSource);
+        liquibase.setChangeLog(CHANGELOG);
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.afterPropertiesSet();
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        var configuration = new AuditingConfiguration(null, null, null, batchSize, null, null, null, null, null, null, null, null);
+        partitionManager = new AuditPartitionManager(configuration, new AuditPartitioningConfiguration(null, null, null, null, null, null), jdbcTemplate);
+        partitionManager.start();
+
+        var batchWriter = new JdbcAuditEventWriter(configuration, jdbcTemplate, new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        auditEventWriter = writer == WriterType.COPY ? new PostgresCopyAuditEventWriter(configuration, jdbcTemplate, batchWriter) : batchWriter;
+    }
+
+    @Setup(Level.Invocation)
+    public void createBatch()
+    {
+        batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++)
+            batch.add(AuditEvent.of("tenant-" + (i % 10), "user-" + (i % 100), "resource.updated", "resource", "resource-" + i,
+                    "{\"field\":\"name\",\"from\":\"Jane\",\"to\":\"John\"}"));
+    }
+
+    @Benchmark
+    public void write(RowCounter rows)
+    {
+        auditEventWriter.write(batch);
+        rows.rows += batch.size();
+    }
+
+    @TearDown(Level.Iteration)
+    public void truncate()
+    {
+        jdbcTemplate.execute("TRUNCATE audit_event");
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        partitionManager.close();
+        dataSource.close();
+        postgres.stop();
+    }
+
+    /**
+     * Reports the number of rows written per second as {@code rows}.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class RowCounter
+    {
+        public long rows;
+
+        @Setup(Level.Iteration)
+        public void reset()
+        {
+            rows = 0;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package rize.os.benchmarks.security;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import rize.os.security.commons.AuthenticatedUser;
+import rize.os.security.commons.AuthenticatedUserContext;
+import rize.os.security.commons.AuthenticatedUserToken;
+import rize.os.security.commons.JwtAuthenticatedUserConverter;
+import rize.os.security.commons.RoleAuthority;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of looking up the {@link AuthenticatedUser} of the current request through the
+ * {@link AuthenticatedUserContext} and of reading it, once it has been converted.
+ * <p>
+ * The user is stored in the security context of the benchmark thread. Its profile is read once during the setup, so
+ * the accessors measure the steady state of a user that has already been materialized.
+ * <p>
+ * The {@code perRequest} benchmarks look the user up {@value #LOOKUPS_PER_REQUEST} times, like a service that needs it
+ * in many places of a request, once through the security context and once with the user bound to the request as by the
+ * {@code AuthenticatedUserContextFilter}. Their score is per lookup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthenticatedUserContextBenchmark
+{
+    private static final String ROLE_AUTHORITY = RoleAuthority.ROLE_PREFIX + TokenShape.ROLE;
+    private static final int LOOKUPS_PER_REQUEST = 50;
+
+    @Param
+    private TokenShape shape;
+
+    private AuthenticatedUser user;
+
+    @Setup
+    public void setUp()
+    {
+        user = new JwtAuthenticatedUserConverter(shape.configuration()).convert(shape.jwt());
+        user.getUserInfo();
+
+        var context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(new AuthenticatedUserToken(user));
+        SecurityContextHolder.setContext(context);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public Optional<AuthenticatedUser> contextGet()
+    {
+        return AuthenticatedUserContext.get();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS_PER_REQUEST)
+    public void perRequestSecurityContext(Blackhole blackhole)
+    {
+        for (int i = 0; i < LOOKUPS_PER_REQUEST; i++)
+            blackhole.consume(AuthenticatedUserContext.get().orElse(null));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS_PER_REQUEST)
+    public void perRequestBound(Blackhole blackhole)
+    {
+        AuthenticatedUserContext.runWith(user, () ->
+        {
+            for (int i = 0; i < LOOKUPS_PER_REQUEST; i++)
+                blackhole.consume(AuthenticatedUserContext.current());
+        });
+    }
+
+    @Benchmark
+    public String getUserId()
+    {
+        return user.getUserId();
+    }
+
+    @Benchmark
+    public String getUsername()
+    {
+        return user.getUsername();
+    }
+
+    @Benchmark
+    public Map<String, Object> getClaims()
+    {
+        return user.getClaims();
+    }
+
+    @Benchmark
+    public boolean hasRole()
+    {
+        return user.hasRole(TokenShape.ROLE);
+    }
+
+    /**
+     * The way application code checks for a role without {@link AuthenticatedUser#hasRole(String)}.
+     */
+    @Benchmark
+    public boolean scanAuthorities()
+    {
+        for (GrantedAuthority authority : user.getAuthorities())
+            if (ROLE_AUTHORITY.equals(authority.getAuthority()))
+                return true;
+
+        return false;
+    }
+}
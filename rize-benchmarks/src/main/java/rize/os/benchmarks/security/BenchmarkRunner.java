@@ -0,0 +1,50 @@
+package rize.os.benchmarks.security;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Runs the benchmarks with the JMH command line options and always attaches the {@link GCProfiler}, so that the
+ * allocation rate ({@code gc.alloc.rate.norm} in bytes per operation) is reported next to the throughput.
+ * <p>
+ * Usage:
+ * <pre>{@code
+ * mvn -pl rize-benchmarks -am package -DskipTests
+ * java -jar rize-benchmarks/target/benchmarks.jar                       # all benchmarks
+ * java -jar rize-benchmarks/target/benchmarks.jar TokenConverter -p shape=MANY_ROLES
+ * }</pre>
+ */
+public final class BenchmarkRunner
+{
+    private BenchmarkRunner() {}
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException
+    {
+        var commandLineOptions = new CommandLineOptions(args);
+        if (commandLineOptions.shouldHelp())
+        {
+            commandLineOptions.showHelp();
+            return;
+        }
+        if (commandLineOptions.shouldList())
+        {
+            new Runner(commandLineOptions).list();
+            return;
+        }
+
+        var options = new OptionsBuilder().parent(commandLineOptions);
+
+        boolean gcProfilerEnabled = commandLineOptions.getProfilers().stream()
+                .anyMatch(profiler -> profiler.getKlass().equals(GCProfiler.class.getName()) || profiler.getKlass().equals("gc"));
+        if (!gcProfilerEnabled)
+            options.addProfiler(GCProfiler.class);
+
+        new Runner(options.build()).run();
+    }
+}
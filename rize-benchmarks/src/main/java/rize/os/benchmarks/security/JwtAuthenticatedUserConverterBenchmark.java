@@ -0,0 +1,62 @@
+package rize.os.benchmarks.security;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.security.oauth2.jwt.Jwt;
+import rize.os.security.commons.AuthenticatedUser;
+import rize.os.security.commons.JwtAuthenticatedUserConverter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of converting a {@link Jwt} into an {@link AuthenticatedUser}, comparing the compiled claims plan
+ * of the {@link JwtAuthenticatedUserConverter} with the {@link LegacyJwtAuthenticatedUserConverter} baseline.
+ * <p>
+ * As the profile of the converted user is materialized lazily, {@link #convertAndReadProfile(Blackhole)} additionally
+ * reads the profile of the user to measure the cost of a request that uses it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticatedUserConverterBenchmark
+{
+    @Param
+    private TokenShape shape;
+
+    private JwtAuthenticatedUserConverter converter;
+    private LegacyJwtAuthenticatedUserConverter legacyConverter;
+    private Jwt jwt;
+
+    @Setup
+    public void setUp()
+    {
+        var configuration = shape.configuration();
+        converter = new JwtAuthenticatedUserConverter(configuration);
+        legacyConverter = new LegacyJwtAuthenticatedUserConverter(configuration);
+        jwt = shape.jwt();
+    }
+
+    @Benchmark
+    public AuthenticatedUser convert()
+    {
+        return converter.convert(jwt);
+    }
+
+    @Benchmark
+    public void convertAndReadProfile(Blackhole blackhole)
+    {
+        var user = converter.convert(jwt);
+        blackhole.consume(user.getUsername());
+        blackhole.consume(user.getEmail());
+        blackhole.consume(user.getFullName());
+    }
+
+    @Benchmark
+    public AuthenticatedUser convertLegacy()
+    {
+        return legacyConverter.convert(jwt);
+    }
+}
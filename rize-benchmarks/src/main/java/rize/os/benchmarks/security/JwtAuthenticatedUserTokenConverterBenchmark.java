@@ -0,0 +1,53 @@
+package rize.os.benchmarks.security;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.oauth2.jwt.Jwt;
+import rize.os.security.commons.AuthenticatedUserCache;
+import rize.os.security.commons.AuthenticatedUserToken;
+import rize.os.security.commons.JwtAuthenticatedUserConverter;
+import rize.os.security.commons.JwtAuthenticatedUserTokenConverter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of converting a {@link Jwt} into an {@link AuthenticatedUserToken}, as done by the resource server
+ * on every request, with and without the {@link AuthenticatedUserCache}.
+ * <p>
+ * The cached variant presents the same token on every call and therefore measures a cache hit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticatedUserTokenConverterBenchmark
+{
+    @Param
+    private TokenShape shape;
+
+    private JwtAuthenticatedUserTokenConverter converter;
+    private JwtAuthenticatedUserTokenConverter cachingConverter;
+    private Jwt jwt;
+
+    @Setup
+    public void setUp()
+    {
+        var userConverter = new JwtAuthenticatedUserConverter(shape.configuration());
+        converter = new JwtAuthenticatedUserTokenConverter(userConverter);
+        cachingConverter = new JwtAuthenticatedUserTokenConverter(userConverter, new AuthenticatedUserCache(10_000));
+        jwt = shape.jwt();
+    }
+
+    @Benchmark
+    public AuthenticatedUserToken convert()
+    {
+        return converter.convert(jwt);
+    }
+
+    @Benchmark
+    public AuthenticatedUserToken convertCached()
+    {
+        return cachingConverter.convert(jwt);
+    }
+}
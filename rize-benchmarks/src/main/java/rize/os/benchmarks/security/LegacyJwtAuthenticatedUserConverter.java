@@ -0,0 +1,127 @@
+package rize.os.benchmarks.security;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.OidcUserInfo;
+import org.springframework.security.oauth2.core.oidc.StandardClaimNames;
+import org.springframework.security.oauth2.jwt.Jwt;
+import rize.os.security.commons.AuthenticatedUser;
+import rize.os.security.commons.AuthenticatedUserClaimsConfiguration;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A verbatim copy of the {@code JwtAuthenticatedUserConverter} before the claims configuration was compiled into an
+ * {@code AuthenticatedUserClaimsPlan}. It splits every claim name with a regex and converts complex claims with
+ * Jackson on each call and is only kept as the "before" baseline of the converter benchmarks.
+ */
+class LegacyJwtAuthenticatedUserConverter
+{
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AuthenticatedUserClaimsConfiguration claimsConfiguration;
+
+    LegacyJwtAuthenticatedUserConverter(AuthenticatedUserClaimsConfiguration claimsConfiguration)
+    {
+        this.claimsConfiguration = claimsConfiguration;
+    }
+
+    AuthenticatedUser convert(Jwt jwt)
+    {
+        Map<String, Object> userInfoClaims = new HashMap<>();
+        addClaim(userInfoClaims, StandardClaimNames.SUB, jwt, claimsConfiguration.getUserId(), String.class);
+        addClaim(userInfoClaims, StandardClaimNames.PREFERRED_USERNAME, jwt, claimsConfiguration.getUsername(), String.class);
+        addClaim(userInfoClaims, StandardClaimNames.EMAIL, jwt, claimsConfiguration.getEmail(), String.class);
+        addClaim(userInfoClaims, StandardClaimNames.EMAIL_VERIFIED, jwt, claimsConfiguration.getEmailVerified(), Boolean.class);
+        addClaim(userInfoClaims, StandardClaimNames.GIVEN_NAME, jwt, claimsConfiguration.getFirstName(), String.class);
+        addClaim(userInfoClaims, StandardClaimNames.MIDDLE_NAME, jwt, claimsConfiguration.getMiddleName(), String.class);
+        addClaim(userInfoClaims, StandardClaimNames.FAMILY_NAME, jwt, claimsConfiguration.getLastName(), String.class);
+        addClaim(userInfoClaims, StandardClaimNames.NAME, jwt, claimsConfiguration.getFullName(), String.class);
+        addClaim(userInfoClaims, StandardClaimNames.PROFILE, jwt, claimsConfiguration.getProfile(), String.class);
+        addClaim(userInfoClaims, StandardClaimNames.PICTURE, jwt, claimsConfiguration.getPicture(), String.class);
+        addClaim(userInfoClaims, StandardClaimNames.WEBSITE, jwt, claimsConfiguration.getWebsite(), String.class);
+        addClaim(userInfoClaims, StandardClaimNames.GENDER, jwt, claimsConfiguration.getGender(), String.class);
+        addClaim(userInfoClaims, StandardClaimNames.BIRTHDATE, jwt, claimsConfiguration.getBirthdate(), String.class);
+        addClaim(userInfoClaims, StandardClaimNames.ZONEINFO, jwt, claimsConfiguration.getZoneInfo(), String.class);
+        addClaim(userInfoClaims, StandardClaimNames.LOCALE, jwt, claimsConfiguration.getLocale(), String.class);
+        addClaim(userInfoClaims, StandardClaimNames.PHONE_NUMBER, jwt, claimsConfiguration.getPhoneNumber(), String.class);
+        addClaim(userInfoClaims, StandardClaimNames.PHONE_NUMBER_VERIFIED, jwt, claimsConfiguration.getPhoneNumberVerified(), Boolean.class);
+        addClaim(userInfoClaims, StandardClaimNames.ADDRESS, jwt, claimsConfiguration.getAddress(), new TypeReference<Map<String, Object>>() {});
+        addClaim(userInfoClaims, StandardClaimNames.UPDATED_AT, jwt, claimsConfiguration.getUpdatedAt(), String.class);
+
+        OidcUserInfo userInfo = new OidcUserInfo(userInfoClaims);
+        OidcIdToken idToken = new OidcIdToken(jwt.getTokenValue(), jwt.getIssuedAt(), jwt.getExpiresAt(), jwt.getClaims());
+        Set<GrantedAuthority> authorities = extractAuthorities(jwt);
+        String sessionId = extractClaim(jwt, claimsConfiguration.getSessionId(), String.class).orElse(null);
+
+        return new AuthenticatedUser(userInfo, idToken, authorities, sessionId);
+    }
+
+    private <T> void addClaim(Map<String, Object> claims, String key, Jwt jwt, String claimName, Class<T> type)
+    {
+        extractClaim(jwt, claimName, type).ifPresent(value -> claims.put(key, value));
+    }
+
+    private <T> void addClaim(Map<String, Object> claims, String key, Jwt jwt, String claimName, TypeReference<T> typeRef)
+    {
+        extractClaim(jwt, claimName, typeRef).ifPresent(value -> claims.put(key, value));
+    }
+
+    private Set<GrantedAuthority> extractAuthorities(Jwt jwt)
+    {
+        String clientId = extractClaim(jwt, claimsConfiguration.getClientId(), String.class).orElse("");
+        String clientRolesClaimName = claimsConfiguration.getClientRoles().replace("${clientId}", clientId);
+
+        Stream<String> clientRoles = extractClaim(jwt, clientRolesClaimName, new TypeReference<Collection<String>>() {})
+                .stream()
+                .flatMap(Collection::stream)
+                .map(role -> "ROLE_" + role);
+
+        return clientRoles.map(SimpleGrantedAuthority::new).collect(Collectors.toSet());
+    }
+
+    private <T> Optional<T> extractClaim(Jwt jwt, String claimName, TypeReference<T> typeRef)
+    {
+        return extractClaim(jwt, claimName).flatMap(claimValue ->
+        {
+            try
+            {
+                return Optional.of(objectMapper.convertValue(claimValue, typeRef));
+            }
+            catch (IllegalArgumentException e)
+            {
+                return Optional.empty();
+            }
+        });
+    }
+
+    private <T> Optional<T> extractClaim(Jwt jwt, String claimName, Class<T> type)
+    {
+        return extractClaim(jwt, claimName)
+                .filter(type::isInstance)
+                .map(type::cast);
+    }
+
+    private Optional<Object> extractClaim(Jwt jwt, String claimName)
+    {
+        Map<String, Object> claims = jwt.getClaims();
+        var keys = claimName.split("\\.");
+        Object currentValue = claims;
+
+        for (var key : keys)
+        {
+            if (!(currentValue instanceof Map))
+                return Optional.empty();
+
+            currentValue = ((Map<?, ?>) currentValue).get(key);
+            if (currentValue == null)
+                return Optional.empty();
+        }
+
+        return Optional.ofNullable(currentValue);
+    }
+}
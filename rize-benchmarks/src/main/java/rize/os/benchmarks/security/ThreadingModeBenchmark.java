@@ -0,0 +1,165 @@
+package rize.os.benchmarks.security;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.core.context.SecurityContextHolder;
+import rize.os.security.commons.AuthenticatedUser;
+import rize.os.security.commons.AuthenticatedUserContext;
+import rize.os.security.commons.AuthenticatedUserTaskDecorator;
+import rize.os.security.commons.AuthenticatedUserToken;
+import rize.os.security.commons.JwtAuthenticatedUserConverter;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares the cockpit's executors on platform threads with the virtual thread mode
+ * ({@code rize.cockpit.threads.virtual.enabled=true}) under a load of blocking tasks.
+ * <p>
+ * Each invocation submits a burst of tasks through the {@link AuthenticatedUserTaskDecorator}, the way a request
+ * hands work to {@code @Async} methods and event listeners. Every task blocks for a while, like a call to the database
+ * or the identity provider, and then checks that {@link AuthenticatedUserContext#get()} returns the submitting user.
+ * The platform executor is bounded to the 200 threads Tomcat uses by default, the virtual executor starts a virtual
+ * thread per task. The throughput is reported in tasks per second.
+ * <p>
+ * Besides the allocation rate of the {@code gc} profiler, which includes the stacks of virtual threads as they live
+ * on the heap, the peak number of platform threads is reported as {@code peakThreads}. Each of them reserves a native
+ * stack, which can be inspected with {@code -jvmArgsAppend -XX:NativeMemoryTracking=summary}.
+ * <p>
+ * Requires a Java 21 runtime for the {@code VIRTUAL} mode:
+ * <pre>{@code
+ * java -jar rize-benchmarks/target/benchmarks.jar ThreadingModeBenchmark -p blockingMillis=5,20
+ * }</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ThreadingModeBenchmark
+{
+    private static final int TASKS = 2_000;
+    private static final int PLATFORM_THREADS = 200;
+
+    public enum ThreadingMode
+    {
+        PLATFORM,
+        VIRTUAL
+    }
+
+    @Param
+    private ThreadingMode mode;
+
+    @Param("10")
+    private int blockingMillis;
+
+    private AuthenticatedUser user;
+    private AsyncTaskExecutor executor;
+    private ThreadPoolTaskExecutor platformExecutor;
+
+    @Setup
+    public void setUp()
+    {
+        var shape = TokenShape.TYPICAL;
+        user = new JwtAuthenticatedUserConverter(shape.configuration()).convert(shape.jwt());
+
+        var taskDecorator = new AuthenticatedUserTaskDecorator();
+        if (mode == ThreadingMode.VIRTUAL)
+        {
+            var virtualExecutor = new SimpleAsyncTaskExecutor("benchmark-");
+            virtualExecutor.setVirtualThreads(true);
+            virtualExecutor.setTaskDecorator(taskDecorator);
+            executor = virtualExecutor;
+        }
+        else
+        {
+            platformExecutor = new ThreadPoolTaskExecutor();
+            platformExecutor.setCorePoolSize(PLATFORM_THREADS);
+            platformExecutor.setMaxPoolSize(PLATFORM_THREADS);
+            platformExecutor.setThreadNamePrefix("benchmark-");
+            platformExecutor.setTaskDecorator(taskDecorator);
+            platformExecutor.initialize();
+            executor = platformExecutor;
+        }
+
+        var context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(new AuthenticatedUserToken(user));
+        SecurityContextHolder.setContext(context);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        if (platformExecutor != null)
+            platformExecutor.shutdown();
+
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASKS)
+    public int blockingTasks(ThreadFootprint footprint) throws InterruptedException
+    {
+        var done = new CountDownLatch(TASKS);
+        var mismatches = new AtomicInteger();
+
+        for (int i = 0; i < TASKS; i++)
+        {
+            executor.execute(() ->
+            {
+                try
+                {
+                    Thread.sleep(blockingMillis);
+                    if (AuthenticatedUserContext.get().orElse(null) != user)
+                        mismatches.incrementAndGet();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                finally
+                {
+                    done.countDown();
+                }
+            });
+        }
+
+        done.await();
+        footprint.record();
+
+        if (mismatches.get() > 0)
+            throw new IllegalStateException(mismatches.get() + " tasks did not see the submitting user");
+
+        return TASKS;
+    }
+
+    /**
+     * Reports the peak number of live platform threads of each iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ThreadFootprint
+    {
+        private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        public long peakThreads;
+
+        @Setup(Level.Iteration)
+        public void reset()
+        {
+            threads.resetPeakThreadCount();
+            peakThreads = 0;
+        }
+
+        void record()
+        {
+            peakThreads = threads.getPeakThreadCount();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package rize.os.benchmarks.security;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import rize.os.security.commons.AuthenticatedUserClaimsConfiguration;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keycloak-shaped access tokens used as input for the benchmarks, together with the claims configuration that is
+ * needed to read them.
+ * <p>
+ * Each token is granted the role {@value #ROLE} for the client {@value #CLIENT_ID}.
+ */
+public enum TokenShape
+{
+    /**
+     * A minimal access token with an identity, a username, an email and a single client role.
+     */
+    SMALL
+    {
+        @Override
+        Map<String, Object> claims()
+        {
+            Map<String, Object> claims = registeredClaims();
+            claims.put("preferred_username", "testuser");
+            claims.put("email", "test.user@rize.os");
+            claims.put("resource_access", Map.of(CLIENT_ID, Map.of("roles", List.of(ROLE))));
+            return claims;
+        }
+    },
+
+    /**
+     * A typical access token of a Keycloak realm with profile, email, address, realm and client roles.
+     */
+    TYPICAL
+    {
+        @Override
+        Map<String, Object> claims()
+        {
+            Map<String, Object> claims = profileClaims();
+            claims.put("realm_access", Map.of("roles", List.of("offline_access", "uma_authorization", "default-roles-administration")));
+            claims.put("resource_access", Map.of(
+                    CLIENT_ID, Map.of("roles", List.of(ROLE, "viewer")),
+                    "account", Map.of("roles", List.of("manage-account", "view-profile"))));
+            return claims;
+        }
+    },
+
+    /**
+     * A typical access token whose user has been granted hundreds of realm and client roles.
+     */
+    MANY_ROLES
+    {
+        @Override
+        Map<String, Object> claims()
+        {
+            Map<String, Object> claims = profileClaims();
+            claims.put("realm_access", Map.of("roles", roles("realm-role-", 50)));
+            claims.put("resource_access", Map.of(
+                    CLIENT_ID, Map.of("roles", roles("client-role-", 250)),
+                    "account", Map.of("roles", List.of("manage-account", "view-profile"))));
+            return claims;
+        }
+    },
+
+    /**
+     * An access token whose user claims are mapped into a deeply nested custom claim by the identity provider.
+     */
+    DEEP_NESTED
+    {
+        @Override
+        Map<String, Object> claims()
+        {
+            Map<String, Object> claims = registeredClaims();
+            claims.put("rize", Map.of(
+                    "identity", Map.of(
+                            "id", claims.get("sub"),
+                            "profile", Map.of(
+                                    "account", Map.of("username", "testuser", "locale", "de"),
+                                    "name", Map.of("given", "Test", "family", "User", "full", "Test User"),
+                                    "contact", Map.of("email", "test.user@rize.os", "verified", true))),
+                    "authorization", Map.of(
+                            "clients", Map.of(
+                                    CLIENT_ID, Map.of("access", Map.of("roles", List.of(ROLE, "viewer"))),
+                                    "account", Map.of("access", Map.of("roles", List.of("manage-account")))))));
+            return claims;
+        }
+
+        @Override
+        AuthenticatedUserClaimsConfiguration configuration()
+        {
+            return new AuthenticatedUserClaimsConfiguration(
+                    "rize.identity.id",
+                    "rize.identity.profile.account.username",
+                    "rize.identity.profile.contact.email",
+                    "rize.identity.profile.contact.verified",
+                    "rize.identity.profile.name.given",
+                    null,
+                    "rize.identity.profile.name.family",
+                    "rize.identity.profile.name.full",
+                    null, null, null, null, null, null,
+                    "rize.identity.profile.account.locale",
+                    null, null, null, null, null, null,
+                    "rize.authorization.clients.${clientId}.access.roles",
+                    null);
+        }
+    };
+
+    /**
+     * The client the benchmark tokens are issued for.
+     */
+    public static final String CLIENT_ID = "rize-cockpit";
+
+    /**
+     * The client role that is granted by every benchmark token.
+     */
+    public static final String ROLE = "platform-administrator";
+
+    abstract Map<String, Object> claims();
+
+    /**
+     * @return The claims configuration that is needed to read tokens of this shape.
+     */
+    AuthenticatedUserClaimsConfiguration configuration()
+    {
+        return AuthenticatedUserClaimsConfiguration.createDefault();
+    }
+
+    /**
+     * Creates a new token of this shape. Every token has its own subject, session and token ID.
+     *
+     * @return The token.
+     */
+    Jwt jwt()
+    {
+        var claims = claims();
+        return new Jwt("benchmark-token-" + claims.get("jti"),
+                (Instant) claims.get("iat"),
+                (Instant) claims.get("exp"),
+                Map.of("alg", "RS256", "typ", "JWT", "kid", "benchmark"),
+                claims);
+    }
+
+    private static Map<String, Object> registeredClaims()
+    {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("exp", Instant.now().plusSeconds(3600));
+        claims.put("iat", Instant.now());
+        claims.put("jti", UUID.randomUUID().toString());
+        claims.put("iss", "http://localhost:3000/realms/administration");
+        claims.put("aud", List.of("account"));
+        claims.put("sub", UUID.randomUUID().toString());
+        claims.put("typ", "Bearer");
+        claims.put("azp", CLIENT_ID);
+        claims.put("sid", UUID.randomUUID().toString());
+        return claims;
+    }
+
+    private static Map<String, Object> profileClaims()
+    {
+        Map<String, Object> claims = registeredClaims();
+        claims.put("acr", "1");
+        claims.put("scope", "openid profile email address");
+        claims.put("email_verified", true);
+        claims.put("name", "Test User");
+        claims.put("preferred_username", "testuser");
+        claims.put("given_name", "Test");
+        claims.put("family_name", "User");
+        claims.put("email", "test.user@rize.os");
+        claims.put("locale", "de");
+        claims.put("address", Map.of(
+                "street_address", "Musterstraße 1",
+                "locality", "Berlin",
+                "postal_code", "10115",
+                "country", "DE"));
+        return claims;
+    }
+
+    private static List<String> roles(String prefix, int count)
+    {
+        List<String> roles = new ArrayList<>(count + 1);
+        roles.add(ROLE);
+        for (int i = 1; i < count; i++)
+            roles.add(prefix + i);
+
+        return roles;
+    }
+}
@@ -2,10 +2,14 @@ package rize.os.cockpit;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import rize.os.commons.annotations.EnableRizeOS;
 import com.vaadin.flow.theme.Theme;
 import com.vaadin.flow.component.page.AppShellConfigurator;
 
+@EnableAsync
+@EnableScheduling
 @EnableRizeOS
 @Theme("rize-os")
 @SpringBootApplication
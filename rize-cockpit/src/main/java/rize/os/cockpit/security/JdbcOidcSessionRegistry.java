@@ -0,0 +1,120 @@
+package rize.os.cockpit.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.client.oidc.authentication.logout.OidcLogoutToken;
+import org.springframework.security.oauth2.client.oidc.session.OidcSessionInformation;
+import org.springframework.security.oauth2.client.oidc.session.OidcSessionRegistry;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+import rize.os.security.commons.AuthenticatedUser;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An {@link OidcSessionRegistry} that stores the OIDC sessions of all cockpit nodes in the {@code oidc_session} table.
+ * <p>
+ * Each HTTP session is registered with the issuer, the {@code sid} and the user ID of the ID token it has been
+ * created with. The table is indexed by issuer and {@code sid} and by issuer and user ID, so the sessions of a logout
+ * token are found with an index lookup, regardless of the number of active sessions. As the HTTP sessions are stored
+ * in the same database by Spring Session JDBC, the registry is shared by all nodes and a back-channel logout received
+ * by any node finds the sessions created on all others.
+ * <p>
+ * Entries of sessions that have expired without a logout are removed together with the expired sessions of Spring
+ * Session.
+ */
+public class JdbcOidcSessionRegistry implements OidcSessionRegistry
+{
+    private static final Logger log = LoggerFactory.getLogger(JdbcOidcSessionRegistry.class);
+
+    private static final String INSERT = """
+            INSERT INTO oidc_session (session_id, issuer, sid, user_id, created_at) VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (session_id) DO UPDATE SET issuer = excluded.issuer, sid = excluded.sid, user_id = excluded.user_id, created_at = excluded.created_at""";
+    private static final String DELETE_BY_SESSION_ID = "DELETE FROM oidc_session WHERE session_id = ? RETURNING session_id, issuer, sid, user_id";
+    private static final String DELETE_BY_SID = "DELETE FROM oidc_session WHERE issuer = ? AND sid = ? RETURNING session_id, issuer, sid, user_id";
+    private static final String DELETE_BY_USER_ID = "DELETE FROM oidc_session WHERE issuer = ? AND user_id = ? RETURNING session_id, issuer, sid, user_id";
+    private static final String DELETE_EXPIRED = """
+            DELETE FROM oidc_session o WHERE o.created_at < ?
+            AND NOT EXISTS (SELECT 1 FROM spring_session s WHERE s.session_id = o.session_id)""";
+
+    /**
+     * Entries younger than this are never removed by the cleanup, as the session of a login is only written to the
+     * database at the end of the login request.
+     */
+    private static final long CLEANUP_GRACE_PERIOD_MILLIS = 60_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RowMapper<OidcSessionInformation> rowMapper = (resultSet, rowNum) -> toSessionInformation(
+            resultSet.getString("session_id").trim(),
+            resultSet.getString("issuer"),
+            resultSet.getString("sid"),
+            resultSet.getString("user_id"));
+
+    public JdbcOidcSessionRegistry(JdbcTemplate jdbcTemplate)
+    {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void saveSessionInformation(OidcSessionInformation info)
+    {
+        var principal = info.getPrincipal();
+        var idToken = principal.getIdToken();
+        var sid = principal instanceof AuthenticatedUser user ? user.getSessionId() : idToken.getClaimAsString("sid");
+
+        jdbcTemplate.update(INSERT, info.getSessionId(), idToken.getIssuer().toString(), sid, idToken.getSubject(), System.currentTimeMillis());
+    }
+
+    @Override
+    public OidcSessionInformation removeSessionInformation(String clientSessionId)
+    {
+        var removed = jdbcTemplate.query(DELETE_BY_SESSION_ID, rowMapper, clientSessionId);
+        return removed.isEmpty() ? null : removed.get(0);
+    }
+
+    @Override
+    public Iterable<OidcSessionInformation> removeSessionInformation(OidcLogoutToken logoutToken)
+    {
+        var issuer = logoutToken.getIssuer().toString();
+        var sid = logoutToken.getSessionId();
+
+        List<OidcSessionInformation> removed = sid != null
+                ? jdbcTemplate.query(DELETE_BY_SID, rowMapper, issuer, sid)
+                : jdbcTemplate.query(DELETE_BY_USER_ID, rowMapper, issuer, logoutToken.getSubject());
+
+        log.debug("Removed {} OIDC sessions of issuer '{}' for the logout of sid '{}' and subject '{}'", removed.size(), issuer, sid, logoutToken.getSubject());
+        return removed;
+    }
+
+    /**
+     * Removes the entries of sessions that no longer exist, in the same interval in which Spring Session removes the
+     * expired sessions.
+     */
+    @Scheduled(cron = "${rize.cockpit.session.cleanup-cron:0 * * * * *}")
+    public void removeExpiredSessionInformation()
+    {
+        int removed = jdbcTemplate.update(DELETE_EXPIRED, System.currentTimeMillis() - CLEANUP_GRACE_PERIOD_MILLIS);
+        if (removed > 0)
+            log.debug("Removed {} OIDC sessions without an HTTP session", removed);
+    }
+
+    private static OidcSessionInformation toSessionInformation(String sessionId, String issuer, String sid, String userId)
+    {
+        var idToken = OidcIdToken.withTokenValue(sessionId)
+                .issuer(issuer)
+                .subject(userId)
+                .claims(claims ->
+                {
+                    if (sid != null)
+                        claims.put("sid", sid);
+                })
+                .build();
+
+        return new OidcSessionInformation(sessionId, Map.of(), new DefaultOidcUser(Set.of(), idToken));
+    }
+}
@@ -1,14 +1,32 @@
 package rize.os.cockpit.security;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.oauth2.client.OAuth2ClientProperties;
+import org.springframework.boot.autoconfigure.security.oauth2.client.OAuth2ClientPropertiesMapper;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configurers.CsrfConfigurer;
+import org.springframework.security.config.annotation.web.configurers.RequestCacheConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.oauth2.client.oidc.session.OidcSessionRegistry;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.InMemoryClientRegistrationRepository;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
-import org.springframework.security.oauth2.jwt.JwtDecoders;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.session.SessionRepository;
+import rize.os.security.commons.JwkSetCache;
+import rize.os.security.commons.JwtAuthenticatedUserTokenConverter;
+import rize.os.security.commons.JwtIssuerConfiguration;
+import rize.os.security.commons.MultiIssuerJwtDecoder;
+import rize.os.security.commons.RoleAuthorizationManager;
+import rize.os.security.commons.TokenRevocationList;
 import rize.os.security.oauth2.client.AuthenticatedUserOidcService;
 
 
@@ -18,20 +36,83 @@ import rize.os.security.oauth2.client.AuthenticatedUserOidcService;
 public class SecurityConfiguration
 {
     @Bean
-    JwtDecoder jwtDecoder(@Value("${rize.cockpit.security.oauth2.issuer-uri:http://localhost:3000/realms/administration}") String issuerUri)
+    JwtDecoder jwtDecoder(@Value("${rize.cockpit.security.oauth2.issuer-uri:http://localhost:3000/realms/administration}") String issuerUri,
+                          JwtIssuerConfiguration issuerConfiguration,
+                          JwkSetCache jwkSetCache)
     {
-        return JwtDecoders.fromIssuerLocation(issuerUri);
+        if (issuerConfiguration.isEnabled())
+            return new MultiIssuerJwtDecoder(issuerConfiguration, jwkSetCache);
+
+        return jwkSetCache.createDecoder(issuerUri, null);
+    }
+
+    /**
+     * Creates the client registrations from the properties, with the issuer URI set on each of them.
+     * <p>
+     * The provider is configured with explicit endpoints instead of an issuer URI, so the cockpit starts without
+     * running the discovery against the identity provider. The issuer is still required on the registration: the ID
+     * tokens of a login and the logout tokens of a back-channel logout are validated against it.
+     */
+    @Bean
+    InMemoryClientRegistrationRepository clientRegistrationRepository(@Value("${rize.cockpit.security.oauth2.issuer-uri:http://localhost:3000/realms/administration}") String issuerUri,
+                                                                      OAuth2ClientProperties properties)
+    {
+        var clientRegistrations = new OAuth2ClientPropertiesMapper(properties).asClientRegistrations().values().stream()
+                .map(clientRegistration -> ClientRegistration.withClientRegistration(clientRegistration).issuerUri(issuerUri).build())
+                .toList();
+
+        return new InMemoryClientRegistrationRepository(clientRegistrations);
+    }
+
+    /**
+     * Authenticates the requests of the {@code /api/**} surface with bearer tokens instead of a login, e.g. for
+     * automation. The chain is stateless: it neither creates nor reads HTTP sessions, so machine traffic does not
+     * occupy any session memory and can be served by any node.
+     */
+    @Bean
+    @Order(1)
+    SecurityFilterChain apiSecurityFilterChain(HttpSecurity http,
+                                               JwtDecoder jwtDecoder,
+                                               JwtAuthenticatedUserTokenConverter jwtAuthenticatedUserTokenConverter) throws Exception
+    {
+        http
+                .securityMatcher("/api/**")
+                .authorizeHttpRequests(authorize -> authorize
+                        .anyRequest().access(RoleAuthorizationManager.hasRole(CockpitRoles.PLATFORM_ADMIN)))
+                .oauth2ResourceServer(resourceServer -> resourceServer
+                        .jwt(jwt -> jwt
+                                .decoder(jwtDecoder)
+                                .jwtAuthenticationConverter(jwtAuthenticatedUserTokenConverter)))
+                .sessionManagement(sessionManagement -> sessionManagement.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .securityContext(securityContext -> securityContext.securityContextRepository(new RequestAttributeSecurityContextRepository()))
+                .requestCache(RequestCacheConfigurer::disable)
+                .csrf(CsrfConfigurer::disable);
+
+        return http.build();
+    }
+
+    @Bean
+    JdbcOidcSessionRegistry oidcSessionRegistry(JdbcTemplate jdbcTemplate)
+    {
+        return new JdbcOidcSessionRegistry(jdbcTemplate);
     }
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http,
-                                                   AuthenticatedUserOidcService authenticatedOidcUserService) throws Exception
+                                                   AuthenticatedUserOidcService authenticatedOidcUserService,
+                                                   OidcSessionRegistry oidcSessionRegistry,
+                                                   SessionRepository<?> sessionRepository,
+                                                   ObjectProvider<TokenRevocationList> tokenRevocationList) throws Exception
     {
         http
                 .authorizeHttpRequests(authorize -> authorize
-                        .anyRequest().hasRole(CockpitRoles.PLATFORM_ADMIN))
+                        .anyRequest().access(RoleAuthorizationManager.hasRole(CockpitRoles.PLATFORM_ADMIN)))
                 .oauth2Login(oauth2Login ->
-                        oauth2Login.userInfoEndpoint(userInfo -> userInfo.oidcUserService(authenticatedOidcUserService)));
+                        oauth2Login.userInfoEndpoint(userInfo -> userInfo.oidcUserService(authenticatedOidcUserService)))
+                .oidcLogout(oidcLogout -> oidcLogout
+                        .oidcSessionRegistry(oidcSessionRegistry)
+                        .backChannel(backChannel -> backChannel.logoutHandler(new SessionDeletingLogoutHandler(oidcSessionRegistry, sessionRepository,
+                                tokenRevocationList.getIfAvailable()))));
 
         return http.build();
     }
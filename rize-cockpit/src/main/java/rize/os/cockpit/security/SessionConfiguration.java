@@ -0,0 +1,33 @@
+package rize.os.cockpit.security;
+
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.GenericConversionService;
+import rize.os.security.commons.AuthenticatedUserSessionAttributeConverter;
+
+
+@Configuration
+public class SessionConfiguration implements BeanClassLoaderAware
+{
+    private ClassLoader beanClassLoader;
+
+    @Override
+    public void setBeanClassLoader(ClassLoader classLoader)
+    {
+        this.beanClassLoader = classLoader;
+    }
+
+    /**
+     * Writes the session attributes of Spring Session JDBC with the compact codec of the authenticated user, so that
+     * the sessions of the cockpit can be shared between nodes without storing the full user in every session.
+     */
+    @Bean("springSessionConversionService")
+    ConversionService springSessionConversionService()
+    {
+        var conversionService = new GenericConversionService();
+        conversionService.addConverter(new AuthenticatedUserSessionAttributeConverter(beanClassLoader));
+        return conversionService;
+    }
+}
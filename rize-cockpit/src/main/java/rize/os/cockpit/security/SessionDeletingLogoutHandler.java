@@ -0,0 +1,65 @@
+package rize.os.cockpit.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.oidc.authentication.logout.OidcLogoutToken;
+import org.springframework.security.oauth2.client.oidc.session.OidcSessionRegistry;
+import org.springframework.security.web.authentication.logout.LogoutHandler;
+import org.springframework.session.SessionRepository;
+import rize.os.security.commons.TokenRevocationList;
+
+/**
+ * Handles an OIDC back-channel logout by deleting the HTTP sessions of the logout token from the session repository.
+ * <p>
+ * The default handler of Spring Security calls the logout endpoint of the application once per session, with the
+ * session cookie of each session. As the sessions of the cockpit are stored in the database that all nodes share, they
+ * are deleted directly instead: the sessions are looked up in the {@link OidcSessionRegistry} by {@code sid} or by
+ * user ID and removed by their ID, so each of them is gone for every node with its next request. If a
+ * {@link TokenRevocationList} is available, the {@code sid} is revoked as well, so the bearer tokens that have been
+ * issued for the session are rejected by the API before they expire.
+ */
+public class SessionDeletingLogoutHandler implements LogoutHandler
+{
+    private static final Logger log = LoggerFactory.getLogger(SessionDeletingLogoutHandler.class);
+
+    private final OidcSessionRegistry oidcSessionRegistry;
+    private final SessionRepository<?> sessionRepository;
+    private final TokenRevocationList tokenRevocationList;
+
+    public SessionDeletingLogoutHandler(OidcSessionRegistry oidcSessionRegistry, SessionRepository<?> sessionRepository)
+    {
+        this(oidcSessionRegistry, sessionRepository, null);
+    }
+
+    public SessionDeletingLogoutHandler(OidcSessionRegistry oidcSessionRegistry,
+                                        SessionRepository<?> sessionRepository,
+                                        @Nullable TokenRevocationList tokenRevocationList)
+    {
+        this.oidcSessionRegistry = oidcSessionRegistry;
+        this.sessionRepository = sessionRepository;
+        this.tokenRevocationList = tokenRevocationList;
+    }
+
+    @Override
+    public void logout(HttpServletRequest request, HttpServletResponse response, Authentication authentication)
+    {
+        if (authentication == null || !(authentication.getCredentials() instanceof OidcLogoutToken logoutToken))
+            return;
+
+        if (tokenRevocationList != null && logoutToken.getSessionId() != null)
+            tokenRevocationList.revokeSessionId(logoutToken.getSessionId());
+
+        int deleted = 0;
+        for (var sessionInformation : oidcSessionRegistry.removeSessionInformation(logoutToken))
+        {
+            sessionRepository.deleteById(sessionInformation.getSessionId());
+            deleted++;
+        }
+
+        log.debug("Deleted {} sessions for the back-channel logout of sid '{}' and subject '{}'", deleted, logoutToken.getSessionId(), logoutToken.getSubject());
+    }
+}
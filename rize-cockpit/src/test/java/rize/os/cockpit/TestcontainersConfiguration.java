@@ -10,7 +10,7 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.utility.DockerImageName;
 
 @TestConfiguration(proxyBeanMethods = false)
-class TestcontainersConfiguration
+public class TestcontainersConfiguration
 {
     private static final String POSTGRES_IMAGE = "postgres:17.5";
 
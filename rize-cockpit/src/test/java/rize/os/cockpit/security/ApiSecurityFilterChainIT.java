@@ -0,0 +1,144 @@
+package rize.os.cockpit.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerResponse;
+import rize.os.cockpit.TestcontainersConfiguration;
+import rize.os.security.commons.AuthenticatedUserToken;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Sends bearer tokens to the {@code /api/**} surface of the cockpit. The tokens are decoded by a stub decoder, so the
+ * tests cover the chain from the converter of the authenticated user up to the role check.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import({TestcontainersConfiguration.class, ApiSecurityFilterChainIT.ApiTestConfiguration.class})
+class ApiSecurityFilterChainIT
+{
+    private static final String ADMIN_TOKEN = "admin-token";
+    private static final String VIEWER_TOKEN = "viewer-token";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @DynamicPropertySource
+    static void containerProperties(DynamicPropertyRegistry registry)
+    {
+        TestcontainersConfiguration.updateContainerProperties(registry);
+    }
+
+    @Test
+    @DisplayName("[ApiSecurityFilterChain] should authenticate a bearer token as the authenticated user")
+    void shouldAuthenticateBearerToken() throws Exception
+    {
+        mockMvc.perform(get("/api/test/user").header(HttpHeaders.AUTHORIZATION, "Bearer " + ADMIN_TOKEN))
+                .andExpect(status().isOk())
+                .andExpect(content().string("admin"));
+    }
+
+    @Test
+    @DisplayName("[ApiSecurityFilterChain] should neither create a session nor set a cookie")
+    void shouldNotCreateSession() throws Exception
+    {
+        mockMvc.perform(get("/api/test/user").header(HttpHeaders.AUTHORIZATION, "Bearer " + ADMIN_TOKEN))
+                .andExpect(status().isOk())
+                .andExpect(result -> assertThat(result.getRequest().getSession(false)).isNull())
+                .andExpect(header().doesNotExist(HttpHeaders.SET_COOKIE));
+    }
+
+    @Test
+    @DisplayName("[ApiSecurityFilterChain] should reject a user without the platform administrator role with 403")
+    void shouldRejectUserWithoutRole() throws Exception
+    {
+        mockMvc.perform(get("/api/test/user").header(HttpHeaders.AUTHORIZATION, "Bearer " + VIEWER_TOKEN))
+                .andExpect(status().isForbidden())
+                .andExpect(header().doesNotExist(HttpHeaders.SET_COOKIE));
+    }
+
+    @Test
+    @DisplayName("[ApiSecurityFilterChain] should reject a request without a bearer token with 401")
+    void shouldRejectRequestWithoutToken() throws Exception
+    {
+        mockMvc.perform(get("/api/test/user"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().string(HttpHeaders.WWW_AUTHENTICATE, "Bearer"))
+                .andExpect(header().doesNotExist(HttpHeaders.SET_COOKIE));
+    }
+
+    @Test
+    @DisplayName("[ApiSecurityFilterChain] should reject an invalid bearer token with 401")
+    void shouldRejectInvalidToken() throws Exception
+    {
+        mockMvc.perform(get("/api/test/user").header(HttpHeaders.AUTHORIZATION, "Bearer invalid-token"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().doesNotExist(HttpHeaders.SET_COOKIE));
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class ApiTestConfiguration
+    {
+        @Bean
+        @Primary
+        JwtDecoder stubJwtDecoder()
+        {
+            return token -> switch (token)
+            {
+                case ADMIN_TOKEN -> createJwt(token, "admin", List.of(CockpitRoles.PLATFORM_ADMIN));
+                case VIEWER_TOKEN -> createJwt(token, "viewer", List.of("viewer"));
+                default -> throw new BadJwtException("Unknown token");
+            };
+        }
+
+        @Bean
+        RouterFunction<ServerResponse> apiTestRoute()
+        {
+            return RouterFunctions.route()
+                    .GET("/api/test/user", request ->
+                    {
+                        var authentication = (AuthenticatedUserToken) request.principal().orElseThrow();
+                        return ServerResponse.ok().body(authentication.getPrincipal().getUsername());
+                    })
+                    .build();
+        }
+
+        private static Jwt createJwt(String token, String username, List<String> roles)
+        {
+            return Jwt.withTokenValue(token)
+                    .header("alg", "RS256")
+                    .issuedAt(Instant.now())
+                    .expiresAt(Instant.now().plusSeconds(60))
+                    .subject(UUID.randomUUID().toString())
+                    .claim("preferred_username", username)
+                    .claim("azp", "rize-cockpit")
+                    .claim("resource_access", Map.of("rize-cockpit", Map.of("roles", roles)))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package rize.os.cockpit.security;
+
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.oauth2.client.oidc.session.OidcSessionInformation;
+import org.springframework.security.oauth2.client.oidc.session.OidcSessionRegistry;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import rize.os.cockpit.TestcontainersConfiguration;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Posts signed logout tokens to the back-channel logout endpoint of the cockpit. The tokens are signed with a local
+ * key, whose JWK set is served under the issuer URI of the client registration.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(TestcontainersConfiguration.class)
+class BackChannelLogoutIT
+{
+    private static final String BACK_CHANNEL_LOGOUT_EVENT = "http://schemas.openid.net/event/backchannel-logout";
+
+    private static final RSAKey signingKey;
+    private static final HttpServer jwkSetServer;
+    private static final String issuer;
+
+    static
+    {
+        try
+        {
+            signingKey = new RSAKeyGenerator(2048).keyID("logout").generate();
+            jwkSetServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        }
+        catch (Exception e)
+        {
+            throw new IllegalStateException("Failed to set up the JWK set of the logout tokens", e);
+        }
+
+        var jwkSet = new JWKSet(signingKey.toPublicJWK()).toString().getBytes(StandardCharsets.UTF_8);
+        jwkSetServer.createContext("/realms/administration/protocol/openid-connect/certs", exchange ->
+        {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, jwkSet.length);
+            try (var body = exchange.getResponseBody())
+            {
+                body.write(jwkSet);
+            }
+        });
+        jwkSetServer.start();
+
+        issuer = "http://localhost:" + jwkSetServer.getAddress().getPort() + "/realms/administration";
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OidcSessionRegistry oidcSessionRegistry;
+
+    @Autowired
+    private SessionRepository<?> sessionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void issuerProperties(DynamicPropertyRegistry registry)
+    {
+        registry.add("rize.cockpit.security.oauth2.issuer-uri", () -> issuer);
+    }
+
+    @AfterAll
+    static void stopJwkSetServer()
+    {
+        jwkSetServer.stop(0);
+    }
+
+    @Test
+    @DisplayName("[BackChannelLogout] should delete the sessions of the sid of a signed logout token")
+    void shouldDeleteSessionsOfSid() throws Exception
+    {
+        var sid = UUID.randomUUID().toString();
+        var sessionId = createSession(sid, "user-1");
+        var otherSessionId = createSession(UUID.randomUUID().toString(), "user-1");
+
+        mockMvc.perform(post("/logout/connect/back-channel/keycloak").param("logout_token", createLogoutToken(sid, "user-1")))
+                .andExpect(status().isOk());
+
+        assertThat(sessionRepository.findById(sessionId)).isNull();
+        assertThat(countOidcSessions(sessionId)).isZero();
+        assertThat(sessionRepository.findById(otherSessionId)).isNotNull();
+        assertThat(countOidcSessions(otherSessionId)).isOne();
+    }
+
+    @Test
+    @DisplayName("[BackChannelLogout] should reject a logout token of another issuer")
+    void shouldRejectLogoutTokenOfOtherIssuer() throws Exception
+    {
+        var sid = UUID.randomUUID().toString();
+        var sessionId = createSession(sid, "user-1");
+        var claims = new JWTClaimsSet.Builder(createClaims(sid, "user-1")).issuer("http://localhost/realms/other").build();
+
+        mockMvc.perform(post("/logout/connect/back-channel/keycloak").param("logout_token", sign(claims)))
+                .andExpect(status().isBadRequest());
+
+        assertThat(sessionRepository.findById(sessionId)).isNotNull();
+        assertThat(countOidcSessions(sessionId)).isOne();
+    }
+
+    private String createSession(String sid, String userId)
+    {
+        var sessionId = createHttpSession(sessionRepository);
+
+        var idToken = OidcIdToken.withTokenValue("id-token")
+                .issuer(issuer)
+                .subject(userId)
+                .claim("sid", sid)
+                .build();
+        oidcSessionRegistry.saveSessionInformation(new OidcSessionInformation(sessionId, Map.of(), new DefaultOidcUser(Set.of(), idToken)));
+
+        return sessionId;
+    }
+
+    private static <S extends Session> String createHttpSession(SessionRepository<S> sessionRepository)
+    {
+        var session = sessionRepository.createSession();
+        sessionRepository.save(session);
+
+        return session.getId();
+    }
+
+    private long countOidcSessions(String sessionId)
+    {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM oidc_session WHERE session_id = ?", Long.class, sessionId);
+    }
+
+    private static String createLogoutToken(String sid, String userId)
+    {
+        return sign(createClaims(sid, userId));
+    }
+
+    private static JWTClaimsSet createClaims(String sid, String userId)
+    {
+        return new JWTClaimsSet.Builder()
+                .issuer(issuer)
+                .audience("rize-cockpit")
+                .subject(userId)
+                .issueTime(new Date())
+                .jwtID(UUID.randomUUID().toString())
+                .claim("sid", sid)
+                .claim("events", Map.of(BACK_CHANNEL_LOGOUT_EVENT, Map.of()))
+                .build();
+    }
+
+    private static String sign(JWTClaimsSet claims)
+    {
+        var header = new JWSHeader.Builder(JWSAlgorithm.RS256)
+                .type(new JOSEObjectType("logout+jwt"))
+                .keyID(signingKey.getKeyID())
+                .build();
+        var jwt = new SignedJWT(header, claims);
+
+        try
+        {
+            jwt.sign(new RSASSASigner(signingKey));
+        }
+        catch (Exception e)
+        {
+            throw new IllegalStateException("Failed to sign the logout token", e);
+        }
+
+        return jwt.serialize();
+    }
+}
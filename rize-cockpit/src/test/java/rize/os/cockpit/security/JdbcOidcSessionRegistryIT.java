@@ -0,0 +1,197 @@
+package rize.os.cockpit.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.oauth2.client.oidc.authentication.logout.OidcLogoutToken;
+import org.springframework.security.oauth2.client.oidc.session.OidcSessionInformation;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import rize.os.cockpit.TestcontainersConfiguration;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Import(TestcontainersConfiguration.class)
+class JdbcOidcSessionRegistryIT
+{
+    private static final String ISSUER = "http://localhost:3000/realms/administration";
+    private static final String OTHER_ISSUER = "http://localhost:3000/realms/organisation";
+
+    @Autowired
+    private JdbcOidcSessionRegistry registry;
+
+    @Autowired
+    private SessionRepository<?> sessionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void containerProperties(DynamicPropertyRegistry registry)
+    {
+        TestcontainersConfiguration.updateContainerProperties(registry);
+    }
+
+    @BeforeEach
+    void setUp()
+    {
+        jdbcTemplate.update("DELETE FROM oidc_session");
+    }
+
+    @Test
+    @DisplayName("[JdbcOidcSessionRegistry] should store the issuer, sid and user ID of a session")
+    void shouldStoreSession()
+    {
+        var sessionId = UUID.randomUUID().toString();
+
+        registry.saveSessionInformation(createSessionInformation(sessionId, ISSUER, "sid-1", "user-1"));
+
+        var row = jdbcTemplate.queryForMap("SELECT issuer, sid, user_id FROM oidc_session WHERE session_id = ?", sessionId);
+        assertThat(row).containsEntry("issuer", ISSUER).containsEntry("sid", "sid-1").containsEntry("user_id", "user-1");
+    }
+
+    @Test
+    @DisplayName("[JdbcOidcSessionRegistry] should overwrite the entry of a session that is saved again")
+    void shouldOverwriteSavedSession()
+    {
+        var sessionId = UUID.randomUUID().toString();
+
+        registry.saveSessionInformation(createSessionInformation(sessionId, ISSUER, "sid-1", "user-1"));
+        registry.saveSessionInformation(createSessionInformation(sessionId, ISSUER, "sid-2", "user-1"));
+
+        assertThat(jdbcTemplate.queryForList("SELECT sid FROM oidc_session", String.class)).containsExactly("sid-2");
+    }
+
+    @Test
+    @DisplayName("[JdbcOidcSessionRegistry] should remove a session by its ID")
+    void shouldRemoveSessionById()
+    {
+        var sessionId = UUID.randomUUID().toString();
+        registry.saveSessionInformation(createSessionInformation(sessionId, ISSUER, "sid-1", "user-1"));
+
+        var removed = registry.removeSessionInformation(sessionId);
+
+        assertThat(removed).isNotNull();
+        assertThat(removed.getSessionId()).isEqualTo(sessionId);
+        assertThat(removed.getPrincipal().getIdToken().getClaimAsString("sid")).isEqualTo("sid-1");
+        assertThat(registry.removeSessionInformation(sessionId)).isNull();
+        assertThat(countSessions()).isZero();
+    }
+
+    @Test
+    @DisplayName("[JdbcOidcSessionRegistry] should remove the sessions of the issuer and sid of a logout token")
+    void shouldRemoveSessionsBySid()
+    {
+        var first = UUID.randomUUID().toString();
+        var second = UUID.randomUUID().toString();
+        var otherSid = UUID.randomUUID().toString();
+        var otherIssuer = UUID.randomUUID().toString();
+        registry.saveSessionInformation(createSessionInformation(first, ISSUER, "sid-1", "user-1"));
+        registry.saveSessionInformation(createSessionInformation(second, ISSUER, "sid-1", "user-1"));
+        registry.saveSessionInformation(createSessionInformation(otherSid, ISSUER, "sid-2", "user-1"));
+        registry.saveSessionInformation(createSessionInformation(otherIssuer, OTHER_ISSUER, "sid-1", "user-1"));
+
+        var removed = registry.removeSessionInformation(createLogoutToken(ISSUER, "sid-1", "user-1"));
+
+        assertThat(removed).extracting(OidcSessionInformation::getSessionId).containsExactlyInAnyOrder(first, second);
+        assertThat(jdbcTemplate.queryForList("SELECT trim(session_id) FROM oidc_session", String.class))
+                .containsExactlyInAnyOrder(otherSid, otherIssuer);
+    }
+
+    @Test
+    @DisplayName("[JdbcOidcSessionRegistry] should remove all sessions of the user of a logout token without a sid")
+    void shouldRemoveSessionsByUserId()
+    {
+        var first = UUID.randomUUID().toString();
+        var second = UUID.randomUUID().toString();
+        var otherUser = UUID.randomUUID().toString();
+        registry.saveSessionInformation(createSessionInformation(first, ISSUER, "sid-1", "user-1"));
+        registry.saveSessionInformation(createSessionInformation(second, ISSUER, "sid-2", "user-1"));
+        registry.saveSessionInformation(createSessionInformation(otherUser, ISSUER, "sid-3", "user-2"));
+
+        var removed = registry.removeSessionInformation(createLogoutToken(ISSUER, null, "user-1"));
+
+        assertThat(removed).extracting(OidcSessionInformation::getSessionId).containsExactlyInAnyOrder(first, second);
+        assertThat(jdbcTemplate.queryForList("SELECT trim(session_id) FROM oidc_session", String.class)).containsExactly(otherUser);
+    }
+
+    @Test
+    @DisplayName("[JdbcOidcSessionRegistry] should remove the expired entries of sessions that no longer exist")
+    void shouldRemoveExpiredEntriesWithoutSession()
+    {
+        var sessionId = createHttpSession(sessionRepository);
+
+        var expired = UUID.randomUUID().toString();
+        var recent = UUID.randomUUID().toString();
+        var expiredAt = System.currentTimeMillis() - 120_000;
+        insertSession(expired, expiredAt);
+        insertSession(sessionId, expiredAt);
+        registry.saveSessionInformation(createSessionInformation(recent, ISSUER, "sid-1", "user-1"));
+
+        registry.removeExpiredSessionInformation();
+
+        assertThat(jdbcTemplate.queryForList("SELECT trim(session_id) FROM oidc_session", String.class))
+                .containsExactlyInAnyOrder(sessionId, recent);
+
+        sessionRepository.deleteById(sessionId);
+    }
+
+    private long countSessions()
+    {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM oidc_session", Long.class);
+    }
+
+    private static <S extends Session> String createHttpSession(SessionRepository<S> sessionRepository)
+    {
+        var session = sessionRepository.createSession();
+        sessionRepository.save(session);
+
+        return session.getId();
+    }
+
+    private void insertSession(String sessionId, long createdAt)
+    {
+        jdbcTemplate.update("INSERT INTO oidc_session (session_id, issuer, sid, user_id, created_at) VALUES (?, ?, ?, ?, ?)",
+                sessionId, ISSUER, "sid-" + sessionId, "user-1", createdAt);
+    }
+
+    private static OidcSessionInformation createSessionInformation(String sessionId, String issuer, String sid, String userId)
+    {
+        var idToken = OidcIdToken.withTokenValue("id-token")
+                .issuer(issuer)
+                .subject(userId)
+                .claim("sid", sid)
+                .build();
+
+        return new OidcSessionInformation(sessionId, Map.of(), new DefaultOidcUser(Set.of(), idToken));
+    }
+
+    private static OidcLogoutToken createLogoutToken(String issuer, String sid, String userId)
+    {
+        var builder = OidcLogoutToken.withTokenValue("logout-token")
+                .issuer(issuer)
+                .subject(userId)
+                .audience(List.of("rize-cockpit"))
+                .issuedAt(Instant.now())
+                .jti(UUID.randomUUID().toString());
+        if (sid != null)
+            builder.sessionId(sid);
+
+        return builder.build();
+    }
+}
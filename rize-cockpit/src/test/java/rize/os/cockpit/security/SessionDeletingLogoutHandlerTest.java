@@ -0,0 +1,127 @@
+package rize.os.cockpit.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.oidc.authentication.logout.OidcLogoutToken;
+import org.springframework.security.oauth2.client.oidc.session.OidcSessionInformation;
+import org.springframework.security.oauth2.client.oidc.session.OidcSessionRegistry;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+import org.springframework.session.SessionRepository;
+import rize.os.security.commons.TokenRevocationList;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class SessionDeletingLogoutHandlerTest
+{
+    private static final String ISSUER = "http://localhost:3000/realms/administration";
+
+    private OidcSessionRegistry oidcSessionRegistry;
+    private SessionRepository<?> sessionRepository;
+    private TokenRevocationList tokenRevocationList;
+
+    @BeforeEach
+    void setUp()
+    {
+        oidcSessionRegistry = mock(OidcSessionRegistry.class);
+        sessionRepository = mock(SessionRepository.class);
+        tokenRevocationList = mock(TokenRevocationList.class);
+    }
+
+    @Test
+    @DisplayName("[SessionDeletingLogoutHandler] should delete all sessions of the logout token")
+    void shouldDeleteAllSessionsOfLogoutToken()
+    {
+        var logoutToken = createLogoutToken("sid-1");
+        when(oidcSessionRegistry.removeSessionInformation(logoutToken))
+                .thenReturn(List.of(createSessionInformation("session-1"), createSessionInformation("session-2")));
+
+        new SessionDeletingLogoutHandler(oidcSessionRegistry, sessionRepository)
+                .logout(new MockHttpServletRequest(), new MockHttpServletResponse(), createAuthentication(logoutToken));
+
+        verify(sessionRepository).deleteById("session-1");
+        verify(sessionRepository).deleteById("session-2");
+    }
+
+    @Test
+    @DisplayName("[SessionDeletingLogoutHandler] should revoke the sid of the logout token")
+    void shouldRevokeSidOfLogoutToken()
+    {
+        var logoutToken = createLogoutToken("sid-1");
+        when(oidcSessionRegistry.removeSessionInformation(logoutToken)).thenReturn(List.of());
+
+        new SessionDeletingLogoutHandler(oidcSessionRegistry, sessionRepository, tokenRevocationList)
+                .logout(new MockHttpServletRequest(), new MockHttpServletResponse(), createAuthentication(logoutToken));
+
+        verify(tokenRevocationList).revokeSessionId("sid-1");
+    }
+
+    @Test
+    @DisplayName("[SessionDeletingLogoutHandler] should not revoke anything for a logout token without a sid")
+    void shouldNotRevokeWithoutSid()
+    {
+        var logoutToken = createLogoutToken(null);
+        when(oidcSessionRegistry.removeSessionInformation(logoutToken)).thenReturn(List.of(createSessionInformation("session-1")));
+
+        new SessionDeletingLogoutHandler(oidcSessionRegistry, sessionRepository, tokenRevocationList)
+                .logout(new MockHttpServletRequest(), new MockHttpServletResponse(), createAuthentication(logoutToken));
+
+        verify(tokenRevocationList, never()).revokeSessionId(anyString());
+        verify(sessionRepository).deleteById("session-1");
+    }
+
+    @Test
+    @DisplayName("[SessionDeletingLogoutHandler] should ignore authentications without a logout token")
+    void shouldIgnoreAuthenticationsWithoutLogoutToken()
+    {
+        var handler = new SessionDeletingLogoutHandler(oidcSessionRegistry, sessionRepository, tokenRevocationList);
+
+        handler.logout(new MockHttpServletRequest(), new MockHttpServletResponse(), null);
+        handler.logout(new MockHttpServletRequest(), new MockHttpServletResponse(), new TestingAuthenticationToken("user", "password"));
+
+        verify(oidcSessionRegistry, never()).removeSessionInformation(any(OidcLogoutToken.class));
+        verifyNoInteractions(sessionRepository, tokenRevocationList);
+    }
+
+    private static OidcLogoutToken createLogoutToken(String sid)
+    {
+        var builder = OidcLogoutToken.withTokenValue("logout-token")
+                .issuer(ISSUER)
+                .subject("user-1")
+                .audience(List.of("rize-cockpit"))
+                .issuedAt(Instant.now())
+                .jti(UUID.randomUUID().toString());
+        if (sid != null)
+            builder.sessionId(sid);
+
+        return builder.build();
+    }
+
+    private static Authentication createAuthentication(OidcLogoutToken logoutToken)
+    {
+        return new TestingAuthenticationToken("user-1", logoutToken);
+    }
+
+    private static OidcSessionInformation createSessionInformation(String sessionId)
+    {
+        var idToken = OidcIdToken.withTokenValue(sessionId).issuer(ISSUER).subject("user-1").build();
+        return new OidcSessionInformation(sessionId, Map.of(), new DefaultOidcUser(Set.of(), idToken));
+    }
+}
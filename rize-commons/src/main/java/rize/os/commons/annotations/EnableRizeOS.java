@@ -1,13 +1,14 @@
 package rize.os.commons.annotations;
 
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
 
 import java.lang.annotation.*;
 
 @Inherited
 @Target(ElementType.TYPE)
 @Retention(RetentionPolicy.RUNTIME)
-@ComponentScan("rize.os")
+@ComponentScan(value = "rize.os", excludeFilters = @ComponentScan.Filter(type = FilterType.REGEX, pattern = "rize\\.os\\..*AutoConfiguration(\\$.*)?"))
 public @interface EnableRizeOS
 {
 }
@@ -7,6 +7,8 @@ import org.springframework.security.oauth2.core.oidc.OidcIdToken;
 import org.springframework.security.oauth2.core.oidc.OidcUserInfo;
 import org.springframework.security.oauth2.core.oidc.user.OidcUser;
 
+import java.io.Serial;
+import java.io.Serializable;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.Map;
@@ -18,11 +20,19 @@ import java.util.Set;
  * This class implements the {@link OidcUser} interface, providing a standardized
  * way to access user details obtained from an OIDC-compliant identity provider.
  * It holds user information (claims), the ID token, and the user's authorities.
+ * <p>
+ * The roles the user has been granted within organisations are kept apart from the authorities, in an index per
+ * organisation, see {@link OrganisationRoles}.
+ * <p>
+ * Users are serialized in the compact form of the {@link AuthenticatedUserCodec}.
  *
  * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
  */
-public class AuthenticatedUser implements OidcUser
+public class AuthenticatedUser implements OidcUser, Serializable
 {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * Contains the user information claims, such as name, email, etc.
      */
@@ -35,6 +45,10 @@ public class AuthenticatedUser implements OidcUser
      * The set of authorities (e.g., roles) granted to the user.
      */
     private final Set<GrantedAuthority> authorities;
+    /**
+     * The roles granted to the user per organisation.
+     */
+    private final OrganisationRoles organisationRoles;
     /**
      * The session ID associated with the user's session.
      */
@@ -49,10 +63,45 @@ public class AuthenticatedUser implements OidcUser
      * @param sessionId   The session ID for the user.
      */
     public AuthenticatedUser(@NonNull OidcUserInfo userInfo, @NonNull OidcIdToken idToken, Set<GrantedAuthority> authorities, String sessionId)
+    {
+        this(userInfo, idToken, authorities, null, sessionId);
+    }
+
+    /**
+     * Constructs a new {@code AuthenticatedUser} with roles in organisations.
+     *
+     * @param userInfo          The OIDC user info. Must not be {@code null}.
+     * @param idToken           The OIDC ID token. Must not be {@code null}.
+     * @param authorities       The authorities granted to the user. If {@code null}, an empty set is used.
+     * @param organisationRoles The roles granted to the user per organisation. If {@code null}, no roles are used.
+     * @param sessionId         The session ID for the user.
+     */
+    public AuthenticatedUser(@NonNull OidcUserInfo userInfo,
+                             @NonNull OidcIdToken idToken,
+                             Set<GrantedAuthority> authorities,
+                             OrganisationRoles organisationRoles,
+                             String sessionId)
     {
         this.userInfo = userInfo;
         this.idToken = idToken;
         this.authorities = Objects.requireNonNullElse(authorities, Set.of());
+        this.organisationRoles = Objects.requireNonNullElse(organisationRoles, OrganisationRoles.empty());
+        this.sessionId = sessionId;
+    }
+
+    /**
+     * Constructs a new {@code AuthenticatedUser} whose user info, ID token and organisation roles are provided by a
+     * subclass, which must override {@link #getUserInfo()}, {@link #getIdToken()} and {@link #getOrganisationRoles()}.
+     *
+     * @param authorities The authorities granted to the user. If {@code null}, an empty set is used.
+     * @param sessionId   The session ID for the user.
+     */
+    protected AuthenticatedUser(Set<GrantedAuthority> authorities, String sessionId)
+    {
+        this.userInfo = null;
+        this.idToken = null;
+        this.authorities = Objects.requireNonNullElse(authorities, Set.of());
+        this.organisationRoles = OrganisationRoles.empty();
         this.sessionId = sessionId;
     }
 
@@ -63,7 +112,7 @@ public class AuthenticatedUser implements OidcUser
      */
     public String getUserId()
     {
-        return userInfo.getSubject();
+        return getUserInfo().getSubject();
     }
 
     /**
@@ -73,7 +122,7 @@ public class AuthenticatedUser implements OidcUser
      */
     public String getUsername()
     {
-        return userInfo.getPreferredUsername();
+        return getUserInfo().getPreferredUsername();
     }
 
     /**
@@ -83,7 +132,7 @@ public class AuthenticatedUser implements OidcUser
      */
     public String getEmail()
     {
-        return userInfo.getEmail();
+        return getUserInfo().getEmail();
     }
 
     /**
@@ -93,7 +142,7 @@ public class AuthenticatedUser implements OidcUser
      */
     public boolean isEmailVerified()
     {
-        return Objects.requireNonNullElse(userInfo.getEmailVerified(), false);
+        return Objects.requireNonNullElse(getUserInfo().getEmailVerified(), false);
     }
 
     /**
@@ -103,7 +152,7 @@ public class AuthenticatedUser implements OidcUser
      */
     public String getFirstName()
     {
-        return userInfo.getGivenName();
+        return getUserInfo().getGivenName();
     }
 
     /**
@@ -113,7 +162,7 @@ public class AuthenticatedUser implements OidcUser
      */
     public String getMiddleName()
     {
-        return userInfo.getMiddleName();
+        return getUserInfo().getMiddleName();
     }
 
     /**
@@ -123,7 +172,7 @@ public class AuthenticatedUser implements OidcUser
      */
     public String getLastName()
     {
-        return userInfo.getFamilyName();
+        return getUserInfo().getFamilyName();
     }
 
     /**
@@ -133,7 +182,7 @@ public class AuthenticatedUser implements OidcUser
      */
     public String getFullName()
     {
-        return userInfo.getFullName();
+        return getUserInfo().getFullName();
     }
 
     /**
@@ -143,7 +192,7 @@ public class AuthenticatedUser implements OidcUser
      */
     public String getProfile()
     {
-        return userInfo.getProfile();
+        return getUserInfo().getProfile();
     }
 
     /**
@@ -153,7 +202,7 @@ public class AuthenticatedUser implements OidcUser
      */
     public String getPicture()
     {
-        return userInfo.getPicture();
+        return getUserInfo().getPicture();
     }
 
     /**
@@ -163,7 +212,7 @@ public class AuthenticatedUser implements OidcUser
      */
     public String getWebsite()
     {
-        return userInfo.getWebsite();
+        return getUserInfo().getWebsite();
     }
 
     /**
@@ -173,7 +222,7 @@ public class AuthenticatedUser implements OidcUser
      */
     public String getGender()
     {
-        return userInfo.getGender();
+        return getUserInfo().getGender();
     }
 
     /**
@@ -183,7 +232,7 @@ public class AuthenticatedUser implements OidcUser
      */
     public String getBirthdate()
     {
-        return userInfo.getBirthdate();
+        return getUserInfo().getBirthdate();
     }
 
     /**
@@ -193,7 +242,7 @@ public class AuthenticatedUser implements OidcUser
      */
     public String getZoneInfo()
     {
-        return userInfo.getZoneInfo();
+        return getUserInfo().getZoneInfo();
     }
 
     /**
@@ -203,7 +252,7 @@ public class AuthenticatedUser implements OidcUser
      */
     public String getLocale()
     {
-        return userInfo.getLocale();
+        return getUserInfo().getLocale();
     }
 
     /**
@@ -213,7 +262,7 @@ public class AuthenticatedUser implements OidcUser
      */
     public String getPhoneNumber()
     {
-        return userInfo.getPhoneNumber();
+        return getUserInfo().getPhoneNumber();
     }
 
     /**
@@ -223,7 +272,7 @@ public class AuthenticatedUser implements OidcUser
      */
     public Boolean isPhoneNumberVerified()
     {
-        return Objects.requireNonNullElse(userInfo.getPhoneNumberVerified(), false);
+        return Objects.requireNonNullElse(getUserInfo().getPhoneNumberVerified(), false);
     }
 
     /**
@@ -233,7 +282,7 @@ public class AuthenticatedUser implements OidcUser
      */
     public AddressStandardClaim getAddress()
     {
-        return userInfo.getAddress();
+        return getUserInfo().getAddress();
     }
 
     /**
@@ -243,7 +292,7 @@ public class AuthenticatedUser implements OidcUser
      */
     public Instant getUpdatedAt()
     {
-        return userInfo.getUpdatedAt();
+        return getUserInfo().getUpdatedAt();
     }
 
     /**
@@ -263,7 +312,7 @@ public class AuthenticatedUser implements OidcUser
      */
     public String getTokenValue()
     {
-        return idToken.getTokenValue();
+        return getIdToken().getTokenValue();
     }
 
     /**
@@ -274,7 +323,7 @@ public class AuthenticatedUser implements OidcUser
     @Override
     public Map<String, Object> getClaims()
     {
-        return idToken.getClaims();
+        return getIdToken().getClaims();
     }
 
     /**
@@ -321,6 +370,63 @@ public class AuthenticatedUser implements OidcUser
         return authorities;
     }
 
+    /**
+     * Checks if the user has been granted the given role.
+     * <p>
+     * If the authorities of the user are a {@link RoleAuthoritySet}, this is a constant-time lookup.
+     *
+     * @param role The name of the role without the {@code ROLE_} prefix.
+     * @return {@code true} if the user has the role, {@code false} otherwise.
+     */
+    public boolean hasRole(String role)
+    {
+        if (authorities instanceof RoleAuthoritySet roleAuthorities)
+            return roleAuthorities.hasRole(role);
+
+        return hasAuthority(RoleAuthority.ROLE_PREFIX + role);
+    }
+
+    boolean hasRole(RoleAuthority role)
+    {
+        if (authorities instanceof RoleAuthoritySet roleAuthorities)
+            return roleAuthorities.contains(role);
+
+        return hasAuthority(role.getAuthority());
+    }
+
+    /**
+     * Returns the roles granted to the user per organisation.
+     *
+     * @return The organisation roles. Never {@code null}.
+     */
+    public OrganisationRoles getOrganisationRoles()
+    {
+        return organisationRoles;
+    }
+
+    /**
+     * Checks if the user has been granted the given role in the given organisation.
+     * <p>
+     * This is a hash lookup of the organisation, independent of the number of organisations the user is a member of.
+     *
+     * @param organisationId The ID of the organisation.
+     * @param role           The name of the role without the {@code ROLE_} prefix.
+     * @return {@code true} if the user has the role in the organisation, {@code false} otherwise.
+     */
+    public boolean hasOrganisationRole(String organisationId, String role)
+    {
+        return getOrganisationRoles().hasRole(organisationId, role);
+    }
+
+    private boolean hasAuthority(String authority)
+    {
+        for (var grantedAuthority : authorities)
+            if (authority.equals(grantedAuthority.getAuthority()))
+                return true;
+
+        return false;
+    }
+
     /**
      * Returns the name of the user, which is their preferred username.
      *
@@ -332,6 +438,12 @@ public class AuthenticatedUser implements OidcUser
         return getUsername();
     }
 
+    @Serial
+    protected Object writeReplace()
+    {
+        return new AuthenticatedUserCodec.SerializedForm(AuthenticatedUserCodec.getDefault().encode(this));
+    }
+
     /**
      * Returns a string representation of the user object.
      *
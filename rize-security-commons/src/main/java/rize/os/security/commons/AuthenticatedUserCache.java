@@ -0,0 +1,193 @@
+package rize.os.security.commons;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * A bounded cache of {@link AuthenticatedUser}s that have been converted from a {@link Jwt}.
+ * <p>
+ * Clients usually reuse the same bearer token for many requests until it expires. This cache keeps the converted
+ * user of a token until the token's {@code exp}, so the claims of the same token are mapped only once. Entries are
+ * keyed by the token's {@code jti} or, if the token has no ID, by the token value itself. On every hit the token value
+ * of the cached user is compared with the given token, so two different tokens never share an entry.
+ * <p>
+ * The cache is bounded by a maximum size and evicts the least recently used entries once the size is exceeded.
+ * All entries are invalidated as soon as the cache is used with a different {@link AuthenticatedUserClaimsPlan}
+ * than before, as users converted with the previous claims configuration are no longer valid. Every entry also
+ * remembers the plan it has been converted with and is only returned for that plan, so a conversion that was still
+ * running with the previous plan while the cache was invalidated is never returned afterward.
+ * <p>
+ * The cache records hit and miss statistics, which are published as {@code cache.*} metrics with the tag
+ * {@code cache=authenticated-users} when a {@link MeterRegistry} is available.
+ *
+ * @see AuthenticatedUserCacheConfiguration
+ * @see JwtAuthenticatedUserTokenConverter
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public class AuthenticatedUserCache implements MeterBinder
+{
+    private static final Logger log = LoggerFactory.getLogger(AuthenticatedUserCache.class);
+    private static final String CACHE_NAME = "authenticated-users";
+
+    private final Cache<String, CachedUser> cache;
+    private final Ticker ticker;
+    private final long originMillis;
+    private final long originNanos;
+    private volatile AuthenticatedUserClaimsPlan claimsPlan;
+
+    /**
+     * Creates a new cache with the given maximum size.
+     *
+     * @param maximumSize The maximum number of cached users.
+     */
+    public AuthenticatedUserCache(long maximumSize)
+    {
+        this(maximumSize, Ticker.systemTicker());
+    }
+
+    AuthenticatedUserCache(long maximumSize, Ticker ticker)
+    {
+        this.ticker = ticker;
+        this.originMillis = System.currentTimeMillis();
+        this.originNanos = ticker.read();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new TokenExpiry())
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached user for the given token or converts and caches it, if it is not cached yet.
+     * <p>
+     * Tokens without an expiration time or with an expiration time in the past are converted but never cached.
+     *
+     * @param jwt        The token to get the user for.
+     * @param claimsPlan The claims plan the given converter uses.
+     * @param converter  The converter that is used to convert the token on a cache miss.
+     * @return The converted user. Never {@code null}.
+     */
+    @NonNull
+    public AuthenticatedUser get(@NonNull Jwt jwt, @NonNull AuthenticatedUserClaimsPlan claimsPlan, @NonNull Function<Jwt, AuthenticatedUser> converter)
+    {
+        if (this.claimsPlan != claimsPlan)
+            switchClaimsPlan(claimsPlan);
+
+        var expiresAt = jwt.getExpiresAt();
+        if (expiresAt == null || expiresAt.toEpochMilli() <= currentTimeMillis(ticker.read()))
+            return converter.apply(jwt);
+
+        var key = keyOf(jwt);
+        var cachedUser = cache.getIfPresent(key);
+        if (cachedUser != null && cachedUser.claimsPlan == claimsPlan && cachedUser.tokenValue.equals(jwt.getTokenValue()))
+            return cachedUser.user;
+
+        var user = converter.apply(jwt);
+        cache.put(key, new CachedUser(jwt.getTokenValue(), expiresAt, claimsPlan, user));
+
+        return user;
+    }
+
+    /**
+     * Removes all users from the cache.
+     */
+    public void invalidateAll()
+    {
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return The approximate number of cached users.
+     */
+    public long size()
+    {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * @return The number of lookups that returned a cached user.
+     */
+    public long getHitCount()
+    {
+        return cache.stats().hitCount();
+    }
+
+    /**
+     * @return The number of lookups that had to convert the token.
+     */
+    public long getMissCount()
+    {
+        return cache.stats().missCount();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry)
+    {
+        new CaffeineCacheMetrics<>(cache, CACHE_NAME, Tags.empty()).bindTo(registry);
+    }
+
+    private synchronized void switchClaimsPlan(AuthenticatedUserClaimsPlan claimsPlan)
+    {
+        if (this.claimsPlan == claimsPlan)
+            return;
+
+        if (this.claimsPlan != null)
+            log.info("Claims configuration has changed, invalidating all cached users");
+
+        this.claimsPlan = claimsPlan;
+        cache.invalidateAll();
+    }
+
+    /**
+     * Converts a reading of the ticker to wall-clock time, so that expiration times of tokens are compared with the
+     * same clock the cache expires its entries with.
+     */
+    private long currentTimeMillis(long tickerNanos)
+    {
+        return originMillis + TimeUnit.NANOSECONDS.toMillis(tickerNanos - originNanos);
+    }
+
+    private static String keyOf(Jwt jwt)
+    {
+        var id = jwt.getId();
+        return id != null ? id : jwt.getTokenValue();
+    }
+
+    private record CachedUser(String tokenValue, Instant expiresAt, AuthenticatedUserClaimsPlan claimsPlan, AuthenticatedUser user) {}
+
+    private final class TokenExpiry implements Expiry<String, CachedUser>
+    {
+        @Override
+        public long expireAfterCreate(String key, CachedUser value, long currentTime)
+        {
+            return Math.max(0, TimeUnit.MILLISECONDS.toNanos(value.expiresAt.toEpochMilli() - currentTimeMillis(currentTime)));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedUser value, long currentTime, long currentDuration)
+        {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedUser value, long currentTime, long currentDuration)
+        {
+            return currentDuration;
+        }
+    }
+}
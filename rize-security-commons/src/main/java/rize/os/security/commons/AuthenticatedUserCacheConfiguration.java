@@ -0,0 +1,51 @@
+package rize.os.security.commons;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.lang.Nullable;
+
+import java.util.Objects;
+
+/**
+ * This class is used to configure the {@link AuthenticatedUserCache}.
+ * <p>
+ * The properties of this class can be set in the application.yml or application.properties file.
+ * The prefix for the properties is {@code rize.security.jwt.authenticated-user-cache}.
+ * <p>
+ * The cache is disabled by default.
+ *
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+@ConfigurationProperties(prefix = "rize.security.jwt.authenticated-user-cache")
+public class AuthenticatedUserCacheConfiguration
+{
+    private final boolean enabled;
+    private final long maximumSize;
+
+    /**
+     * Creates a new instance of the {@link AuthenticatedUserCacheConfiguration}.
+     *
+     * @param enabled     Whether converted users are cached. Defaults to {@code false}.
+     * @param maximumSize The maximum number of cached users. Defaults to {@code 10000}.
+     */
+    public AuthenticatedUserCacheConfiguration(@Nullable Boolean enabled, @Nullable Long maximumSize)
+    {
+        this.enabled = Objects.requireNonNullElse(enabled, false);
+        this.maximumSize = Objects.requireNonNullElse(maximumSize, 10_000L);
+    }
+
+    /**
+     * @return {@code true} if converted users are cached, {@code false} otherwise.
+     */
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * @return The maximum number of cached users.
+     */
+    public long getMaximumSize()
+    {
+        return maximumSize;
+    }
+}
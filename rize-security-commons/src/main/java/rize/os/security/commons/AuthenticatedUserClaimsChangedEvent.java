@@ -0,0 +1,50 @@
+package rize.os.security.commons;
+
+import org.springframework.context.ApplicationEvent;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+/**
+ * Signals that the claims configuration of the {@link JwtAuthenticatedUserConverter} has changed and must be reloaded.
+ * <p>
+ * The event either carries the new configuration, e.g. when it has been loaded from a database, or no configuration,
+ * in which case it is bound again from the properties of the current environment.
+ *
+ * @see AuthenticatedUserClaimsReloader
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public class AuthenticatedUserClaimsChangedEvent extends ApplicationEvent
+{
+    private final transient AuthenticatedUserClaimsConfiguration configuration;
+
+    /**
+     * Creates an event that reloads the claims configuration from the environment.
+     *
+     * @param source The object on which the event initially occurred.
+     */
+    public AuthenticatedUserClaimsChangedEvent(@NonNull Object source)
+    {
+        this(source, null);
+    }
+
+    /**
+     * Creates an event that replaces the claims configuration with the given one.
+     *
+     * @param source        The object on which the event initially occurred.
+     * @param configuration The new claims configuration. If {@code null}, it is bound from the environment.
+     */
+    public AuthenticatedUserClaimsChangedEvent(@NonNull Object source, @Nullable AuthenticatedUserClaimsConfiguration configuration)
+    {
+        super(source);
+        this.configuration = configuration;
+    }
+
+    /**
+     * @return The new claims configuration or {@code null} if it has to be bound from the environment.
+     */
+    @Nullable
+    public AuthenticatedUserClaimsConfiguration getConfiguration()
+    {
+        return configuration;
+    }
+}
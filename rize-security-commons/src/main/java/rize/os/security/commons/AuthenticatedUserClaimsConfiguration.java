@@ -13,13 +13,20 @@ import java.util.Objects;
  * The prefix for the properties is {@code rize.security.jwt.authenticated-user-claims}.
  * <p>
  * If a property is not set, a default value is used. The default values are the standard claim names from OpenID Connect.
+ * <p>
+ * The configuration can be replaced at runtime, see {@link AuthenticatedUserClaimsReloader}.
  *
  * @see StandardClaimNames
  * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
  */
-@ConfigurationProperties(prefix = "rize.security.jwt.authenticated-user-claims")
+@ConfigurationProperties(prefix = AuthenticatedUserClaimsConfiguration.PREFIX)
 public class AuthenticatedUserClaimsConfiguration
 {
+    /**
+     * The prefix of the properties of this configuration.
+     */
+    public static final String PREFIX = "rize.security.jwt.authenticated-user-claims";
+
     private final String userId;
     private final String username;
     private final String email;
@@ -42,6 +49,7 @@ public class AuthenticatedUserClaimsConfiguration
     private final String sessionId;
     private final String clientRoles;
     private final String clientId;
+    private final String organisationRoles;
 
     /**
      * Creates a new instance of the {@link AuthenticatedUserClaimsConfiguration}.
@@ -68,6 +76,7 @@ public class AuthenticatedUserClaimsConfiguration
      * @param sessionId           The name of the claim that contains the session ID. Defaults to {@code sid}.
      * @param clientId            The name of the claim that contains the client ID. Defaults to {@code azp}.
      * @param clientRoles         The name of the claim that contains the client roles. Defaults to {@code resource_access.${clientId}.roles}.
+     * @param organisationRoles   The name of the claim that contains the roles of the user per organisation. Defaults to {@code organisations.${organisationId}.roles}.
      */
     public AuthenticatedUserClaimsConfiguration(@Nullable String userId,
                                                 @Nullable String username,
@@ -90,7 +99,8 @@ public class AuthenticatedUserClaimsConfiguration
                                                 @Nullable String updatedAt,
                                                 @Nullable String sessionId,
                                                 @Nullable String clientId,
-                                                @Nullable String clientRoles)
+                                                @Nullable String clientRoles,
+                                                @Nullable String organisationRoles)
     {
         this.userId = Objects.requireNonNullElse(userId, StandardClaimNames.SUB);
         this.username = Objects.requireNonNullElse(username, StandardClaimNames.PREFERRED_USERNAME);
@@ -114,6 +124,7 @@ public class AuthenticatedUserClaimsConfiguration
         this.sessionId = Objects.requireNonNullElse(sessionId, "sid");
         this.clientId = Objects.requireNonNullElse(clientId, "azp");
         this.clientRoles = Objects.requireNonNullElse(clientRoles, "resource_access.${clientId}.roles");
+        this.organisationRoles = Objects.requireNonNullElse(organisationRoles, "organisations.${organisationId}.roles");
     }
 
     /**
@@ -292,11 +303,64 @@ public class AuthenticatedUserClaimsConfiguration
         return clientRoles;
     }
 
+    /**
+     * The claim is expected to contain one entry per organisation, keyed by the organisation ID, e.g.
+     * {@code {"organisations": {"acme": {"roles": ["admin"]}}}}. The variable {@code ${organisationId}} marks the
+     * segment of the organisation ID.
+     *
+     * @return The name of the claim that contains the roles of the user per organisation.
+     */
+    public String getOrganisationRoles()
+    {
+        return organisationRoles;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+            return true;
+        if (!(o instanceof AuthenticatedUserClaimsConfiguration other))
+            return false;
+
+        return userId.equals(other.userId)
+                && username.equals(other.username)
+                && email.equals(other.email)
+                && emailVerified.equals(other.emailVerified)
+                && firstName.equals(other.firstName)
+                && middleName.equals(other.middleName)
+                && lastName.equals(other.lastName)
+                && fullName.equals(other.fullName)
+                && profile.equals(other.profile)
+                && picture.equals(other.picture)
+                && website.equals(other.website)
+                && gender.equals(other.gender)
+                && birthdate.equals(other.birthdate)
+                && zoneInfo.equals(other.zoneInfo)
+                && locale.equals(other.locale)
+                && phoneNumber.equals(other.phoneNumber)
+                && phoneNumberVerified.equals(other.phoneNumberVerified)
+                && address.equals(other.address)
+                && updatedAt.equals(other.updatedAt)
+                && sessionId.equals(other.sessionId)
+                && clientId.equals(other.clientId)
+                && clientRoles.equals(other.clientRoles)
+                && organisationRoles.equals(other.organisationRoles);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(userId, username, email, emailVerified, firstName, middleName, lastName, fullName,
+                profile, picture, website, gender, birthdate, zoneInfo, locale, phoneNumber, phoneNumberVerified,
+                address, updatedAt, sessionId, clientId, clientRoles, organisationRoles);
+    }
+
     public static AuthenticatedUserClaimsConfiguration createDefault()
     {
         return new AuthenticatedUserClaimsConfiguration(
                 null, null, null, null, null, null, null, null,
                 null, null, null, null, null, null, null, null,
-                null, null, null, null, null, null);
+                null, null, null, null, null, null, null);
     }
 }
@@ -0,0 +1,286 @@
+package rize.os.security.commons;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.security.oauth2.core.oidc.StandardClaimNames;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The compiled form of an {@link AuthenticatedUserClaimsConfiguration}.
+ * <p>
+ * All claim names of the configuration are compiled into {@link ClaimPath}s once, together with the type each claim
+ * is expected to have. Extracting the claims of a token is then a matter of walking the pre-split paths, without any
+ * regex or string work on the request path. The claim values are coerced into their expected type by
+ * {@link ClaimCoercion}.
+ * <p>
+ * Instances of this class are immutable and can safely be shared between threads.
+ *
+ * @see AuthenticatedUserClaimsConfiguration
+ * @see JwtAuthenticatedUserConverter
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public final class AuthenticatedUserClaimsPlan
+{
+    private static final String CLIENT_ID_VARIABLE = "clientId";
+    private static final String ORGANISATION_ID_VARIABLE = "organisationId";
+
+    private final AuthenticatedUserClaimsConfiguration configuration;
+    private final AuthenticatedUserMetrics metrics;
+    private final UserInfoClaim[] userInfoClaims;
+    private final ClaimPath userId;
+    private final ClaimPath sessionId;
+    private final ClaimPath clientId;
+    private final ClaimPath clientRoles;
+    private final ClaimPath organisationRoles;
+
+    private AuthenticatedUserClaimsPlan(AuthenticatedUserClaimsConfiguration configuration,
+                                        AuthenticatedUserMetrics metrics,
+                                        UserInfoClaim[] userInfoClaims,
+                                        ClaimPath userId,
+                                        ClaimPath sessionId,
+                                        ClaimPath clientId,
+                                        ClaimPath clientRoles,
+                                        ClaimPath organisationRoles)
+    {
+        this.configuration = configuration;
+        this.metrics = metrics;
+        this.userInfoClaims = userInfoClaims;
+        this.userId = userId;
+        this.sessionId = sessionId;
+        this.clientId = clientId;
+        this.clientRoles = clientRoles;
+        this.organisationRoles = organisationRoles;
+    }
+
+    /**
+     * Compiles the given claims configuration.
+     *
+     * @param configuration The claims configuration to compile. Must not be {@code null}.
+     * @return The compiled {@link AuthenticatedUserClaimsPlan}.
+     * @throws IllegalArgumentException if one of the configured claim names is not a valid {@link ClaimPath}.
+     */
+    public static AuthenticatedUserClaimsPlan compile(@NonNull AuthenticatedUserClaimsConfiguration configuration)
+    {
+        return compile(configuration, AuthenticatedUserMetrics.NOOP);
+    }
+
+    /**
+     * Compiles the given claims configuration.
+     *
+     * @param configuration The claims configuration to compile. Must not be {@code null}.
+     * @param metrics       The metrics that claims, which cannot be converted into their expected type, are recorded in.
+     * @return The compiled {@link AuthenticatedUserClaimsPlan}.
+     * @throws IllegalArgumentException if one of the configured claim names is not a valid {@link ClaimPath}.
+     */
+    public static AuthenticatedUserClaimsPlan compile(@NonNull AuthenticatedUserClaimsConfiguration configuration,
+                                                      @NonNull AuthenticatedUserMetrics metrics)
+    {
+        var userId = compileStatic(configuration.getUserId());
+        var userInfoClaims = List.of(
+                new UserInfoClaim(StandardClaimNames.SUB, userId, ClaimType.STRING),
+                new UserInfoClaim(StandardClaimNames.PREFERRED_USERNAME, compileStatic(configuration.getUsername()), ClaimType.STRING),
+                new UserInfoClaim(StandardClaimNames.EMAIL, compileStatic(configuration.getEmail()), ClaimType.STRING),
+                new UserInfoClaim(StandardClaimNames.EMAIL_VERIFIED, compileStatic(configuration.getEmailVerified()), ClaimType.BOOLEAN),
+                new UserInfoClaim(StandardClaimNames.GIVEN_NAME, compileStatic(configuration.getFirstName()), ClaimType.STRING),
+                new UserInfoClaim(StandardClaimNames.MIDDLE_NAME, compileStatic(configuration.getMiddleName()), ClaimType.STRING),
+                new UserInfoClaim(StandardClaimNames.FAMILY_NAME, compileStatic(configuration.getLastName()), ClaimType.STRING),
+                new UserInfoClaim(StandardClaimNames.NAME, compileStatic(configuration.getFullName()), ClaimType.STRING),
+                new UserInfoClaim(StandardClaimNames.PROFILE, compileStatic(configuration.getProfile()), ClaimType.STRING),
+                new UserInfoClaim(StandardClaimNames.PICTURE, compileStatic(configuration.getPicture()), ClaimType.STRING),
+                new UserInfoClaim(StandardClaimNames.WEBSITE, compileStatic(configuration.getWebsite()), ClaimType.STRING),
+                new UserInfoClaim(StandardClaimNames.GENDER, compileStatic(configuration.getGender()), ClaimType.STRING),
+                new UserInfoClaim(StandardClaimNames.BIRTHDATE, compileStatic(configuration.getBirthdate()), ClaimType.STRING),
+                new UserInfoClaim(StandardClaimNames.ZONEINFO, compileStatic(configuration.getZoneInfo()), ClaimType.STRING),
+                new UserInfoClaim(StandardClaimNames.LOCALE, compileStatic(configuration.getLocale()), ClaimType.STRING),
+                new UserInfoClaim(StandardClaimNames.PHONE_NUMBER, compileStatic(configuration.getPhoneNumber()), ClaimType.STRING),
+                new UserInfoClaim(StandardClaimNames.PHONE_NUMBER_VERIFIED, compileStatic(configuration.getPhoneNumberVerified()), ClaimType.BOOLEAN),
+                new UserInfoClaim(StandardClaimNames.ADDRESS, compileStatic(configuration.getAddress()), ClaimType.MAP),
+                new UserInfoClaim(StandardClaimNames.UPDATED_AT, compileStatic(configuration.getUpdatedAt()), ClaimType.INSTANT));
+
+        var clientRoles = ClaimPath.compile(configuration.getClientRoles());
+        if (clientRoles.hasVariable() && !CLIENT_ID_VARIABLE.equals(clientRoles.getVariableName()))
+            throw new IllegalArgumentException("Claim path '" + clientRoles.getPath() + "' contains unknown variable '" + clientRoles.getVariableName() + "'");
+
+        var organisationRoles = ClaimPath.compile(configuration.getOrganisationRoles());
+        if (!ORGANISATION_ID_VARIABLE.equals(organisationRoles.getVariableName()))
+            throw new IllegalArgumentException("Claim path '" + organisationRoles.getPath() + "' must contain the variable '" + ORGANISATION_ID_VARIABLE + "'");
+
+        return new AuthenticatedUserClaimsPlan(
+                configuration,
+                metrics,
+                userInfoClaims.toArray(UserInfoClaim[]::new),
+                userId,
+                compileStatic(configuration.getSessionId()),
+                compileStatic(configuration.getClientId()),
+                clientRoles,
+                organisationRoles);
+    }
+
+    private static ClaimPath compileStatic(String claimName)
+    {
+        var path = ClaimPath.compile(claimName);
+        if (path.hasVariable())
+            throw new IllegalArgumentException("Claim path '" + claimName + "' must not contain a variable");
+
+        return path;
+    }
+
+    /**
+     * @return The configuration this plan has been compiled from.
+     */
+    public AuthenticatedUserClaimsConfiguration getConfiguration()
+    {
+        return configuration;
+    }
+
+    /**
+     * Extracts the OIDC user info claims, keyed by their standard claim name.
+     *
+     * @param claims The claims of the token.
+     * @return A new, mutable map with all user info claims that are present and of the expected type.
+     */
+    Map<String, Object> extractUserInfoClaims(Map<String, Object> claims)
+    {
+        Map<String, Object> userInfoClaims = new HashMap<>(32);
+        for (var userInfoClaim : this.userInfoClaims)
+        {
+            var value = extract(userInfoClaim.path, userInfoClaim.type, claims);
+            if (value != null)
+                userInfoClaims.put(userInfoClaim.name, value);
+        }
+
+        return userInfoClaims;
+    }
+
+    /**
+     * @param claims The claims of the token.
+     * @return The user ID or {@code null} if it is not present.
+     */
+    @Nullable
+    String extractUserId(Map<String, Object> claims)
+    {
+        return (String) extract(userId, ClaimType.STRING, claims);
+    }
+
+    /**
+     * @param claims The claims of the token.
+     * @return The session ID or {@code null} if it is not present.
+     */
+    @Nullable
+    String extractSessionId(Map<String, Object> claims)
+    {
+        return (String) extract(sessionId, ClaimType.STRING, claims);
+    }
+
+    /**
+     * @param claims The claims of the token.
+     * @return The client roles, never {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    Collection<String> extractClientRoles(Map<String, Object> claims)
+    {
+        var clientIdValue = (String) extract(clientId, ClaimType.STRING, claims);
+        var roles = (Collection<String>) coerce(clientRoles, ClaimType.STRING_COLLECTION, clientRoles.resolve(claims, clientIdValue));
+
+        return roles != null ? roles : List.of();
+    }
+
+    /**
+     * Extracts the roles of the user in all organisations they are a member of.
+     *
+     * @param claims   The claims of the token.
+     * @param registry The registry the roles are resolved with.
+     * @return The organisation roles, never {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    OrganisationRoles extractOrganisationRoles(Map<String, Object> claims, RoleAuthorityRegistry registry)
+    {
+        Map<String, RoleAuthoritySet> rolesByOrganisation = new HashMap<>();
+        organisationRoles.resolveEach(claims, (organisationId, value) ->
+        {
+            var roles = (Collection<String>) coerce(organisationRoles, ClaimType.STRING_COLLECTION, value);
+            if (roles != null)
+                rolesByOrganisation.put(organisationId, registry.authoritiesOf(roles));
+        });
+
+        return rolesByOrganisation.isEmpty() ? OrganisationRoles.empty() : new OrganisationRoles(rolesByOrganisation);
+    }
+
+    private Object extract(ClaimPath path, ClaimType type, Map<String, Object> claims)
+    {
+        return coerce(path, type, path.resolve(claims));
+    }
+
+    private Object coerce(ClaimPath path, ClaimType type, Object value)
+    {
+        var coercedValue = type.coerce(path, value);
+        if (coercedValue == null && value != null)
+            metrics.recordClaimConversionFailure(path.getPath());
+
+        return coercedValue;
+    }
+
+    private static final class UserInfoClaim
+    {
+        private final String name;
+        private final ClaimPath path;
+        private final ClaimType type;
+
+        private UserInfoClaim(String name, ClaimPath path, ClaimType type)
+        {
+            this.name = name;
+            this.path = path;
+            this.type = type;
+        }
+    }
+
+    private enum ClaimType
+    {
+        STRING
+        {
+            @Override
+            Object coerce(ClaimPath path, Object value)
+            {
+                return ClaimCoercion.asString(value);
+            }
+        },
+        BOOLEAN
+        {
+            @Override
+            Object coerce(ClaimPath path, Object value)
+            {
+                return ClaimCoercion.asBoolean(value);
+            }
+        },
+        INSTANT
+        {
+            @Override
+            Object coerce(ClaimPath path, Object value)
+            {
+                return ClaimCoercion.asInstant(path.getPath(), value);
+            }
+        },
+        MAP
+        {
+            @Override
+            Object coerce(ClaimPath path, Object value)
+            {
+                return ClaimCoercion.asMap(path.getPath(), value);
+            }
+        },
+        STRING_COLLECTION
+        {
+            @Override
+            Object coerce(ClaimPath path, Object value)
+            {
+                return ClaimCoercion.asStringCollection(path.getPath(), value);
+            }
+        };
+
+        abstract Object coerce(ClaimPath path, Object value);
+    }
+}
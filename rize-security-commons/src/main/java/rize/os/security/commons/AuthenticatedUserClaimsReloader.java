@@ -0,0 +1,96 @@
+package rize.os.security.commons;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reloads the claims configuration of the {@link JwtAuthenticatedUserConverter} at runtime, without a restart.
+ * <p>
+ * A reload is triggered by publishing an {@link AuthenticatedUserClaimsChangedEvent}, e.g. after the environment has
+ * been refreshed or the claim mapping has been changed in a database, or by calling one of the {@code reload} methods
+ * directly. The new configuration is compiled on the thread that triggers the reload and then published to the
+ * converter at once, see {@link JwtAuthenticatedUserConverter#reload(AuthenticatedUserClaimsConfiguration)}. A
+ * configuration that is equal to the current one is ignored, so cached users stay valid. An invalid configuration is
+ * rejected and the current one is kept.
+ * <p>
+ * Note that the {@link AuthenticatedUserClaimsConfiguration} bean itself is immutable and keeps the configuration the
+ * application has been started with. The configuration in use is the one of the
+ * {@linkplain JwtAuthenticatedUserConverter#getClaimsPlan() claims plan} of the converter.
+ *
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+@Component
+public class AuthenticatedUserClaimsReloader
+{
+    private static final Logger log = LoggerFactory.getLogger(AuthenticatedUserClaimsReloader.class);
+
+    private final JwtAuthenticatedUserConverter jwtAuthenticatedUserConverter;
+    private final Environment environment;
+
+    /**
+     * Constructs a new {@code AuthenticatedUserClaimsReloader}.
+     *
+     * @param jwtAuthenticatedUserConverter The converter whose claims configuration is reloaded.
+     * @param environment                   The environment the configuration is bound from.
+     */
+    public AuthenticatedUserClaimsReloader(JwtAuthenticatedUserConverter jwtAuthenticatedUserConverter, Environment environment)
+    {
+        this.jwtAuthenticatedUserConverter = jwtAuthenticatedUserConverter;
+        this.environment = environment;
+    }
+
+    @EventListener
+    void onClaimsChanged(AuthenticatedUserClaimsChangedEvent event)
+    {
+        var configuration = event.getConfiguration();
+        if (configuration != null)
+            reload(configuration);
+        else
+            reloadFromEnvironment();
+    }
+
+    /**
+     * Binds the claims configuration from the current environment and reloads it.
+     *
+     * @return {@code true} if the converter uses the new configuration, {@code false} if it has not changed or is invalid.
+     */
+    public boolean reloadFromEnvironment()
+    {
+        var configuration = Binder.get(environment)
+                .bind(AuthenticatedUserClaimsConfiguration.PREFIX, AuthenticatedUserClaimsConfiguration.class)
+                .orElseGet(AuthenticatedUserClaimsConfiguration::createDefault);
+
+        return reload(configuration);
+    }
+
+    /**
+     * Reloads the given claims configuration.
+     *
+     * @param configuration The new claims configuration.
+     * @return {@code true} if the converter uses the new configuration, {@code false} if it has not changed or is invalid.
+     */
+    public boolean reload(@NonNull AuthenticatedUserClaimsConfiguration configuration)
+    {
+        if (configuration.equals(jwtAuthenticatedUserConverter.getClaimsPlan().getConfiguration()))
+        {
+            log.debug("Claims configuration has not changed, skipping reload");
+            return false;
+        }
+
+        try
+        {
+            jwtAuthenticatedUserConverter.reload(configuration);
+            return true;
+        }
+        catch (IllegalArgumentException e)
+        {
+            log.error("Rejected invalid claims configuration, keeping the current one: {}", e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,751 @@
+package rize.os.security.commons;
+
+import org.springframework.core.ConfigurableObjectInputStream;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.OidcUserInfo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A compact binary codec for {@link AuthenticatedUser}s, {@link AuthenticatedUserToken}s and
+ * {@link OAuth2AuthenticationToken}s of authenticated users, intended for shared session stores.
+ * <p>
+ * Default Java serialization writes the class descriptors of the user, its {@link OidcIdToken} and
+ * {@link OidcUserInfo} and their claim maps, and writes every claim name and value of both maps in full. This codec
+ * writes the claims of the ID token once and encodes the user info claims, which are mostly copies of them, as
+ * references. All strings go through a dictionary: well-known claim names and values have fixed codes, every other
+ * string is written once per record and referenced by its index afterward. The authorities of the user are written as
+ * references to their role names, followed by the role names of each organisation the user is a member of.
+ * <p>
+ * Every record starts with a format version. Versions are never changed once released, so data written by an older
+ * version of the codec can always be read. Values of unknown types are written with Java serialization as a fallback
+ * and read with the class loader of the codec.
+ * <p>
+ * {@link AuthenticatedUser} and {@link AuthenticatedUserToken} use this codec for their Java serialized form, so any
+ * session store that serializes them benefits from it.
+ *
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public final class AuthenticatedUserCodec
+{
+    /**
+     * The format version written by this codec.
+     */
+    public static final int VERSION = 3;
+
+    private static final AuthenticatedUserCodec DEFAULT = new AuthenticatedUserCodec(RoleAuthorityRegistry.getDefault());
+
+    private static final int MAGIC = 0xA7;
+    private static final int KIND_USER = 1;
+    private static final int KIND_TOKEN = 2;
+    private static final int KIND_OAUTH2_TOKEN = 3;
+
+    private static final int AUTHORITY_ROLE = 0;
+    private static final int AUTHORITY_OTHER = 1;
+
+    private static final int TYPE_NULL = 0;
+    private static final int TYPE_FALSE = 1;
+    private static final int TYPE_TRUE = 2;
+    private static final int TYPE_STRING = 3;
+    private static final int TYPE_LONG = 4;
+    private static final int TYPE_INTEGER = 5;
+    private static final int TYPE_DOUBLE = 6;
+    private static final int TYPE_INSTANT = 7;
+    private static final int TYPE_LIST = 8;
+    private static final int TYPE_MAP = 9;
+    private static final int TYPE_URL = 10;
+    private static final int TYPE_SERIALIZED = 11;
+
+    /**
+     * The fixed part of the dictionary. Entries must never be removed or reordered, new entries may only be appended
+     * together with a new {@link #VERSION}.
+     */
+    private static final String[] DICTIONARY = {
+            // Registered JWT and OIDC claims
+            "iss", "sub", "aud", "exp", "nbf", "iat", "jti", "azp", "sid", "typ", "acr", "amr", "auth_time", "nonce",
+            "at_hash", "c_hash", "scope", "session_state",
+            // Standard OIDC user info claims
+            "name", "given_name", "family_name", "middle_name", "nickname", "preferred_username", "profile", "picture",
+            "website", "email", "email_verified", "gender", "birthdate", "zoneinfo", "locale", "phone_number",
+            "phone_number_verified", "address", "updated_at", "formatted", "street_address", "locality", "region",
+            "postal_code", "country",
+            // Keycloak claims and values
+            "realm_access", "resource_access", "roles", "allowed-origins", "client_id", "Bearer", "ID", "account",
+            "offline_access", "uma_authorization", "manage-account", "manage-account-links", "view-profile", "0", "1",
+            "openid", "openid profile email", "openid email profile"
+    };
+
+    private static final Map<String, Integer> DICTIONARY_CODES = new HashMap<>();
+
+    static
+    {
+        for (int i = 0; i < DICTIONARY.length; i++)
+            DICTIONARY_CODES.put(DICTIONARY[i], i);
+    }
+
+    private final RoleAuthorityRegistry roleAuthorityRegistry;
+    @Nullable
+    private final ClassLoader classLoader;
+
+    /**
+     * Creates a new codec that reads Java serialized values with the default class loader.
+     *
+     * @param roleAuthorityRegistry The registry the roles of decoded users are resolved with.
+     */
+    public AuthenticatedUserCodec(@NonNull RoleAuthorityRegistry roleAuthorityRegistry)
+    {
+        this(roleAuthorityRegistry, null);
+    }
+
+    /**
+     * Creates a new codec.
+     *
+     * @param roleAuthorityRegistry The registry the roles of decoded users are resolved with.
+     * @param classLoader           The class loader that Java serialized values are read with, e.g. the bean class
+     *                              loader of the application. Defaults to the class loader of the calling code.
+     */
+    public AuthenticatedUserCodec(@NonNull RoleAuthorityRegistry roleAuthorityRegistry, @Nullable ClassLoader classLoader)
+    {
+        this.roleAuthorityRegistry = roleAuthorityRegistry;
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * @return The codec that resolves roles with the {@linkplain RoleAuthorityRegistry#getDefault() default registry}.
+     */
+    public static AuthenticatedUserCodec getDefault()
+    {
+        return DEFAULT;
+    }
+
+    /**
+     * Checks whether the given data has been written by this codec, as opposed to Java serialization for example.
+     *
+     * @param data The data to check.
+     * @return {@code true} if the data starts with the header of this codec, {@code false} otherwise.
+     */
+    public static boolean isEncoded(@NonNull byte[] data)
+    {
+        return data.length > 0 && (data[0] & 0xFF) == MAGIC;
+    }
+
+    /**
+     * Encodes the given user.
+     *
+     * @param authenticatedUser The user to encode.
+     * @return The encoded user.
+     */
+    public byte[] encode(@NonNull AuthenticatedUser authenticatedUser)
+    {
+        var writer = new Writer(KIND_USER);
+        writeUser(writer, authenticatedUser);
+        return writer.toByteArray();
+    }
+
+    /**
+     * Encodes the given token together with its user.
+     *
+     * @param authenticatedUserToken The token to encode.
+     * @return The encoded token.
+     */
+    public byte[] encode(@NonNull AuthenticatedUserToken authenticatedUserToken)
+    {
+        var writer = new Writer(KIND_TOKEN);
+        writeUser(writer, authenticatedUserToken.getPrincipal());
+        writer.writeBoolean(authenticatedUserToken.isAuthenticated());
+        writer.writeValue(authenticatedUserToken.getDetails());
+        return writer.toByteArray();
+    }
+
+    /**
+     * Encodes the given OAuth 2.0 login token, whose principal must be an {@link AuthenticatedUser}. The authorities
+     * of the token are only written if they differ from those of the user.
+     * <p>
+     * This method requires {@code spring-security-oauth2-client} on the classpath. It is not an overload of
+     * {@code encode}, so that code calling the other methods compiles without that library.
+     *
+     * @param oAuth2AuthenticationToken The token to encode.
+     * @return The encoded token.
+     * @throws IllegalArgumentException if the principal of the token is not an {@link AuthenticatedUser}.
+     */
+    public byte[] encodeLoginToken(@NonNull OAuth2AuthenticationToken oAuth2AuthenticationToken)
+    {
+        if (!(oAuth2AuthenticationToken.getPrincipal() instanceof AuthenticatedUser authenticatedUser))
+            throw new IllegalArgumentException("The principal of the token is not an AuthenticatedUser");
+
+        var writer = new Writer(KIND_OAUTH2_TOKEN);
+        writeUser(writer, authenticatedUser);
+        writer.writeString(oAuth2AuthenticationToken.getAuthorizedClientRegistrationId());
+
+        var authorities = oAuth2AuthenticationToken.getAuthorities();
+        boolean ownAuthorities = !authorities.equals(authenticatedUser.getAuthorities());
+        writer.writeBoolean(ownAuthorities);
+        if (ownAuthorities)
+            writeAuthorities(writer, authorities);
+
+        writer.writeBoolean(oAuth2AuthenticationToken.isAuthenticated());
+        writer.writeValue(oAuth2AuthenticationToken.getDetails());
+        return writer.toByteArray();
+    }
+
+    /**
+     * Decodes a user that has been encoded with {@link #encode(AuthenticatedUser)}.
+     *
+     * @param data The encoded user.
+     * @return The decoded user.
+     * @throws IllegalArgumentException if the data is not an encoded user or has been written by an unknown version.
+     */
+    public AuthenticatedUser decodeUser(@NonNull byte[] data)
+    {
+        if (!(decode(data) instanceof AuthenticatedUser authenticatedUser))
+            throw new IllegalArgumentException("Data does not contain an encoded AuthenticatedUser");
+
+        return authenticatedUser;
+    }
+
+    /**
+     * Decodes a token that has been encoded with {@link #encode(AuthenticatedUserToken)}.
+     *
+     * @param data The encoded token.
+     * @return The decoded token.
+     * @throws IllegalArgumentException if the data is not an encoded token or has been written by an unknown version.
+     */
+    public AuthenticatedUserToken decodeToken(@NonNull byte[] data)
+    {
+        if (!(decode(data) instanceof AuthenticatedUserToken authenticatedUserToken))
+            throw new IllegalArgumentException("Data does not contain an encoded AuthenticatedUserToken");
+
+        return authenticatedUserToken;
+    }
+
+    /**
+     * Decodes a token that has been encoded with {@link #encode(AuthenticatedUserToken)} or
+     * {@link #encodeLoginToken(OAuth2AuthenticationToken)}.
+     *
+     * @param data The encoded token.
+     * @return The decoded token.
+     * @throws IllegalArgumentException if the data is not an encoded token or has been written by an unknown version.
+     */
+    public Authentication decodeAuthentication(@NonNull byte[] data)
+    {
+        if (!(decode(data) instanceof Authentication authentication))
+            throw new IllegalArgumentException("Data does not contain an encoded Authentication");
+
+        return authentication;
+    }
+
+    private Object decode(byte[] data)
+    {
+        var reader = new Reader(data, classLoader);
+        if (reader.readByte() != MAGIC)
+            throw new IllegalArgumentException("Data has not been written by the AuthenticatedUserCodec");
+
+        int version = reader.readByte();
+        if (version < 1 || version > VERSION)
+            throw new IllegalArgumentException("Unsupported AuthenticatedUserCodec version " + version);
+
+        int kind = reader.readByte();
+        var authenticatedUser = readUser(reader, version);
+        if (kind == KIND_USER)
+            return authenticatedUser;
+        if (kind == KIND_OAUTH2_TOKEN)
+            return readOAuth2Token(reader, authenticatedUser);
+        if (kind != KIND_TOKEN)
+            throw new IllegalArgumentException("Unknown record kind " + kind);
+
+        var authenticatedUserToken = new AuthenticatedUserToken(authenticatedUser);
+        if (!reader.readBoolean())
+            authenticatedUserToken.setAuthenticated(false);
+        authenticatedUserToken.setDetails(reader.readValue());
+
+        return authenticatedUserToken;
+    }
+
+    private Object readOAuth2Token(Reader reader, AuthenticatedUser authenticatedUser)
+    {
+        var authorizedClientRegistrationId = reader.readString();
+        var authorities = reader.readBoolean() ? readAuthorities(reader) : authenticatedUser.getAuthorities();
+
+        var oAuth2AuthenticationToken = new OAuth2AuthenticationToken(authenticatedUser, authorities, authorizedClientRegistrationId);
+        if (!reader.readBoolean())
+            oAuth2AuthenticationToken.setAuthenticated(false);
+        oAuth2AuthenticationToken.setDetails(reader.readValue());
+
+        return oAuth2AuthenticationToken;
+    }
+
+    private void writeUser(Writer writer, AuthenticatedUser authenticatedUser)
+    {
+        var idToken = authenticatedUser.getIdToken();
+        writer.writeLongString(idToken.getTokenValue());
+        writer.writeValue(idToken.getIssuedAt());
+        writer.writeValue(idToken.getExpiresAt());
+        writer.writeValue(idToken.getClaims());
+        writer.writeValue(authenticatedUser.getUserInfo().getClaims());
+        writer.writeString(authenticatedUser.getSessionId());
+        writeAuthorities(writer, authenticatedUser.getAuthorities());
+
+        var organisationRoles = authenticatedUser.getOrganisationRoles();
+        writer.writeVarInt(organisationRoles.size());
+        for (var organisationId : organisationRoles.getOrganisationIds())
+        {
+            var roles = organisationRoles.getRoles(organisationId);
+            writer.writeString(organisationId);
+            writer.writeVarInt(roles.size());
+            for (var role : roles)
+                writer.writeString(((RoleAuthority) role).getRole());
+        }
+    }
+
+    private void writeAuthorities(Writer writer, Collection<? extends GrantedAuthority> authorities)
+    {
+        writer.writeVarInt(authorities.size());
+        for (var authority : authorities)
+        {
+            if (authority instanceof RoleAuthority roleAuthority)
+            {
+                writer.writeByte(AUTHORITY_ROLE);
+                writer.writeString(roleAuthority.getRole());
+            }
+            else
+            {
+                writer.writeByte(AUTHORITY_OTHER);
+                writer.writeString(authority.getAuthority());
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private AuthenticatedUser readUser(Reader reader, int version)
+    {
+        var tokenValue = reader.readLongString();
+        var issuedAt = (Instant) reader.readValue();
+        var expiresAt = (Instant) reader.readValue();
+        var idTokenClaims = (Map<String, Object>) reader.readValue();
+        var userInfoClaims = (Map<String, Object>) reader.readValue();
+        var sessionId = reader.readString();
+        var authorities = readAuthorities(reader);
+
+        // Version 1 did not write the roles of organisations
+        Map<String, List<String>> organisationRoles = new HashMap<>();
+        int organisationCount = version >= 2 ? reader.readVarInt() : 0;
+        for (int i = 0; i < organisationCount; i++)
+        {
+            var organisationId = reader.readString();
+            int roleCount = reader.readVarInt();
+            List<String> organisationRoleNames = new ArrayList<>(roleCount);
+            for (int j = 0; j < roleCount; j++)
+                organisationRoleNames.add(reader.readString());
+            organisationRoles.put(organisationId, organisationRoleNames);
+        }
+
+        return new AuthenticatedUser(
+                new OidcUserInfo(userInfoClaims),
+                new OidcIdToken(tokenValue, issuedAt, expiresAt, idTokenClaims),
+                authorities,
+                OrganisationRoles.of(roleAuthorityRegistry, organisationRoles),
+                sessionId);
+    }
+
+    private Set<GrantedAuthority> readAuthorities(Reader reader)
+    {
+        int authorityCount = reader.readVarInt();
+        List<String> roles = new ArrayList<>(authorityCount);
+        Set<GrantedAuthority> authorities = null;
+        for (int i = 0; i < authorityCount; i++)
+        {
+            int type = reader.readByte();
+            var name = reader.readString();
+            if (type == AUTHORITY_ROLE && authorities == null)
+            {
+                roles.add(name);
+                continue;
+            }
+
+            if (authorities == null)
+            {
+                authorities = new LinkedHashSet<>();
+                for (var role : roles)
+                    authorities.add(roleAuthorityRegistry.register(role));
+            }
+            authorities.add(type == AUTHORITY_ROLE ? roleAuthorityRegistry.register(name) : new SimpleGrantedAuthority(name));
+        }
+
+        return authorities != null ? authorities : roleAuthorityRegistry.authoritiesOf(roles);
+    }
+
+    /**
+     * Writes a record into a growing buffer. Strings are added to the dictionary of the record on first use.
+     */
+    private static final class Writer
+    {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        private Writer(int kind)
+        {
+            writeByte(MAGIC);
+            writeByte(VERSION);
+            writeByte(kind);
+        }
+
+        private void writeByte(int value)
+        {
+            out.write(value);
+        }
+
+        private void writeBoolean(boolean value)
+        {
+            out.write(value ? 1 : 0);
+        }
+
+        private void writeVarInt(int value)
+        {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        private void writeVarLong(long value)
+        {
+            while ((value & ~0x7FL) != 0)
+            {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+
+        private void writeZigZag(long value)
+        {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        private void writeLongString(String value)
+        {
+            var bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            out.writeBytes(bytes);
+        }
+
+        /**
+         * Writes a string as a reference into the dictionary. Code {@code 0} is {@code null}, the codes up to the size
+         * of the fixed dictionary refer to its entries, all higher codes to the strings of this record. A reference to
+         * the next, not yet defined string of the record is followed by the string itself.
+         */
+        private void writeString(String value)
+        {
+            if (value == null)
+            {
+                writeVarInt(0);
+                return;
+            }
+
+            var code = DICTIONARY_CODES.get(value);
+            if (code != null)
+            {
+                writeVarInt(code + 1);
+                return;
+            }
+
+            var index = strings.get(value);
+            if (index != null)
+            {
+                writeVarInt(DICTIONARY.length + 1 + index);
+                return;
+            }
+
+            index = strings.size();
+            strings.put(value, index);
+            writeVarInt(DICTIONARY.length + 1 + index);
+            writeLongString(value);
+        }
+
+        private void writeValue(Object value)
+        {
+            if (value == null)
+                writeByte(TYPE_NULL);
+            else if (value instanceof Boolean bool)
+                writeByte(bool ? TYPE_TRUE : TYPE_FALSE);
+            else if (value instanceof String string)
+            {
+                writeByte(TYPE_STRING);
+                writeString(string);
+            }
+            else if (value instanceof Long number)
+            {
+                writeByte(TYPE_LONG);
+                writeZigZag(number);
+            }
+            else if (value instanceof Integer number)
+            {
+                writeByte(TYPE_INTEGER);
+                writeZigZag(number);
+            }
+            else if (value instanceof Double number)
+            {
+                writeByte(TYPE_DOUBLE);
+                writeVarLong(Double.doubleToRawLongBits(number));
+            }
+            else if (value instanceof Instant instant)
+            {
+                writeByte(TYPE_INSTANT);
+                writeZigZag(instant.getEpochSecond());
+                writeVarInt(instant.getNano());
+            }
+            else if (value instanceof URL url)
+            {
+                writeByte(TYPE_URL);
+                writeString(url.toExternalForm());
+            }
+            else if (value instanceof Collection<?> collection)
+            {
+                writeByte(TYPE_LIST);
+                writeVarInt(collection.size());
+                for (var element : collection)
+                    writeValue(element);
+            }
+            else if (value instanceof Map<?, ?> map && map.keySet().stream().allMatch(String.class::isInstance))
+            {
+                writeByte(TYPE_MAP);
+                writeVarInt(map.size());
+                for (var entry : map.entrySet())
+                {
+                    writeString((String) entry.getKey());
+                    writeValue(entry.getValue());
+                }
+            }
+            else
+            {
+                writeByte(TYPE_SERIALIZED);
+                writeSerialized(value);
+            }
+        }
+
+        private void writeSerialized(Object value)
+        {
+            var bytes = new ByteArrayOutputStream();
+            try (var objectOut = new ObjectOutputStream(bytes))
+            {
+                objectOut.writeObject(value);
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException("Failed to serialize value of type " + value.getClass().getName(), e);
+            }
+
+            writeVarInt(bytes.size());
+            out.writeBytes(bytes.toByteArray());
+        }
+
+        private byte[] toByteArray()
+        {
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Reads a record that has been written by the {@link Writer}.
+     */
+    private static final class Reader
+    {
+        private final byte[] data;
+        @Nullable
+        private final ClassLoader classLoader;
+        private final List<String> strings = new ArrayList<>();
+        private int position;
+
+        private Reader(byte[] data, @Nullable ClassLoader classLoader)
+        {
+            this.data = data;
+            this.classLoader = classLoader;
+        }
+
+        private int readByte()
+        {
+            if (position >= data.length)
+                throw new IllegalArgumentException("Unexpected end of data");
+
+            return data[position++] & 0xFF;
+        }
+
+        private boolean readBoolean()
+        {
+            return readByte() != 0;
+        }
+
+        private int readVarInt()
+        {
+            long value = readVarLong();
+            if (value > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("Value out of range: " + value);
+
+            return (int) value;
+        }
+
+        private long readVarLong()
+        {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7)
+            {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                    return value;
+            }
+
+            throw new IllegalArgumentException("Malformed variable-length number");
+        }
+
+        private long readZigZag()
+        {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private String readLongString()
+        {
+            int length = readVarInt();
+            if (length > data.length - position)
+                throw new IllegalArgumentException("Unexpected end of data");
+
+            var value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private String readString()
+        {
+            int code = readVarInt();
+            if (code == 0)
+                return null;
+            if (code <= DICTIONARY.length)
+                return DICTIONARY[code - 1];
+
+            int index = code - DICTIONARY.length - 1;
+            if (index < strings.size())
+                return strings.get(index);
+            if (index > strings.size())
+                throw new IllegalArgumentException("Reference to undefined string " + index);
+
+            var value = readLongString();
+            strings.add(value);
+            return value;
+        }
+
+        private Object readValue()
+        {
+            int type = readByte();
+            return switch (type)
+            {
+                case TYPE_NULL -> null;
+                case TYPE_FALSE -> Boolean.FALSE;
+                case TYPE_TRUE -> Boolean.TRUE;
+                case TYPE_STRING -> readString();
+                case TYPE_LONG -> readZigZag();
+                case TYPE_INTEGER -> (int) readZigZag();
+                case TYPE_DOUBLE -> Double.longBitsToDouble(readVarLong());
+                case TYPE_INSTANT -> Instant.ofEpochSecond(readZigZag(), readVarInt());
+                case TYPE_URL -> readUrl();
+                case TYPE_LIST -> readList();
+                case TYPE_MAP -> readMap();
+                case TYPE_SERIALIZED -> readSerialized();
+                default -> throw new IllegalArgumentException("Unknown value type " + type);
+            };
+        }
+
+        private URL readUrl()
+        {
+            try
+            {
+                return URI.create(readString()).toURL();
+            }
+            catch (IOException | IllegalArgumentException e)
+            {
+                throw new IllegalArgumentException("Malformed URL", e);
+            }
+        }
+
+        private List<Object> readList()
+        {
+            int size = readVarInt();
+            List<Object> list = new ArrayList<>(Math.min(size, data.length));
+            for (int i = 0; i < size; i++)
+                list.add(readValue());
+
+            return list;
+        }
+
+        private Map<String, Object> readMap()
+        {
+            int size = readVarInt();
+            Map<String, Object> map = new LinkedHashMap<>();
+            for (int i = 0; i < size; i++)
+                map.put(readString(), readValue());
+
+            return map;
+        }
+
+        private Object readSerialized()
+        {
+            int length = readVarInt();
+            if (length > data.length - position)
+                throw new IllegalArgumentException("Unexpected end of data");
+
+            try (var objectIn = new ConfigurableObjectInputStream(new ByteArrayInputStream(data, position, length), classLoader))
+            {
+                position += length;
+                return objectIn.readObject();
+            }
+            catch (IOException | ClassNotFoundException e)
+            {
+                throw new IllegalArgumentException("Failed to deserialize value", e);
+            }
+        }
+    }
+
+    /**
+     * The Java serialized form of {@link AuthenticatedUser}s and {@link AuthenticatedUserToken}s, which holds the
+     * record written by the {@linkplain #getDefault() default codec}.
+     */
+    static final class SerializedForm implements Serializable
+    {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] data;
+
+        SerializedForm(byte[] data)
+        {
+            this.data = data;
+        }
+
+        @Serial
+        private Object readResolve()
+        {
+            return DEFAULT.decode(data);
+        }
+    }
+}
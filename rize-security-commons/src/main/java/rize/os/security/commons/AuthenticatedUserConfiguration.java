@@ -1,16 +1,76 @@
 package rize.os.security.commons;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 /**
  * Configuration class that is used to enable configuration properties for the
- * {@link AuthenticatedUserClaimsConfiguration}.
+ * {@link AuthenticatedUserClaimsConfiguration}, the {@link AuthenticatedUserCacheConfiguration}, the
+ * {@link AuthenticatedUserMetricsConfiguration}, the {@link JwtIssuerConfiguration} and the
+ * {@link JwkSetCacheConfiguration}.
+ * <p>
+ * The {@link AuthenticatedUserCache} is only created if it has been enabled with
+ * {@code rize.security.jwt.authenticated-user-cache.enabled=true}. The {@link AuthenticatedUserMetrics} are recorded
+ * with Micrometer if a {@link MeterRegistry} is available, unless they have been disabled with
+ * {@code rize.security.metrics.enabled=false}. The {@link JwkSetCache} is always available, but does not start its
+ * background thread before the first decoder has been created.
+ * <p>
+ * The {@link TokenRevocationList} is only created if it has been enabled with
+ * {@code rize.security.jwt.revocation.enabled=true} and a {@link JdbcTemplate} is available.
  *
  * @author Dennis Schaefer (<a href="https://github.com/dennis-schaefer">...</a>)
  */
 @Configuration
-@EnableConfigurationProperties(AuthenticatedUserClaimsConfiguration.class)
+@EnableConfigurationProperties({
+        AuthenticatedUserClaimsConfiguration.class,
+        AuthenticatedUserCacheConfiguration.class,
+        AuthenticatedUserMetricsConfiguration.class,
+        JwtIssuerConfiguration.class,
+        JwkSetCacheConfiguration.class,
+        TokenRevocationConfiguration.class})
 public class AuthenticatedUserConfiguration
 {
+    @Bean
+    @ConditionalOnProperty(prefix = "rize.security.jwt.authenticated-user-cache", name = "enabled", havingValue = "true")
+    AuthenticatedUserCache authenticatedUserCache(AuthenticatedUserCacheConfiguration cacheConfiguration)
+    {
+        return new AuthenticatedUserCache(cacheConfiguration.getMaximumSize());
+    }
+
+    @Bean
+    AuthenticatedUserMetrics authenticatedUserMetrics(AuthenticatedUserMetricsConfiguration metricsConfiguration,
+                                                      ObjectProvider<MeterRegistry> meterRegistry)
+    {
+        var registry = meterRegistry.getIfAvailable();
+        if (!metricsConfiguration.isEnabled() || registry == null)
+            return AuthenticatedUserMetrics.NOOP;
+
+        return new MicrometerAuthenticatedUserMetrics(registry, metricsConfiguration);
+    }
+
+    @Bean
+    JwkSetCache jwkSetCache(JwkSetCacheConfiguration jwkSetCacheConfiguration, AuthenticatedUserMetrics authenticatedUserMetrics)
+    {
+        return new JwkSetCache(jwkSetCacheConfiguration, authenticatedUserMetrics);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "org.springframework.jdbc.core.JdbcTemplate")
+    @ConditionalOnProperty(prefix = "rize.security.jwt.revocation", name = "enabled", havingValue = "true")
+    static class TokenRevocationListConfiguration
+    {
+        @Bean(initMethod = "start")
+        TokenRevocationList tokenRevocationList(TokenRevocationConfiguration tokenRevocationConfiguration,
+                                                JdbcTemplate jdbcTemplate,
+                                                AuthenticatedUserMetrics authenticatedUserMetrics)
+        {
+            return new TokenRevocationList(tokenRevocationConfiguration, jdbcTemplate, authenticatedUserMetrics);
+        }
+    }
 }
@@ -2,9 +2,13 @@ package rize.os.security.commons;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.util.Optional;
+import java.util.concurrent.Callable;
 
 /**
  * Provides access to the currently authenticated user in the security context.
@@ -12,12 +16,32 @@ import java.util.Optional;
  * This utility class encapsulates the logic for retrieving the {@link AuthenticatedUser}
  * from the {@link SecurityContextHolder}. It provides a simple and type-safe
  * method {@link #get()} to get the logged-in user.
+ * <p>
+ * A user can also be bound to the current thread for the duration of an action with
+ * {@link #runWith(AuthenticatedUser, Runnable)} or {@link #callWith(AuthenticatedUser, Callable)}. The
+ * {@link AuthenticatedUserContextFilter} binds the user once per request, so {@link #current()} returns it with a
+ * single thread local lookup and without any allocation, instead of going through the security context on every call.
+ * Only if no user is bound, the security context is used as a fallback.
+ * <p>
+ * A binding belongs to the {@link Authentication} of the security context it was made in. If the security context
+ * holds another authentication later on, e.g. after a logout or a {@code runAs} within the request, the binding is
+ * ignored and the user is looked up in the security context again, so the security context stays the source of
+ * truth. Bindings are strictly nested and restored when the action completes.
+ * <p>
+ * The bindings are kept in a {@link ThreadLocal}, because the project targets Java 17. They are therefore not
+ * inherited by other threads: tasks only see them if they are submitted through the
+ * {@link AuthenticatedUserTaskDecorator}. On Java 21 and later, a {@code ScopedValue} could replace the
+ * {@link ThreadLocal} without changing this API: {@link #runWith(AuthenticatedUser, Runnable)} and
+ * {@link #callWith(AuthenticatedUser, Callable)} would run the action in {@code ScopedValue.where(...)}, which already
+ * nests and restores bindings, {@link #current()} would read the scoped value, and structured tasks would inherit the
+ * binding without the task decorator.
  *
  * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
  */
 public final class AuthenticatedUserContext
 {
     private static final Logger log = LoggerFactory.getLogger(AuthenticatedUserContext.class);
+    private static final ThreadLocal<Binding> BINDING = new ThreadLocal<>();
 
     private AuthenticatedUserContext() {}
 
@@ -34,20 +58,150 @@ public final class AuthenticatedUserContext
      * In all other cases – if no authentication is present, the authentication
      * is not valid (e.g., anonymous user), or the principal object is not of the expected type –
      * an empty {@link Optional} is returned.
+     * <p>
+     * If a user is bound to the current thread, it is returned without looking at the security context.
      *
      * @return An {@link Optional} containing the {@link AuthenticatedUser} if present and authenticated,
      *         otherwise an empty {@link Optional}.
      */
     public static Optional<AuthenticatedUser> get()
+    {
+        return Optional.ofNullable(current());
+    }
+
+    /**
+     * Retrieves the currently authenticated user like {@link #get()}, but without wrapping it in an {@link Optional}.
+     * <p>
+     * If a user is bound to the current thread, this is a lookup of the binding and of the security context without
+     * any allocation, so it can be called any number of times per request.
+     *
+     * @return The {@link AuthenticatedUser} if present and authenticated, otherwise {@code null}.
+     */
+    @Nullable
+    public static AuthenticatedUser current()
+    {
+        var user = bound();
+        return user != null ? user : fromSecurityContext();
+    }
+
+    /**
+     * Runs the given action with the given user bound to the current thread, as long as the security context holds
+     * its current authentication. The previous binding is restored afterwards.
+     *
+     * @param user   The user to bind. If {@code null}, the user is looked up in the security context during the action.
+     * @param action The action to run.
+     */
+    public static void runWith(@Nullable AuthenticatedUser user, @NonNull Runnable action)
+    {
+        var previous = bind(user);
+        try
+        {
+            action.run();
+        }
+        finally
+        {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Calls the given action with the given user bound to the current thread, as long as the security context holds
+     * its current authentication. The previous binding is restored afterwards.
+     *
+     * @param user   The user to bind. If {@code null}, the user is looked up in the security context during the action.
+     * @param action The action to call.
+     * @param <T>    The type of the result of the action.
+     * @return The result of the action.
+     * @throws Exception If the action has thrown an exception.
+     */
+    public static <T> T callWith(@Nullable AuthenticatedUser user, @NonNull Callable<T> action) throws Exception
+    {
+        var previous = bind(user);
+        try
+        {
+            return action.call();
+        }
+        finally
+        {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Runs the given action with the given user bound to the current thread for the given authentication, e.g. the
+     * authentication that a task copies into its own security context.
+     */
+    static void runWith(@Nullable AuthenticatedUser user, @Nullable Authentication authentication, Runnable action)
+    {
+        var previous = bind(user, authentication);
+        try
+        {
+            action.run();
+        }
+        finally
+        {
+            restore(previous);
+        }
+    }
+
+    /**
+     * @return The user bound to the current thread or {@code null} if no user is bound or the security context holds
+     *         another authentication than the one the user has been bound for.
+     */
+    static AuthenticatedUser bound()
+    {
+        var binding = BINDING.get();
+        if (binding == null || binding.authentication() != SecurityContextHolder.getContext().getAuthentication())
+            return null;
+
+        return binding.user();
+    }
+
+    /**
+     * Binds the given user to the current thread for the current authentication of the security context. Must always
+     * be followed by {@link #restore(Binding)}.
+     *
+     * @return The previous binding.
+     */
+    static Binding bind(AuthenticatedUser user)
+    {
+        return bind(user, user != null ? SecurityContextHolder.getContext().getAuthentication() : null);
+    }
+
+    private static Binding bind(AuthenticatedUser user, Authentication authentication)
+    {
+        var previous = BINDING.get();
+        if (user != null)
+            BINDING.set(new Binding(user, authentication));
+        else
+            BINDING.remove();
+
+        return previous;
+    }
+
+    static void restore(Binding previous)
+    {
+        if (previous != null)
+            BINDING.set(previous);
+        else
+            BINDING.remove();
+    }
+
+    static AuthenticatedUser fromSecurityContext()
     {
         var authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated())
-            return Optional.empty();
+            return null;
 
-        if (authentication.getPrincipal() instanceof AuthenticatedUser)
-            return Optional.of((AuthenticatedUser) authentication.getPrincipal());
+        if (authentication.getPrincipal() instanceof AuthenticatedUser user)
+            return user;
 
         log.warn("Authentication principal is not an instance of AuthenticatedUser: {}", authentication.getPrincipal().getClass().getName());
-        return Optional.empty();
+        return null;
     }
+
+    /**
+     * A user that is bound to a thread for the authentication of the security context it has been bound in.
+     */
+    record Binding(AuthenticatedUser user, @Nullable Authentication authentication) {}
 }
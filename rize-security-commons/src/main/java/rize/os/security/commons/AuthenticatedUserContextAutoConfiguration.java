@@ -0,0 +1,38 @@
+package rize.os.security.commons;
+
+import jakarta.servlet.Filter;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Auto-configuration for servlet applications that binds the {@link AuthenticatedUser} of each request with the
+ * {@link AuthenticatedUserContextFilter}.
+ * <p>
+ * The filter is registered directly after the Spring Security filter chain. It can be disabled with
+ * {@code rize.security.authenticated-user-context.request-binding=false}, in which case
+ * {@link AuthenticatedUserContext} always reads the user from the security context.
+ *
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+@AutoConfiguration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnClass({Filter.class, FilterRegistrationBean.class})
+@ConditionalOnProperty(prefix = "rize.security.authenticated-user-context", name = "request-binding", havingValue = "true", matchIfMissing = true)
+public class AuthenticatedUserContextAutoConfiguration
+{
+    @Bean
+    @ConditionalOnMissingBean(name = "authenticatedUserContextFilter")
+    FilterRegistrationBean<AuthenticatedUserContextFilter> authenticatedUserContextFilter()
+    {
+        var registration = new FilterRegistrationBean<>(new AuthenticatedUserContextFilter());
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+
+        return registration;
+    }
+}
@@ -0,0 +1,47 @@
+package rize.os.security.commons;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * A servlet filter that binds the {@link AuthenticatedUser} of a request to the request thread, so
+ * {@link AuthenticatedUserContext#current()} does not have to look it up in the security context on every call.
+ * <p>
+ * The filter has to run after the Spring Security filter chain, which authenticates the request. The user is read from
+ * the security context once and stays bound until the request has been processed. Requests without an
+ * {@link AuthenticatedUser} are passed on unchanged, so the security context remains the source of truth for them.
+ *
+ * @see AuthenticatedUserContextAutoConfiguration
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public class AuthenticatedUserContextFilter extends OncePerRequestFilter
+{
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException
+    {
+        var user = AuthenticatedUserContext.fromSecurityContext();
+        if (user == null)
+        {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        var previous = AuthenticatedUserContext.bind(user);
+        try
+        {
+            filterChain.doFilter(request, response);
+        }
+        finally
+        {
+            AuthenticatedUserContext.restore(previous);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package rize.os.security.commons;
+
+/**
+ * Records the cost of turning tokens into {@link AuthenticatedUser}s, including the JWK sets the tokens are verified
+ * with.
+ * <p>
+ * The converters call the methods of this interface on every request, so implementations must be cheap. Timings are
+ * passed as the value of {@link #startTime()} taken before the measured operation. The {@link #NOOP} implementation
+ * does not read the clock at all and is used if metrics are disabled.
+ *
+ * @see MicrometerAuthenticatedUserMetrics
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public interface AuthenticatedUserMetrics
+{
+    /**
+     * An implementation that records nothing.
+     */
+    AuthenticatedUserMetrics NOOP = new AuthenticatedUserMetrics() {};
+
+    /**
+     * @return The start time of an operation that is recorded afterward, in nanoseconds.
+     */
+    default long startTime()
+    {
+        return 0L;
+    }
+
+    /**
+     * Records the time it took to decode and verify a token.
+     *
+     * @param startTime The value of {@link #startTime()} before the token was decoded.
+     */
+    default void recordDecode(long startTime) {}
+
+    /**
+     * Records the time it took to convert a token into an {@link AuthenticatedUser} and the number of roles of the user.
+     *
+     * @param startTime The value of {@link #startTime()} before the token was converted.
+     * @param roleCount The number of roles that have been granted by the token.
+     */
+    default void recordConversion(long startTime, int roleCount) {}
+
+    /**
+     * Records that a claim was present in a token, but could not be converted into the expected type.
+     *
+     * @param claimPath The configured path of the claim.
+     */
+    default void recordClaimConversionFailure(String claimPath) {}
+
+    /**
+     * Records a fetch of the JWK set of an issuer, see {@link JwkSetCache}.
+     *
+     * @param issuer    The issuer whose JWK set has been fetched.
+     * @param startTime The value of {@link #startTime()} before the JWK set was fetched.
+     * @param success   {@code true} if the JWK set has been fetched, {@code false} if the fetch failed.
+     */
+    default void recordJwkSetRefresh(String issuer, long startTime, boolean success) {}
+
+    /**
+     * Records that a token has been signed with a key that is not in the cached JWK set of its issuer.
+     *
+     * @param issuer The issuer of the token.
+     */
+    default void recordUnknownKeyId(String issuer) {}
+
+    /**
+     * Records a check of a token against the {@link TokenRevocationList}.
+     *
+     * @param possibleMatch {@code true} if the Bloom filter has reported a possible match, so the revocation table has
+     *                      been queried, {@code false} if the filter has ruled out a revocation.
+     * @param revoked       {@code true} if the token has been revoked.
+     */
+    default void recordRevocationCheck(boolean possibleMatch, boolean revoked) {}
+}
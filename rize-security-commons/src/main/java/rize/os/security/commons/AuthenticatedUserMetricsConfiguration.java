@@ -0,0 +1,51 @@
+package rize.os.security.commons;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.lang.Nullable;
+
+import java.util.Objects;
+
+/**
+ * This class is used to configure the {@link AuthenticatedUserMetrics}.
+ * <p>
+ * The properties of this class can be set in the application.yml or application.properties file.
+ * The prefix for the properties is {@code rize.security.metrics}.
+ * <p>
+ * Metrics are enabled by default, if a Micrometer {@link io.micrometer.core.instrument.MeterRegistry} is available.
+ *
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+@ConfigurationProperties(prefix = "rize.security.metrics")
+public class AuthenticatedUserMetricsConfiguration
+{
+    private final boolean enabled;
+    private final boolean histogram;
+
+    /**
+     * Creates a new instance of the {@link AuthenticatedUserMetricsConfiguration}.
+     *
+     * @param enabled   Whether the conversion of tokens is measured. Defaults to {@code true}.
+     * @param histogram Whether the timers and the role count distribution publish histogram buckets. Defaults to {@code false}.
+     */
+    public AuthenticatedUserMetricsConfiguration(@Nullable Boolean enabled, @Nullable Boolean histogram)
+    {
+        this.enabled = Objects.requireNonNullElse(enabled, true);
+        this.histogram = Objects.requireNonNullElse(histogram, false);
+    }
+
+    /**
+     * @return {@code true} if the conversion of tokens is measured, {@code false} otherwise.
+     */
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * @return {@code true} if the timers and the role count distribution publish histogram buckets, {@code false} otherwise.
+     */
+    public boolean isHistogram()
+    {
+        return histogram;
+    }
+}
@@ -0,0 +1,112 @@
+package rize.os.security.commons;
+
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.core.convert.converter.GenericConverter;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.util.ClassUtils;
+
+import java.util.Set;
+
+/**
+ * Converts session attributes to and from bytes for session stores such as Spring Session JDBC.
+ * <p>
+ * A {@link SecurityContext} that holds an {@link AuthenticatedUserToken}, or an {@link OAuth2AuthenticationToken} of an
+ * {@link AuthenticatedUser} as created by an OAuth 2.0 login, is written with the {@link AuthenticatedUserCodec},
+ * without any Java serialization overhead. All other attributes are written with
+ * Java serialization, in which {@link AuthenticatedUser}s are still written in the compact form of the codec. When
+ * reading, both formats are told apart by their header.
+ * <p>
+ * Usage with Spring Session JDBC:
+ * <pre>{@code
+ * @Bean("springSessionConversionService")
+ * ConversionService springSessionConversionService()
+ * {
+ *     var conversionService = new GenericConversionService();
+ *     conversionService.addConverter(new AuthenticatedUserSessionAttributeConverter(getClass().getClassLoader()));
+ *     return conversionService;
+ * }
+ * }</pre>
+ *
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public class AuthenticatedUserSessionAttributeConverter implements GenericConverter
+{
+    private static final boolean OAUTH2_CLIENT_PRESENT = ClassUtils.isPresent(
+            "org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken",
+            AuthenticatedUserSessionAttributeConverter.class.getClassLoader());
+
+    private final AuthenticatedUserCodec codec;
+    private final SerializingConverter serializingConverter = new SerializingConverter();
+    private final DeserializingConverter deserializingConverter;
+
+    /**
+     * Creates a new converter that uses a codec with the {@linkplain RoleAuthorityRegistry#getDefault() default
+     * registry}.
+     *
+     * @param classLoader The class loader that Java serialized attributes and values are read with.
+     */
+    public AuthenticatedUserSessionAttributeConverter(@Nullable ClassLoader classLoader)
+    {
+        this(new AuthenticatedUserCodec(RoleAuthorityRegistry.getDefault(), classLoader), classLoader);
+    }
+
+    /**
+     * Creates a new converter.
+     *
+     * @param codec       The codec that security contexts are written with.
+     * @param classLoader The class loader that Java serialized attributes are read with.
+     */
+    public AuthenticatedUserSessionAttributeConverter(@NonNull AuthenticatedUserCodec codec, @Nullable ClassLoader classLoader)
+    {
+        this.codec = codec;
+        this.deserializingConverter = new DeserializingConverter(classLoader);
+    }
+
+    @Override
+    public Set<ConvertiblePair> getConvertibleTypes()
+    {
+        return Set.of(new ConvertiblePair(Object.class, byte[].class), new ConvertiblePair(byte[].class, Object.class));
+    }
+
+    @Nullable
+    @Override
+    public Object convert(@Nullable Object source, @NonNull TypeDescriptor sourceType, @NonNull TypeDescriptor targetType)
+    {
+        if (source == null)
+            return null;
+
+        if (byte[].class.equals(targetType.getType()))
+            return serialize(source);
+
+        return deserialize((byte[]) source);
+    }
+
+    private byte[] serialize(Object attribute)
+    {
+        if (attribute instanceof SecurityContext securityContext)
+        {
+            var authentication = securityContext.getAuthentication();
+            if (authentication instanceof AuthenticatedUserToken authenticatedUserToken)
+                return codec.encode(authenticatedUserToken);
+            if (OAUTH2_CLIENT_PRESENT && authentication instanceof OAuth2AuthenticationToken oAuth2AuthenticationToken
+                    && oAuth2AuthenticationToken.getPrincipal() instanceof AuthenticatedUser)
+                return codec.encodeLoginToken(oAuth2AuthenticationToken);
+        }
+
+        return serializingConverter.convert(attribute);
+    }
+
+    private Object deserialize(byte[] data)
+    {
+        if (AuthenticatedUserCodec.isEncoded(data))
+            return new SecurityContextImpl(codec.decodeAuthentication(data));
+
+        return deserializingConverter.convert(data);
+    }
+}
@@ -0,0 +1,62 @@
+package rize.os.security.commons;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.lang.NonNull;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextHolderStrategy;
+
+/**
+ * A {@link TaskDecorator} that propagates the authentication of the submitting thread to the thread that executes the
+ * task, so {@link AuthenticatedUserContext#get()} returns the same {@link AuthenticatedUser} in {@code @Async} methods
+ * and asynchronous event listeners as in the request that triggered them.
+ * <p>
+ * The authentication is captured when the task is submitted and copied into a new security context, so a later change
+ * of the context of the submitting thread, e.g. a logout, does not affect the task. While the task runs, the executing
+ * thread uses the copied context. Afterwards, its previous context is restored, so no user leaks into the next task of
+ * a pooled platform thread. The decorator works the same for platform and virtual threads, as it does not rely on
+ * inheritable thread locals.
+ * <p>
+ * A user that is bound with {@link AuthenticatedUserContext#runWith(AuthenticatedUser, Runnable)}, e.g. by the
+ * {@link AuthenticatedUserContextFilter}, is bound in the task for the copied authentication as well, so
+ * {@link AuthenticatedUserContext#current()} does not go through the security context in tasks of a decorated
+ * executor either. Threads that are started without the decorator do not see the binding.
+ *
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public class AuthenticatedUserTaskDecorator implements TaskDecorator
+{
+    private final SecurityContextHolderStrategy securityContextHolderStrategy;
+
+    /**
+     * Creates a new decorator that uses the global {@link SecurityContextHolderStrategy}.
+     */
+    public AuthenticatedUserTaskDecorator()
+    {
+        this(SecurityContextHolder.getContextHolderStrategy());
+    }
+
+    /**
+     * Creates a new decorator that uses the given {@link SecurityContextHolderStrategy}.
+     *
+     * @param securityContextHolderStrategy The strategy the security context is read from and written to.
+     */
+    public AuthenticatedUserTaskDecorator(@NonNull SecurityContextHolderStrategy securityContextHolderStrategy)
+    {
+        this.securityContextHolderStrategy = securityContextHolderStrategy;
+    }
+
+    @Override
+    @NonNull
+    public Runnable decorate(@NonNull Runnable runnable)
+    {
+        var user = AuthenticatedUserContext.bound();
+        var authentication = securityContextHolderStrategy.getContext().getAuthentication();
+        var context = securityContextHolderStrategy.createEmptyContext();
+        context.setAuthentication(authentication);
+
+        var decorated = new DelegatingSecurityContextRunnable(() -> AuthenticatedUserContext.runWith(user, authentication, runnable), context);
+        decorated.setSecurityContextHolderStrategy(securityContextHolderStrategy);
+        return decorated;
+    }
+}
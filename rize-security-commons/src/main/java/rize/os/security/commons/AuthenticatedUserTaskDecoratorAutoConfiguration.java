@@ -0,0 +1,28 @@
+package rize.os.security.commons;
+
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Auto-configuration that registers the {@link AuthenticatedUserTaskDecorator} as the {@link TaskDecorator} of the
+ * application, so Spring Boot applies it to the executors of {@code @Async} methods and asynchronous event listeners,
+ * both with platform and with virtual threads.
+ * <p>
+ * The decorator backs off if the application defines a {@link TaskDecorator} of its own, as Spring Boot only applies a
+ * unique one, so the application has to delegate to the {@link AuthenticatedUserTaskDecorator} then.
+ *
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+@AutoConfiguration(before = TaskExecutionAutoConfiguration.class)
+public class AuthenticatedUserTaskDecoratorAutoConfiguration
+{
+    @Bean
+    @ConditionalOnMissingBean(TaskDecorator.class)
+    AuthenticatedUserTaskDecorator authenticatedUserTaskDecorator()
+    {
+        return new AuthenticatedUserTaskDecorator();
+    }
+}
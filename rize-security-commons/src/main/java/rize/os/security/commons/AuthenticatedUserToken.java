@@ -4,14 +4,21 @@ import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
 
+import java.io.Serial;
+
 /**
  * An {@link org.springframework.security.core.Authentication} implementation that is granted to users who have been
  * authenticated.
+ * <p>
+ * Tokens are serialized in the compact form of the {@link AuthenticatedUserCodec}.
  *
  * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
  */
 public class AuthenticatedUserToken extends AbstractAuthenticationToken
 {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private final AuthenticatedUser authenticatedUser;
 
     /**
@@ -49,4 +56,10 @@ public class AuthenticatedUserToken extends AbstractAuthenticationToken
     {
         return authenticatedUser;
     }
+
+    @Serial
+    protected Object writeReplace()
+    {
+        return new AuthenticatedUserCodec.SerializedForm(AuthenticatedUserCodec.getDefault().encode(this));
+    }
 }
@@ -0,0 +1,371 @@
+package rize.os.security.commons;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.JSONObjectUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.text.ParseException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * A {@link JWKSource} that keeps the JWK set of a single issuer in memory and refreshes it in the background.
+ * <p>
+ * Tokens are verified against the cached JWK set without any network call. The JWK set is fetched ahead when the
+ * source is started and refreshed in the background in the configured interval. While a refresh is in progress or
+ * after it has failed, the previous JWK set is served. Only if no JWK set has been fetched yet, a token waits for the
+ * first fetch. A token whose key ID is not in the cached JWK set, e.g. after a key rotation, causes an immediate
+ * refresh, unless the JWK set has been fetched within the minimum refresh interval.
+ * <p>
+ * At most one fetch per issuer is in progress at any time: all callers that need a refresh share the same
+ * {@link CompletableFuture}. The requests are sent asynchronously, so no thread is blocked by a slow identity provider
+ * except a token that has to wait for the very first JWK set. If no JWK set URI is given, it is looked up with
+ * OpenID Connect discovery before the first fetch, so creating the source never waits for the identity provider.
+ * <p>
+ * A failed fetch is retried in the background with an exponential backoff and some jitter, starting with the
+ * configured initial delay, until a fetch succeeds. The state of the last fetch is available for health checks.
+ *
+ * @see JwkSetCache
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+final class CachingJwkSource implements JWKSource<SecurityContext>
+{
+    private static final Logger log = LoggerFactory.getLogger(CachingJwkSource.class);
+    private static final String DISCOVERY_PATH = "/.well-known/openid-configuration";
+
+    private final String issuer;
+    private final HttpClient httpClient;
+    private final ScheduledExecutorService scheduler;
+    private final JwkSetCacheConfiguration configuration;
+    private final AuthenticatedUserMetrics metrics;
+    private final Consumer<CachingJwkSource> onStart;
+    private final Consumer<CachingJwkSource> onStop;
+    private final AtomicReference<CompletableFuture<JWKSet>> inFlightRefresh = new AtomicReference<>();
+    private final AtomicBoolean retryScheduled = new AtomicBoolean();
+
+    private volatile URI jwkSetUri;
+    private volatile CachedJwkSet cachedJwkSet;
+    private volatile long lastAccess = System.nanoTime();
+    private volatile ScheduledFuture<?> refreshTask;
+    private volatile int consecutiveFailures;
+    private volatile Throwable lastError;
+    private volatile boolean closed;
+
+    CachingJwkSource(String issuer,
+                     URI jwkSetUri,
+                     HttpClient httpClient,
+                     ScheduledExecutorService scheduler,
+                     JwkSetCacheConfiguration configuration,
+                     AuthenticatedUserMetrics metrics,
+                     Consumer<CachingJwkSource> onStart,
+                     Consumer<CachingJwkSource> onStop)
+    {
+        this.issuer = issuer;
+        this.jwkSetUri = jwkSetUri;
+        this.httpClient = httpClient;
+        this.scheduler = scheduler;
+        this.configuration = configuration;
+        this.metrics = metrics;
+        this.onStart = onStart;
+        this.onStop = onStop;
+    }
+
+    /**
+     * Fetches the JWK set ahead and schedules its background refresh.
+     */
+    void start()
+    {
+        start(true);
+    }
+
+    private void start(boolean prefetch)
+    {
+        onStart.accept(this);
+        if (prefetch)
+            refresh();
+        scheduleRefresh();
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) throws KeySourceException
+    {
+        long now = System.nanoTime();
+        lastAccess = now;
+
+        var cached = cachedJwkSet;
+        if (cached == null)
+            cached = await(refresh());
+        else if (now - cached.fetchedAt > 2 * configuration.getRefreshInterval().toNanos())
+            refresh();
+
+        if (refreshTask == null && !closed)
+            start(false);
+
+        var keys = jwkSelector.select(cached.jwkSet);
+        if (!keys.isEmpty())
+            return keys;
+
+        metrics.recordUnknownKeyId(issuer);
+        if (now - cached.fetchedAt < configuration.getMinimumRefreshInterval().toNanos())
+            return keys;
+
+        log.debug("No matching key in the JWK set of issuer '{}', refreshing it", issuer);
+        return jwkSelector.select(await(refresh()).jwkSet);
+    }
+
+    /**
+     * @return The cached JWK set or {@code null} if it has not been fetched yet.
+     */
+    JWKSet getJwkSet()
+    {
+        var cached = cachedJwkSet;
+        return cached != null ? cached.jwkSet : null;
+    }
+
+    /**
+     * @return The issuer of this source.
+     */
+    String getIssuer()
+    {
+        return issuer;
+    }
+
+    /**
+     * @return The error of the last fetch or {@code null} if the last fetch has succeeded or no fetch has completed yet.
+     */
+    Throwable getLastError()
+    {
+        return lastError;
+    }
+
+    /**
+     * Starts a refresh of the JWK set, unless a refresh is already in progress.
+     *
+     * @return The refresh in progress.
+     */
+    CompletableFuture<CachedJwkSet> refresh()
+    {
+        while (true)
+        {
+            var inFlight = inFlightRefresh.get();
+            if (inFlight != null)
+                return inFlight.thenApply(jwkSet -> cachedJwkSet);
+
+            var refresh = new CompletableFuture<JWKSet>();
+            if (!inFlightRefresh.compareAndSet(null, refresh))
+                continue;
+
+            long startTime = metrics.startTime();
+            resolveJwkSetUri()
+                    .thenCompose(this::fetchJwkSet)
+                    .whenComplete((jwkSet, error) ->
+                    {
+                        if (error == null)
+                        {
+                            cachedJwkSet = new CachedJwkSet(jwkSet, System.nanoTime());
+                            consecutiveFailures = 0;
+                            lastError = null;
+                        }
+                        else
+                        {
+                            log.warn("Failed to fetch the JWK set of issuer '{}': {}", issuer, rootCause(error).getMessage());
+                            consecutiveFailures++;
+                            lastError = rootCause(error);
+                            scheduleRetry();
+                        }
+
+                        metrics.recordJwkSetRefresh(issuer, startTime, error == null);
+                        inFlightRefresh.set(null);
+
+                        if (error == null)
+                            refresh.complete(jwkSet);
+                        else
+                            refresh.completeExceptionally(rootCause(error));
+                    });
+
+            return refresh.thenApply(jwkSet -> cachedJwkSet);
+        }
+    }
+
+    private void scheduleRefresh()
+    {
+        long interval = configuration.getRefreshInterval().toNanos();
+        synchronized (this)
+        {
+            if (refreshTask == null)
+                refreshTask = scheduler.scheduleWithFixedDelay(this::refreshInBackground, interval, interval, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void scheduleRetry()
+    {
+        if (closed || scheduler.isShutdown() || !retryScheduled.compareAndSet(false, true))
+            return;
+
+        long initialDelay = configuration.getRetryInitialDelay().toNanos();
+        long delay = Math.min(initialDelay << Math.min(consecutiveFailures - 1, 30), configuration.getRetryMaxDelay().toNanos());
+        delay += (long) (delay * 0.2 * ThreadLocalRandom.current().nextDouble());
+
+        log.debug("Retrying to fetch the JWK set of issuer '{}' in {} ms", issuer, TimeUnit.NANOSECONDS.toMillis(delay));
+        scheduler.schedule(this::retry, delay, TimeUnit.NANOSECONDS);
+    }
+
+    private void retry()
+    {
+        retryScheduled.set(false);
+        if (System.nanoTime() - lastAccess > configuration.getIdleTimeout().toNanos())
+        {
+            log.debug("JWK set of issuer '{}' has not been used for {}, giving up to fetch it", issuer, configuration.getIdleTimeout());
+            stop();
+            return;
+        }
+
+        refresh();
+    }
+
+    private void refreshInBackground()
+    {
+        if (System.nanoTime() - lastAccess > configuration.getIdleTimeout().toNanos())
+        {
+            log.debug("JWK set of issuer '{}' has not been used for {}, stopping its refresh", issuer, configuration.getIdleTimeout());
+            stop();
+            return;
+        }
+
+        refresh();
+    }
+
+    /**
+     * Stops the background refresh. It is started again by the next access.
+     */
+    synchronized void stop()
+    {
+        if (refreshTask != null)
+        {
+            refreshTask.cancel(false);
+            refreshTask = null;
+        }
+
+        onStop.accept(this);
+    }
+
+    /**
+     * Stops the background refresh for good, e.g. because the decoder of the issuer has been removed. Unlike after
+     * {@link #stop()}, the refresh is not started again by a later access.
+     */
+    void close()
+    {
+        closed = true;
+        stop();
+    }
+
+    private CompletableFuture<URI> resolveJwkSetUri()
+    {
+        var uri = jwkSetUri;
+        if (uri != null)
+            return CompletableFuture.completedFuture(uri);
+
+        var discoveryUri = URI.create(issuer.endsWith("/") ? issuer.substring(0, issuer.length() - 1) + DISCOVERY_PATH : issuer + DISCOVERY_PATH);
+        return send(discoveryUri).thenApply(body ->
+        {
+            try
+            {
+                var metadata = JSONObjectUtils.parse(body);
+                if (!issuer.equals(metadata.get("issuer")))
+                    throw new IllegalStateException("Discovered issuer '" + metadata.get("issuer") + "' does not match '" + issuer + "'");
+
+                var discovered = URI.create(JSONObjectUtils.getString(metadata, "jwks_uri"));
+                jwkSetUri = discovered;
+                return discovered;
+            }
+            catch (ParseException e)
+            {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    private CompletableFuture<JWKSet> fetchJwkSet(URI uri)
+    {
+        return send(uri).thenApply(body ->
+        {
+            try
+            {
+                return JWKSet.parse(body);
+            }
+            catch (ParseException e)
+            {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    private CompletableFuture<String> send(URI uri)
+    {
+        var request = HttpRequest.newBuilder(uri)
+                .timeout(configuration.getTimeout())
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(response ->
+        {
+            if (response.statusCode() != 200)
+                throw new IllegalStateException("Request to '" + uri + "' failed with status " + response.statusCode());
+
+            return response.body();
+        });
+    }
+
+    private CachedJwkSet await(CompletableFuture<CachedJwkSet> refresh) throws KeySourceException
+    {
+        try
+        {
+            return refresh.get(configuration.getTimeout().toMillis() * 2, TimeUnit.MILLISECONDS);
+        }
+        catch (ExecutionException e)
+        {
+            throw new KeySourceException("Failed to fetch the JWK set of issuer '" + issuer + "'", rootCause(e));
+        }
+        catch (TimeoutException e)
+        {
+            throw new KeySourceException("Timed out fetching the JWK set of issuer '" + issuer + "'", e);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new KeySourceException("Interrupted while fetching the JWK set of issuer '" + issuer + "'", e);
+        }
+    }
+
+    private static Throwable rootCause(Throwable error)
+    {
+        var cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null)
+            cause = cause.getCause();
+
+        return cause;
+    }
+
+    record CachedJwkSet(JWKSet jwkSet, long fetchedAt) {}
+}
@@ -0,0 +1,185 @@
+package rize.os.security.commons;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Coerces raw claim values, as they are parsed from a JWT, into the Java types used by the {@link AuthenticatedUser}.
+ * <p>
+ * The values are checked and, where necessary, converted directly, without any intermediate representation. Each
+ * method returns {@code null} if the value is {@code null} or cannot be coerced into the requested type. Values of
+ * structured types (maps, collections and timestamps) that do not match are logged as a warning, as they usually
+ * point to a misconfigured claim mapping.
+ *
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+final class ClaimCoercion
+{
+    private static final Logger log = LoggerFactory.getLogger(ClaimCoercion.class);
+
+    private ClaimCoercion() {}
+
+    /**
+     * @param value The raw claim value.
+     * @return The value if it is a {@link String}, otherwise {@code null}.
+     */
+    @Nullable
+    static String asString(@Nullable Object value)
+    {
+        return value instanceof String string ? string : null;
+    }
+
+    /**
+     * @param value The raw claim value.
+     * @return The value if it is a {@link Boolean} or the strings {@code "true"} or {@code "false"}, otherwise {@code null}.
+     */
+    @Nullable
+    static Boolean asBoolean(@Nullable Object value)
+    {
+        if (value instanceof Boolean bool)
+            return bool;
+        if ("true".equalsIgnoreCase(asString(value)))
+            return Boolean.TRUE;
+        if ("false".equalsIgnoreCase(asString(value)))
+            return Boolean.FALSE;
+
+        return null;
+    }
+
+    /**
+     * Coerces a timestamp claim. Numbers and numeric strings are interpreted as seconds since the epoch, as defined
+     * for JWT {@code NumericDate} values. Other strings must be ISO-8601 instants.
+     *
+     * @param claimName The name of the claim, used for logging.
+     * @param value     The raw claim value.
+     * @return The coerced {@link Instant} or {@code null}.
+     */
+    @Nullable
+    static Instant asInstant(String claimName, @Nullable Object value)
+    {
+        try
+        {
+            if (value == null || value instanceof Instant)
+                return (Instant) value;
+            if (value instanceof Number number)
+                return Instant.ofEpochSecond(number.longValue());
+            if (value instanceof Date date)
+                return date.toInstant();
+            if (value instanceof String string && !string.isEmpty())
+                return isDigits(string) ? Instant.ofEpochSecond(Long.parseLong(string)) : Instant.parse(string);
+        }
+        catch (DateTimeException | NumberFormatException e)
+        {
+            log.warn("Failed to convert claim '{}' to type '{}': {}", claimName, Instant.class.getName(), e.getMessage());
+            return null;
+        }
+
+        warnMismatch(claimName, value, Instant.class);
+        return null;
+    }
+
+    /**
+     * Coerces a JSON object claim. The map is returned as is, if all of its keys are strings.
+     *
+     * @param claimName The name of the claim, used for logging.
+     * @param value     The raw claim value.
+     * @return The map or {@code null}.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> asMap(String claimName, @Nullable Object value)
+    {
+        if (value == null)
+            return null;
+
+        if (value instanceof Map<?, ?> map)
+        {
+            for (var key : map.keySet())
+            {
+                if (!(key instanceof String))
+                {
+                    warnMismatch(claimName, value, Map.class);
+                    return null;
+                }
+            }
+
+            return (Map<String, Object>) map;
+        }
+
+        warnMismatch(claimName, value, Map.class);
+        return null;
+    }
+
+    /**
+     * Coerces a JSON array claim into a collection of strings. Numbers and booleans within the array are converted
+     * into their string representation. The collection is returned as is, if all of its elements are strings.
+     *
+     * @param claimName The name of the claim, used for logging.
+     * @param value     The raw claim value.
+     * @return The collection of strings or {@code null}. Must not be modified.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    static Collection<String> asStringCollection(String claimName, @Nullable Object value)
+    {
+        if (value == null)
+            return null;
+
+        Collection<?> collection;
+        if (value instanceof Collection<?> c)
+            collection = c;
+        else if (value instanceof Object[] array)
+            collection = Arrays.asList(array);
+        else
+        {
+            warnMismatch(claimName, value, Collection.class);
+            return null;
+        }
+
+        boolean allStrings = true;
+        for (var element : collection)
+        {
+            if (element instanceof String)
+                continue;
+            if (!(element instanceof Number) && !(element instanceof Boolean))
+            {
+                warnMismatch(claimName, value, Collection.class);
+                return null;
+            }
+            allStrings = false;
+        }
+
+        if (allStrings)
+            return (Collection<String>) collection;
+
+        List<String> strings = new ArrayList<>(collection.size());
+        for (var element : collection)
+            strings.add(String.valueOf(element));
+
+        return strings;
+    }
+
+    private static boolean isDigits(String string)
+    {
+        for (int i = 0; i < string.length(); i++)
+            if (!Character.isDigit(string.charAt(i)))
+                return false;
+
+        return true;
+    }
+
+    private static void warnMismatch(String claimName, Object value, Class<?> type)
+    {
+        log.warn("Failed to convert claim '{}' to type '{}': unexpected value of type '{}'", claimName, type.getName(), value.getClass().getName());
+    }
+}
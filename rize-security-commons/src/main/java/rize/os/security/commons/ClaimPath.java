@@ -0,0 +1,224 @@
+package rize.os.security.commons;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * A pre-compiled, dot-separated path to a (possibly nested) claim of a JWT, e.g. {@code resource_access.rize-app.roles}.
+ * <p>
+ * The path is split into its segments once when it is compiled, so resolving it against the claims of a token is a
+ * plain walk through the nested maps without any regex or string work. A path may contain a single variable segment
+ * such as {@code ${clientId}}, whose value is supplied when the path is resolved.
+ * <p>
+ * Instances of this class are immutable and can safely be shared between threads.
+ *
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public final class ClaimPath
+{
+    private static final String VARIABLE_PREFIX = "${";
+    private static final String VARIABLE_SUFFIX = "}";
+
+    private final String path;
+    private final String[] segments;
+    private final int variableIndex;
+    private final String variableName;
+    private final String variablePrefix;
+    private final String variableSuffix;
+
+    private ClaimPath(String path, String[] segments, int variableIndex, String variableName, String variablePrefix, String variableSuffix)
+    {
+        this.path = path;
+        this.segments = segments;
+        this.variableIndex = variableIndex;
+        this.variableName = variableName;
+        this.variablePrefix = variablePrefix;
+        this.variableSuffix = variableSuffix;
+    }
+
+    /**
+     * Compiles the given dot-separated claim path.
+     *
+     * @param path The claim path, e.g. {@code resource_access.${clientId}.roles}. Must not be {@code null} or blank.
+     * @return The compiled {@link ClaimPath}.
+     * @throws IllegalArgumentException if the path is blank, contains an unterminated variable or more than one variable.
+     */
+    public static ClaimPath compile(@NonNull String path)
+    {
+        if (path == null || path.isBlank())
+            throw new IllegalArgumentException("Claim path must not be blank");
+
+        String[] segments = path.split("\\.");
+        int variableIndex = -1;
+        String variableName = null;
+        String variablePrefix = null;
+        String variableSuffix = null;
+
+        for (int i = 0; i < segments.length; i++)
+        {
+            int start = segments[i].indexOf(VARIABLE_PREFIX);
+            if (start < 0)
+                continue;
+
+            int end = segments[i].indexOf(VARIABLE_SUFFIX, start);
+            if (end < 0)
+                throw new IllegalArgumentException("Claim path '" + path + "' contains an unterminated variable");
+            if (variableIndex >= 0 || segments[i].indexOf(VARIABLE_PREFIX, end) >= 0)
+                throw new IllegalArgumentException("Claim path '" + path + "' must not contain more than one variable");
+
+            variableIndex = i;
+            variableName = segments[i].substring(start + VARIABLE_PREFIX.length(), end);
+            variablePrefix = segments[i].substring(0, start);
+            variableSuffix = segments[i].substring(end + VARIABLE_SUFFIX.length());
+        }
+
+        return new ClaimPath(path, segments, variableIndex, variableName, variablePrefix, variableSuffix);
+    }
+
+    /**
+     * Resolves this path against the given claims.
+     *
+     * @param claims The claims of the token.
+     * @return The value of the claim or {@code null} if the claim (or one of its parents) is not present.
+     * @throws IllegalStateException if this path contains a variable.
+     */
+    @Nullable
+    public Object resolve(@NonNull Map<String, Object> claims)
+    {
+        if (variableIndex >= 0)
+            throw new IllegalStateException("Claim path '" + path + "' requires a value for variable '" + variableName + "'");
+
+        return resolve(claims, null);
+    }
+
+    /**
+     * Resolves this path against the given claims, substituting the variable segment with the given value.
+     *
+     * @param claims        The claims of the token.
+     * @param variableValue The value of the variable segment. Ignored if this path has no variable.
+     * @return The value of the claim or {@code null} if the claim (or one of its parents) is not present.
+     */
+    @Nullable
+    public Object resolve(@NonNull Map<String, Object> claims, @Nullable String variableValue)
+    {
+        Object currentValue = claims;
+
+        for (int i = 0; i < segments.length; i++)
+        {
+            if (!(currentValue instanceof Map<?, ?> map))
+                return null;
+
+            currentValue = map.get(i == variableIndex ? variableSegment(variableValue) : segments[i]);
+            if (currentValue == null)
+                return null;
+        }
+
+        return currentValue;
+    }
+
+    /**
+     * Resolves this path for every value of its variable segment that is present in the given claims.
+     * <p>
+     * The claim at the variable segment must be a JSON object. Each of its keys that matches the variable segment is
+     * a value of the variable, and the rest of the path is resolved against the value of that key. This walks the
+     * claims once, without resolving the path from the root for every key.
+     *
+     * @param claims   The claims of the token.
+     * @param consumer Receives the value of the variable and the resolved, non-{@code null} value of each claim.
+     * @throws IllegalStateException if this path does not contain a variable.
+     */
+    public void resolveEach(@NonNull Map<String, Object> claims, @NonNull BiConsumer<String, Object> consumer)
+    {
+        if (variableIndex < 0)
+            throw new IllegalStateException("Claim path '" + path + "' does not contain a variable");
+
+        Object parent = claims;
+        for (int i = 0; i < variableIndex && parent != null; i++)
+            parent = parent instanceof Map<?, ?> map ? map.get(segments[i]) : null;
+
+        if (!(parent instanceof Map<?, ?> entries))
+            return;
+
+        for (var entry : entries.entrySet())
+        {
+            if (!(entry.getKey() instanceof String key) || !matchesVariableSegment(key))
+                continue;
+
+            Object currentValue = entry.getValue();
+            for (int i = variableIndex + 1; i < segments.length && currentValue != null; i++)
+                currentValue = currentValue instanceof Map<?, ?> map ? map.get(segments[i]) : null;
+
+            if (currentValue != null)
+                consumer.accept(key.substring(variablePrefix.length(), key.length() - variableSuffix.length()), currentValue);
+        }
+    }
+
+    private boolean matchesVariableSegment(String key)
+    {
+        return key.length() >= variablePrefix.length() + variableSuffix.length()
+                && key.startsWith(variablePrefix)
+                && key.endsWith(variableSuffix);
+    }
+
+    private String variableSegment(String variableValue)
+    {
+        String value = Objects.requireNonNullElse(variableValue, "");
+        if (variablePrefix.isEmpty() && variableSuffix.isEmpty())
+            return value;
+
+        return variablePrefix + value + variableSuffix;
+    }
+
+    /**
+     * @return The original, uncompiled path.
+     */
+    public String getPath()
+    {
+        return path;
+    }
+
+    /**
+     * @return {@code true} if this path contains a variable segment, {@code false} otherwise.
+     */
+    public boolean hasVariable()
+    {
+        return variableIndex >= 0;
+    }
+
+    /**
+     * @return The name of the variable of this path or {@code null} if the path has no variable.
+     */
+    @Nullable
+    public String getVariableName()
+    {
+        return variableName;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+            return true;
+        if (!(o instanceof ClaimPath other))
+            return false;
+
+        return path.equals(other.path);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return path.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ClaimPath[" + path + ", segments=" + Arrays.toString(segments) + ']';
+    }
+}
@@ -0,0 +1,165 @@
+package rize.os.security.commons;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Creates {@link JwtDecoder}s that verify tokens against JWK sets, which are cached in memory and refreshed in the
+ * background, see {@link CachingJwkSource}.
+ * <p>
+ * The decoders created by Spring Security fetch the JWK set of an issuer on the request path, whenever their cache has
+ * expired, so a slow JWKS endpoint or a key rotation of the identity provider shows up as request latency. The
+ * decoders of this cache fetch the JWK set ahead when they are created and keep it up to date in the background, so
+ * requests only wait for the identity provider if its JWK set could never be fetched so far.
+ * <p>
+ * All JWK sets are refreshed by a single background thread, which only starts the requests. The requests themselves
+ * are sent asynchronously. The cache must be {@linkplain #close() closed} to stop the background thread.
+ * <p>
+ * Creating a decoder never waits for the identity provider: discovery and the first fetch run in the background and
+ * are retried with a backoff until they succeed. Whether the JWK sets could be fetched is reported by
+ * {@link #getUnavailableIssuers()}, e.g. for a health check, instead of failing the startup of the application.
+ *
+ * @see JwkSetCacheConfiguration
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public class JwkSetCache implements AutoCloseable
+{
+    private final JwkSetCacheConfiguration configuration;
+    private final AuthenticatedUserMetrics metrics;
+    private final HttpClient httpClient;
+    private final ScheduledExecutorService scheduler;
+    private final Set<CachingJwkSource> activeSources = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a new cache with the given configuration.
+     *
+     * @param configuration The configuration of the cache.
+     * @param metrics       The metrics the fetches of JWK sets are recorded in. If {@code null}, nothing is recorded.
+     */
+    public JwkSetCache(@NonNull JwkSetCacheConfiguration configuration, @Nullable AuthenticatedUserMetrics metrics)
+    {
+        this.configuration = configuration;
+        this.metrics = metrics != null ? metrics : AuthenticatedUserMetrics.NOOP;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(configuration.getTimeout())
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable ->
+        {
+            var thread = new Thread(runnable, "rize-jwk-set-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Creates a decoder for the tokens of the given issuer and starts fetching its JWK set.
+     * <p>
+     * The decoder verifies the signature of a token with the RSA and EC keys of the issuer and validates its
+     * timestamps and its {@code iss} claim. The decoder is {@link AutoCloseable}: closing it stops the refresh of the
+     * JWK set for good, e.g. when it is evicted from the cache of a {@link MultiIssuerJwtDecoder}.
+     *
+     * @param issuer    The issuer URI.
+     * @param jwkSetUri The URI of the JWK set of the issuer. If {@code null}, it is looked up with OpenID Connect
+     *                  discovery before the first fetch.
+     * @return The decoder.
+     */
+    public JwtDecoder createDecoder(@NonNull String issuer, @Nullable String jwkSetUri)
+    {
+        var jwkSource = createJwkSource(issuer, jwkSetUri);
+        jwkSource.start();
+
+        var algorithms = new HashSet<JWSAlgorithm>();
+        algorithms.addAll(JWSAlgorithm.Family.RSA);
+        algorithms.addAll(JWSAlgorithm.Family.EC);
+
+        var jwtProcessor = new DefaultJWTProcessor<SecurityContext>();
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(algorithms, jwkSource));
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {});
+
+        var decoder = new NimbusJwtDecoder(jwtProcessor);
+        decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(issuer));
+
+        return new ClosableJwtDecoder(decoder, jwkSource);
+    }
+
+    CachingJwkSource createJwkSource(String issuer, String jwkSetUri)
+    {
+        return new CachingJwkSource(issuer, jwkSetUri != null ? URI.create(jwkSetUri) : null, httpClient, scheduler, configuration, metrics,
+                activeSources::add, activeSources::remove);
+    }
+
+    /**
+     * @return The number of issuers whose JWK sets are currently kept up to date. Issuers whose decoders have not been
+     *         used within the idle timeout are not counted.
+     */
+    public int getIssuerCount()
+    {
+        return activeSources.size();
+    }
+
+    /**
+     * Returns the issuers whose JWK sets could not be fetched so far, together with the reason of the last failure.
+     * Their decoders reject all tokens until the JWK set is fetched by one of the background retries.
+     *
+     * @return The unavailable issuers, mapped to the message of the last error. The message is {@code null} if the
+     *         first fetch is still in progress.
+     */
+    public Map<String, String> getUnavailableIssuers()
+    {
+        var unavailable = new LinkedHashMap<String, String>();
+        for (var source : activeSources)
+        {
+            if (source.getJwkSet() != null)
+                continue;
+
+            var error = source.getLastError();
+            unavailable.put(source.getIssuer(), error != null ? String.valueOf(error.getMessage()) : null);
+        }
+
+        return unavailable;
+    }
+
+    /**
+     * Stops the background refresh of all JWK sets.
+     */
+    @Override
+    public void close()
+    {
+        scheduler.shutdownNow();
+    }
+
+    private record ClosableJwtDecoder(JwtDecoder decoder, CachingJwkSource jwkSource) implements JwtDecoder, AutoCloseable
+    {
+        @Override
+        public Jwt decode(String token) throws JwtException
+        {
+            return decoder.decode(token);
+        }
+
+        @Override
+        public void close()
+        {
+            jwkSource.close();
+        }
+    }
+}
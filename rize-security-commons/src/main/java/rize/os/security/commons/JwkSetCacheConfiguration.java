@@ -0,0 +1,103 @@
+package rize.os.security.commons;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * This class is used to configure the {@link JwkSetCache}.
+ * <p>
+ * The properties of this class can be set in the application.yml or application.properties file.
+ * The prefix for the properties is {@code rize.security.jwt.jwk-set-cache}.
+ *
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+@ConfigurationProperties(prefix = "rize.security.jwt.jwk-set-cache")
+public class JwkSetCacheConfiguration
+{
+    private final Duration refreshInterval;
+    private final Duration minimumRefreshInterval;
+    private final Duration timeout;
+    private final Duration idleTimeout;
+    private final Duration retryInitialDelay;
+    private final Duration retryMaxDelay;
+
+    /**
+     * Creates a new instance of the {@link JwkSetCacheConfiguration}.
+     *
+     * @param refreshInterval        The interval in which the JWK sets are refreshed in the background. Defaults to
+     *                               five minutes.
+     * @param minimumRefreshInterval The minimum time between two fetches of a JWK set, which limits the fetches caused
+     *                               by tokens with unknown key IDs. Defaults to 30 seconds.
+     * @param timeout                The timeout of a single request to the identity provider. Defaults to five seconds.
+     * @param idleTimeout            The time after which the JWK set of an issuer whose tokens are no longer decoded
+     *                               is no longer refreshed in the background. Defaults to one hour.
+     * @param retryInitialDelay      The delay before a failed fetch is retried for the first time. The delay doubles
+     *                               with every further failure. Defaults to one second.
+     * @param retryMaxDelay          The maximum delay between two retries of a failed fetch. Defaults to one minute.
+     */
+    public JwkSetCacheConfiguration(@Nullable Duration refreshInterval,
+                                    @Nullable Duration minimumRefreshInterval,
+                                    @Nullable Duration timeout,
+                                    @Nullable Duration idleTimeout,
+                                    @Nullable Duration retryInitialDelay,
+                                    @Nullable Duration retryMaxDelay)
+    {
+        this.refreshInterval = Objects.requireNonNullElse(refreshInterval, Duration.ofMinutes(5));
+        this.minimumRefreshInterval = Objects.requireNonNullElse(minimumRefreshInterval, Duration.ofSeconds(30));
+        this.timeout = Objects.requireNonNullElse(timeout, Duration.ofSeconds(5));
+        this.idleTimeout = Objects.requireNonNullElse(idleTimeout, Duration.ofHours(1));
+        this.retryInitialDelay = Objects.requireNonNullElse(retryInitialDelay, Duration.ofSeconds(1));
+        this.retryMaxDelay = Objects.requireNonNullElse(retryMaxDelay, Duration.ofMinutes(1));
+    }
+
+    /**
+     * @return The interval in which the JWK sets are refreshed in the background.
+     */
+    public Duration getRefreshInterval()
+    {
+        return refreshInterval;
+    }
+
+    /**
+     * @return The minimum time between two fetches of a JWK set.
+     */
+    public Duration getMinimumRefreshInterval()
+    {
+        return minimumRefreshInterval;
+    }
+
+    /**
+     * @return The timeout of a single request to the identity provider.
+     */
+    public Duration getTimeout()
+    {
+        return timeout;
+    }
+
+    /**
+     * @return The time after which the JWK set of an unused issuer is no longer refreshed in the background.
+     */
+    public Duration getIdleTimeout()
+    {
+        return idleTimeout;
+    }
+
+    /**
+     * @return The delay before a failed fetch is retried for the first time.
+     */
+    public Duration getRetryInitialDelay()
+    {
+        return retryInitialDelay;
+    }
+
+    /**
+     * @return The maximum delay between two retries of a failed fetch.
+     */
+    public Duration getRetryMaxDelay()
+    {
+        return retryMaxDelay;
+    }
+}
@@ -0,0 +1,33 @@
+package rize.os.security.commons;
+
+import org.springframework.boot.actuate.autoconfigure.health.ConditionalOnEnabledHealthIndicator;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Auto-configuration of the {@link JwkSetHealthIndicator}.
+ * <p>
+ * If Spring Boot Actuator is present and a {@link JwkSetCache} is configured, the health indicator is registered as
+ * {@code jwks}, so it can be added to the readiness group with
+ * {@code management.endpoint.health.group.readiness.include=readinessState,jwks}. It can be disabled with
+ * {@code management.health.jwks.enabled=false}.
+ *
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+@AutoConfiguration
+@ConditionalOnClass(HealthIndicator.class)
+@ConditionalOnBean(JwkSetCache.class)
+@ConditionalOnEnabledHealthIndicator("jwks")
+public class JwkSetHealthAutoConfiguration
+{
+    @Bean
+    @ConditionalOnMissingBean(name = "jwksHealthIndicator")
+    JwkSetHealthIndicator jwksHealthIndicator(JwkSetCache jwkSetCache)
+    {
+        return new JwkSetHealthIndicator(jwkSetCache);
+    }
+}
@@ -0,0 +1,66 @@
+package rize.os.security.commons;
+
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.lang.NonNull;
+
+import java.util.LinkedHashMap;
+
+/**
+ * A {@link HealthIndicator} that reports whether the JWK sets of a {@link JwkSetCache} could be fetched.
+ * <p>
+ * The indicator is {@code DOWN} only if JWK sets are expected and none of them could be fetched so far, i.e. no token
+ * can be verified at all. As long as at least one issuer is available, it is {@code UP} and lists the unavailable
+ * issuers with their last error in its details. It is meant for the readiness group, so an instance only receives
+ * traffic once it can authenticate requests, while its liveness does not depend on the identity provider.
+ *
+ * @see JwkSetCache#getUnavailableIssuers()
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public class JwkSetHealthIndicator extends AbstractHealthIndicator
+{
+    static final int MAXIMUM_REPORTED_ISSUERS = 10;
+
+    private final JwkSetCache jwkSetCache;
+
+    /**
+     * Creates a new health indicator for the given cache.
+     *
+     * @param jwkSetCache The cache whose JWK sets are reported.
+     */
+    public JwkSetHealthIndicator(@NonNull JwkSetCache jwkSetCache)
+    {
+        super("JWK set health check failed");
+        this.jwkSetCache = jwkSetCache;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder)
+    {
+        int issuers = jwkSetCache.getIssuerCount();
+        var unavailable = jwkSetCache.getUnavailableIssuers();
+
+        if (issuers > 0 && unavailable.size() >= issuers)
+            builder.down();
+        else
+            builder.up();
+
+        builder.withDetail("issuers", issuers);
+        if (unavailable.isEmpty())
+            return;
+
+        var reported = new LinkedHashMap<String, String>();
+        for (var entry : unavailable.entrySet())
+        {
+            if (reported.size() == MAXIMUM_REPORTED_ISSUERS)
+                break;
+
+            reported.put(entry.getKey(), entry.getValue() != null ? entry.getValue() : "Fetching");
+        }
+
+        builder.withDetail("unavailable", reported);
+        if (unavailable.size() > reported.size())
+            builder.withDetail("unavailableCount", unavailable.size());
+    }
+}
@@ -1,22 +1,17 @@
 package rize.os.security.commons;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.oauth2.core.oidc.OidcIdToken;
-import org.springframework.security.oauth2.core.oidc.OidcUserInfo;
-import org.springframework.security.oauth2.core.oidc.StandardClaimNames;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Component;
 
-import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Converts a {@link Jwt} to an {@link AuthenticatedUser}.
@@ -28,7 +23,21 @@ import java.util.stream.Stream;
  * It uses an {@link AuthenticatedUserClaimsConfiguration} to allow flexible mapping
  * of claim names from the JWT to the standard OIDC claims and custom attributes
  * of the {@link AuthenticatedUser}. This includes user information, roles, and other
- * security-relevant data.
+ * security-relevant data. The configuration is compiled into an {@link AuthenticatedUserClaimsPlan} once, when
+ * the converter is created, so converting a token does not need to parse any claim names.
+ * <p>
+ * Only the authorities and the session ID are extracted when a token is converted. All other user information is
+ * extracted from the token on first access, see {@link LazyAuthenticatedUser}. The authorities are the shared
+ * {@link RoleAuthority} instances of the {@link RoleAuthorityRegistry}, stored in a {@link RoleAuthoritySet}. The roles
+ * the user has been granted within organisations are not part of the authorities. They are indexed per organisation
+ * on first access, see {@link AuthenticatedUser#getOrganisationRoles()}.
+ * <p>
+ * The claims configuration can be replaced at runtime with {@link #reload(AuthenticatedUserClaimsConfiguration)}. The
+ * new configuration is compiled before it is published with a single write of a {@code volatile} field, so every
+ * conversion uses either the previous or the new plan as a whole, and converting a token never takes a lock.
+ * <p>
+ * The duration of each conversion, the number of roles and all claims that could not be converted are recorded in the
+ * {@link AuthenticatedUserMetrics}.
  *
  * @see Converter
  * @see org.springframework.security.oauth2.jwt.Jwt
@@ -41,24 +50,41 @@ import java.util.stream.Stream;
 public class JwtAuthenticatedUserConverter implements Converter<Jwt, AuthenticatedUser>
 {
     private final Logger log = LoggerFactory.getLogger(JwtAuthenticatedUserConverter.class);
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private final AuthenticatedUserClaimsConfiguration claimsConfiguration;
+    private volatile AuthenticatedUserClaimsPlan claimsPlan;
+    private final AuthenticatedUserMetrics metrics;
+    private final RoleAuthorityRegistry roleAuthorityRegistry = RoleAuthorityRegistry.getDefault();
 
     /**
      * Constructs a new JwtAuthenticatedUserConverter with the specified claims configuration.
      *
      * @param claimsConfiguration The configuration that defines how to map claims from the JWT.
+     * @throws IllegalArgumentException if one of the configured claim names is invalid.
      */
     public JwtAuthenticatedUserConverter(AuthenticatedUserClaimsConfiguration claimsConfiguration)
     {
-        this.claimsConfiguration = claimsConfiguration;
+        this(claimsConfiguration, null);
+    }
+
+    /**
+     * Constructs a new JwtAuthenticatedUserConverter with the specified claims configuration and metrics.
+     *
+     * @param claimsConfiguration The configuration that defines how to map claims from the JWT.
+     * @param metrics             The metrics the conversions are recorded in. If {@code null}, nothing is recorded.
+     * @throws IllegalArgumentException if one of the configured claim names is invalid.
+     */
+    @Autowired
+    public JwtAuthenticatedUserConverter(AuthenticatedUserClaimsConfiguration claimsConfiguration,
+                                         @Nullable AuthenticatedUserMetrics metrics)
+    {
+        this.metrics = metrics != null ? metrics : AuthenticatedUserMetrics.NOOP;
+        this.claimsPlan = AuthenticatedUserClaimsPlan.compile(claimsConfiguration, this.metrics);
     }
 
     /**
      * Converts the source {@link Jwt} object into an {@link AuthenticatedUser}.
      * <p>
-     * This method orchestrates the extraction of standard OIDC claims, custom claims,
-     * and authorities (roles) from the JWT to fully populate the {@link AuthenticatedUser} object.
+     * This method extracts the authorities (roles) and the session ID from the JWT right away. The standard OIDC
+     * claims of the returned {@link AuthenticatedUser} are extracted when they are accessed for the first time.
      *
      * @param jwt The source {@link Jwt} token. Cannot be {@code null}.
      * @return An {@link AuthenticatedUser} instance populated with data from the JWT. Never {@code null}.
@@ -67,104 +93,55 @@ public class JwtAuthenticatedUserConverter implements Converter<Jwt, Authenticat
     @Override
     public AuthenticatedUser convert(@NonNull Jwt jwt)
     {
-        log.debug("Converting JWT to AuthenticatedUser");
-
-        Map<String, Object> userInfoClaims = new HashMap<>();
-        addClaim(userInfoClaims, StandardClaimNames.SUB, jwt, claimsConfiguration.getUserId(), String.class);
-        addClaim(userInfoClaims, StandardClaimNames.PREFERRED_USERNAME, jwt, claimsConfiguration.getUsername(), String.class);
-        addClaim(userInfoClaims, StandardClaimNames.EMAIL, jwt, claimsConfiguration.getEmail(), String.class);
-        addClaim(userInfoClaims, StandardClaimNames.EMAIL_VERIFIED, jwt, claimsConfiguration.getEmailVerified(), Boolean.class);
-        addClaim(userInfoClaims, StandardClaimNames.GIVEN_NAME, jwt, claimsConfiguration.getFirstName(), String.class);
-        addClaim(userInfoClaims, StandardClaimNames.MIDDLE_NAME, jwt, claimsConfiguration.getMiddleName(), String.class);
-        addClaim(userInfoClaims, StandardClaimNames.FAMILY_NAME, jwt, claimsConfiguration.getLastName(), String.class);
-        addClaim(userInfoClaims, StandardClaimNames.NAME, jwt, claimsConfiguration.getFullName(), String.class);
-        addClaim(userInfoClaims, StandardClaimNames.PROFILE, jwt, claimsConfiguration.getProfile(), String.class);
-        addClaim(userInfoClaims, StandardClaimNames.PICTURE, jwt, claimsConfiguration.getPicture(), String.class);
-        addClaim(userInfoClaims, StandardClaimNames.WEBSITE, jwt, claimsConfiguration.getWebsite(), String.class);
-        addClaim(userInfoClaims, StandardClaimNames.GENDER, jwt, claimsConfiguration.getGender(), String.class);
-        addClaim(userInfoClaims, StandardClaimNames.BIRTHDATE, jwt, claimsConfiguration.getBirthdate(), String.class);
-        addClaim(userInfoClaims, StandardClaimNames.ZONEINFO, jwt, claimsConfiguration.getZoneInfo(), String.class);
-        addClaim(userInfoClaims, StandardClaimNames.LOCALE, jwt, claimsConfiguration.getLocale(), String.class);
-        addClaim(userInfoClaims, StandardClaimNames.PHONE_NUMBER, jwt, claimsConfiguration.getPhoneNumber(), String.class);
-        addClaim(userInfoClaims, StandardClaimNames.PHONE_NUMBER_VERIFIED, jwt, claimsConfiguration.getPhoneNumberVerified(), Boolean.class);
-        addClaim(userInfoClaims, StandardClaimNames.ADDRESS, jwt, claimsConfiguration.getAddress(), new TypeReference<Map<String, Object>>() {});
-        addClaim(userInfoClaims, StandardClaimNames.UPDATED_AT, jwt, claimsConfiguration.getUpdatedAt(), String.class);
-
-        OidcUserInfo userInfo = new OidcUserInfo(userInfoClaims);
-        OidcIdToken idToken = new OidcIdToken(jwt.getTokenValue(), jwt.getIssuedAt(), jwt.getExpiresAt(), jwt.getClaims());
-        Set<GrantedAuthority> authorities = extractAuthorities(jwt);
-        String sessionId = extractClaim(jwt, claimsConfiguration.getSessionId(), String.class).orElse(null);
-
-        return new AuthenticatedUser(userInfo, idToken, authorities, sessionId);
-    }
-
-    private <T> void addClaim(Map<String, Object> claims, String key, Jwt jwt, String claimName, Class<T> type)
-    {
-        extractClaim(jwt, claimName, type).ifPresent(value -> claims.put(key, value));
-    }
-
-    private <T> void addClaim(Map<String, Object> claims, String key, Jwt jwt, String claimName, TypeReference<T> typeRef)
-    {
-        extractClaim(jwt, claimName, typeRef).ifPresent(value -> claims.put(key, value));
+        return convert(jwt, claimsPlan);
     }
 
-    private Set<GrantedAuthority> extractAuthorities(Jwt jwt)
+    /**
+     * Converts the given token with the given claims plan.
+     *
+     * @param jwt        The source {@link Jwt} token.
+     * @param claimsPlan A claims plan that has been returned by {@link #getClaimsPlan()}.
+     * @return An {@link AuthenticatedUser} instance populated with data from the JWT.
+     */
+    AuthenticatedUser convert(Jwt jwt, AuthenticatedUserClaimsPlan claimsPlan)
     {
-        String clientId = extractClaim(jwt, claimsConfiguration.getClientId(), String.class).orElse("");
-        String clientRolesClaimName = claimsConfiguration.getClientRoles().replace("${clientId}", clientId);
-
-        Stream<String> clientRoles = extractClaim(jwt, clientRolesClaimName, new TypeReference<Collection<String>>() {})
-                .stream()
-                .flatMap(Collection::stream)
-                .map(role -> "ROLE_" + role);
+        log.debug("Converting JWT to AuthenticatedUser");
 
-        // TODO: Hier auf die Organisations-Rollen des filtern
+        long startTime = metrics.startTime();
+        Map<String, Object> claims = jwt.getClaims();
+        Set<GrantedAuthority> authorities = roleAuthorityRegistry.authoritiesOf(claimsPlan.extractClientRoles(claims));
+        String sessionId = claimsPlan.extractSessionId(claims);
 
-        return clientRoles.map(SimpleGrantedAuthority::new).collect(Collectors.toSet());
-    }
+        var authenticatedUser = new LazyAuthenticatedUser(jwt, claimsPlan, authorities, sessionId);
+        metrics.recordConversion(startTime, authorities.size());
 
-    private <T> Optional<T> extractClaim(Jwt jwt, String claimName, TypeReference<T> typeRef)
-    {
-        return extractClaim(jwt, claimName).flatMap(claimValue ->
-        {
-            try
-            {
-                T convertedValue = objectMapper.convertValue(claimValue, typeRef);
-                return Optional.of(convertedValue);
-            }
-            catch (IllegalArgumentException e)
-            {
-                log.warn("Failed to convert claim '{}' to type '{}': {}", claimName, typeRef.getType(), e.getMessage());
-                return Optional.empty();
-            }
-        });
+        return authenticatedUser;
     }
 
-    private <T> Optional<T> extractClaim(Jwt jwt, String claimName, Class<T> type)
+    /**
+     * @return The compiled claims plan currently used by this converter.
+     */
+    public AuthenticatedUserClaimsPlan getClaimsPlan()
     {
-        return extractClaim(jwt, claimName)
-                .filter(type::isInstance)
-                .map(type::cast);
+        return claimsPlan;
     }
 
-    private Optional<Object> extractClaim(Jwt jwt, String claimName)
+    /**
+     * Replaces the claims configuration of this converter.
+     * <p>
+     * The configuration is validated and compiled on the calling thread. Only if it is valid, the compiled plan is
+     * published for all following conversions. Conversions that are already in progress finish with the previous plan.
+     *
+     * @param claimsConfiguration The new configuration that defines how to map claims from the JWT.
+     * @return The compiled claims plan that is now used by this converter.
+     * @throws IllegalArgumentException if one of the configured claim names is invalid. The previous plan is kept.
+     */
+    public AuthenticatedUserClaimsPlan reload(@NonNull AuthenticatedUserClaimsConfiguration claimsConfiguration)
     {
-        log.trace("Extracting claim '{}' from JWT", claimName);
-
-        Map<String, Object> claims = jwt.getClaims();
-        var keys = claimName.split("\\.");
-        Object currentValue = claims;
-
-        for (var key : keys)
-        {
-            if (!(currentValue instanceof Map))
-                return Optional.empty();
-
-            currentValue = ((Map<?, ?>) currentValue).get(key);
-            if (currentValue == null)
-                return Optional.empty();
-        }
+        var claimsPlan = AuthenticatedUserClaimsPlan.compile(claimsConfiguration, metrics);
+        this.claimsPlan = claimsPlan;
 
-        return Optional.ofNullable(currentValue);
+        log.info("Reloaded claims configuration");
+        return claimsPlan;
     }
 }
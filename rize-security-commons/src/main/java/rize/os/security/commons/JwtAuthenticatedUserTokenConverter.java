@@ -1,7 +1,12 @@
 package rize.os.security.commons;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Component;
 
@@ -11,6 +16,12 @@ import org.springframework.stereotype.Component;
  * This converter is used in the Spring Security configuration to transform the JWT provided by the identity provider
  * into an internal representation of the authenticated user. It relies on the {@link JwtAuthenticatedUserConverter}
  * to first extract the user details from the JWT.
+ * <p>
+ * If an {@link AuthenticatedUserCache} is available, users are only converted once per token and reused for all
+ * further requests with the same token until it expires.
+ * <p>
+ * If a {@link TokenRevocationList} is available, every token is checked against it before it is converted or taken
+ * from the cache, and revoked tokens are rejected with an {@link OAuth2AuthenticationException}.
  *
  * @author Dennis Schaefer (<a href="https://github.com/dennis-schaefer">...</a>)
  */
@@ -18,6 +29,8 @@ import org.springframework.stereotype.Component;
 public class JwtAuthenticatedUserTokenConverter implements Converter<Jwt, AuthenticatedUserToken>
 {
     private final JwtAuthenticatedUserConverter jwtAuthenticatedUserConverter;
+    private final AuthenticatedUserCache authenticatedUserCache;
+    private final TokenRevocationList tokenRevocationList;
 
     /**
      * Constructs a new {@code JwtAuthenticatedUserTokenConverter} with the specified converter.
@@ -26,8 +39,37 @@ public class JwtAuthenticatedUserTokenConverter implements Converter<Jwt, Authen
      *                                      This converter is responsible for mapping the claims from the JWT to the user's details.
      */
     public JwtAuthenticatedUserTokenConverter(JwtAuthenticatedUserConverter jwtAuthenticatedUserConverter)
+    {
+        this(jwtAuthenticatedUserConverter, null);
+    }
+
+    /**
+     * Constructs a new {@code JwtAuthenticatedUserTokenConverter} with the specified converter and cache.
+     *
+     * @param jwtAuthenticatedUserConverter The converter used to transform a {@link Jwt} into an {@link AuthenticatedUser}.
+     * @param authenticatedUserCache        The cache of already converted users. If {@code null}, every token is converted.
+     */
+    public JwtAuthenticatedUserTokenConverter(JwtAuthenticatedUserConverter jwtAuthenticatedUserConverter,
+                                              @Nullable AuthenticatedUserCache authenticatedUserCache)
+    {
+        this(jwtAuthenticatedUserConverter, authenticatedUserCache, null);
+    }
+
+    /**
+     * Constructs a new {@code JwtAuthenticatedUserTokenConverter} with the specified converter, cache and revocation list.
+     *
+     * @param jwtAuthenticatedUserConverter The converter used to transform a {@link Jwt} into an {@link AuthenticatedUser}.
+     * @param authenticatedUserCache        The cache of already converted users. If {@code null}, every token is converted.
+     * @param tokenRevocationList           The list the tokens are checked against. If {@code null}, no token is checked.
+     */
+    @Autowired
+    public JwtAuthenticatedUserTokenConverter(JwtAuthenticatedUserConverter jwtAuthenticatedUserConverter,
+                                              @Nullable AuthenticatedUserCache authenticatedUserCache,
+                                              @Nullable TokenRevocationList tokenRevocationList)
     {
         this.jwtAuthenticatedUserConverter = jwtAuthenticatedUserConverter;
+        this.authenticatedUserCache = authenticatedUserCache;
+        this.tokenRevocationList = tokenRevocationList;
     }
 
     /**
@@ -39,11 +81,29 @@ public class JwtAuthenticatedUserTokenConverter implements Converter<Jwt, Authen
      *
      * @param jwt The source {@link Jwt} object, must not be {@code null}.
      * @return The converted {@link AuthenticatedUserToken}, containing the authenticated user's details.
+     * @throws OAuth2AuthenticationException If the token has been revoked.
      */
     @NonNull
     @Override
     public AuthenticatedUserToken convert(@NonNull Jwt jwt)
     {
-        return new AuthenticatedUserToken(jwtAuthenticatedUserConverter.convert(jwt));
+        if (tokenRevocationList != null && tokenRevocationList.isRevoked(jwt))
+            throw new OAuth2AuthenticationException(new OAuth2Error(OAuth2ErrorCodes.INVALID_TOKEN, "The token has been revoked", null));
+
+        if (authenticatedUserCache == null)
+            return new AuthenticatedUserToken(jwtAuthenticatedUserConverter.convert(jwt));
+
+        var claimsPlan = jwtAuthenticatedUserConverter.getClaimsPlan();
+        var authenticatedUser = authenticatedUserCache.get(jwt, claimsPlan, token -> jwtAuthenticatedUserConverter.convert(token, claimsPlan));
+        return new AuthenticatedUserToken(authenticatedUser);
+    }
+
+    /**
+     * @return {@code true} if converting the given token queries the {@link TokenRevocationList}, {@code false} if it
+     *         only reads the token and the cache.
+     */
+    boolean mightBlock(@NonNull Jwt jwt)
+    {
+        return tokenRevocationList != null && tokenRevocationList.mightBeRevoked(jwt);
     }
 }
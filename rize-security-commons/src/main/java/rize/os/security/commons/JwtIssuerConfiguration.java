@@ -0,0 +1,109 @@
+package rize.os.security.commons;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * This class is used to configure the {@link MultiIssuerJwtDecoder}, which accepts tokens of several issuers, e.g. one
+ * Keycloak realm per tenant.
+ * <p>
+ * The properties of this class can be set in the application.yml or application.properties file.
+ * The prefix for the properties is {@code rize.security.jwt.issuers}.
+ * <p>
+ * Only tokens of the allowed issuers are accepted. An allowed issuer is either an exact issuer URI or a pattern whose
+ * last segment is {@code *}, e.g. {@code https://auth.rize.os/realms/*}, which allows the issuer of every realm.
+ *
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+@ConfigurationProperties(prefix = "rize.security.jwt.issuers")
+public class JwtIssuerConfiguration
+{
+    private final boolean enabled;
+    private final List<String> allowed;
+    private final String jwkSetUri;
+    private final long maximumSize;
+    private final Duration expireAfterAccess;
+    private final Duration unavailableIssuerTimeout;
+
+    /**
+     * Creates a new instance of the {@link JwtIssuerConfiguration}.
+     *
+     * @param enabled           Whether tokens of several issuers are accepted. Defaults to {@code false}.
+     * @param allowed           The issuers whose tokens are accepted. Defaults to none.
+     * @param jwkSetUri         The URI of the JWK set of an issuer, where {@code {issuer}} is replaced with the issuer
+     *                          URI, e.g. {@code {issuer}/protocol/openid-connect/certs}. If not set, the JWK set URI is
+     *                          looked up with OpenID Connect discovery.
+     * @param maximumSize       The maximum number of issuers whose decoders are kept. Defaults to {@code 1000}.
+     * @param expireAfterAccess The time after which the decoder of an unused issuer is removed. Defaults to one hour.
+     * @param unavailableIssuerTimeout The time for which the tokens of an issuer are rejected right away after its
+     *                          discovery or the fetch of its JWK set has failed. Defaults to 30 seconds.
+     */
+    public JwtIssuerConfiguration(@Nullable Boolean enabled,
+                                  @Nullable List<String> allowed,
+                                  @Nullable String jwkSetUri,
+                                  @Nullable Long maximumSize,
+                                  @Nullable Duration expireAfterAccess,
+                                  @Nullable Duration unavailableIssuerTimeout)
+    {
+        this.enabled = Objects.requireNonNullElse(enabled, false);
+        this.allowed = List.copyOf(Objects.requireNonNullElse(allowed, List.of()));
+        this.jwkSetUri = jwkSetUri;
+        this.maximumSize = Objects.requireNonNullElse(maximumSize, 1000L);
+        this.expireAfterAccess = Objects.requireNonNullElse(expireAfterAccess, Duration.ofHours(1));
+        this.unavailableIssuerTimeout = Objects.requireNonNullElse(unavailableIssuerTimeout, Duration.ofSeconds(30));
+    }
+
+    /**
+     * @return {@code true} if tokens of several issuers are accepted, {@code false} otherwise.
+     */
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * @return The issuers and issuer patterns whose tokens are accepted.
+     */
+    public List<String> getAllowed()
+    {
+        return allowed;
+    }
+
+    /**
+     * @return The URI template of the JWK set of an issuer or {@code null} if it is looked up with discovery.
+     */
+    @Nullable
+    public String getJwkSetUri()
+    {
+        return jwkSetUri;
+    }
+
+    /**
+     * @return The maximum number of issuers whose decoders are kept.
+     */
+    public long getMaximumSize()
+    {
+        return maximumSize;
+    }
+
+    /**
+     * @return The time after which the decoder of an unused issuer is removed.
+     */
+    public Duration getExpireAfterAccess()
+    {
+        return expireAfterAccess;
+    }
+
+    /**
+     * @return The time for which the tokens of an issuer are rejected right away after its JWK set could not be
+     *         fetched.
+     */
+    public Duration getUnavailableIssuerTimeout()
+    {
+        return unavailableIssuerTimeout;
+    }
+}
@@ -0,0 +1,113 @@
+package rize.os.security.commons;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.OidcUserInfo;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An {@link AuthenticatedUser} that keeps the source {@link Jwt} and the {@link AuthenticatedUserClaimsPlan} it has
+ * been converted with, and only materializes the profile of the user when it is accessed for the first time.
+ * <p>
+ * Most requests only need the user ID and the authorities, so the {@link OidcUserInfo} and the {@link OidcIdToken}
+ * are created on first access of a profile field or the token. The {@link OrganisationRoles} are indexed on their first
+ * access as well, so users that are members of hundreds of organisations do not slow down requests that do not check
+ * them. The authorities and the session ID are extracted
+ * eagerly, as they are needed for every authorization decision.
+ * <p>
+ * The lazily created objects are published through {@code volatile} fields. Concurrent first accesses may create
+ * them more than once, but as they are immutable and built from the same token, every thread sees an equal result.
+ *
+ * @see JwtAuthenticatedUserConverter
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+final class LazyAuthenticatedUser extends AuthenticatedUser
+{
+    private final Jwt jwt;
+    private final AuthenticatedUserClaimsPlan claimsPlan;
+
+    private volatile OidcUserInfo userInfo;
+    private volatile OidcIdToken idToken;
+    private volatile OrganisationRoles organisationRoles;
+
+    /**
+     * Constructs a new {@code LazyAuthenticatedUser}.
+     *
+     * @param jwt         The source token of the user.
+     * @param claimsPlan  The claims plan that is used to extract the user info from the token.
+     * @param authorities The authorities granted to the user.
+     * @param sessionId   The session ID for the user.
+     */
+    LazyAuthenticatedUser(Jwt jwt, AuthenticatedUserClaimsPlan claimsPlan, Set<GrantedAuthority> authorities, String sessionId)
+    {
+        super(authorities, sessionId);
+        this.jwt = jwt;
+        this.claimsPlan = claimsPlan;
+    }
+
+    /**
+     * Returns the subject identifier for the user without materializing the user info.
+     *
+     * @return The user's unique subject identifier.
+     */
+    @Override
+    public String getUserId()
+    {
+        var userInfo = this.userInfo;
+        return userInfo != null ? userInfo.getSubject() : claimsPlan.extractUserId(jwt.getClaims());
+    }
+
+    @Override
+    public String getTokenValue()
+    {
+        return jwt.getTokenValue();
+    }
+
+    @Override
+    public Map<String, Object> getClaims()
+    {
+        return jwt.getClaims();
+    }
+
+    @Override
+    public OidcUserInfo getUserInfo()
+    {
+        var userInfo = this.userInfo;
+        if (userInfo == null)
+        {
+            userInfo = new OidcUserInfo(claimsPlan.extractUserInfoClaims(jwt.getClaims()));
+            this.userInfo = userInfo;
+        }
+
+        return userInfo;
+    }
+
+    @Override
+    public OidcIdToken getIdToken()
+    {
+        var idToken = this.idToken;
+        if (idToken == null)
+        {
+            idToken = new OidcIdToken(jwt.getTokenValue(), jwt.getIssuedAt(), jwt.getExpiresAt(), jwt.getClaims());
+            this.idToken = idToken;
+        }
+
+        return idToken;
+    }
+
+    @Override
+    public OrganisationRoles getOrganisationRoles()
+    {
+        var organisationRoles = this.organisationRoles;
+        if (organisationRoles == null)
+        {
+            organisationRoles = claimsPlan.extractOrganisationRoles(jwt.getClaims(), RoleAuthorityRegistry.getDefault());
+            this.organisationRoles = organisationRoles;
+        }
+
+        return organisationRoles;
+    }
+}
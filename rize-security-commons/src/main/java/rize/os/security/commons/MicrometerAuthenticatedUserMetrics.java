@@ -0,0 +1,171 @@
+package rize.os.security.commons;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.lang.NonNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the {@link AuthenticatedUserMetrics} with Micrometer.
+ * <p>
+ * The following meters are registered:
+ * <ul>
+ *     <li>{@value #DECODE_TIMER}: the time it takes to decode and verify a token</li>
+ *     <li>{@value #CONVERSION_TIMER}: the time it takes to convert a token into an {@link AuthenticatedUser}</li>
+ *     <li>{@value #ROLES_SUMMARY}: the number of roles per converted token</li>
+ *     <li>{@value #CLAIM_FAILURES_COUNTER}: the claims that could not be converted, tagged with the claim path</li>
+ *     <li>{@value #JWK_SET_REFRESH_TIMER}: the time it takes to fetch the JWK set of an issuer, tagged with the issuer
+ *     and the outcome</li>
+ *     <li>{@value #UNKNOWN_KEY_ID_COUNTER}: the tokens signed with a key that is not in the cached JWK set, tagged with
+ *     the issuer</li>
+ *     <li>{@value #REVOCATION_CHECKS_COUNTER}: the checks of tokens against the {@link TokenRevocationList}, tagged
+ *     with the outcome {@code negative} (ruled out by the Bloom filter), {@code false_positive} (possible match that
+ *     is not revoked) or {@code revoked}. The false positive rate of the filter is
+ *     {@code false_positive / (negative + false_positive)}.</li>
+ * </ul>
+ * The meters are created once (per tag), so recording a value does not look up any meter in the registry. Histogram buckets are
+ * only published if they have been enabled in the {@link AuthenticatedUserMetricsConfiguration}.
+ *
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public final class MicrometerAuthenticatedUserMetrics implements AuthenticatedUserMetrics
+{
+    static final String DECODE_TIMER = "rize.security.user.decode";
+    static final String CONVERSION_TIMER = "rize.security.user.conversion";
+    static final String ROLES_SUMMARY = "rize.security.user.roles";
+    static final String CLAIM_FAILURES_COUNTER = "rize.security.user.claim.failures";
+    static final String JWK_SET_REFRESH_TIMER = "rize.security.jwks.refresh";
+    static final String UNKNOWN_KEY_ID_COUNTER = "rize.security.jwks.unknown.kid";
+    static final String REVOCATION_CHECKS_COUNTER = "rize.security.revocation.checks";
+
+    private static final double[] ROLE_COUNT_BUCKETS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000};
+
+    private final MeterRegistry registry;
+    private final Timer decodeTimer;
+    private final Timer conversionTimer;
+    private final DistributionSummary rolesSummary;
+    private final ConcurrentMap<String, Counter> claimFailureCounters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Timer> jwkSetRefreshSuccessTimers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Timer> jwkSetRefreshFailureTimers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counter> unknownKeyIdCounters = new ConcurrentHashMap<>();
+    private final Counter revocationNegativeCounter;
+    private final Counter revocationFalsePositiveCounter;
+    private final Counter revocationRevokedCounter;
+
+    /**
+     * Creates the meters in the given registry.
+     *
+     * @param registry      The registry to register the meters in.
+     * @param configuration The metrics configuration.
+     */
+    public MicrometerAuthenticatedUserMetrics(@NonNull MeterRegistry registry, @NonNull AuthenticatedUserMetricsConfiguration configuration)
+    {
+        this.registry = registry;
+        this.decodeTimer = Timer.builder(DECODE_TIMER)
+                .description("Time taken to decode and verify a token")
+                .publishPercentileHistogram(configuration.isHistogram())
+                .register(registry);
+        this.conversionTimer = Timer.builder(CONVERSION_TIMER)
+                .description("Time taken to convert a token into an authenticated user")
+                .publishPercentileHistogram(configuration.isHistogram())
+                .register(registry);
+
+        var rolesSummaryBuilder = DistributionSummary.builder(ROLES_SUMMARY)
+                .description("Number of roles granted by a token")
+                .baseUnit("roles");
+        if (configuration.isHistogram())
+            rolesSummaryBuilder.serviceLevelObjectives(ROLE_COUNT_BUCKETS);
+
+        this.rolesSummary = rolesSummaryBuilder.register(registry);
+        this.revocationNegativeCounter = createRevocationChecksCounter("negative");
+        this.revocationFalsePositiveCounter = createRevocationChecksCounter("false_positive");
+        this.revocationRevokedCounter = createRevocationChecksCounter("revoked");
+    }
+
+    private Counter createRevocationChecksCounter(String outcome)
+    {
+        return Counter.builder(REVOCATION_CHECKS_COUNTER)
+                .description("Number of tokens checked against the revocation list")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    @Override
+    public long startTime()
+    {
+        return System.nanoTime();
+    }
+
+    @Override
+    public void recordDecode(long startTime)
+    {
+        decodeTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordConversion(long startTime, int roleCount)
+    {
+        conversionTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        rolesSummary.record(roleCount);
+    }
+
+    @Override
+    public void recordClaimConversionFailure(String claimPath)
+    {
+        var counter = claimFailureCounters.get(claimPath);
+        if (counter == null)
+            counter = claimFailureCounters.computeIfAbsent(claimPath, this::createClaimFailureCounter);
+
+        counter.increment();
+    }
+
+    private Counter createClaimFailureCounter(String claimPath)
+    {
+        return Counter.builder(CLAIM_FAILURES_COUNTER)
+                .description("Number of claims that could not be converted into their expected type")
+                .tag("claim", claimPath)
+                .register(registry);
+    }
+
+    @Override
+    public void recordJwkSetRefresh(String issuer, long startTime, boolean success)
+    {
+        var timers = success ? jwkSetRefreshSuccessTimers : jwkSetRefreshFailureTimers;
+        var timer = timers.computeIfAbsent(issuer, key -> Timer.builder(JWK_SET_REFRESH_TIMER)
+                .description("Time taken to fetch the JWK set of an issuer")
+                .tag("issuer", key)
+                .tag("outcome", success ? "success" : "failure")
+                .register(registry));
+
+        timer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordUnknownKeyId(String issuer)
+    {
+        var counter = unknownKeyIdCounters.get(issuer);
+        if (counter == null)
+            counter = unknownKeyIdCounters.computeIfAbsent(issuer, key -> Counter.builder(UNKNOWN_KEY_ID_COUNTER)
+                    .description("Number of tokens signed with a key that is not in the cached JWK set of their issuer")
+                    .tag("issuer", key)
+                    .register(registry));
+
+        counter.increment();
+    }
+
+    @Override
+    public void recordRevocationCheck(boolean possibleMatch, boolean revoked)
+    {
+        if (revoked)
+            revocationRevokedCounter.increment();
+        else if (possibleMatch)
+            revocationFalsePositiveCounter.increment();
+        else
+            revocationNegativeCounter.increment();
+    }
+}
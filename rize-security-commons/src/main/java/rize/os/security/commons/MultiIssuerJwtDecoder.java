@@ -0,0 +1,265 @@
+package rize.os.security.commons;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.nimbusds.jwt.JWTParser;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link JwtDecoder} that accepts tokens of several issuers, e.g. one Keycloak realm per tenant, and delegates each
+ * token to a decoder for its issuer.
+ * <p>
+ * The issuer is read from the {@code iss} claim of the still unverified token and checked against the allowed
+ * issuers of the {@link JwtIssuerConfiguration}. Tokens of other issuers are rejected before any network call is made.
+ * The segment matched by a wildcard may only consist of letters, digits, {@code .}, {@code _} and {@code -} and must
+ * not be {@code .} or {@code ..}, as it becomes part of the URIs the keys of the issuer are fetched from.
+ * The decoder of an issuer is created on the first token of that issuer and kept in a bounded cache, which evicts the
+ * decoders of issuers that have not been used for a while. Concurrent first tokens of the same issuer create a single
+ * decoder, while tokens of other issuers are not blocked. A decoder that is {@link AutoCloseable}, such as the decoders
+ * of the {@link JwkSetCache}, is closed when it is evicted.
+ * <p>
+ * The decoder of an issuer validates the token's signature against the JWK set of the issuer and requires the
+ * {@code iss} claim to match it. If a JWK set URI template is configured, no discovery request is needed at all.
+ * Otherwise the JWK set URI is looked up with OpenID Connect discovery on the first token of the issuer. If a
+ * {@link JwkSetCache} is given, the JWK set of an issuer is fetched as soon as its decoder is created and refreshed in
+ * the background. If the discovery or the JWK set of an issuer fails, its decoder is removed and its tokens are
+ * rejected right away for the configured timeout, so tokens of an unavailable issuer do not cause a request each.
+ * <p>
+ * The number of cached decoders is published as {@code cache.*} metrics with the tag {@code cache=jwt-decoders} when
+ * bound to a {@link MeterRegistry}.
+ *
+ * @see JwtIssuerConfiguration
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public class MultiIssuerJwtDecoder implements JwtDecoder, MeterBinder
+{
+    private static final Logger log = LoggerFactory.getLogger(MultiIssuerJwtDecoder.class);
+    private static final String CACHE_NAME = "jwt-decoders";
+    private static final String ISSUER_VARIABLE = "{issuer}";
+    private static final String WILDCARD = "*";
+    private static final Pattern WILDCARD_SEGMENT = Pattern.compile("[A-Za-z0-9._-]+");
+
+    private final Set<String> allowedIssuers = new HashSet<>();
+    private final List<String> allowedIssuerPrefixes = new ArrayList<>();
+    private final Function<String, JwtDecoder> decoderFactory;
+    private final Cache<String, JwtDecoder> decoders;
+    private final Cache<String, String> unavailableIssuers;
+    private final Duration unavailableIssuerTimeout;
+
+    /**
+     * Creates a new decoder for the issuers of the given configuration.
+     *
+     * @param configuration The configuration of the accepted issuers.
+     */
+    public MultiIssuerJwtDecoder(@NonNull JwtIssuerConfiguration configuration)
+    {
+        this(configuration, (JwkSetCache) null);
+    }
+
+    /**
+     * Creates a new decoder for the issuers of the given configuration, whose JWK sets are kept in the given cache.
+     *
+     * @param configuration The configuration of the accepted issuers.
+     * @param jwkSetCache   The cache of the JWK sets of the issuers. If {@code null}, the JWK sets are cached by the
+     *                      decoders of Spring Security.
+     */
+    public MultiIssuerJwtDecoder(@NonNull JwtIssuerConfiguration configuration, @Nullable JwkSetCache jwkSetCache)
+    {
+        this(configuration, issuer -> createDecoder(issuer, configuration.getJwkSetUri(), jwkSetCache));
+    }
+
+    MultiIssuerJwtDecoder(JwtIssuerConfiguration configuration, Function<String, JwtDecoder> decoderFactory)
+    {
+        for (var allowed : configuration.getAllowed())
+        {
+            if (allowed.endsWith("/" + WILDCARD))
+                allowedIssuerPrefixes.add(allowed.substring(0, allowed.length() - WILDCARD.length()));
+            else
+                allowedIssuers.add(allowed);
+        }
+
+        this.decoderFactory = decoderFactory;
+        this.decoders = Caffeine.newBuilder()
+                .maximumSize(configuration.getMaximumSize())
+                .expireAfterAccess(configuration.getExpireAfterAccess())
+                .removalListener((String issuer, JwtDecoder decoder, RemovalCause cause) -> close(issuer, decoder))
+                .recordStats()
+                .build();
+        this.unavailableIssuerTimeout = configuration.getUnavailableIssuerTimeout();
+        this.unavailableIssuers = Caffeine.newBuilder()
+                .maximumSize(configuration.getMaximumSize())
+                .expireAfterWrite(unavailableIssuerTimeout)
+                .build();
+    }
+
+    private static void close(String issuer, JwtDecoder decoder)
+    {
+        if (!(decoder instanceof AutoCloseable closeable))
+            return;
+
+        try
+        {
+            closeable.close();
+        }
+        catch (Exception e)
+        {
+            log.warn("Failed to close the JWT decoder of issuer '{}': {}", issuer, e.getMessage());
+        }
+    }
+
+    private static JwtDecoder createDecoder(String issuer, String jwkSetUriTemplate, JwkSetCache jwkSetCache)
+    {
+        var jwkSetUri = jwkSetUriTemplate != null ? jwkSetUriTemplate.replace(ISSUER_VARIABLE, issuer) : null;
+        if (jwkSetCache != null)
+            return jwkSetCache.createDecoder(issuer, jwkSetUri);
+
+        var decoder = jwkSetUri != null
+                ? NimbusJwtDecoder.withJwkSetUri(jwkSetUri).build()
+                : NimbusJwtDecoder.withIssuerLocation(issuer).build();
+        decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(issuer));
+
+        return decoder;
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException
+    {
+        var issuer = issuerOf(token);
+
+        var decoder = decoders.getIfPresent(issuer);
+        if (decoder == null)
+        {
+            if (!isAllowed(issuer))
+                throw new BadJwtException("Issuer '" + issuer + "' is not allowed");
+
+            var failure = unavailableIssuers.getIfPresent(issuer);
+            if (failure != null)
+                throw new JwtException("Issuer '" + issuer + "' is unavailable: " + failure);
+
+            try
+            {
+                decoder = decoders.get(issuer, this::newDecoder);
+            }
+            catch (RuntimeException e)
+            {
+                unavailableIssuers.put(issuer, String.valueOf(e.getMessage()));
+                throw new JwtException("Failed to create the JWT decoder of issuer '" + issuer + "': " + e.getMessage(), e);
+            }
+        }
+
+        try
+        {
+            return decoder.decode(token);
+        }
+        catch (BadJwtException e)
+        {
+            throw e;
+        }
+        catch (JwtException e)
+        {
+            // The token could not be verified, as the discovery or the JWK set of the issuer failed
+            log.warn("Rejecting the tokens of issuer '{}' for {}: {}", issuer, unavailableIssuerTimeout, e.getMessage());
+            unavailableIssuers.put(issuer, String.valueOf(e.getMessage()));
+            decoders.asMap().remove(issuer, decoder);
+            throw e;
+        }
+    }
+
+    private JwtDecoder newDecoder(String issuer)
+    {
+        log.info("Creating JWT decoder for issuer '{}'", issuer);
+        return decoderFactory.apply(issuer);
+    }
+
+    private static String issuerOf(String token)
+    {
+        try
+        {
+            var issuer = JWTParser.parse(token).getJWTClaimsSet().getIssuer();
+            if (issuer == null)
+                throw new BadJwtException("Token does not contain an issuer");
+
+            return issuer;
+        }
+        catch (ParseException e)
+        {
+            throw new BadJwtException("Failed to parse token: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Checks whether tokens of the given issuer are accepted.
+     *
+     * @param issuer The issuer URI.
+     * @return {@code true} if the issuer is allowed, {@code false} otherwise.
+     */
+    public boolean isAllowed(@NonNull String issuer)
+    {
+        if (allowedIssuers.contains(issuer))
+            return true;
+
+        for (var prefix : allowedIssuerPrefixes)
+        {
+            if (issuer.startsWith(prefix) && isWildcardSegment(issuer.substring(prefix.length())))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks the part of an issuer that is matched by a wildcard, which is substituted into the JWK set and discovery
+     * URIs of the issuer. Characters that would change the meaning of these URIs, e.g. {@code ?}, {@code #},
+     * {@code @}, {@code %} or {@code /}, and the dot segments {@code .} and {@code ..} are rejected.
+     */
+    private static boolean isWildcardSegment(String segment)
+    {
+        return WILDCARD_SEGMENT.matcher(segment).matches() && !segment.equals(".") && !segment.equals("..");
+    }
+
+    /**
+     * @return The approximate number of issuers whose decoders are cached.
+     */
+    public long size()
+    {
+        return decoders.estimatedSize();
+    }
+
+    /**
+     * Removes the decoders of all issuers, so they are created again on their next token.
+     */
+    public void invalidateAll()
+    {
+        decoders.invalidateAll();
+        unavailableIssuers.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry)
+    {
+        new CaffeineCacheMetrics<>(decoders, CACHE_NAME, Tags.empty()).bindTo(registry);
+    }
+}
@@ -0,0 +1,146 @@
+package rize.os.security.commons;
+
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The roles of an {@link AuthenticatedUser} per organisation, indexed by the organisation ID.
+ * <p>
+ * The roles of each organisation are stored in their own {@link RoleAuthoritySet}, so checking whether the user has
+ * a role in an organisation is a hash lookup of the organisation followed by a bit test, regardless of how many
+ * organisations the user is a member of. The roles of organisations are never part of the
+ * {@linkplain AuthenticatedUser#getAuthorities() authorities} of the user, as the same role usually means something
+ * different in each organisation.
+ * <p>
+ * Instances of this class are immutable and can safely be shared between threads.
+ *
+ * @see AuthenticatedUserClaimsConfiguration#getOrganisationRoles()
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public final class OrganisationRoles
+{
+    private static final OrganisationRoles EMPTY = new OrganisationRoles(Map.of());
+
+    private final Map<String, RoleAuthoritySet> rolesByOrganisation;
+
+    OrganisationRoles(Map<String, RoleAuthoritySet> rolesByOrganisation)
+    {
+        this.rolesByOrganisation = rolesByOrganisation;
+    }
+
+    /**
+     * @return The roles of a user that is not a member of any organisation.
+     */
+    public static OrganisationRoles empty()
+    {
+        return EMPTY;
+    }
+
+    /**
+     * Creates the organisation roles from the given role names.
+     *
+     * @param registry            The registry the roles are resolved with.
+     * @param rolesByOrganisation The names of the roles without the {@code ROLE_} prefix, keyed by the organisation ID.
+     * @return The organisation roles.
+     */
+    public static OrganisationRoles of(@NonNull RoleAuthorityRegistry registry,
+                                       @NonNull Map<String, ? extends Collection<String>> rolesByOrganisation)
+    {
+        if (rolesByOrganisation.isEmpty())
+            return EMPTY;
+
+        Map<String, RoleAuthoritySet> roles = new HashMap<>((int) (rolesByOrganisation.size() / 0.75f) + 1);
+        rolesByOrganisation.forEach((organisationId, organisationRoles) -> roles.put(organisationId, registry.authoritiesOf(organisationRoles)));
+
+        return new OrganisationRoles(roles);
+    }
+
+    /**
+     * Checks if the user has been granted the given role in the given organisation.
+     *
+     * @param organisationId The ID of the organisation.
+     * @param role           The name of the role without the {@code ROLE_} prefix.
+     * @return {@code true} if the user has the role in the organisation, {@code false} otherwise.
+     */
+    public boolean hasRole(@NonNull String organisationId, @NonNull String role)
+    {
+        var roles = rolesByOrganisation.get(organisationId);
+        return roles != null && roles.hasRole(role);
+    }
+
+    /**
+     * Checks if the user is a member of the given organisation, even without any role in it.
+     *
+     * @param organisationId The ID of the organisation.
+     * @return {@code true} if the user is a member of the organisation, {@code false} otherwise.
+     */
+    public boolean isMemberOf(@NonNull String organisationId)
+    {
+        return rolesByOrganisation.containsKey(organisationId);
+    }
+
+    /**
+     * Returns the roles of the user in the given organisation.
+     *
+     * @param organisationId The ID of the organisation.
+     * @return An immutable set with the roles of the organisation. Empty if the user is not a member of it.
+     */
+    public Set<GrantedAuthority> getRoles(@NonNull String organisationId)
+    {
+        var roles = rolesByOrganisation.get(organisationId);
+        return roles != null ? roles : Set.of();
+    }
+
+    /**
+     * @return The IDs of all organisations the user is a member of.
+     */
+    public Set<String> getOrganisationIds()
+    {
+        return Collections.unmodifiableSet(rolesByOrganisation.keySet());
+    }
+
+    /**
+     * @return The number of organisations the user is a member of.
+     */
+    public int size()
+    {
+        return rolesByOrganisation.size();
+    }
+
+    /**
+     * @return {@code true} if the user is not a member of any organisation, {@code false} otherwise.
+     */
+    public boolean isEmpty()
+    {
+        return rolesByOrganisation.isEmpty();
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+            return true;
+        if (!(o instanceof OrganisationRoles other))
+            return false;
+
+        return rolesByOrganisation.equals(other.rolesByOrganisation);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return rolesByOrganisation.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "OrganisationRoles" + rolesByOrganisation;
+    }
+}
@@ -0,0 +1,77 @@
+package rize.os.security.commons;
+
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.AnyNestedCondition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.reactive.ReactiveOAuth2ResourceServerAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Auto-configuration for reactive resource servers that authenticate {@link AuthenticatedUser}s.
+ * <p>
+ * In a reactive web application, a {@link ReactiveJwtAuthenticatedUserTokenConverter} is provided. Unless the
+ * application declares its own {@link SecurityWebFilterChain}, a chain is created that requires every exchange to
+ * be authenticated with a bearer token and converts the token with this converter, replacing the default chain of
+ * Spring Boot. The default chain is only created if a {@link ReactiveJwtDecoder} is configured, either as a bean or
+ * through the {@code spring.security.oauth2.resourceserver.jwt} properties.
+ * <p>
+ * The {@link AuthenticatedUser} of a request is available through the {@link ReactiveAuthenticatedUserContext}.
+ *
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+@AutoConfiguration(before = ReactiveOAuth2ResourceServerAutoConfiguration.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ConditionalOnClass({Mono.class, ServerHttpSecurity.class, BearerTokenAuthenticationToken.class})
+@ConditionalOnBean(JwtAuthenticatedUserTokenConverter.class)
+public class ReactiveAuthenticatedUserAutoConfiguration
+{
+    @Bean
+    @ConditionalOnMissingBean
+    ReactiveJwtAuthenticatedUserTokenConverter reactiveJwtAuthenticatedUserTokenConverter(JwtAuthenticatedUserTokenConverter jwtAuthenticatedUserTokenConverter)
+    {
+        return new ReactiveJwtAuthenticatedUserTokenConverter(jwtAuthenticatedUserTokenConverter);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(SecurityWebFilterChain.class)
+    @Conditional(JwtDecoderConfiguredCondition.class)
+    SecurityWebFilterChain authenticatedUserSecurityWebFilterChain(ServerHttpSecurity http,
+                                                                   ReactiveJwtAuthenticatedUserTokenConverter reactiveJwtAuthenticatedUserTokenConverter)
+    {
+        return http
+                .authorizeExchange(exchanges -> exchanges.anyExchange().authenticated())
+                .oauth2ResourceServer(resourceServer -> resourceServer
+                        .jwt(jwt -> jwt.jwtAuthenticationConverter(reactiveJwtAuthenticatedUserTokenConverter)))
+                .build();
+    }
+
+    static class JwtDecoderConfiguredCondition extends AnyNestedCondition
+    {
+        JwtDecoderConfiguredCondition()
+        {
+            super(ConfigurationPhase.REGISTER_BEAN);
+        }
+
+        @ConditionalOnBean(ReactiveJwtDecoder.class)
+        static class OnJwtDecoderBean {}
+
+        @ConditionalOnProperty(prefix = "spring.security.oauth2.resourceserver.jwt", name = "issuer-uri")
+        static class OnIssuerUri {}
+
+        @ConditionalOnProperty(prefix = "spring.security.oauth2.resourceserver.jwt", name = "jwk-set-uri")
+        static class OnJwkSetUri {}
+
+        @ConditionalOnProperty(prefix = "spring.security.oauth2.resourceserver.jwt", name = "public-key-location")
+        static class OnPublicKeyLocation {}
+    }
+}
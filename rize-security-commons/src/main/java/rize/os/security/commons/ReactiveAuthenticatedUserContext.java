@@ -0,0 +1,49 @@
+package rize.os.security.commons;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import reactor.core.publisher.Mono;
+
+/**
+ * Provides access to the currently authenticated user in reactive applications.
+ * <p>
+ * This is the reactive counterpart of the {@link AuthenticatedUserContext}. Instead of a {@code ThreadLocal}, the
+ * {@link AuthenticatedUser} is read from the {@link SecurityContext} that Spring Security stores in the Reactor
+ * context of the current request, see {@link ReactiveSecurityContextHolder}.
+ *
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public final class ReactiveAuthenticatedUserContext
+{
+    private static final Logger log = LoggerFactory.getLogger(ReactiveAuthenticatedUserContext.class);
+
+    private ReactiveAuthenticatedUserContext() {}
+
+    /**
+     * Retrieves the currently authenticated user from the Reactor context.
+     * <p>
+     * The returned {@link Mono} emits the {@link AuthenticatedUser} if the context contains a valid and authenticated
+     * {@link Authentication} whose principal is an {@link AuthenticatedUser}. In all other cases, it completes empty.
+     *
+     * @return A {@link Mono} that emits the {@link AuthenticatedUser} if present and authenticated.
+     */
+    public static Mono<AuthenticatedUser> get()
+    {
+        return ReactiveSecurityContextHolder.getContext()
+                .mapNotNull(SecurityContext::getAuthentication)
+                .filter(Authentication::isAuthenticated)
+                .mapNotNull(ReactiveAuthenticatedUserContext::toAuthenticatedUser);
+    }
+
+    private static AuthenticatedUser toAuthenticatedUser(Authentication authentication)
+    {
+        if (authentication.getPrincipal() instanceof AuthenticatedUser authenticatedUser)
+            return authenticatedUser;
+
+        log.warn("Authentication principal is not an instance of AuthenticatedUser: {}", authentication.getPrincipal().getClass().getName());
+        return null;
+    }
+}
@@ -0,0 +1,59 @@
+package rize.os.security.commons;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Reactive counterpart of the {@link JwtAuthenticatedUserTokenConverter} for resource servers built on WebFlux.
+ * <p>
+ * The conversion is delegated to the {@link JwtAuthenticatedUserTokenConverter}, so both variants share the same
+ * claims mapping and, if enabled, the same {@link AuthenticatedUserCache}. Converting a token only reads the claims
+ * of the already decoded {@link Jwt} and never blocks, so it runs on the subscribing thread. Only if the
+ * {@link TokenRevocationList} has to query its table for a token, the conversion is offloaded to the
+ * {@linkplain Schedulers#boundedElastic() bounded elastic scheduler}, so the event loop is never blocked.
+ * <p>
+ * Usage:
+ * <pre>{@code
+ * http.oauth2ResourceServer(resourceServer -> resourceServer
+ *         .jwt(jwt -> jwt.jwtAuthenticationConverter(reactiveJwtAuthenticatedUserTokenConverter)));
+ * }</pre>
+ *
+ * @see ReactiveAuthenticatedUserContext
+ * @see ReactiveAuthenticatedUserAutoConfiguration
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public class ReactiveJwtAuthenticatedUserTokenConverter implements Converter<Jwt, Mono<AbstractAuthenticationToken>>
+{
+    private final JwtAuthenticatedUserTokenConverter jwtAuthenticatedUserTokenConverter;
+
+    /**
+     * Constructs a new {@code ReactiveJwtAuthenticatedUserTokenConverter}.
+     *
+     * @param jwtAuthenticatedUserTokenConverter The converter the conversion is delegated to.
+     */
+    public ReactiveJwtAuthenticatedUserTokenConverter(@NonNull JwtAuthenticatedUserTokenConverter jwtAuthenticatedUserTokenConverter)
+    {
+        this.jwtAuthenticatedUserTokenConverter = jwtAuthenticatedUserTokenConverter;
+    }
+
+    /**
+     * Converts the given {@link Jwt} into an {@link AuthenticatedUserToken} once the returned {@link Mono} is subscribed.
+     *
+     * @param jwt The source {@link Jwt} object, must not be {@code null}.
+     * @return A {@link Mono} that emits the {@link AuthenticatedUserToken}.
+     */
+    @NonNull
+    @Override
+    public Mono<AbstractAuthenticationToken> convert(@NonNull Jwt jwt)
+    {
+        var conversion = Mono.<AbstractAuthenticationToken>fromSupplier(() -> jwtAuthenticatedUserTokenConverter.convert(jwt));
+        if (jwtAuthenticatedUserTokenConverter.mightBlock(jwt))
+            return conversion.subscribeOn(Schedulers.boundedElastic());
+
+        return conversion;
+    }
+}
@@ -0,0 +1,102 @@
+package rize.os.security.commons;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A Bloom filter of revoked token and session IDs.
+ * <p>
+ * The filter never reports an added value as absent, but reports a value that has not been added as possibly present
+ * with about the configured false positive probability, as long as no more values than expected have been added. The
+ * positions of a value are derived from two 64 bit hashes of its characters by double hashing, so a lookup does not
+ * allocate. Values can be added concurrently with lookups.
+ *
+ * @see TokenRevocationList
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+final class RevocationBloomFilter
+{
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final LongAdder size = new LongAdder();
+
+    RevocationBloomFilter(int expectedInsertions, double falsePositiveProbability)
+    {
+        long n = Math.max(expectedInsertions, 1);
+        long m = Math.max(64, (long) Math.ceil(-n * Math.log(falsePositiveProbability) / (LN2 * LN2)));
+        this.bitCount = (m + 63) / 64 * 64;
+        this.bits = new AtomicLongArray(Math.toIntExact(bitCount / 64));
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * LN2));
+    }
+
+    void put(char type, String value)
+    {
+        long hash1 = hash(type, value, 0x9E3779B97F4A7C15L);
+        long hash2 = hash(type, value, 0xC2B2AE3D27D4EB4FL) | 1;
+        for (int i = 0; i < hashCount; i++)
+        {
+            long index = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+            long mask = 1L << index;
+            int word = (int) (index >>> 6);
+
+            long current;
+            do
+            {
+                current = bits.get(word);
+                if ((current & mask) != 0)
+                    break;
+            }
+            while (!bits.compareAndSet(word, current, current | mask));
+        }
+
+        size.increment();
+    }
+
+    boolean mightContain(char type, String value)
+    {
+        long hash1 = hash(type, value, 0x9E3779B97F4A7C15L);
+        long hash2 = hash(type, value, 0xC2B2AE3D27D4EB4FL) | 1;
+        for (int i = 0; i < hashCount; i++)
+        {
+            long index = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0)
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * @return The number of values that have been added, counting values that have been added more than once.
+     */
+    long size()
+    {
+        return size.sum();
+    }
+
+    /**
+     * @return The false positive probability expected for the number of values that have been added.
+     */
+    double expectedFalsePositiveProbability()
+    {
+        return Math.pow(1 - Math.exp(-hashCount * (double) size() / bitCount), hashCount);
+    }
+
+    private static long hash(char type, String value, long seed)
+    {
+        long hash = seed ^ type;
+        for (int i = 0; i < value.length(); i++)
+            hash = (hash ^ value.charAt(i)) * 0x100000001B3L;
+
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+
+        return hash;
+    }
+}
@@ -0,0 +1,96 @@
+package rize.os.security.commons;
+
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.io.Serial;
+
+/**
+ * A {@link GrantedAuthority} for a role, shared by all users that have been granted the role.
+ * <p>
+ * Instances are created by the {@link RoleAuthorityRegistry} only, which assigns each distinct role a unique index.
+ * The index is used by {@link RoleAuthoritySet} to store the roles of a user in a bitset. The authority of a role is
+ * the role name prefixed with {@code ROLE_}, as expected by Spring Security's role checks.
+ * <p>
+ * Two authorities are equal if they have the same authority string, regardless of their index. A deserialized
+ * authority is resolved to the instance of the {@linkplain RoleAuthorityRegistry#getDefault() default registry}.
+ *
+ * @see RoleAuthorityRegistry
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public final class RoleAuthority implements GrantedAuthority
+{
+    /**
+     * The prefix of all role authorities.
+     */
+    public static final String ROLE_PREFIX = "ROLE_";
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final String role;
+    private final String authority;
+    private final int index;
+
+    RoleAuthority(String role, int index)
+    {
+        this.role = role;
+        this.authority = ROLE_PREFIX + role;
+        this.index = index;
+    }
+
+    /**
+     * @return The name of the role without the {@code ROLE_} prefix.
+     */
+    public String getRole()
+    {
+        return role;
+    }
+
+    /**
+     * @return The role name prefixed with {@code ROLE_}.
+     */
+    @NonNull
+    @Override
+    public String getAuthority()
+    {
+        return authority;
+    }
+
+    /**
+     * @return The index of the role in its registry or {@code -1} if the registry was full when the role was registered.
+     */
+    int getIndex()
+    {
+        return index;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+            return true;
+        if (!(o instanceof RoleAuthority other))
+            return false;
+
+        return authority.equals(other.authority);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return authority.hashCode();
+    }
+
+    @Serial
+    private Object readResolve()
+    {
+        return RoleAuthorityRegistry.getDefault().register(role);
+    }
+
+    @Override
+    public String toString()
+    {
+        return authority;
+    }
+}
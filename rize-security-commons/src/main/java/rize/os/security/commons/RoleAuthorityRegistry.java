@@ -0,0 +1,173 @@
+package rize.os.security.commons;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A registry that holds exactly one {@link RoleAuthority} per distinct role.
+ * <p>
+ * Converting the roles of a token into authorities would otherwise allocate a new authority string and a new
+ * {@link org.springframework.security.core.GrantedAuthority} for every role on every request. The registry interns
+ * these authorities and assigns each role a unique index, which {@link RoleAuthoritySet} uses to store the roles of a
+ * user as a bitset.
+ * <p>
+ * The number of indexed roles is limited by the capacity of the registry. Once the capacity has been reached, roles
+ * that are not known yet are no longer interned: every registration returns a new authority without an index, which
+ * is stored outside the bitset, so that tokens with arbitrary role names cannot grow the registry without bounds.
+ *
+ * @see RoleAuthority
+ * @see RoleAuthoritySet
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public final class RoleAuthorityRegistry
+{
+    /**
+     * The default number of roles that can be indexed by a registry.
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private static final Logger log = LoggerFactory.getLogger(RoleAuthorityRegistry.class);
+    private static final RoleAuthorityRegistry DEFAULT = new RoleAuthorityRegistry(DEFAULT_CAPACITY);
+
+    private final ConcurrentMap<String, RoleAuthority> byRole = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, RoleAuthority> byAuthority = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<RoleAuthority> byIndex;
+    private final AtomicInteger nextIndex = new AtomicInteger();
+    private final AtomicBoolean full = new AtomicBoolean();
+
+    /**
+     * Creates a new registry.
+     *
+     * @param capacity The maximum number of roles that can be indexed.
+     */
+    public RoleAuthorityRegistry(int capacity)
+    {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be positive");
+
+        this.byIndex = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * @return The registry that is shared by all converters and authorization managers of the application.
+     */
+    public static RoleAuthorityRegistry getDefault()
+    {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the authority of the given role, registering it if it is not known yet.
+     *
+     * @param role The name of the role without the {@code ROLE_} prefix.
+     * @return The shared authority of the role or, if the registry is full and the role is not known, a new
+     *         authority without an index. Never {@code null}.
+     */
+    @NonNull
+    public RoleAuthority register(@NonNull String role)
+    {
+        var authority = byRole.get(role);
+        if (authority != null)
+            return authority;
+
+        if (nextIndex.get() >= byIndex.length())
+            return unindexed(role);
+
+        authority = byRole.computeIfAbsent(role, this::create);
+        return authority != null ? authority : unindexed(role);
+    }
+
+    /**
+     * Returns the authority of the given role, if it has been registered.
+     *
+     * @param role The name of the role without the {@code ROLE_} prefix.
+     * @return The authority of the role or {@code null} if it has not been registered.
+     */
+    @Nullable
+    public RoleAuthority find(@NonNull String role)
+    {
+        return byRole.get(role);
+    }
+
+    /**
+     * Returns the authority with the given authority string, if it has been registered.
+     *
+     * @param authority The authority string, i.e. the role name prefixed with {@code ROLE_}.
+     * @return The authority or {@code null} if it has not been registered.
+     */
+    @Nullable
+    public RoleAuthority findByAuthority(@NonNull String authority)
+    {
+        return byAuthority.get(authority);
+    }
+
+    /**
+     * Creates the set of authorities for the given roles.
+     *
+     * @param roles The names of the roles without the {@code ROLE_} prefix.
+     * @return An immutable set with the authorities of the given roles.
+     */
+    @NonNull
+    public RoleAuthoritySet authoritiesOf(@NonNull Collection<String> roles)
+    {
+        return RoleAuthoritySet.of(this, roles);
+    }
+
+    /**
+     * @return The maximum number of roles that can be indexed.
+     */
+    public int capacity()
+    {
+        return byIndex.length();
+    }
+
+    /**
+     * @return The number of roles that have been registered.
+     */
+    public int size()
+    {
+        return byRole.size();
+    }
+
+    RoleAuthority get(int index)
+    {
+        return byIndex.get(index);
+    }
+
+    boolean owns(RoleAuthority authority)
+    {
+        int index = authority.getIndex();
+        return index >= 0 && index < byIndex.length() && byIndex.get(index) == authority;
+    }
+
+    @Nullable
+    private RoleAuthority create(String role)
+    {
+        int index = nextIndex.getAndUpdate(i -> i < byIndex.length() ? i + 1 : i);
+        if (index >= byIndex.length())
+            return null;
+
+        var authority = new RoleAuthority(role, index);
+        byIndex.set(index, authority);
+        byAuthority.put(authority.getAuthority(), authority);
+
+        return authority;
+    }
+
+    private RoleAuthority unindexed(String role)
+    {
+        if (!full.getAndSet(true))
+            log.warn("Role registry is full ({} roles), roles that are not known yet are no longer interned, e.g. '{}'", byIndex.length(), role);
+
+        return new RoleAuthority(role, -1);
+    }
+}
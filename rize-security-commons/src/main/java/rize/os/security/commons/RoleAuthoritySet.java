@@ -0,0 +1,194 @@
+package rize.os.security.commons;
+
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable set of {@link RoleAuthority}s that stores the roles of a user as a bitset over the indices of a
+ * {@link RoleAuthorityRegistry}.
+ * <p>
+ * Checking whether the set contains a role is a single bit test for the authorities of its registry and a hash lookup
+ * for all other {@link GrantedAuthority}s, instead of a linear scan over the authorities of the user. Roles without an
+ * index in the registry are kept in a separate map.
+ * <p>
+ * The set can be serialized. It is written as the list of its role names and resolved against the
+ * {@linkplain RoleAuthorityRegistry#getDefault() default registry} when it is read.
+ *
+ * @see RoleAuthorityRegistry
+ * @see RoleAuthorizationManager
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public final class RoleAuthoritySet extends AbstractSet<GrantedAuthority> implements Serializable
+{
+    @Serial
+    private static final long serialVersionUID = 1L;
+    private static final long[] NO_BITS = new long[0];
+
+    private final transient RoleAuthorityRegistry registry;
+    private final transient long[] bits;
+    private final transient Map<String, RoleAuthority> unindexed;
+    private final transient int size;
+
+    private RoleAuthoritySet(RoleAuthorityRegistry registry, long[] bits, Map<String, RoleAuthority> unindexed, int size)
+    {
+        this.registry = registry;
+        this.bits = bits;
+        this.unindexed = unindexed;
+        this.size = size;
+    }
+
+    static RoleAuthoritySet of(RoleAuthorityRegistry registry, Collection<String> roles)
+    {
+        long[] bits = NO_BITS;
+        Map<String, RoleAuthority> unindexed = Map.of();
+        int size = 0;
+
+        for (var role : roles)
+        {
+            var authority = registry.register(role);
+            int index = authority.getIndex();
+            if (index < 0)
+            {
+                if (unindexed.isEmpty())
+                    unindexed = new LinkedHashMap<>();
+                if (unindexed.putIfAbsent(authority.getAuthority(), authority) == null)
+                    size++;
+                continue;
+            }
+
+            int word = index >>> 6;
+            if (word >= bits.length)
+                bits = Arrays.copyOf(bits, word + 1);
+
+            long mask = 1L << index;
+            if ((bits[word] & mask) == 0)
+            {
+                bits[word] |= mask;
+                size++;
+            }
+        }
+
+        return new RoleAuthoritySet(registry, bits, unindexed, size);
+    }
+
+    /**
+     * Checks if this set contains the given role.
+     *
+     * @param role The name of the role without the {@code ROLE_} prefix.
+     * @return {@code true} if the set contains the role, {@code false} otherwise.
+     */
+    public boolean hasRole(@NonNull String role)
+    {
+        var authority = registry.find(role);
+        return authority != null ? containsAuthority(authority) : unindexed.containsKey(RoleAuthority.ROLE_PREFIX + role);
+    }
+
+    @Override
+    public boolean contains(Object o)
+    {
+        if (o instanceof RoleAuthority authority && registry.owns(authority))
+            return testBit(authority.getIndex());
+
+        if (!(o instanceof GrantedAuthority grantedAuthority) || grantedAuthority.getAuthority() == null)
+            return false;
+
+        var authority = registry.findByAuthority(grantedAuthority.getAuthority());
+        return authority != null ? containsAuthority(authority) : unindexed.containsKey(grantedAuthority.getAuthority());
+    }
+
+    private boolean containsAuthority(RoleAuthority authority)
+    {
+        return authority.getIndex() >= 0 ? testBit(authority.getIndex()) : unindexed.containsKey(authority.getAuthority());
+    }
+
+    private boolean testBit(int index)
+    {
+        int word = index >>> 6;
+        return word < bits.length && (bits[word] & (1L << index)) != 0;
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    @NonNull
+    @Override
+    public Iterator<GrantedAuthority> iterator()
+    {
+        return new Iterator<>()
+        {
+            private final Iterator<RoleAuthority> unindexedIterator = unindexed.values().iterator();
+            private int nextIndex = nextSetBit(0);
+
+            @Override
+            public boolean hasNext()
+            {
+                return nextIndex >= 0 || unindexedIterator.hasNext();
+            }
+
+            @Override
+            public GrantedAuthority next()
+            {
+                if (nextIndex < 0)
+                    return unindexedIterator.next();
+
+                var authority = registry.get(nextIndex);
+                nextIndex = nextSetBit(nextIndex + 1);
+                if (authority == null)
+                    throw new NoSuchElementException();
+
+                return authority;
+            }
+        };
+    }
+
+    private int nextSetBit(int fromIndex)
+    {
+        int word = fromIndex >>> 6;
+        if (word >= bits.length)
+            return -1;
+
+        long remaining = bits[word] & (-1L << fromIndex);
+        while (true)
+        {
+            if (remaining != 0)
+                return (word << 6) + Long.numberOfTrailingZeros(remaining);
+            if (++word == bits.length)
+                return -1;
+            remaining = bits[word];
+        }
+    }
+
+    @Serial
+    private Object writeReplace()
+    {
+        var roles = new String[size];
+        int i = 0;
+        for (var authority : this)
+            roles[i++] = ((RoleAuthority) authority).getRole();
+
+        return new SerializedForm(roles);
+    }
+
+    private record SerializedForm(String[] roles) implements Serializable
+    {
+        @Serial
+        private Object readResolve()
+        {
+            return RoleAuthorityRegistry.getDefault().authoritiesOf(List.of(roles));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package rize.os.security.commons;
+
+import org.springframework.lang.NonNull;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.core.Authentication;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * An {@link AuthorizationManager} that grants access if the authenticated user has at least one of the given roles.
+ * <p>
+ * The roles are resolved to their {@link RoleAuthority} once, when the manager is created. If the principal of the
+ * authentication is an {@link AuthenticatedUser}, the check is a bit test against its {@link RoleAuthoritySet}. The
+ * authorities of the authentication are compared by their authority string for all other principals, and also for
+ * users whose authentication carries authorities of its own, e.g. an OAuth 2.0 login whose authorities have been
+ * mapped.
+ * <p>
+ * Usage:
+ * <pre>{@code
+ * http.authorizeHttpRequests(authorize -> authorize
+ *         .anyRequest().access(RoleAuthorizationManager.hasRole("platform-administrator")));
+ * }</pre>
+ *
+ * @param <T> The type of the object the authorization is checked for.
+ * @see RoleAuthorityRegistry
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public final class RoleAuthorizationManager<T> implements AuthorizationManager<T>
+{
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    private final RoleAuthority[] roles;
+
+    private RoleAuthorizationManager(RoleAuthority[] roles)
+    {
+        this.roles = roles;
+    }
+
+    /**
+     * Creates a manager that grants access to users with the given role.
+     *
+     * @param role The name of the role without the {@code ROLE_} prefix.
+     * @param <T>  The type of the object the authorization is checked for.
+     * @return The authorization manager.
+     */
+    public static <T> RoleAuthorizationManager<T> hasRole(@NonNull String role)
+    {
+        return hasAnyRole(role);
+    }
+
+    /**
+     * Creates a manager that grants access to users with at least one of the given roles.
+     *
+     * @param roles The names of the roles without the {@code ROLE_} prefix.
+     * @param <T>   The type of the object the authorization is checked for.
+     * @return The authorization manager.
+     */
+    public static <T> RoleAuthorizationManager<T> hasAnyRole(@NonNull String... roles)
+    {
+        var registry = RoleAuthorityRegistry.getDefault();
+        return new RoleAuthorizationManager<>(Arrays.stream(roles).map(registry::register).toArray(RoleAuthority[]::new));
+    }
+
+    @Override
+    public AuthorizationResult authorize(Supplier<Authentication> authentication, T object)
+    {
+        return check(authentication, object);
+    }
+
+    /**
+     * @deprecated Use {@link #authorize(Supplier, Object)} instead.
+     */
+    @Deprecated
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, T object)
+    {
+        var currentAuthentication = authentication.get();
+        if (currentAuthentication == null || !currentAuthentication.isAuthenticated())
+            return DENIED;
+
+        return isGranted(currentAuthentication) ? GRANTED : DENIED;
+    }
+
+    private boolean isGranted(Authentication authentication)
+    {
+        if (authentication.getPrincipal() instanceof AuthenticatedUser user)
+        {
+            for (var role : roles)
+                if (user.hasRole(role))
+                    return true;
+
+            // The authorities of an AuthenticatedUserToken are those of its user
+            if (authentication instanceof AuthenticatedUserToken)
+                return false;
+        }
+
+        for (var authority : authentication.getAuthorities())
+            for (var role : roles)
+                if (role.getAuthority().equals(authority.getAuthority()))
+                    return true;
+
+        return false;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "RoleAuthorizationManager[roles=" + Arrays.toString(roles) + ']';
+    }
+}
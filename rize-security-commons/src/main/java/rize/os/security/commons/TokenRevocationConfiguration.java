@@ -0,0 +1,127 @@
+package rize.os.security.commons;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * This class is used to configure the {@link TokenRevocationList}.
+ * <p>
+ * The properties of this class can be set in the application.yml or application.properties file.
+ * The prefix for the properties is {@code rize.security.jwt.revocation}.
+ *
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+@ConfigurationProperties(prefix = "rize.security.jwt.revocation")
+public class TokenRevocationConfiguration
+{
+    private final boolean enabled;
+    private final String tableName;
+    private final int expectedRevocations;
+    private final double falsePositiveProbability;
+    private final Duration syncInterval;
+    private final Duration rebuildInterval;
+    private final Duration maxTokenLifetime;
+
+    /**
+     * Creates a new instance of the {@link TokenRevocationConfiguration}.
+     *
+     * @param enabled                  Whether tokens are checked against the revocation list. Defaults to
+     *                                 {@code false}.
+     * @param tableName                The name of the table the revocations are stored in. Defaults to
+     *                                 {@code token_revocation}.
+     * @param expectedRevocations      The number of revocations that are expected to be active at the same time. The
+     *                                 Bloom filter is sized for it and grows if more revocations are active. Defaults
+     *                                 to 100000.
+     * @param falsePositiveProbability The probability with which the Bloom filter reports a possible match for a token
+     *                                 that has not been revoked. Defaults to 0.01.
+     * @param syncInterval             The interval in which new revocations are loaded from the table. Defaults to ten
+     *                                 seconds.
+     * @param rebuildInterval          The interval in which the Bloom filter is rebuilt from all active revocations,
+     *                                 which drops revocations of expired tokens. Defaults to one hour.
+     * @param maxTokenLifetime         The maximum lifetime of the access tokens of the identity provider. A revoked
+     *                                 session is kept for this long if the expiry of its tokens is not known, e.g.
+     *                                 after a back-channel logout. Defaults to one hour.
+     */
+    public TokenRevocationConfiguration(@Nullable Boolean enabled,
+                                        @Nullable String tableName,
+                                        @Nullable Integer expectedRevocations,
+                                        @Nullable Double falsePositiveProbability,
+                                        @Nullable Duration syncInterval,
+                                        @Nullable Duration rebuildInterval,
+                                        @Nullable Duration maxTokenLifetime)
+    {
+        this.enabled = Objects.requireNonNullElse(enabled, false);
+        this.tableName = Objects.requireNonNullElse(tableName, "token_revocation");
+        this.expectedRevocations = Objects.requireNonNullElse(expectedRevocations, 100_000);
+        this.falsePositiveProbability = Objects.requireNonNullElse(falsePositiveProbability, 0.01);
+        this.syncInterval = Objects.requireNonNullElse(syncInterval, Duration.ofSeconds(10));
+        this.rebuildInterval = Objects.requireNonNullElse(rebuildInterval, Duration.ofHours(1));
+        this.maxTokenLifetime = Objects.requireNonNullElse(maxTokenLifetime, Duration.ofHours(1));
+
+        if (!this.tableName.matches("[A-Za-z_][A-Za-z0-9_.]*"))
+            throw new IllegalArgumentException("Invalid revocation table name: " + this.tableName);
+        if (this.falsePositiveProbability <= 0 || this.falsePositiveProbability >= 1)
+            throw new IllegalArgumentException("The false positive probability must be between 0 and 1: " + this.falsePositiveProbability);
+        if (this.maxTokenLifetime.isNegative() || this.maxTokenLifetime.isZero())
+            throw new IllegalArgumentException("The maximum token lifetime must be positive: " + this.maxTokenLifetime);
+    }
+
+    /**
+     * @return Whether tokens are checked against the revocation list.
+     */
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * @return The name of the table the revocations are stored in.
+     */
+    public String getTableName()
+    {
+        return tableName;
+    }
+
+    /**
+     * @return The number of revocations that are expected to be active at the same time.
+     */
+    public int getExpectedRevocations()
+    {
+        return expectedRevocations;
+    }
+
+    /**
+     * @return The probability with which the Bloom filter reports a possible match for a token that has not been revoked.
+     */
+    public double getFalsePositiveProbability()
+    {
+        return falsePositiveProbability;
+    }
+
+    /**
+     * @return The interval in which new revocations are loaded from the table.
+     */
+    public Duration getSyncInterval()
+    {
+        return syncInterval;
+    }
+
+    /**
+     * @return The interval in which the Bloom filter is rebuilt from all active revocations.
+     */
+    public Duration getRebuildInterval()
+    {
+        return rebuildInterval;
+    }
+
+    /**
+     * @return The maximum lifetime of the access tokens of the identity provider.
+     */
+    public Duration getMaxTokenLifetime()
+    {
+        return maxTokenLifetime;
+    }
+}
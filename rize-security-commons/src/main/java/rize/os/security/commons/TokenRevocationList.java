@@ -0,0 +1,326 @@
+package rize.os.security.commons;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks tokens against the revoked token IDs ({@code jti}) and session IDs ({@code sid}) in a database table.
+ * <p>
+ * A token stays valid until it expires, even if its user or session has been revoked at the identity provider. To
+ * reject such tokens without a query per request, all active revocations are kept in a {@link RevocationBloomFilter}.
+ * The table is only queried if the filter reports a possible match for the {@code jti} or the {@code sid} of a token,
+ * which happens for revoked tokens and, with the configured false positive probability, for a few others. The outcome
+ * of each check is recorded with {@link AuthenticatedUserMetrics#recordRevocationCheck(boolean, boolean)}, so the
+ * actual false positive rate can be monitored.
+ * <p>
+ * The revocations are expected in a table with the following columns, see {@link TokenRevocationConfiguration}:
+ * <pre>{@code
+ * kind       varchar(8)    'jti' or 'sid'
+ * identifier varchar(255)  the revoked token or session ID
+ * revoked_at bigint        the time of the revocation in epoch milliseconds
+ * expires_at bigint        the time after which no token with this ID is valid anymore, in epoch milliseconds
+ * primary key (kind, identifier), index on revoked_at
+ * }</pre>
+ * New revocations are loaded into the filter in the configured sync interval, so a revocation written by another node
+ * takes effect within that interval. The filter is rebuilt from all active revocations in the rebuild interval, which
+ * drops the revocations of expired tokens, or earlier if more revocations are active than the filter was sized for.
+ * Until the first load has completed, every token is checked against the table.
+ * <p>
+ * The list must be {@linkplain #start() started} to load the revocations and {@linkplain #close() closed} to stop the
+ * background thread.
+ *
+ * @author Dennis Schäfer (<a href="https://github.com/dennis-schaefer">...</a>)
+ */
+public class TokenRevocationList implements MeterBinder, AutoCloseable
+{
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    static final String TOKEN_ID = "jti";
+    static final String SESSION_ID = "sid";
+
+    private final TokenRevocationConfiguration configuration;
+    private final JdbcTemplate jdbcTemplate;
+    private final AuthenticatedUserMetrics metrics;
+    private final ScheduledExecutorService scheduler;
+    private final String selectActive;
+    private final String selectSince;
+    private final String countActive;
+    private final String insert;
+    private final String deleteExpired;
+
+    private volatile RevocationBloomFilter filter;
+    private int filterCapacity;
+    private long watermark;
+    private long lastRebuild;
+
+    /**
+     * Creates a new revocation list with the given configuration.
+     *
+     * @param configuration The configuration of the revocation list.
+     * @param jdbcTemplate  The template the revocation table is queried with.
+     * @param metrics       The metrics the checks are recorded in. If {@code null}, nothing is recorded.
+     */
+    public TokenRevocationList(@NonNull TokenRevocationConfiguration configuration,
+                               @NonNull JdbcTemplate jdbcTemplate,
+                               @Nullable AuthenticatedUserMetrics metrics)
+    {
+        this.configuration = configuration;
+        this.jdbcTemplate = jdbcTemplate;
+        this.metrics = metrics != null ? metrics : AuthenticatedUserMetrics.NOOP;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable ->
+        {
+            var thread = new Thread(runnable, "rize-token-revocation-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        var table = configuration.getTableName();
+        this.selectActive = "SELECT kind, identifier, revoked_at FROM " + table + " WHERE expires_at > ?";
+        this.selectSince = "SELECT kind, identifier, revoked_at FROM " + table + " WHERE revoked_at >= ? AND expires_at > ?";
+        this.countActive = "SELECT COUNT(*) FROM " + table + " WHERE expires_at > ?";
+        this.insert = "INSERT INTO " + table + " (kind, identifier, revoked_at, expires_at) VALUES (?, ?, ?, ?)";
+        this.deleteExpired = "DELETE FROM " + table + " WHERE expires_at <= ?";
+    }
+
+    /**
+     * Starts loading the revocations in the background.
+     */
+    public void start()
+    {
+        long interval = configuration.getSyncInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::syncQuietly, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Checks whether the given token might have been revoked without querying the table. Only if it might,
+     * {@link #isRevoked(Jwt)} queries the table, so callers that must not block, e.g. on a reactive event loop, can
+     * offload just these checks.
+     *
+     * @param jwt The token to check.
+     * @return {@code true} if the Bloom filter reports a possible match or has not been loaded yet, {@code false} if
+     *         the token has certainly not been revoked.
+     */
+    public boolean mightBeRevoked(@NonNull Jwt jwt)
+    {
+        return mightBeRevoked(filter, jwt.getId(), jwt.getClaimAsString(SESSION_ID));
+    }
+
+    private static boolean mightBeRevoked(@Nullable RevocationBloomFilter currentFilter, @Nullable String tokenId, @Nullable String sessionId)
+    {
+        if (tokenId == null && sessionId == null)
+            return false;
+
+        return currentFilter == null
+                || (tokenId != null && currentFilter.mightContain('j', tokenId))
+                || (sessionId != null && currentFilter.mightContain('s', sessionId));
+    }
+
+    /**
+     * Checks whether the token ID or the session ID of the given token has been revoked. Queries the table if the
+     * token {@linkplain #mightBeRevoked(Jwt) might have been revoked}.
+     *
+     * @param jwt The token to check.
+     * @return {@code true} if the token has been revoked, {@code false} otherwise.
+     */
+    public boolean isRevoked(@NonNull Jwt jwt)
+    {
+        var tokenId = jwt.getId();
+        var sessionId = jwt.getClaimAsString(SESSION_ID);
+        if (tokenId == null && sessionId == null)
+            return false;
+
+        var currentFilter = filter;
+        if (!mightBeRevoked(currentFilter, tokenId, sessionId))
+        {
+            metrics.recordRevocationCheck(false, false);
+            return false;
+        }
+
+        boolean revoked;
+        try
+        {
+            revoked = queryRevoked(tokenId, sessionId);
+        }
+        catch (DataAccessException e)
+        {
+            // A token the filter reports as possibly revoked is rejected if the table is unavailable, but tokens are
+            // not rejected just because the revocations could not be loaded yet.
+            log.warn("Failed to check the revocation of token '{}' and session '{}': {}", tokenId, sessionId, e.getMessage());
+            return currentFilter != null;
+        }
+
+        if (currentFilter != null)
+            metrics.recordRevocationCheck(true, revoked);
+
+        return revoked;
+    }
+
+    /**
+     * Revokes all tokens with the given token ID.
+     *
+     * @param tokenId   The revoked {@code jti}.
+     * @param expiresAt The time after which the token is expired anyway.
+     */
+    public void revokeTokenId(@NonNull String tokenId, @NonNull Instant expiresAt)
+    {
+        revoke(TOKEN_ID, tokenId, expiresAt);
+    }
+
+    /**
+     * Revokes all tokens of the given session.
+     *
+     * @param sessionId The revoked {@code sid}.
+     * @param expiresAt The time after which all tokens of the session are expired anyway.
+     */
+    public void revokeSessionId(@NonNull String sessionId, @NonNull Instant expiresAt)
+    {
+        revoke(SESSION_ID, sessionId, expiresAt);
+    }
+
+    /**
+     * Revokes all tokens of the given session, e.g. after a back-channel logout, whose logout token does not tell
+     * when the tokens of the session expire. The revocation is kept for the configured maximum token lifetime.
+     *
+     * @param sessionId The revoked {@code sid}.
+     */
+    public void revokeSessionId(@NonNull String sessionId)
+    {
+        revoke(SESSION_ID, sessionId, Instant.now().plus(configuration.getMaxTokenLifetime()));
+    }
+
+    private void revoke(String kind, String value, Instant expiresAt)
+    {
+        try
+        {
+            jdbcTemplate.update(insert, kind, value, System.currentTimeMillis(), expiresAt.toEpochMilli());
+        }
+        catch (DuplicateKeyException e)
+        {
+            log.debug("The {} '{}' has already been revoked", kind, value);
+        }
+
+        var currentFilter = filter;
+        if (currentFilter != null)
+            currentFilter.put(filterKind(kind), value);
+    }
+
+    /**
+     * Loads the revocations that have been added since the last sync, or all active revocations if the filter is due
+     * to be rebuilt.
+     */
+    synchronized void sync()
+    {
+        long now = System.currentTimeMillis();
+        var currentFilter = filter;
+        if (currentFilter == null
+                || now - lastRebuild >= configuration.getRebuildInterval().toMillis()
+                || currentFilter.size() > filterCapacity)
+        {
+            rebuild(now);
+            return;
+        }
+
+        // Revocations are selected with an overlap of one sync interval, so none is missed whose transaction has
+        // committed after the previous sync with an earlier timestamp. Adding a revocation twice has no effect.
+        long since = watermark - configuration.getSyncInterval().toMillis();
+        jdbcTemplate.query(selectSince, (RowCallbackHandler) resultSet ->
+        {
+            currentFilter.put(filterKind(resultSet.getString(1)), resultSet.getString(2));
+            watermark = Math.max(watermark, resultSet.getLong(3));
+        }, since, now);
+    }
+
+    private void rebuild(long now)
+    {
+        jdbcTemplate.update(deleteExpired, now);
+
+        var count = jdbcTemplate.queryForObject(countActive, Long.class, now);
+        int expected = (int) Math.min(Integer.MAX_VALUE / 2, Math.max(configuration.getExpectedRevocations(), count != null ? count * 2 : 0));
+        var newFilter = new RevocationBloomFilter(expected, configuration.getFalsePositiveProbability());
+
+        watermark = now;
+        jdbcTemplate.query(selectActive, (RowCallbackHandler) resultSet -> newFilter.put(filterKind(resultSet.getString(1)), resultSet.getString(2)), now);
+
+        filter = newFilter;
+        filterCapacity = expected;
+        lastRebuild = now;
+        log.debug("Rebuilt the revocation filter with {} active revocations", newFilter.size());
+    }
+
+    private void syncQuietly()
+    {
+        try
+        {
+            sync();
+        }
+        catch (RuntimeException e)
+        {
+            log.warn("Failed to load the token revocations: {}", e.getMessage());
+        }
+    }
+
+    private boolean queryRevoked(String tokenId, String sessionId)
+    {
+        long now = System.currentTimeMillis();
+        var table = configuration.getTableName();
+
+        Long count;
+        if (tokenId != null && sessionId != null)
+            count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE ((kind = ? AND identifier = ?) OR (kind = ? AND identifier = ?)) AND expires_at > ?",
+                    Long.class, TOKEN_ID, tokenId, SESSION_ID, sessionId, now);
+        else
+            count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE kind = ? AND identifier = ? AND expires_at > ?",
+                    Long.class, tokenId != null ? TOKEN_ID : SESSION_ID, tokenId != null ? tokenId : sessionId, now);
+
+        return count != null && count > 0;
+    }
+
+    private static char filterKind(String kind)
+    {
+        return TOKEN_ID.equals(kind) ? 'j' : 's';
+    }
+
+    /**
+     * @return {@code true} if the revocations have been loaded, {@code false} if every token is still checked
+     *         against the table.
+     */
+    public boolean isLoaded()
+    {
+        return filter != null;
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry)
+    {
+        Gauge.builder("rize.security.revocation.filter.size", this, list -> list.filter != null ? list.filter.size() : 0)
+                .description("Number of revocations in the Bloom filter")
+                .register(registry);
+        Gauge.builder("rize.security.revocation.filter.expected.fpp", this, list -> list.filter != null ? list.filter.expectedFalsePositiveProbability() : 0)
+                .description("False positive probability of the Bloom filter expected for its number of revocations")
+                .register(registry);
+    }
+
+    /**
+     * Stops loading the revocations in the background.
+     */
+    @Override
+    public void close()
+    {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,162 @@
+package rize.os.security.commons;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthenticatedUserCacheTest
+{
+    private final AtomicLong nanos = new AtomicLong();
+    private final Ticker ticker = nanos::get;
+    private final AtomicInteger conversions = new AtomicInteger();
+
+    private AuthenticatedUserCache cache;
+    private JwtAuthenticatedUserConverter converter;
+
+    @BeforeEach
+    void setUp()
+    {
+        cache = new AuthenticatedUserCache(100, ticker);
+        converter = new JwtAuthenticatedUserConverter(AuthenticatedUserClaimsConfiguration.createDefault());
+    }
+
+    @Test
+    @DisplayName("[AuthenticatedUserCache] should return the cached user for the same token")
+    void shouldReturnCachedUserForSameToken()
+    {
+        var jwt = createJwt("token-a", UUID.randomUUID().toString(), Instant.now().plusSeconds(60));
+
+        var first = cache.get(jwt, converter.getClaimsPlan(), this::convert);
+        var second = cache.get(jwt, converter.getClaimsPlan(), this::convert);
+
+        assertThat(second).isSameAs(first);
+        assertThat(conversions).hasValue(1);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("[AuthenticatedUserCache] should cache tokens without an ID by their value")
+    void shouldCacheTokensWithoutId()
+    {
+        var jwt = createJwt("token-a", null, Instant.now().plusSeconds(60));
+
+        var first = cache.get(jwt, converter.getClaimsPlan(), this::convert);
+        var second = cache.get(createJwt("token-a", null, Instant.now().plusSeconds(60)), converter.getClaimsPlan(), this::convert);
+
+        assertThat(second).isSameAs(first);
+        assertThat(conversions).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("[AuthenticatedUserCache] should not share entries between different tokens with the same ID")
+    void shouldNotShareEntriesBetweenDifferentTokens()
+    {
+        var id = UUID.randomUUID().toString();
+
+        var first = cache.get(createJwt("token-a", id, Instant.now().plusSeconds(60)), converter.getClaimsPlan(), this::convert);
+        var second = cache.get(createJwt("token-b", id, Instant.now().plusSeconds(60)), converter.getClaimsPlan(), this::convert);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getTokenValue()).isEqualTo("token-b");
+    }
+
+    @Test
+    @DisplayName("[AuthenticatedUserCache] should evict users when their token expires")
+    void shouldEvictUsersWhenTokenExpires()
+    {
+        var jwt = createJwt("token-a", UUID.randomUUID().toString(), Instant.now().plusSeconds(60));
+
+        cache.get(jwt, converter.getClaimsPlan(), this::convert);
+        nanos.addAndGet(Duration.ofSeconds(61).toNanos());
+        cache.get(jwt, converter.getClaimsPlan(), this::convert);
+
+        assertThat(conversions).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("[AuthenticatedUserCache] should not cache expired tokens")
+    void shouldNotCacheExpiredTokens()
+    {
+        var jwt = createJwt("token-a", UUID.randomUUID().toString(), Instant.now().minusSeconds(1));
+
+        cache.get(jwt, converter.getClaimsPlan(), this::convert);
+        cache.get(jwt, converter.getClaimsPlan(), this::convert);
+
+        assertThat(conversions).hasValue(2);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("[AuthenticatedUserCache] should invalidate all users when the claims plan changes")
+    void shouldInvalidateAllUsersWhenClaimsPlanChanges()
+    {
+        var jwt = createJwt("token-a", UUID.randomUUID().toString(), Instant.now().plusSeconds(60));
+        var otherPlan = AuthenticatedUserClaimsPlan.compile(AuthenticatedUserClaimsConfiguration.createDefault());
+
+        cache.get(jwt, converter.getClaimsPlan(), this::convert);
+        cache.get(jwt, otherPlan, this::convert);
+
+        assertThat(conversions).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("[AuthenticatedUserCache] should compare the expiration time of tokens with the time of its ticker")
+    void shouldUseTickerForExpirationTime()
+    {
+        var jwt = createJwt("token-a", UUID.randomUUID().toString(), Instant.now().plusSeconds(60));
+
+        nanos.addAndGet(Duration.ofSeconds(61).toNanos());
+        cache.get(jwt, converter.getClaimsPlan(), this::convert);
+        cache.get(jwt, converter.getClaimsPlan(), this::convert);
+
+        assertThat(conversions).hasValue(2);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("[AuthenticatedUserCache] should not return users converted with a previous claims plan")
+    void shouldNotReturnUsersOfPreviousClaimsPlan()
+    {
+        var jwt = createJwt("token-a", UUID.randomUUID().toString(), Instant.now().plusSeconds(60));
+        var otherPlan = AuthenticatedUserClaimsPlan.compile(AuthenticatedUserClaimsConfiguration.createDefault());
+
+        // The plan changes while the token is still converted with the previous plan
+        cache.get(jwt, converter.getClaimsPlan(), token ->
+        {
+            cache.get(createJwt("token-b", UUID.randomUUID().toString(), Instant.now().plusSeconds(60)), otherPlan, this::convert);
+            return convert(token);
+        });
+        cache.get(jwt, otherPlan, this::convert);
+
+        assertThat(conversions).hasValue(3);
+    }
+
+    private AuthenticatedUser convert(Jwt jwt)
+    {
+        conversions.incrementAndGet();
+        return converter.convert(jwt);
+    }
+
+    private Jwt createJwt(String tokenValue, String id, Instant expiresAt)
+    {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("sub", UUID.randomUUID().toString());
+        if (id != null)
+            claims.put("jti", id);
+
+        return new Jwt(tokenValue, expiresAt.minusSeconds(300), expiresAt, Map.of("alg", "none"), claims);
+    }
+}
@@ -45,6 +45,7 @@ class AuthenticatedUserClaimsConfigurationDefaultIT
         assertThat(config.getUpdatedAt()).isEqualTo(StandardClaimNames.UPDATED_AT);
         assertThat(config.getSessionId()).isEqualTo("sid");
         assertThat(config.getClientRoles()).isEqualTo("resource_access.${clientId}.roles");
+        assertThat(config.getOrganisationRoles()).isEqualTo("organisations.${organisationId}.roles");
         assertThat(config.getClientId()).isEqualTo("azp");
     }
 }
\ No newline at end of file
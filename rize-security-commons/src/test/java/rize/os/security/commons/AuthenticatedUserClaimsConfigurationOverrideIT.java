@@ -33,7 +33,8 @@ import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
             "rize.security.jwt.authenticated-user-claims.updated-at=custom_updated_at",
             "rize.security.jwt.authenticated-user-claims.session-id=custom_sid",
             "rize.security.jwt.authenticated-user-claims.client-roles=custom_client_roles",
-            "rize.security.jwt.authenticated-user-claims.client-id=custom_client_id"
+            "rize.security.jwt.authenticated-user-claims.client-id=custom_client_id",
+            "rize.security.jwt.authenticated-user-claims.organisation-roles=custom_organisation_roles"
         }
 )
 public class AuthenticatedUserClaimsConfigurationOverrideIT
@@ -71,5 +72,6 @@ public class AuthenticatedUserClaimsConfigurationOverrideIT
         assertThat(config.getSessionId()).isEqualTo("custom_sid");
         assertThat(config.getClientRoles()).isEqualTo("custom_client_roles");
         assertThat(config.getClientId()).isEqualTo("custom_client_id");
+        assertThat(config.getOrganisationRoles()).isEqualTo("custom_organisation_roles");
     }
 }
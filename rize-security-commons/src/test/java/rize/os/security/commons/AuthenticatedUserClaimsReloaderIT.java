@@ -0,0 +1,91 @@
+package rize.os.security.commons;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = AuthenticatedUserClaimsReloaderIT.TestConfig.class)
+class AuthenticatedUserClaimsReloaderIT
+{
+    private static final String PROPERTY_SOURCE = "reloaded-claims";
+
+    @Configuration
+    @EnableConfigurationProperties(AuthenticatedUserClaimsConfiguration.class)
+    @Import({JwtAuthenticatedUserConverter.class, AuthenticatedUserClaimsReloader.class})
+    static class TestConfig {}
+
+    @Autowired
+    private JwtAuthenticatedUserConverter converter;
+
+    @Autowired
+    private AuthenticatedUserClaimsReloader reloader;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ConfigurableEnvironment environment;
+
+    private final Jwt jwt = new Jwt("token", Instant.now(), Instant.now().plusSeconds(60), Map.of("alg", "none"),
+            Map.of("sub", "user-id", "preferred_username", "testuser", "login", "custom-user"));
+
+    @AfterEach
+    void tearDown()
+    {
+        environment.getPropertySources().remove(PROPERTY_SOURCE);
+        converter.reload(AuthenticatedUserClaimsConfiguration.createDefault());
+    }
+
+    @Test
+    @DisplayName("[AuthenticatedUserClaimsReloader] should reload the claims configuration from the environment")
+    void shouldReloadFromEnvironment()
+    {
+        var previousPlan = converter.getClaimsPlan();
+        environment.getPropertySources().addFirst(new MapPropertySource(PROPERTY_SOURCE,
+                Map.of(AuthenticatedUserClaimsConfiguration.PREFIX + ".username", "login")));
+
+        eventPublisher.publishEvent(new AuthenticatedUserClaimsChangedEvent(this));
+
+        assertThat(converter.getClaimsPlan()).isNotSameAs(previousPlan);
+        assertThat(converter.convert(jwt).getUsername()).isEqualTo("custom-user");
+    }
+
+    @Test
+    @DisplayName("[AuthenticatedUserClaimsReloader] should keep the current configuration if it has not changed")
+    void shouldSkipUnchangedConfiguration()
+    {
+        var previousPlan = converter.getClaimsPlan();
+
+        assertThat(reloader.reloadFromEnvironment()).isFalse();
+        assertThat(converter.getClaimsPlan()).isSameAs(previousPlan);
+    }
+
+    @Test
+    @DisplayName("[AuthenticatedUserClaimsReloader] should reject an invalid configuration and keep the current one")
+    void shouldRejectInvalidConfiguration()
+    {
+        var previousPlan = converter.getClaimsPlan();
+        var invalid = new AuthenticatedUserClaimsConfiguration(
+                null, null, null, null, null, null, null, null, null, null, null, null,
+                null, null, null, null, null, null, null, null, null, null, "organisations");
+
+        eventPublisher.publishEvent(new AuthenticatedUserClaimsChangedEvent(this, invalid));
+
+        assertThat(converter.getClaimsPlan()).isSameAs(previousPlan);
+        assertThat(converter.convert(jwt).getUsername()).isEqualTo("testuser");
+    }
+}
@@ -0,0 +1,154 @@
+package rize.os.security.commons;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AuthenticatedUserCodecTest
+{
+    private final AuthenticatedUserCodec codec = AuthenticatedUserCodec.getDefault();
+    private final JwtAuthenticatedUserConverter converter = new JwtAuthenticatedUserConverter(AuthenticatedUserClaimsConfiguration.createDefault());
+
+    private AuthenticatedUser user;
+
+    @BeforeEach
+    void setUp()
+    {
+        var issuedAt = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("iss", "http://localhost:3000/realms/administration");
+        claims.put("sub", UUID.randomUUID().toString());
+        claims.put("aud", List.of("account"));
+        claims.put("iat", issuedAt);
+        claims.put("exp", issuedAt.plusSeconds(300));
+        claims.put("jti", UUID.randomUUID().toString());
+        claims.put("azp", "rize-cockpit");
+        claims.put("sid", UUID.randomUUID().toString());
+        claims.put("preferred_username", "testuser");
+        claims.put("email", "test.user@rize.os");
+        claims.put("email_verified", true);
+        claims.put("name", "Test User");
+        claims.put("given_name", "Test");
+        claims.put("family_name", "User");
+        claims.put("address", Map.of("locality", "Berlin", "country", "DE"));
+        claims.put("realm_access", Map.of("roles", List.of("offline_access", "uma_authorization")));
+        claims.put("resource_access", Map.of("rize-cockpit", Map.of("roles", List.of("platform-administrator", "viewer"))));
+        claims.put("organisations", Map.of("acme", Map.of("roles", List.of("owner")), "globex", Map.of("roles", List.of())));
+
+        user = converter.convert(new Jwt("header.payload.signature", issuedAt, issuedAt.plusSeconds(300), Map.of("alg", "RS256"), claims));
+    }
+
+    @Test
+    @DisplayName("[AuthenticatedUserCodec] should decode an equal user")
+    void shouldRoundTripUser()
+    {
+        var decoded = codec.decodeUser(codec.encode(user));
+
+        assertThat(decoded.getUserId()).isEqualTo(user.getUserId());
+        assertThat(decoded.getUsername()).isEqualTo("testuser");
+        assertThat(decoded.isEmailVerified()).isTrue();
+        assertThat(decoded.getAddress().getLocality()).isEqualTo("Berlin");
+        assertThat(decoded.getSessionId()).isEqualTo(user.getSessionId());
+        assertThat(decoded.getTokenValue()).isEqualTo("header.payload.signature");
+        assertThat(decoded.getClaims()).isEqualTo(user.getClaims());
+        assertThat(decoded.getUserInfo().getClaims()).isEqualTo(user.getUserInfo().getClaims());
+        assertThat(decoded.getIdToken().getExpiresAt()).isEqualTo(user.getIdToken().getExpiresAt());
+        assertThat(decoded.getAuthorities()).isInstanceOf(RoleAuthoritySet.class);
+        assertThat(List.<Object>copyOf(decoded.getAuthorities())).containsExactlyInAnyOrderElementsOf(List.copyOf(user.getAuthorities()));
+        assertThat(decoded.hasRole("platform-administrator")).isTrue();
+        assertThat(decoded.getOrganisationRoles()).isEqualTo(user.getOrganisationRoles());
+        assertThat(decoded.hasOrganisationRole("acme", "owner")).isTrue();
+        assertThat(decoded.getOrganisationRoles().isMemberOf("globex")).isTrue();
+    }
+
+    @Test
+    @DisplayName("[AuthenticatedUserCodec] should keep authorities that are not roles")
+    void shouldKeepOtherAuthorities()
+    {
+        var mixed = new AuthenticatedUser(user.getUserInfo(), user.getIdToken(),
+                Set.of(RoleAuthorityRegistry.getDefault().register("viewer"), new SimpleGrantedAuthority("SCOPE_openid")), null);
+
+        var decoded = codec.decodeUser(codec.encode(mixed));
+
+        assertThat(List.<Object>copyOf(decoded.getAuthorities())).containsExactlyInAnyOrderElementsOf(List.copyOf(mixed.getAuthorities()));
+        assertThat(decoded.hasRole("viewer")).isTrue();
+        assertThat(decoded.getSessionId()).isNull();
+    }
+
+    @Test
+    @DisplayName("[AuthenticatedUserCodec] should be used for the Java serialized form of users and tokens")
+    void shouldBeUsedForJavaSerialization() throws Exception
+    {
+        var token = new AuthenticatedUserToken(user);
+        token.setDetails(UUID.randomUUID());
+
+        var decoded = (AuthenticatedUserToken) deserialize(serialize(token));
+
+        assertThat(decoded.isAuthenticated()).isTrue();
+        assertThat(decoded.getDetails()).isEqualTo(token.getDetails());
+        assertThat(decoded.getPrincipal().getUserId()).isEqualTo(user.getUserId());
+        assertThat(decoded.getAuthorities()).containsExactlyInAnyOrderElementsOf(token.getAuthorities());
+        assertThat(((AuthenticatedUser) deserialize(serialize(user))).getClaims()).isEqualTo(user.getClaims());
+    }
+
+    @Test
+    @DisplayName("[AuthenticatedUserCodec] should be considerably smaller than the default Java serialization")
+    void shouldBeSmallerThanJavaSerialization() throws Exception
+    {
+        var oidcUser = new DefaultOidcUser(List.copyOf(user.getAuthorities()), user.getIdToken(), user.getUserInfo());
+
+        assertThat(serialize(user).length).isLessThan(serialize(oidcUser).length / 2);
+    }
+
+    @Test
+    @DisplayName("[AuthenticatedUserCodec] should reject unknown versions and truncated data")
+    void shouldRejectInvalidData()
+    {
+        var data = codec.encode(user);
+        var unknownVersion = data.clone();
+        unknownVersion[1] = (byte) (AuthenticatedUserCodec.VERSION + 1);
+
+        assertThatThrownBy(() -> codec.decodeUser(unknownVersion)).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("version");
+        assertThatThrownBy(() -> codec.decodeUser(Arrays.copyOf(data, data.length / 2))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> codec.decodeToken(data)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static byte[] serialize(Object object) throws IOException
+    {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new ObjectOutputStream(bytes))
+        {
+            out.writeObject(object);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] data) throws IOException, ClassNotFoundException
+    {
+        try (var in = new ObjectInputStream(new ByteArrayInputStream(data)))
+        {
+            return in.readObject();
+        }
+    }
+}
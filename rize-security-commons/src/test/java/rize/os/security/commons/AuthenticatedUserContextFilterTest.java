@@ -0,0 +1,61 @@
+package rize.os.security.commons;
+
+import jakarta.servlet.http.HttpServlet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.OidcUserInfo;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthenticatedUserContextFilterTest
+{
+    private final AuthenticatedUserContextFilter filter = new AuthenticatedUserContextFilter();
+
+    @AfterEach
+    void tearDown()
+    {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("[AuthenticatedUserContextFilter] should bind the user for the duration of the request")
+    void shouldBindUserDuringRequest() throws Exception
+    {
+        var idToken = new OidcIdToken("token", Instant.now(), Instant.now().plusSeconds(60), Map.of("sub", "alice"));
+        var user = new AuthenticatedUser(new OidcUserInfo(Map.of("sub", "alice")), idToken, Set.of(), null);
+        var context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(new AuthenticatedUserToken(user));
+        SecurityContextHolder.setContext(context);
+
+        var boundUser = new AtomicReference<AuthenticatedUser>();
+        filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(),
+                new MockFilterChain(new HttpServlet() {}, (request, response, chain) -> boundUser.set(AuthenticatedUserContext.bound())));
+
+        assertThat(boundUser.get()).isSameAs(user);
+        assertThat(AuthenticatedUserContext.bound()).isNull();
+    }
+
+    @Test
+    @DisplayName("[AuthenticatedUserContextFilter] should not bind anything for anonymous requests")
+    void shouldNotBindWithoutUser() throws Exception
+    {
+        var boundUser = new AtomicReference<AuthenticatedUser>();
+        var chain = new MockFilterChain(new HttpServlet() {}, (request, response, next) -> boundUser.set(AuthenticatedUserContext.bound()));
+
+        filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), chain);
+
+        assertThat(boundUser.get()).isNull();
+        assertThat(chain.getRequest()).isNotNull();
+    }
+}
@@ -13,11 +13,13 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.core.oidc.OidcIdToken;
 import org.springframework.security.oauth2.core.oidc.OidcUserInfo;
 
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -97,5 +99,65 @@ class AuthenticatedUserContextTest
 
         assertTrue(actualUser.isEmpty());
     }
-}
 
+    @Test
+    @DisplayName("[AuthenticatedUserContext] should return the bound user without looking up the principal")
+    void current_shouldReturnBoundUser_withoutPrincipalLookup()
+    {
+        var boundUser = new AuthenticatedUser(userInfo, idToken, Set.of(), null);
+
+        AuthenticatedUserContext.runWith(boundUser, () ->
+        {
+            assertThat(AuthenticatedUserContext.current()).isSameAs(boundUser);
+            assertThat(AuthenticatedUserContext.get()).containsSame(boundUser);
+        });
+
+        verifyNoInteractions(authentication);
+        assertThat(AuthenticatedUserContext.bound()).isNull();
+    }
+
+    @Test
+    @DisplayName("[AuthenticatedUserContext] should restore the previous binding after a nested binding")
+    void callWith_shouldRestorePreviousBinding() throws Exception
+    {
+        var outerUser = new AuthenticatedUser(userInfo, idToken, Set.of(), "outer");
+        var innerUser = new AuthenticatedUser(userInfo, idToken, Set.of(), "inner");
+
+        var users = AuthenticatedUserContext.callWith(outerUser, () ->
+                List.of(AuthenticatedUserContext.callWith(innerUser, AuthenticatedUserContext::current), AuthenticatedUserContext.current()));
+
+        assertThat(users).containsExactly(innerUser, outerUser);
+    }
+
+    @Test
+    @DisplayName("[AuthenticatedUserContext] should ignore the bound user once the security context holds another authentication")
+    void current_shouldDeferToChangedSecurityContext()
+    {
+        var boundUser = new AuthenticatedUser(userInfo, idToken, Set.of(), "bound");
+        var otherUser = new AuthenticatedUser(userInfo, idToken, Set.of(), "other");
+        when(securityContext.getAuthentication()).thenReturn(null);
+
+        AuthenticatedUserContext.runWith(boundUser, () ->
+        {
+            assertThat(AuthenticatedUserContext.current()).isSameAs(boundUser);
+
+            when(securityContext.getAuthentication()).thenReturn(authentication);
+            when(authentication.isAuthenticated()).thenReturn(true);
+            when(authentication.getPrincipal()).thenReturn(otherUser);
+            assertThat(AuthenticatedUserContext.current()).isSameAs(otherUser);
+            assertThat(AuthenticatedUserContext.bound()).isNull();
+        });
+    }
+
+    @Test
+    @DisplayName("[AuthenticatedUserContext] should fall back to the security context if no user is bound")
+    void current_shouldFallBackToSecurityContext()
+    {
+        var expectedUser = new AuthenticatedUser(userInfo, idToken, Set.of(), null);
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.isAuthenticated()).thenReturn(true);
+        when(authentication.getPrincipal()).thenReturn(expectedUser);
+
+        AuthenticatedUserContext.runWith(null, () -> assertThat(AuthenticatedUserContext.current()).isSameAs(expectedUser));
+    }
+}
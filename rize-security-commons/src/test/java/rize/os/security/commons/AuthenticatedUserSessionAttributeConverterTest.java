@@ -0,0 +1,89 @@
+package rize.os.security.commons;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.convert.support.GenericConversionService;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthenticatedUserSessionAttributeConverterTest
+{
+    private final GenericConversionService conversionService = new GenericConversionService();
+
+    AuthenticatedUserSessionAttributeConverterTest()
+    {
+        conversionService.addConverter(new AuthenticatedUserSessionAttributeConverter(getClass().getClassLoader()));
+    }
+
+    @Test
+    @DisplayName("[AuthenticatedUserSessionAttributeConverter] should write security contexts of authenticated users with the codec")
+    void shouldConvertSecurityContextWithCodec()
+    {
+        var jwt = new Jwt("dummy-token-value", Instant.now(), Instant.now().plusSeconds(60), Map.of("alg", "none"), Map.of(
+                "sub", "user-id",
+                "azp", "rize-app",
+                "resource_access", Map.of("rize-app", Map.of("roles", List.of("admin")))));
+        var user = new JwtAuthenticatedUserConverter(AuthenticatedUserClaimsConfiguration.createDefault()).convert(jwt);
+
+        var data = conversionService.convert(new SecurityContextImpl(new AuthenticatedUserToken(user)), byte[].class);
+        var securityContext = (SecurityContext) conversionService.convert(data, Object.class);
+
+        assertThat(AuthenticatedUserCodec.isEncoded(data)).isTrue();
+        assertThat(securityContext.getAuthentication()).isInstanceOf(AuthenticatedUserToken.class);
+        assertThat(((AuthenticatedUser) securityContext.getAuthentication().getPrincipal()).hasRole("admin")).isTrue();
+    }
+
+    @Test
+    @DisplayName("[AuthenticatedUserSessionAttributeConverter] should write security contexts of OAuth 2.0 logins of authenticated users with the codec")
+    void shouldConvertOAuth2LoginWithCodec()
+    {
+        var jwt = new Jwt("dummy-token-value", Instant.now(), Instant.now().plusSeconds(60), Map.of("alg", "none"), Map.of(
+                "sub", "user-id",
+                "azp", "rize-app",
+                "resource_access", Map.of("rize-app", Map.of("roles", List.of("admin")))));
+        var user = new JwtAuthenticatedUserConverter(AuthenticatedUserClaimsConfiguration.createDefault()).convert(jwt);
+        Set<GrantedAuthority> mappedAuthorities = new HashSet<>(user.getAuthorities());
+        mappedAuthorities.add(new SimpleGrantedAuthority("SCOPE_openid"));
+
+        var sameAuthorities = roundTrip(new OAuth2AuthenticationToken(user, user.getAuthorities(), "keycloak"));
+        var otherAuthorities = roundTrip(new OAuth2AuthenticationToken(user, mappedAuthorities, "keycloak"));
+
+        assertThat(sameAuthorities.getAuthorizedClientRegistrationId()).isEqualTo("keycloak");
+        assertThat(sameAuthorities.isAuthenticated()).isTrue();
+        assertThat(sameAuthorities.getAuthorities()).containsExactlyInAnyOrderElementsOf(user.getAuthorities());
+        assertThat(((AuthenticatedUser) sameAuthorities.getPrincipal()).hasRole("admin")).isTrue();
+        assertThat(otherAuthorities.getAuthorities()).containsExactlyInAnyOrderElementsOf(mappedAuthorities);
+    }
+
+    private OAuth2AuthenticationToken roundTrip(OAuth2AuthenticationToken oAuth2AuthenticationToken)
+    {
+        var data = conversionService.convert(new SecurityContextImpl(oAuth2AuthenticationToken), byte[].class);
+        var securityContext = (SecurityContext) conversionService.convert(data, Object.class);
+
+        assertThat(AuthenticatedUserCodec.isEncoded(data)).isTrue();
+        assertThat(securityContext.getAuthentication()).isInstanceOf(OAuth2AuthenticationToken.class);
+        return (OAuth2AuthenticationToken) securityContext.getAuthentication();
+    }
+
+    @Test
+    @DisplayName("[AuthenticatedUserSessionAttributeConverter] should write all other attributes with Java serialization")
+    void shouldConvertOtherAttributesWithJavaSerialization()
+    {
+        var data = conversionService.convert(Map.of("key", "value"), byte[].class);
+
+        assertThat(AuthenticatedUserCodec.isEncoded(data)).isFalse();
+        assertThat(conversionService.convert(data, Object.class)).isEqualTo(Map.of("key", "value"));
+    }
+}
@@ -0,0 +1,139 @@
+package rize.os.security.commons;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.OidcUserInfo;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthenticatedUserTaskDecoratorTest
+{
+    private final AuthenticatedUserTaskDecorator taskDecorator = new AuthenticatedUserTaskDecorator();
+
+    @AfterEach
+    void tearDown()
+    {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("[AuthenticatedUserTaskDecorator] should propagate the user to a pooled platform thread and restore its context")
+    void shouldPropagateUserToPlatformThread() throws Exception
+    {
+        var executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setTaskDecorator(taskDecorator);
+        executor.initialize();
+        try
+        {
+            var alice = authenticate("alice");
+            assertThat(executor.submit(AuthenticatedUserContext::get).get(5, TimeUnit.SECONDS)).contains(alice);
+
+            SecurityContextHolder.clearContext();
+            assertThat(executor.submit(AuthenticatedUserContext::get).get(5, TimeUnit.SECONDS)).isEmpty();
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("[AuthenticatedUserTaskDecorator] should propagate the user across nested hops on virtual threads")
+    void shouldPropagateUserToVirtualThreads() throws Exception
+    {
+        var executor = new SimpleAsyncTaskExecutor("virtual-");
+        executor.setVirtualThreads(true);
+        executor.setTaskDecorator(taskDecorator);
+
+        var bob = authenticate("bob");
+        var user = executor.submit(() -> executor.submit(AuthenticatedUserContext::get).get(5, TimeUnit.SECONDS));
+
+        assertThat(user.get(5, TimeUnit.SECONDS)).contains(bob);
+    }
+
+    @Test
+    @DisplayName("[AuthenticatedUserTaskDecorator] should not be affected by a later change of the submitting context")
+    void shouldCaptureUserOnSubmit() throws Exception
+    {
+        var alice = authenticate("alice");
+        var user = new AtomicReference<Optional<AuthenticatedUser>>();
+        var task = taskDecorator.decorate(() -> user.set(AuthenticatedUserContext.get()));
+
+        SecurityContextHolder.getContext().setAuthentication(null);
+        var thread = new Thread(task);
+        thread.start();
+        thread.join(5000);
+
+        assertThat(user.get()).contains(alice);
+    }
+
+    @Test
+    @DisplayName("[AuthenticatedUserTaskDecorator] should bind the bound user of the submitting thread in the task")
+    void shouldPropagateBoundUser() throws Exception
+    {
+        var executor = new SimpleAsyncTaskExecutor();
+        executor.setTaskDecorator(taskDecorator);
+
+        var alice = authenticate("alice");
+        var boundUser = AuthenticatedUserContext.callWith(alice, () -> executor.submit(AuthenticatedUserContext::bound));
+
+        assertThat(boundUser.get(5, TimeUnit.SECONDS)).isSameAs(alice);
+    }
+
+    @Test
+    @DisplayName("[AuthenticatedUserTaskDecoratorAutoConfiguration] should only register the decorator if the application has no TaskDecorator")
+    void shouldBackOffForApplicationTaskDecorator()
+    {
+        var contextRunner = new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(AuthenticatedUserTaskDecoratorAutoConfiguration.class, TaskExecutionAutoConfiguration.class));
+
+        contextRunner.run(context -> assertThat(context).getBean(TaskDecorator.class).isInstanceOf(AuthenticatedUserTaskDecorator.class));
+        contextRunner.withUserConfiguration(ApplicationTaskDecoratorConfiguration.class)
+                .run(context ->
+                {
+                    assertThat(context).hasSingleBean(TaskDecorator.class);
+                    assertThat(context).doesNotHaveBean(AuthenticatedUserTaskDecorator.class);
+                });
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    static class ApplicationTaskDecoratorConfiguration
+    {
+        @Bean
+        TaskDecorator applicationTaskDecorator()
+        {
+            return runnable -> runnable;
+        }
+    }
+
+    private static AuthenticatedUser authenticate(String username)
+    {
+        var idToken = new OidcIdToken("token", Instant.now(), Instant.now().plusSeconds(60), Map.of("sub", username));
+        var user = new AuthenticatedUser(new OidcUserInfo(Map.of("sub", username, "preferred_username", username)), idToken, Set.of(), null);
+
+        var context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(new AuthenticatedUserToken(user));
+        SecurityContextHolder.setContext(context);
+
+        return user;
+    }
+}
@@ -0,0 +1,65 @@
+package rize.os.security.commons;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClaimCoercionTest
+{
+    @Test
+    @DisplayName("[ClaimCoercion] should coerce strings and booleans")
+    void shouldCoerceStringsAndBooleans()
+    {
+        assertThat(ClaimCoercion.asString("value")).isEqualTo("value");
+        assertThat(ClaimCoercion.asString(42)).isNull();
+        assertThat(ClaimCoercion.asBoolean(true)).isTrue();
+        assertThat(ClaimCoercion.asBoolean("false")).isFalse();
+        assertThat(ClaimCoercion.asBoolean("yes")).isNull();
+        assertThat(ClaimCoercion.asBoolean(null)).isNull();
+    }
+
+    @Test
+    @DisplayName("[ClaimCoercion] should coerce timestamps from epoch seconds, dates and ISO strings")
+    void shouldCoerceTimestamps()
+    {
+        var instant = Instant.ofEpochSecond(1_700_000_000L);
+
+        assertThat(ClaimCoercion.asInstant("updated_at", instant)).isEqualTo(instant);
+        assertThat(ClaimCoercion.asInstant("updated_at", 1_700_000_000L)).isEqualTo(instant);
+        assertThat(ClaimCoercion.asInstant("updated_at", "1700000000")).isEqualTo(instant);
+        assertThat(ClaimCoercion.asInstant("updated_at", Date.from(instant))).isEqualTo(instant);
+        assertThat(ClaimCoercion.asInstant("updated_at", instant.toString())).isEqualTo(instant);
+        assertThat(ClaimCoercion.asInstant("updated_at", "yesterday")).isNull();
+        assertThat(ClaimCoercion.asInstant("updated_at", List.of())).isNull();
+    }
+
+    @Test
+    @DisplayName("[ClaimCoercion] should return maps with string keys as is")
+    void shouldCoerceMaps()
+    {
+        var address = Map.of("street_address", "Main Street 1");
+
+        assertThat(ClaimCoercion.asMap("address", address)).isSameAs(address);
+        assertThat(ClaimCoercion.asMap("address", Map.of(1, "one"))).isNull();
+        assertThat(ClaimCoercion.asMap("address", "Main Street 1")).isNull();
+    }
+
+    @Test
+    @DisplayName("[ClaimCoercion] should coerce arrays into collections of strings")
+    void shouldCoerceStringCollections()
+    {
+        var roles = List.of("admin", "viewer");
+
+        assertThat(ClaimCoercion.asStringCollection("roles", roles)).isSameAs(roles);
+        assertThat(ClaimCoercion.asStringCollection("roles", new String[]{"admin"})).containsExactly("admin");
+        assertThat(ClaimCoercion.asStringCollection("roles", List.of("admin", 1, true))).containsExactly("admin", "1", "true");
+        assertThat(ClaimCoercion.asStringCollection("roles", List.of(Map.of()))).isNull();
+        assertThat(ClaimCoercion.asStringCollection("roles", "admin")).isNull();
+    }
+}
@@ -0,0 +1,101 @@
+package rize.os.security.commons;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClaimPathTest
+{
+    private final Map<String, Object> claims = Map.of(
+            "sub", "user-id",
+            "azp", "rize-app",
+            "resource_access", Map.of(
+                    "rize-app", Map.of("roles", List.of("admin", "viewer")),
+                    "rize.app", Map.of("roles", List.of("dotted"))),
+            "custom", Map.of("nested", Map.of("deep", "value"))
+    );
+
+    @Test
+    @DisplayName("[ClaimPath] should resolve top-level claims")
+    void shouldResolveTopLevelClaims()
+    {
+        assertThat(ClaimPath.compile("sub").resolve(claims)).isEqualTo("user-id");
+    }
+
+    @Test
+    @DisplayName("[ClaimPath] should resolve nested claims")
+    void shouldResolveNestedClaims()
+    {
+        assertThat(ClaimPath.compile("custom.nested.deep").resolve(claims)).isEqualTo("value");
+    }
+
+    @Test
+    @DisplayName("[ClaimPath] should return null for missing or non-map parents")
+    void shouldReturnNullForMissingClaims()
+    {
+        assertThat(ClaimPath.compile("missing").resolve(claims)).isNull();
+        assertThat(ClaimPath.compile("custom.missing.deep").resolve(claims)).isNull();
+        assertThat(ClaimPath.compile("sub.deep").resolve(claims)).isNull();
+    }
+
+    @Test
+    @DisplayName("[ClaimPath] should substitute the variable segment")
+    void shouldSubstituteVariableSegment()
+    {
+        var path = ClaimPath.compile("resource_access.${clientId}.roles");
+
+        assertThat(path.hasVariable()).isTrue();
+        assertThat(path.getVariableName()).isEqualTo("clientId");
+        assertThat(path.resolve(claims, "rize-app")).isEqualTo(List.of("admin", "viewer"));
+        assertThat(path.resolve(claims, "rize.app")).isEqualTo(List.of("dotted"));
+        assertThat(path.resolve(claims, null)).isNull();
+    }
+
+    @Test
+    @DisplayName("[ClaimPath] should substitute variables that are part of a segment")
+    void shouldSubstitutePartialVariableSegment()
+    {
+        var path = ClaimPath.compile("resource_access.rize-${clientId}.roles");
+
+        assertThat(path.resolve(claims, "app")).isEqualTo(List.of("admin", "viewer"));
+    }
+
+    @Test
+    @DisplayName("[ClaimPath] should require a variable value for paths with a variable")
+    void shouldRequireVariableValue()
+    {
+        var path = ClaimPath.compile("resource_access.${clientId}.roles");
+
+        assertThatThrownBy(() -> path.resolve(claims)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("[ClaimPath] should reject invalid paths")
+    void shouldRejectInvalidPaths()
+    {
+        assertThatThrownBy(() -> ClaimPath.compile(" ")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ClaimPath.compile("a.${b")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ClaimPath.compile("${a}.${b}")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("[ClaimPath] should resolve the path for every value of the variable segment")
+    void shouldResolveEachVariableValue()
+    {
+        Map<String, Object> resolved = new HashMap<>();
+
+        ClaimPath.compile("resource_access.${clientId}.roles").resolveEach(claims, resolved::put);
+
+        assertThat(resolved).containsOnly(
+                Map.entry("rize-app", List.of("admin", "viewer")),
+                Map.entry("rize.app", List.of("dotted")));
+        assertThatThrownBy(() -> ClaimPath.compile("sub").resolveEach(claims, resolved::put))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
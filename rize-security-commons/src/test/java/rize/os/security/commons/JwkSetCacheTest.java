@@ -0,0 +1,243 @@
+package rize.os.security.commons;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwkSetCacheTest
+{
+    private final AtomicInteger jwkSetRequests = new AtomicInteger();
+    private final AtomicReference<RSAKey> currentKey = new AtomicReference<>();
+    private final AtomicReference<Integer> jwkSetStatus = new AtomicReference<>(200);
+    private final AtomicReference<CountDownLatch> jwkSetLatch = new AtomicReference<>(new CountDownLatch(0));
+
+    private HttpServer server;
+    private String issuer;
+    private SimpleMeterRegistry registry;
+    private JwkSetCache jwkSetCache;
+
+    @BeforeEach
+    void setUp() throws IOException, JOSEException
+    {
+        currentKey.set(generateKey("key-1"));
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        issuer = "http://localhost:" + server.getAddress().getPort() + "/realms/tenant";
+        server.createContext("/realms/tenant/.well-known/openid-configuration", exchange ->
+                respond(exchange, 200, "{\"issuer\":\"" + issuer + "\",\"jwks_uri\":\"" + issuer + "/certs\"}"));
+        server.createContext("/realms/tenant/certs", this::respondWithJwkSet);
+        server.start();
+
+        registry = new SimpleMeterRegistry();
+        var metrics = new MicrometerAuthenticatedUserMetrics(registry, new AuthenticatedUserMetricsConfiguration(null, null));
+        jwkSetCache = new JwkSetCache(new JwkSetCacheConfiguration(Duration.ofHours(1), Duration.ZERO, Duration.ofSeconds(2), null, Duration.ofMillis(50), Duration.ofMillis(200)), metrics);
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        jwkSetCache.close();
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("[JwkSetCache] should fetch the JWK set ahead and verify tokens without further requests")
+    void shouldPrefetchJwkSet() throws Exception
+    {
+        var decoder = jwkSetCache.createDecoder(issuer, issuer + "/certs");
+        awaitRequests(1);
+
+        for (int i = 0; i < 10; i++)
+            assertThat(decoder.decode(sign(currentKey.get())).getSubject()).isEqualTo("user");
+
+        assertThat(jwkSetRequests).hasValue(1);
+        assertThat(refreshes("success")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("[JwkSetCache] should stop refreshing the JWK set when the decoder is closed")
+    void shouldStopRefreshOnClose() throws Exception
+    {
+        var decoder = jwkSetCache.createDecoder(issuer, issuer + "/certs");
+        decoder.decode(sign(currentKey.get()));
+        assertThat(jwkSetCache.getIssuerCount()).isOne();
+
+        ((AutoCloseable) decoder).close();
+        decoder.decode(sign(currentKey.get()));
+
+        assertThat(jwkSetCache.getIssuerCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("[JwkSetCache] should look up the JWK set URI with discovery")
+    void shouldDiscoverJwkSetUri() throws Exception
+    {
+        var decoder = jwkSetCache.createDecoder(issuer, null);
+
+        assertThat(decoder.decode(sign(currentKey.get())).getIssuer()).hasToString(issuer);
+        assertThat(jwkSetRequests).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("[JwkSetCache] should refresh the JWK set when a token is signed with an unknown key")
+    void shouldRefreshOnUnknownKeyId() throws Exception
+    {
+        var decoder = jwkSetCache.createDecoder(issuer, issuer + "/certs");
+        decoder.decode(sign(currentKey.get()));
+
+        currentKey.set(generateKey("key-2"));
+        assertThat(decoder.decode(sign(currentKey.get())).getSubject()).isEqualTo("user");
+
+        assertThat(jwkSetRequests).hasValue(2);
+        assertThat(registry.get(MicrometerAuthenticatedUserMetrics.UNKNOWN_KEY_ID_COUNTER).tag("issuer", issuer).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("[JwkSetCache] should keep serving the cached JWK set while the identity provider fails")
+    void shouldServeStaleJwkSet() throws Exception
+    {
+        var key = currentKey.get();
+        var jwkSource = jwkSetCache.createJwkSource(issuer, issuer + "/certs");
+        jwkSource.refresh().get(5, TimeUnit.SECONDS);
+
+        jwkSetStatus.set(500);
+        assertThat(jwkSource.refresh()).failsWithin(5, TimeUnit.SECONDS);
+
+        assertThat(jwkSource.getJwkSet().getKeyByKeyId(key.getKeyID())).isNotNull();
+        assertThat(refreshes("failure")).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("[JwkSetCache] should fetch the JWK set of an issuer at most once at a time")
+    void shouldFetchOnceAtATime() throws Exception
+    {
+        var latch = new CountDownLatch(1);
+        jwkSetLatch.set(latch);
+        var jwkSource = jwkSetCache.createJwkSource(issuer, issuer + "/certs");
+
+        var first = jwkSource.refresh();
+        var second = jwkSource.refresh();
+        var third = jwkSource.refresh();
+        latch.countDown();
+        CompletableFuture.allOf(first, second, third).get(5, TimeUnit.SECONDS);
+
+        assertThat(jwkSetRequests).hasValue(1);
+        assertThat(jwkSource.getJwkSet()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("[JwkSetCache] should reject tokens if the JWK set has never been fetched")
+    void shouldRejectTokensWithoutJwkSet() throws Exception
+    {
+        jwkSetStatus.set(500);
+        var decoder = jwkSetCache.createDecoder(issuer, issuer + "/certs");
+
+        assertThatThrownBy(() -> decoder.decode(sign(currentKey.get()))).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    @DisplayName("[JwkSetCache] should retry a failed fetch in the background until it succeeds")
+    void shouldRetryFailedFetch() throws Exception
+    {
+        jwkSetStatus.set(500);
+        jwkSetCache.createDecoder(issuer, null);
+        awaitRequests(2);
+
+        assertThat(jwkSetCache.getIssuerCount()).isEqualTo(1);
+        assertThat(jwkSetCache.getUnavailableIssuers()).containsKey(issuer);
+
+        jwkSetStatus.set(200);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!jwkSetCache.getUnavailableIssuers().isEmpty() && System.nanoTime() < deadline)
+            Thread.sleep(10);
+
+        assertThat(jwkSetCache.getUnavailableIssuers()).isEmpty();
+        assertThat(refreshes("success")).isEqualTo(1);
+    }
+
+    private void respondWithJwkSet(HttpExchange exchange) throws IOException
+    {
+        jwkSetRequests.incrementAndGet();
+        try
+        {
+            jwkSetLatch.get().await(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        respond(exchange, jwkSetStatus.get(), new JWKSet(currentKey.get().toPublicJWK()).toString());
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException
+    {
+        var bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (var out = exchange.getResponseBody())
+        {
+            out.write(bytes);
+        }
+    }
+
+    private void awaitRequests(int count) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (jwkSetRequests.get() < count && System.nanoTime() < deadline)
+            Thread.sleep(10);
+    }
+
+    private double refreshes(String outcome)
+    {
+        var timer = registry.find(MicrometerAuthenticatedUserMetrics.JWK_SET_REFRESH_TIMER).tag("issuer", issuer).tag("outcome", outcome).timer();
+        return timer != null ? timer.count() : 0;
+    }
+
+    private String sign(RSAKey key) throws JOSEException
+    {
+        var claims = new JWTClaimsSet.Builder()
+                .issuer(issuer)
+                .subject("user")
+                .issueTime(new Date())
+                .expirationTime(Date.from(Instant.now().plusSeconds(60)))
+                .build();
+        var jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(), claims);
+        jwt.sign(new RSASSASigner(key));
+
+        return jwt.serialize();
+    }
+
+    private static RSAKey generateKey(String keyId) throws JOSEException
+    {
+        return new RSAKeyGenerator(2048).keyID(keyId).generate();
+    }
+}
@@ -0,0 +1,77 @@
+package rize.os.security.commons;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JwkSetHealthIndicatorTest
+{
+    private final JwkSetCache jwkSetCache = mock(JwkSetCache.class);
+    private final JwkSetHealthIndicator healthIndicator = new JwkSetHealthIndicator(jwkSetCache);
+
+    @Test
+    @DisplayName("[JwkSetHealthIndicator] should be up if no JWK set is expected")
+    void shouldBeUpWithoutIssuers()
+    {
+        when(jwkSetCache.getUnavailableIssuers()).thenReturn(Map.of());
+
+        var health = healthIndicator.health();
+
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails()).containsEntry("issuers", 0);
+    }
+
+    @Test
+    @DisplayName("[JwkSetHealthIndicator] should be up and report unavailable issuers while one issuer is available")
+    void shouldBeUpWithAvailableIssuer()
+    {
+        when(jwkSetCache.getIssuerCount()).thenReturn(2);
+        var unavailable = new LinkedHashMap<String, String>();
+        unavailable.put("https://idp/realms/b", "Connection refused");
+        when(jwkSetCache.getUnavailableIssuers()).thenReturn(unavailable);
+
+        var health = healthIndicator.health();
+
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails()).containsEntry("unavailable", Map.of("https://idp/realms/b", "Connection refused"));
+    }
+
+    @Test
+    @DisplayName("[JwkSetHealthIndicator] should be down if no JWK set could be fetched")
+    void shouldBeDownWithoutAvailableIssuer()
+    {
+        when(jwkSetCache.getIssuerCount()).thenReturn(1);
+        var unavailable = new LinkedHashMap<String, String>();
+        unavailable.put("https://idp/realms/a", null);
+        when(jwkSetCache.getUnavailableIssuers()).thenReturn(unavailable);
+
+        var health = healthIndicator.health();
+
+        assertThat(health.getStatus()).isEqualTo(Status.DOWN);
+        assertThat(health.getDetails()).containsEntry("unavailable", Map.of("https://idp/realms/a", "Fetching"));
+    }
+
+    @Test
+    @DisplayName("[JwkSetHealthIndicator] should limit the number of reported issuers")
+    void shouldLimitReportedIssuers()
+    {
+        var unavailable = new LinkedHashMap<String, String>();
+        for (int i = 0; i < 25; i++)
+            unavailable.put("https://idp/realms/" + i, "Timeout");
+        when(jwkSetCache.getIssuerCount()).thenReturn(30);
+        when(jwkSetCache.getUnavailableIssuers()).thenReturn(unavailable);
+
+        var health = healthIndicator.health();
+
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat((Map<?, ?>) health.getDetails().get("unavailable")).hasSize(JwkSetHealthIndicator.MAXIMUM_REPORTED_ISSUERS);
+        assertThat(health.getDetails()).containsEntry("unavailableCount", 25);
+    }
+}
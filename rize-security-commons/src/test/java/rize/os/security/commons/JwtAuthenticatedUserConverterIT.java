@@ -60,6 +60,31 @@ class JwtAuthenticatedUserConverterIT
                 .containsExactlyInAnyOrder("ROLE_admin", "ROLE_viewer");
     }
 
+    @Test
+    @DisplayName("[JwtAuthenticatedUserConverter] should index the roles of organisations apart from the authorities")
+    void shouldIndexOrganisationRoles()
+    {
+        Map<String, Object> claims = Map.of(
+                "sub", UUID.randomUUID().toString(),
+                "azp", "rize-app",
+                "resource_access", Map.of("rize-app", Map.of("roles", List.of("viewer"))),
+                "organisations", Map.of(
+                        "acme", Map.of("roles", List.of("admin", "member")),
+                        "globex", Map.of("roles", List.of("member")))
+        );
+
+        AuthenticatedUser authenticatedUser = converter.convert(createJwt(claims));
+
+        assertThat(authenticatedUser.getAuthorities())
+                .extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_viewer");
+        assertThat(authenticatedUser.getOrganisationRoles().getOrganisationIds()).containsExactlyInAnyOrder("acme", "globex");
+        assertThat(authenticatedUser.hasOrganisationRole("acme", "admin")).isTrue();
+        assertThat(authenticatedUser.hasOrganisationRole("globex", "admin")).isFalse();
+        assertThat(authenticatedUser.hasOrganisationRole("initech", "member")).isFalse();
+        assertThat(authenticatedUser.getOrganisationRoles()).isSameAs(authenticatedUser.getOrganisationRoles());
+    }
+
     private Jwt createJwt(Map<String, Object> claims)
     {
         return new Jwt(
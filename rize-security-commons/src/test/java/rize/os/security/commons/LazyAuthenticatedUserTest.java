@@ -0,0 +1,88 @@
+package rize.os.security.commons;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.core.oidc.OidcUserInfo;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LazyAuthenticatedUserTest
+{
+    private final AuthenticatedUserClaimsPlan claimsPlan = AuthenticatedUserClaimsPlan.compile(AuthenticatedUserClaimsConfiguration.createDefault());
+
+    private String userId;
+    private Jwt jwt;
+
+    @BeforeEach
+    void setUp()
+    {
+        userId = UUID.randomUUID().toString();
+        jwt = new Jwt("dummy-token-value", Instant.now(), Instant.now().plusSeconds(60), Map.of("alg", "none"), Map.of(
+                "sub", userId,
+                "preferred_username", "testuser",
+                "email", "test@rize.os",
+                "locale", "de",
+                "address", Map.of("locality", "Berlin")
+        ));
+    }
+
+    @Test
+    @DisplayName("[LazyAuthenticatedUser] should provide user ID, claims and token value from the source token")
+    void shouldProvideValuesFromSourceToken()
+    {
+        var user = new LazyAuthenticatedUser(jwt, claimsPlan, Set.of(), "session-id");
+
+        assertThat(user.getUserId()).isEqualTo(userId);
+        assertThat(user.getClaims()).isEqualTo(jwt.getClaims());
+        assertThat(user.getTokenValue()).isEqualTo("dummy-token-value");
+        assertThat(user.getSessionId()).isEqualTo("session-id");
+    }
+
+    @Test
+    @DisplayName("[LazyAuthenticatedUser] should materialize the profile on first access")
+    void shouldMaterializeProfileOnFirstAccess()
+    {
+        var user = new LazyAuthenticatedUser(jwt, claimsPlan, Set.of(), "session-id");
+
+        assertThat(user.getUsername()).isEqualTo("testuser");
+        assertThat(user.getEmail()).isEqualTo("test@rize.os");
+        assertThat(user.getLocale()).isEqualTo("de");
+        assertThat(user.getAddress().getLocality()).isEqualTo("Berlin");
+        assertThat(user.getUserInfo()).isSameAs(user.getUserInfo());
+        assertThat(user.getIdToken()).isSameAs(user.getIdToken());
+        assertThat(user.getIdToken().getSubject()).isEqualTo(userId);
+    }
+
+    @Test
+    @DisplayName("[LazyAuthenticatedUser] should provide an equal profile to concurrent first accesses")
+    void shouldProvideEqualProfileToConcurrentAccesses() throws Exception
+    {
+        var user = new LazyAuthenticatedUser(jwt, claimsPlan, Set.of(), "session-id");
+        List<Callable<OidcUserInfo>> tasks = new ArrayList<>();
+        for (int i = 0; i < 16; i++)
+            tasks.add(user::getUserInfo);
+
+        var executor = Executors.newFixedThreadPool(8);
+        try
+        {
+            for (Future<OidcUserInfo> result : executor.invokeAll(tasks))
+                assertThat(result.get().getClaims()).isEqualTo(user.getUserInfo().getClaims());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package rize.os.security.commons;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MicrometerAuthenticatedUserMetricsTest
+{
+    private SimpleMeterRegistry registry;
+    private JwtAuthenticatedUserConverter converter;
+
+    @BeforeEach
+    void setUp()
+    {
+        registry = new SimpleMeterRegistry();
+        var metrics = new MicrometerAuthenticatedUserMetrics(registry, new AuthenticatedUserMetricsConfiguration(null, null));
+        converter = new JwtAuthenticatedUserConverter(AuthenticatedUserClaimsConfiguration.createDefault(), metrics);
+    }
+
+    @Test
+    @DisplayName("[MicrometerAuthenticatedUserMetrics] should record the conversion time and the number of roles")
+    void shouldRecordConversions()
+    {
+        converter.convert(jwt(Map.of("sub", "user-id", "azp", "rize-app",
+                "resource_access", Map.of("rize-app", Map.of("roles", List.of("admin", "viewer"))))));
+        converter.convert(jwt(Map.of("sub", "user-id")));
+
+        var conversions = registry.get(MicrometerAuthenticatedUserMetrics.CONVERSION_TIMER).timer();
+        var roles = registry.get(MicrometerAuthenticatedUserMetrics.ROLES_SUMMARY).summary();
+
+        assertThat(conversions.count()).isEqualTo(2);
+        assertThat(roles.count()).isEqualTo(2);
+        assertThat(roles.totalAmount()).isEqualTo(2);
+        assertThat(roles.max()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("[MicrometerAuthenticatedUserMetrics] should count claims that cannot be converted per claim path")
+    void shouldCountClaimConversionFailures()
+    {
+        var user = converter.convert(jwt(Map.of("sub", "user-id", "azp", "rize-app",
+                "resource_access", Map.of("rize-app", Map.of("roles", "admin")),
+                "email_verified", "maybe",
+                "address", "Main Street 1")));
+        user.getUserInfo();
+
+        assertThat(failures("resource_access.${clientId}.roles")).isEqualTo(1);
+        assertThat(failures("email_verified")).isEqualTo(1);
+        assertThat(failures("address")).isEqualTo(1);
+        assertThat(registry.find(MicrometerAuthenticatedUserMetrics.CLAIM_FAILURES_COUNTER).tag("claim", "sub").counter()).isNull();
+    }
+
+    private double failures(String claimPath)
+    {
+        return registry.get(MicrometerAuthenticatedUserMetrics.CLAIM_FAILURES_COUNTER).tag("claim", claimPath).counter().count();
+    }
+
+    private static Jwt jwt(Map<String, Object> claims)
+    {
+        return new Jwt("dummy-token-value", Instant.now(), Instant.now().plusSeconds(60), Map.of("alg", "none"), claims);
+    }
+}
@@ -0,0 +1,206 @@
+package rize.os.security.commons;
+
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.PlainJWT;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MultiIssuerJwtDecoderTest
+{
+    private static final String REALMS = "https://auth.rize.os/realms/";
+
+    private final Map<String, AtomicInteger> createdDecoders = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> closedDecoders = new ConcurrentHashMap<>();
+    private volatile JwtException unavailable;
+
+    @Test
+    @DisplayName("[MultiIssuerJwtDecoder] should create one decoder per issuer on first use")
+    void shouldCreateDecoderPerIssuerLazily()
+    {
+        var decoder = createDecoder(List.of(REALMS + "*"), 10);
+
+        assertThat(decoder.decode(token(REALMS + "tenant-a")).getIssuer()).hasToString(REALMS + "tenant-a");
+        decoder.decode(token(REALMS + "tenant-a"));
+        decoder.decode(token(REALMS + "tenant-b"));
+
+        assertThat(createdDecoders).containsOnlyKeys(REALMS + "tenant-a", REALMS + "tenant-b");
+        assertThat(createdDecoders.get(REALMS + "tenant-a")).hasValue(1);
+        assertThat(decoder.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("[MultiIssuerJwtDecoder] should reject tokens of issuers that are not allowed")
+    void shouldRejectUntrustedIssuers()
+    {
+        var decoder = createDecoder(List.of(REALMS + "*", "https://other.rize.os"), 10);
+
+        assertThat(decoder.isAllowed("https://other.rize.os")).isTrue();
+        assertThat(decoder.isAllowed(REALMS + "tenant-a")).isTrue();
+        assertThat(decoder.isAllowed(REALMS + "tenant-a/nested")).isFalse();
+        assertThat(decoder.isAllowed(REALMS)).isFalse();
+        assertThat(decoder.isAllowed(REALMS + "tenant_a.eu-1")).isTrue();
+        assertThat(List.of("..", ".", "tenant-a?x=1", "tenant-a#x", "..%2F..%2Fevil", "tenant-a%2Fcerts", "evil.example@tenant-a",
+                "tenant a", "tenant-a\\evil", "tenänt"))
+                .allSatisfy(segment -> assertThat(decoder.isAllowed(REALMS + segment)).as(segment).isFalse());
+        assertThatThrownBy(() -> decoder.decode(token("https://evil.example/realms/tenant-a")))
+                .isInstanceOf(BadJwtException.class)
+                .hasMessageContaining("not allowed");
+        assertThatThrownBy(() -> decoder.decode("not-a-token")).isInstanceOf(BadJwtException.class);
+        assertThatThrownBy(() -> decoder.decode(token(REALMS + "evil.example%2Fcerts?"))).isInstanceOf(BadJwtException.class);
+        assertThat(createdDecoders).isEmpty();
+    }
+
+    @Test
+    @DisplayName("[MultiIssuerJwtDecoder] should create a single decoder for concurrent first tokens of an issuer")
+    void shouldCreateSingleDecoderConcurrently() throws InterruptedException
+    {
+        var decoder = createDecoder(List.of(REALMS + "*"), 10);
+        var token = token(REALMS + "tenant-a");
+        var start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try
+        {
+            for (int i = 0; i < 8; i++)
+                executor.submit(() ->
+                {
+                    start.await();
+                    return decoder.decode(token);
+                });
+
+            start.countDown();
+            executor.shutdown();
+            assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        assertThat(createdDecoders.get(REALMS + "tenant-a")).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("[MultiIssuerJwtDecoder] should create the decoder again after it has been removed")
+    void shouldRecreateRemovedDecoders()
+    {
+        var decoder = createDecoder(List.of(REALMS + "*"), 10);
+        decoder.decode(token(REALMS + "tenant-a"));
+
+        decoder.invalidateAll();
+        decoder.decode(token(REALMS + "tenant-a"));
+
+        assertThat(createdDecoders.get(REALMS + "tenant-a")).hasValue(2);
+        assertThat(decoder.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("[MultiIssuerJwtDecoder] should close the decoders that have been removed")
+    void shouldCloseRemovedDecoders()
+    {
+        var decoder = createDecoder(List.of(REALMS + "*"), 10);
+        decoder.decode(token(REALMS + "tenant-a"));
+
+        decoder.invalidateAll();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!closedDecoders.containsKey(REALMS + "tenant-a") && System.nanoTime() < deadline)
+            Thread.onSpinWait();
+        assertThat(closedDecoders.get(REALMS + "tenant-a")).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("[MultiIssuerJwtDecoder] should reject the tokens of an unavailable issuer without creating its decoder again")
+    void shouldRejectUnavailableIssuers()
+    {
+        var decoder = createDecoder(List.of(REALMS + "*"), 10);
+        unavailable = new JwtException("Couldn't retrieve the JWK set");
+
+        assertThatThrownBy(() -> decoder.decode(token(REALMS + "tenant-a"))).isInstanceOf(JwtException.class);
+        unavailable = null;
+        assertThatThrownBy(() -> decoder.decode(token(REALMS + "tenant-a")))
+                .isInstanceOf(JwtException.class)
+                .hasMessageContaining("unavailable");
+        assertThat(decoder.decode(token(REALMS + "tenant-b")).getIssuer()).hasToString(REALMS + "tenant-b");
+
+        assertThat(createdDecoders.get(REALMS + "tenant-a")).hasValue(1);
+        assertThat(decoder.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("[MultiIssuerJwtDecoder] should keep the decoder of an issuer whose token is invalid")
+    void shouldKeepDecoderOnInvalidToken()
+    {
+        var decoder = createDecoder(List.of(REALMS + "*"), 10);
+        unavailable = new BadJwtException("Signed JWT rejected: Invalid signature");
+
+        assertThatThrownBy(() -> decoder.decode(token(REALMS + "tenant-a"))).isInstanceOf(BadJwtException.class);
+        unavailable = null;
+        decoder.decode(token(REALMS + "tenant-a"));
+
+        assertThat(createdDecoders.get(REALMS + "tenant-a")).hasValue(1);
+    }
+
+    private MultiIssuerJwtDecoder createDecoder(List<String> allowed, long maximumSize)
+    {
+        var configuration = new JwtIssuerConfiguration(true, allowed, null, maximumSize, Duration.ofMinutes(5), Duration.ofMinutes(1));
+        return new MultiIssuerJwtDecoder(configuration, issuer ->
+        {
+            createdDecoders.computeIfAbsent(issuer, key -> new AtomicInteger()).incrementAndGet();
+            return new StubDecoder(issuer);
+        });
+    }
+
+    private final class StubDecoder implements JwtDecoder, AutoCloseable
+    {
+        private final String issuer;
+
+        private StubDecoder(String issuer)
+        {
+            this.issuer = issuer;
+        }
+
+        @Override
+        public Jwt decode(String token)
+        {
+            var error = unavailable;
+            if (error != null)
+                throw error;
+
+            return Jwt.withTokenValue(token)
+                    .header("alg", "none")
+                    .issuer(issuer)
+                    .issuedAt(Instant.now())
+                    .expiresAt(Instant.now().plusSeconds(60))
+                    .build();
+        }
+
+        @Override
+        public void close()
+        {
+            closedDecoders.computeIfAbsent(issuer, key -> new AtomicInteger()).incrementAndGet();
+        }
+    }
+
+    private static String token(String issuer)
+    {
+        return new PlainJWT(new JWTClaimsSet.Builder().issuer(issuer).subject("user").build()).serialize();
+    }
+}
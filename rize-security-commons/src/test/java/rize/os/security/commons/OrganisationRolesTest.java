@@ -0,0 +1,42 @@
+package rize.os.security.commons;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrganisationRolesTest
+{
+    private final RoleAuthorityRegistry registry = new RoleAuthorityRegistry(16);
+
+    @Test
+    @DisplayName("[OrganisationRoles] should check roles per organisation")
+    void shouldCheckRolesPerOrganisation()
+    {
+        var organisationRoles = OrganisationRoles.of(registry, Map.of(
+                "acme", List.of("admin", "member"),
+                "globex", List.of()));
+
+        assertThat(organisationRoles.size()).isEqualTo(2);
+        assertThat(organisationRoles.hasRole("acme", "admin")).isTrue();
+        assertThat(organisationRoles.hasRole("globex", "admin")).isFalse();
+        assertThat(organisationRoles.hasRole("acme", "unknown")).isFalse();
+        assertThat(organisationRoles.isMemberOf("globex")).isTrue();
+        assertThat(organisationRoles.isMemberOf("initech")).isFalse();
+        assertThat(organisationRoles.getRoles("acme")).extracting(GrantedAuthority::getAuthority).containsExactlyInAnyOrder("ROLE_admin", "ROLE_member");
+        assertThat(organisationRoles.getRoles("initech")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("[OrganisationRoles] should share the empty instance")
+    void shouldShareEmptyInstance()
+    {
+        assertThat(OrganisationRoles.of(registry, Map.of())).isSameAs(OrganisationRoles.empty());
+        assertThat(OrganisationRoles.empty().isEmpty()).isTrue();
+        assertThat(OrganisationRoles.empty().hasRole("acme", "admin")).isFalse();
+    }
+}
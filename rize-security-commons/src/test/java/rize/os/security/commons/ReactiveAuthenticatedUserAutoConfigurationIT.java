@@ -0,0 +1,57 @@
+package rize.os.security.commons;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.reactive.ReactiveOAuth2ResourceServerAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.reactive.ReactiveSecurityAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.test.context.runner.ReactiveWebApplicationContextRunner;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReactiveAuthenticatedUserAutoConfigurationIT
+{
+    private final ReactiveWebApplicationContextRunner contextRunner = new ReactiveWebApplicationContextRunner()
+            .withUserConfiguration(AuthenticatedUserConfiguration.class, JwtAuthenticatedUserConverter.class, JwtAuthenticatedUserTokenConverter.class)
+            .withConfiguration(AutoConfigurations.of(
+                    ReactiveAuthenticatedUserAutoConfiguration.class,
+                    ReactiveSecurityAutoConfiguration.class,
+                    ReactiveOAuth2ResourceServerAutoConfiguration.class));
+
+    @Test
+    @DisplayName("[ReactiveAuthenticatedUserAutoConfiguration] should replace the resource server chain if a JWT decoder is configured")
+    void shouldCreateSecurityWebFilterChain()
+    {
+        contextRunner
+                .withPropertyValues("spring.security.oauth2.resourceserver.jwt.jwk-set-uri=http://localhost:3000/certs")
+                .run(context ->
+                {
+                    assertThat(context).hasSingleBean(ReactiveJwtAuthenticatedUserTokenConverter.class);
+                    assertThat(context).hasSingleBean(SecurityWebFilterChain.class);
+                    assertThat(context).hasBean("authenticatedUserSecurityWebFilterChain");
+                });
+    }
+
+    @Test
+    @DisplayName("[ReactiveAuthenticatedUserAutoConfiguration] should only provide the converter if no JWT decoder is configured")
+    void shouldNotCreateSecurityWebFilterChainWithoutJwtDecoder()
+    {
+        contextRunner.run(context ->
+        {
+            assertThat(context).hasSingleBean(ReactiveJwtAuthenticatedUserTokenConverter.class);
+            assertThat(context).doesNotHaveBean("authenticatedUserSecurityWebFilterChain");
+        });
+    }
+
+    @Test
+    @DisplayName("[ReactiveAuthenticatedUserAutoConfiguration] should back off in servlet applications")
+    void shouldBackOffInServletApplications()
+    {
+        new ApplicationContextRunner()
+                .withUserConfiguration(AuthenticatedUserConfiguration.class, JwtAuthenticatedUserConverter.class, JwtAuthenticatedUserTokenConverter.class)
+                .withConfiguration(AutoConfigurations.of(ReactiveAuthenticatedUserAutoConfiguration.class))
+                .run(context -> assertThat(context).doesNotHaveBean(ReactiveJwtAuthenticatedUserTokenConverter.class));
+    }
+}
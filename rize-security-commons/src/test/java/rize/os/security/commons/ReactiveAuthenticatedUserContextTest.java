@@ -0,0 +1,52 @@
+package rize.os.security.commons;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReactiveAuthenticatedUserContextTest
+{
+    @Test
+    @DisplayName("[ReactiveAuthenticatedUserContext] should emit the AuthenticatedUser from the Reactor context")
+    void shouldEmitAuthenticatedUser()
+    {
+        var jwt = new Jwt("dummy-token-value", Instant.now(), Instant.now().plusSeconds(60), Map.of("alg", "none"), Map.of("sub", "user-id"));
+        var user = new JwtAuthenticatedUserConverter(AuthenticatedUserClaimsConfiguration.createDefault()).convert(jwt);
+
+        StepVerifier.create(withAuthentication(new AuthenticatedUserToken(user)))
+                .assertNext(authenticatedUser -> assertThat(authenticatedUser).isSameAs(user))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("[ReactiveAuthenticatedUserContext] should complete empty if the principal is not an AuthenticatedUser")
+    void shouldCompleteEmptyForOtherPrincipals()
+    {
+        StepVerifier.create(withAuthentication(new TestingAuthenticationToken("user", null, "ROLE_USER")))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("[ReactiveAuthenticatedUserContext] should complete empty if there is no security context")
+    void shouldCompleteEmptyWithoutSecurityContext()
+    {
+        StepVerifier.create(ReactiveAuthenticatedUserContext.get())
+                .verifyComplete();
+    }
+
+    private static Mono<AuthenticatedUser> withAuthentication(Authentication authentication)
+    {
+        return ReactiveAuthenticatedUserContext.get()
+                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication));
+    }
+}
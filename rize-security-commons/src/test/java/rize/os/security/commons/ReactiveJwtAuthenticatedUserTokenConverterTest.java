@@ -0,0 +1,42 @@
+package rize.os.security.commons;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReactiveJwtAuthenticatedUserTokenConverterTest
+{
+    private final ReactiveJwtAuthenticatedUserTokenConverter converter = new ReactiveJwtAuthenticatedUserTokenConverter(
+            new JwtAuthenticatedUserTokenConverter(new JwtAuthenticatedUserConverter(AuthenticatedUserClaimsConfiguration.createDefault())));
+
+    @Test
+    @DisplayName("[ReactiveJwtAuthenticatedUserTokenConverter] should emit an AuthenticatedUserToken with the claims mapping of the servlet converter")
+    void shouldEmitAuthenticatedUserToken()
+    {
+        var jwt = new Jwt("dummy-token-value", Instant.now(), Instant.now().plusSeconds(60), Map.of("alg", "none"), Map.of(
+                "sub", "user-id",
+                "preferred_username", "testuser",
+                "azp", "rize-app",
+                "resource_access", Map.of("rize-app", Map.of("roles", List.of("admin")))));
+
+        StepVerifier.create(converter.convert(jwt))
+                .assertNext(token ->
+                {
+                    assertThat(token).isInstanceOf(AuthenticatedUserToken.class);
+                    assertThat(token.isAuthenticated()).isTrue();
+
+                    var user = ((AuthenticatedUserToken) token).getPrincipal();
+                    assertThat(user.getUserId()).isEqualTo("user-id");
+                    assertThat(user.getUsername()).isEqualTo("testuser");
+                    assertThat(user.hasRole("admin")).isTrue();
+                })
+                .verifyComplete();
+    }
+}
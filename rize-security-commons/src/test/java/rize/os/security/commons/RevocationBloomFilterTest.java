@@ -0,0 +1,57 @@
+package rize.os.security.commons;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RevocationBloomFilterTest
+{
+    @Test
+    @DisplayName("[RevocationBloomFilter] should report every added value as possibly present")
+    void shouldNotReportFalseNegatives()
+    {
+        var filter = new RevocationBloomFilter(10_000, 0.01);
+        var values = new String[10_000];
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = UUID.randomUUID().toString();
+            filter.put('j', values[i]);
+        }
+
+        for (var value : values)
+            assertThat(filter.mightContain('j', value)).isTrue();
+
+        assertThat(filter.size()).isEqualTo(10_000);
+    }
+
+    @Test
+    @DisplayName("[RevocationBloomFilter] should keep the false positive rate close to the configured probability")
+    void shouldKeepFalsePositiveRate()
+    {
+        var filter = new RevocationBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++)
+            filter.put('j', UUID.randomUUID().toString());
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++)
+            if (filter.mightContain('j', UUID.randomUUID().toString()))
+                falsePositives++;
+
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+        assertThat(filter.expectedFalsePositiveProbability()).isBetween(0.005, 0.015);
+    }
+
+    @Test
+    @DisplayName("[RevocationBloomFilter] should distinguish token IDs from session IDs")
+    void shouldDistinguishKinds()
+    {
+        var filter = new RevocationBloomFilter(100, 0.001);
+        filter.put('s', "session-1");
+
+        assertThat(filter.mightContain('s', "session-1")).isTrue();
+        assertThat(filter.mightContain('j', "session-1")).isFalse();
+    }
+}
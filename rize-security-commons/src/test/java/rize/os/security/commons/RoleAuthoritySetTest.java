@@ -0,0 +1,90 @@
+package rize.os.security.commons;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoleAuthoritySetTest
+{
+    @Test
+    @DisplayName("[RoleAuthoritySet] should share one authority instance per role")
+    void shouldShareAuthorityInstances()
+    {
+        var registry = new RoleAuthorityRegistry(16);
+
+        var first = registry.authoritiesOf(List.of("admin"));
+        var second = registry.authoritiesOf(List.of("admin", "viewer"));
+
+        assertThat(first.iterator().next()).isSameAs(registry.find("admin"));
+        assertThat(second).contains(registry.find("admin"));
+        assertThat(registry.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("[RoleAuthoritySet] should contain its roles and prefixed authorities")
+    void shouldContainRolesAndAuthorities()
+    {
+        var registry = new RoleAuthorityRegistry(16);
+        registry.register("other");
+
+        var authorities = registry.authoritiesOf(List.of("admin", "viewer", "admin"));
+
+        assertThat(authorities).hasSize(2);
+        assertThat(authorities.hasRole("admin")).isTrue();
+        assertThat(authorities.hasRole("other")).isFalse();
+        assertThat(authorities.hasRole("unknown")).isFalse();
+        assertThat(authorities.contains(new SimpleGrantedAuthority("ROLE_viewer"))).isTrue();
+        assertThat(authorities.contains(new SimpleGrantedAuthority("viewer"))).isFalse();
+        assertThat(authorities)
+                .extracting(GrantedAuthority::getAuthority)
+                .containsExactlyInAnyOrder("ROLE_admin", "ROLE_viewer");
+    }
+
+    @Test
+    @DisplayName("[RoleAuthoritySet] should keep roles beyond the registry capacity")
+    void shouldKeepRolesBeyondCapacity()
+    {
+        var registry = new RoleAuthorityRegistry(2);
+        var roles = IntStream.range(0, 100).mapToObj(i -> "role-" + i).toList();
+
+        var authorities = registry.authoritiesOf(roles);
+
+        assertThat(authorities).hasSize(100);
+        assertThat(authorities.hasRole("role-0")).isTrue();
+        assertThat(authorities.hasRole("role-99")).isTrue();
+        assertThat(authorities.contains(new SimpleGrantedAuthority("ROLE_role-50"))).isTrue();
+        assertThat(registry.size()).isEqualTo(2);
+        assertThat(registry.register("role-99")).isNotSameAs(registry.register("role-99")).isEqualTo(registry.register("role-99"));
+    }
+
+    @Test
+    @DisplayName("[RoleAuthoritySet] should be serializable")
+    void shouldBeSerializable() throws Exception
+    {
+        var authorities = RoleAuthorityRegistry.getDefault().authoritiesOf(List.of("admin", "viewer"));
+
+        var output = new ByteArrayOutputStream();
+        try (var objectOutput = new ObjectOutputStream(output))
+        {
+            objectOutput.writeObject(authorities);
+        }
+        Object deserialized;
+        try (var objectInput = new ObjectInputStream(new ByteArrayInputStream(output.toByteArray())))
+        {
+            deserialized = objectInput.readObject();
+        }
+
+        assertThat(deserialized).isInstanceOf(RoleAuthoritySet.class).isEqualTo(authorities);
+        assertThat(((RoleAuthoritySet) deserialized).hasRole("admin")).isTrue();
+    }
+}
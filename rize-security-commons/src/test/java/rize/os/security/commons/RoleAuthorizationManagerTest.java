@@ -0,0 +1,74 @@
+package rize.os.security.commons;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.OidcUserInfo;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoleAuthorizationManagerTest
+{
+    private final OidcUserInfo userInfo = new OidcUserInfo(Map.of("sub", "user-id"));
+    private final OidcIdToken idToken = new OidcIdToken("token", Instant.now(), Instant.now().plusSeconds(60), Map.of("sub", "user-id"));
+
+    @Test
+    @DisplayName("[RoleAuthorizationManager] should grant access to authenticated users with the role")
+    void shouldGrantAccessToUsersWithRole()
+    {
+        var user = new AuthenticatedUser(userInfo, idToken, RoleAuthorityRegistry.getDefault().authoritiesOf(List.of("admin")), null);
+        var manager = RoleAuthorizationManager.<Object>hasRole("admin");
+
+        var result = manager.authorize(() -> new AuthenticatedUserToken(user), new Object());
+
+        assertThat(result.isGranted()).isTrue();
+    }
+
+    @Test
+    @DisplayName("[RoleAuthorizationManager] should deny access to authenticated users without the role")
+    void shouldDenyAccessToUsersWithoutRole()
+    {
+        var user = new AuthenticatedUser(userInfo, idToken, RoleAuthorityRegistry.getDefault().authoritiesOf(List.of("viewer")), null);
+        var manager = RoleAuthorizationManager.<Object>hasAnyRole("admin", "owner");
+
+        var result = manager.authorize(() -> new AuthenticatedUserToken(user), new Object());
+
+        assertThat(result.isGranted()).isFalse();
+    }
+
+    @Test
+    @DisplayName("[RoleAuthorizationManager] should also grant access by the authorities of the authentication of a user")
+    void shouldGrantAccessByAuthoritiesOfAuthentication()
+    {
+        var user = new AuthenticatedUser(userInfo, idToken, RoleAuthorityRegistry.getDefault().authoritiesOf(List.of("viewer")), null);
+        var authentication = new TestingAuthenticationToken(user, null, AuthorityUtils.createAuthorityList("ROLE_viewer", "ROLE_admin"));
+        var manager = RoleAuthorizationManager.<Object>hasRole("admin");
+
+        assertThat(manager.authorize(() -> authentication, new Object()).isGranted()).isTrue();
+    }
+
+    @Test
+    @DisplayName("[RoleAuthorizationManager] should compare authorities of other principals by name")
+    void shouldCompareAuthoritiesOfOtherPrincipals()
+    {
+        var authentication = new TestingAuthenticationToken("user", null, "ROLE_admin");
+        var manager = RoleAuthorizationManager.<Object>hasRole("admin");
+
+        assertThat(manager.authorize(() -> authentication, new Object()).isGranted()).isTrue();
+    }
+
+    @Test
+    @DisplayName("[RoleAuthorizationManager] should deny access without authentication")
+    void shouldDenyAccessWithoutAuthentication()
+    {
+        var manager = RoleAuthorizationManager.<Object>hasRole("admin");
+
+        assertThat(manager.authorize(() -> null, new Object()).isGranted()).isFalse();
+    }
+}
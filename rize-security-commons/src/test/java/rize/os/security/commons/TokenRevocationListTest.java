@@ -0,0 +1,192 @@
+package rize.os.security.commons;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenRevocationListTest
+{
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry registry;
+    private TokenRevocationList revocationList;
+
+    @BeforeEach
+    void setUp()
+    {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("""
+                CREATE TABLE token_revocation (kind VARCHAR(8) NOT NULL, identifier VARCHAR(255) NOT NULL,
+                revoked_at BIGINT NOT NULL, expires_at BIGINT NOT NULL, PRIMARY KEY (kind, identifier))""");
+
+        registry = new SimpleMeterRegistry();
+        var metrics = new MicrometerAuthenticatedUserMetrics(registry, new AuthenticatedUserMetricsConfiguration(null, null));
+        var configuration = new TokenRevocationConfiguration(true, null, 1_000, 0.01, Duration.ofSeconds(10), null, null);
+        revocationList = new TokenRevocationList(configuration, jdbcTemplate, metrics);
+        revocationList.bindTo(registry);
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        revocationList.close();
+        database.shutdown();
+    }
+
+    @Test
+    @DisplayName("[TokenRevocationList] should reject tokens whose token ID or session ID has been revoked")
+    void shouldDetectRevokedTokens()
+    {
+        revocationList.sync();
+        revocationList.revokeTokenId("token-1", Instant.now().plusSeconds(60));
+        revocationList.revokeSessionId("session-1", Instant.now().plusSeconds(60));
+
+        assertThat(revocationList.isRevoked(jwt("token-1", "session-2"))).isTrue();
+        assertThat(revocationList.isRevoked(jwt("token-2", "session-1"))).isTrue();
+        assertThat(revocationList.isRevoked(jwt("token-2", "session-2"))).isFalse();
+        assertThat(checks("revoked")).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("[TokenRevocationList] should only query the table for possible matches of the filter")
+    void shouldRuleOutTokensWithFilter()
+    {
+        revocationList.revokeTokenId("token-1", Instant.now().plusSeconds(60));
+        revocationList.sync();
+
+        for (int i = 0; i < 1_000; i++)
+            assertThat(revocationList.isRevoked(jwt(UUID.randomUUID().toString(), null))).isFalse();
+
+        assertThat(checks("negative") + checks("false_positive")).isEqualTo(1_000);
+        assertThat(checks("false_positive")).isLessThan(50);
+        assertThat(registry.get("rize.security.revocation.filter.size").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("[TokenRevocationList] should load revocations written by other nodes")
+    void shouldSyncRevocationsOfOtherNodes()
+    {
+        revocationList.sync();
+        assertThat(revocationList.isRevoked(jwt(null, "session-1"))).isFalse();
+
+        jdbcTemplate.update("INSERT INTO token_revocation VALUES ('sid', 'session-1', ?, ?)",
+                System.currentTimeMillis(), Instant.now().plusSeconds(60).toEpochMilli());
+        revocationList.sync();
+
+        assertThat(revocationList.isRevoked(jwt(null, "session-1"))).isTrue();
+    }
+
+    @Test
+    @DisplayName("[TokenRevocationList] should ignore revocations of expired tokens")
+    void shouldIgnoreExpiredRevocations()
+    {
+        jdbcTemplate.update("INSERT INTO token_revocation VALUES ('jti', 'token-1', ?, ?)",
+                System.currentTimeMillis() - 120_000, System.currentTimeMillis() - 60_000);
+        revocationList.sync();
+
+        assertThat(revocationList.isRevoked(jwt("token-1", null))).isFalse();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM token_revocation", Integer.class)).isZero();
+    }
+
+    @Test
+    @DisplayName("[TokenRevocationList] should make the token converter reject revoked tokens")
+    void shouldRejectRevokedTokensInConverter()
+    {
+        var converter = new JwtAuthenticatedUserTokenConverter(new JwtAuthenticatedUserConverter(AuthenticatedUserClaimsConfiguration.createDefault()), null, revocationList);
+        revocationList.sync();
+        revocationList.revokeSessionId("session-1", Instant.now().plusSeconds(60));
+
+        assertThatThrownBy(() -> converter.convert(jwt("token-1", "session-1")))
+                .isInstanceOf(OAuth2AuthenticationException.class)
+                .hasMessageContaining("revoked");
+    }
+
+    @Test
+    @DisplayName("[TokenRevocationList] should reject the bearer tokens of a session revoked by a back-channel logout")
+    void shouldRejectTokensOfLoggedOutSession()
+    {
+        var converter = new JwtAuthenticatedUserTokenConverter(new JwtAuthenticatedUserConverter(AuthenticatedUserClaimsConfiguration.createDefault()), null, revocationList);
+        revocationList.sync();
+
+        revocationList.revokeSessionId("session-1");
+
+        assertThatThrownBy(() -> converter.convert(jwt("token-1", "session-1")))
+                .isInstanceOf(OAuth2AuthenticationException.class)
+                .hasMessageContaining("revoked");
+        assertThat(converter.convert(jwt("token-2", "session-2")).getPrincipal().getUserId()).isEqualTo("user");
+        assertThat(jdbcTemplate.queryForObject("SELECT expires_at FROM token_revocation WHERE identifier = 'session-1'", Long.class))
+                .isGreaterThan(Instant.now().plus(Duration.ofMinutes(59)).toEpochMilli());
+    }
+
+    @Test
+    @DisplayName("[TokenRevocationList] should only offload the reactive conversion if the table must be queried")
+    void shouldOffloadReactiveConversionOnlyForPossibleMatches()
+    {
+        var converter = new ReactiveJwtAuthenticatedUserTokenConverter(new JwtAuthenticatedUserTokenConverter(
+                new JwtAuthenticatedUserConverter(AuthenticatedUserClaimsConfiguration.createDefault()), null, revocationList));
+
+        StepVerifier.create(converter.convert(jwt("token-1", null)).map(token -> Thread.currentThread().getName()))
+                .assertNext(thread -> assertThat(thread).startsWith("boundedElastic"))
+                .verifyComplete();
+
+        revocationList.sync();
+
+        StepVerifier.create(converter.convert(jwt("token-1", null)).map(token -> Thread.currentThread().getName()))
+                .assertNext(thread -> assertThat(thread).isEqualTo(Thread.currentThread().getName()))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("[TokenRevocationList] should only rebuild the filter early if it exceeds the capacity it has been built with")
+    void shouldCompareFilterSizeWithItsCapacity()
+    {
+        long expiresAt = Instant.now().plusSeconds(60).toEpochMilli();
+        for (int i = 0; i < 1_500; i++)
+            jdbcTemplate.update("INSERT INTO token_revocation VALUES ('jti', ?, ?, ?)", "token-" + i, System.currentTimeMillis(), expiresAt);
+        revocationList.sync();
+
+        jdbcTemplate.update("INSERT INTO token_revocation VALUES ('jti', 'expired', ?, ?)",
+                System.currentTimeMillis() - 120_000, System.currentTimeMillis() - 60_000);
+        revocationList.sync();
+
+        assertThat(revocationList.isRevoked(jwt("token-1499", null))).isTrue();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM token_revocation WHERE identifier = 'expired'", Integer.class)).isOne();
+    }
+
+    private double checks(String outcome)
+    {
+        return registry.get(MicrometerAuthenticatedUserMetrics.REVOCATION_CHECKS_COUNTER).tag("outcome", outcome).counter().count();
+    }
+
+    private static Jwt jwt(String tokenId, String sessionId)
+    {
+        var builder = Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .subject("user")
+                .issuedAt(Instant.now())
+                .expiresAt(Instant.now().plusSeconds(60));
+        if (tokenId != null)
+            builder.jti(tokenId);
+        if (sessionId != null)
+            builder.claim("sid", sessionId);
+
+        return builder.build();
+    }
+}
@@ -1,12 +1,15 @@
 package rize.os.security.oauth2.client;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
 import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserRequest;
 import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserService;
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.stereotype.Service;
 import rize.os.security.commons.AuthenticatedUser;
+import rize.os.security.commons.AuthenticatedUserMetrics;
 import rize.os.security.commons.JwtAuthenticatedUserConverter;
 
 /**
@@ -15,6 +18,9 @@ import rize.os.security.commons.JwtAuthenticatedUserConverter;
  * It uses a {@link JwtDecoder} to decode the access token from the {@link OidcUserRequest} and then uses the
  * {@link JwtAuthenticatedUserConverter} to convert the resulting JWT into an {@link AuthenticatedUser} object.
  * This class extends {@link OidcUserService} to integrate with Spring Security's OIDC login flow.
+ * <p>
+ * The time it takes to decode the access token is recorded in the {@link AuthenticatedUserMetrics}, the conversion
+ * is recorded by the {@link JwtAuthenticatedUserConverter} itself.
  *
  * @author Dennis Schaefer (<a href="https://github.com/dennis-schaefer">...</a>)
  */
@@ -23,6 +29,7 @@ public class AuthenticatedUserOidcService extends OidcUserService
 {
     private final JwtAuthenticatedUserConverter jwtAuthenticatedUserConverter;
     private final JwtDecoder jwtDecoder;
+    private final AuthenticatedUserMetrics metrics;
 
     /**
      * Constructs a new {@code AuthenticatedUserOidcService} with the given dependencies.
@@ -32,9 +39,25 @@ public class AuthenticatedUserOidcService extends OidcUserService
      */
     public AuthenticatedUserOidcService(JwtAuthenticatedUserConverter jwtAuthenticatedUserConverter,
                                         JwtDecoder jwtDecoder)
+    {
+        this(jwtAuthenticatedUserConverter, jwtDecoder, null);
+    }
+
+    /**
+     * Constructs a new {@code AuthenticatedUserOidcService} with the given dependencies.
+     *
+     * @param jwtAuthenticatedUserConverter the converter to use for converting the JWT to an {@link AuthenticatedUser}
+     * @param jwtDecoder                    the decoder to use for decoding the access token
+     * @param metrics                       the metrics to record the decoding in, if {@code null} nothing is recorded
+     */
+    @Autowired
+    public AuthenticatedUserOidcService(JwtAuthenticatedUserConverter jwtAuthenticatedUserConverter,
+                                        JwtDecoder jwtDecoder,
+                                        @Nullable AuthenticatedUserMetrics metrics)
     {
         this.jwtAuthenticatedUserConverter = jwtAuthenticatedUserConverter;
         this.jwtDecoder = jwtDecoder;
+        this.metrics = metrics != null ? metrics : AuthenticatedUserMetrics.NOOP;
     }
 
     /**
@@ -51,7 +74,10 @@ public class AuthenticatedUserOidcService extends OidcUserService
     @Override
     public AuthenticatedUser loadUser(OidcUserRequest userRequest) throws OAuth2AuthenticationException
     {
+        long startTime = metrics.startTime();
         var jwt = jwtDecoder.decode(userRequest.getAccessToken().getTokenValue());
+        metrics.recordDecode(startTime);
+
         return jwtAuthenticatedUserConverter.convert(jwt);
     }
 }